@@ -0,0 +1,78 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.ob.uk.rcs.benchmarks;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.forgerock.sapi.gateway.ob.uk.common.error.OBErrorException;
+import com.forgerock.sapi.gateway.ob.uk.rcs.api.dto.consent.decision.ConsentDecisionDeserialized;
+import com.forgerock.sapi.gateway.ob.uk.rcs.server.util.ConsentDecisionDeserializer;
+
+/**
+ * Deserialization of the consent decision submitted by the Consent UI.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConsentDecisionDeserializerBenchmark {
+
+    private ObjectMapper objectMapper;
+
+    private String accountConsentDecision;
+
+    private String paymentConsentDecision;
+
+    @Setup
+    public void setup() throws Exception {
+        objectMapper = ObjectMapperFixtures.rcsObjectMapper();
+        final String consentJwt = JwtFixtures.consentRequestJwt();
+        accountConsentDecision = "{\"consentJwt\":\"" + consentJwt + "\",\"decision\":\"Authorised\",\"accountIds\":[\""
+                + UUID.randomUUID() + "\",\"" + UUID.randomUUID() + "\",\"" + UUID.randomUUID() + "\"]}";
+        paymentConsentDecision = "{\"consentJwt\":\"" + consentJwt + "\",\"decision\":\"Authorised\",\"debtorAccount\":{"
+                + "\"accountId\":\"" + UUID.randomUUID() + "\",\"status\":\"Enabled\","
+                + "\"statusUpdateDateTime\":\"2023-01-11T07:00:05.000Z\",\"currency\":\"GBP\","
+                + "\"accountType\":\"Personal\",\"accountSubType\":\"CurrentAccount\",\"nickname\":\"UK Bills\","
+                + "\"openingDate\":\"2023-01-10T07:00:05.000Z\",\"accounts\":[{"
+                + "\"schemeName\":\"UK.OBIE.SortCodeAccountNumber\",\"identification\":\"08080021325698\","
+                + "\"name\":\"account-name\",\"secondaryIdentification\":\"16282771\"}]}}";
+    }
+
+    @Benchmark
+    public ConsentDecisionDeserialized deserializeAccountConsentDecision() throws OBErrorException {
+        return ConsentDecisionDeserializer.deserializeConsentDecision(accountConsentDecision, objectMapper, ConsentDecisionDeserialized.class);
+    }
+
+    @Benchmark
+    public ConsentDecisionDeserialized deserializePaymentConsentDecision() throws OBErrorException {
+        return ConsentDecisionDeserializer.deserializeConsentDecision(paymentConsentDecision, objectMapper, ConsentDecisionDeserialized.class);
+    }
+}
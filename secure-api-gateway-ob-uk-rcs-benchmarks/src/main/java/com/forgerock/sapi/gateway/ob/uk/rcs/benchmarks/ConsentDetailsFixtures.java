@@ -0,0 +1,210 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.ob.uk.rcs.benchmarks;
+
+import static com.forgerock.sapi.gateway.ob.uk.rcs.server.api.details.payment.BasePaymentConsentDetailsService.computeTotalChargeAmount;
+
+import java.util.List;
+
+import com.forgerock.sapi.gateway.ob.uk.common.datamodel.account.FRAccountWithBalance;
+import com.forgerock.sapi.gateway.ob.uk.common.datamodel.testsupport.account.FRAccountWithBalanceTestDataFactory;
+import com.forgerock.sapi.gateway.ob.uk.rcs.api.dto.consent.details.AccountsConsentDetails;
+import com.forgerock.sapi.gateway.ob.uk.rcs.api.dto.consent.details.ConsentDetails;
+import com.forgerock.sapi.gateway.ob.uk.rcs.api.dto.consent.details.CustomerInfoConsentDetails;
+import com.forgerock.sapi.gateway.ob.uk.rcs.api.dto.consent.details.DomesticPaymentConsentDetails;
+import com.forgerock.sapi.gateway.ob.uk.rcs.api.dto.consent.details.DomesticScheduledPaymentConsentDetails;
+import com.forgerock.sapi.gateway.ob.uk.rcs.api.dto.consent.details.DomesticStandingOrderConsentDetails;
+import com.forgerock.sapi.gateway.ob.uk.rcs.api.dto.consent.details.DomesticVrpPaymentConsentDetails;
+import com.forgerock.sapi.gateway.ob.uk.rcs.api.dto.consent.details.FilePaymentConsentDetails;
+import com.forgerock.sapi.gateway.ob.uk.rcs.api.dto.consent.details.FundsConfirmationConsentDetails;
+import com.forgerock.sapi.gateway.ob.uk.rcs.api.dto.consent.details.InternationalPaymentConsentDetails;
+import com.forgerock.sapi.gateway.ob.uk.rcs.api.dto.consent.details.InternationalScheduledPaymentConsentDetails;
+import com.forgerock.sapi.gateway.ob.uk.rcs.api.dto.consent.details.InternationalStandingOrderConsentDetails;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.account.AccountAccessConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.customerinfo.CustomerInfoConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.funds.FundsConfirmationConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.domestic.DomesticPaymentConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.domestic.DomesticScheduledPaymentConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.domestic.DomesticStandingOrderConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.file.FilePaymentConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.international.InternationalPaymentConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.international.InternationalScheduledPaymentConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.international.InternationalStandingOrderConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.vrp.DomesticVRPConsentEntity;
+import com.forgerock.sapi.gateway.uk.common.shared.api.meta.share.IntentType;
+
+/**
+ * ConsentDetails objects as returned to the Consent UI, populated from the {@link ConsentEntityFixtures} in the same way
+ * as the ConsentDetailsService implementations populate them (without calling out to the RS or Cloud platform).
+ */
+public final class ConsentDetailsFixtures {
+
+    private static final String USERNAME = "benchmark-psu";
+    private static final String USER_ID = "f6a8a2a6-9b1f-4c8e-8f0a-2d0c9f3f1b7e";
+
+    private ConsentDetailsFixtures() {
+    }
+
+    public static ConsentDetails consentDetails(IntentType intentType) {
+        final ConsentDetails consentDetails = switch (intentType) {
+            case ACCOUNT_ACCESS_CONSENT -> accountsConsentDetails(ConsentEntityFixtures.accountAccessConsent());
+            case CUSTOMER_INFO_CONSENT -> customerInfoConsentDetails(ConsentEntityFixtures.customerInfoConsent());
+            case FUNDS_CONFIRMATION_CONSENT -> fundsConfirmationConsentDetails(ConsentEntityFixtures.fundsConfirmationConsent());
+            case PAYMENT_DOMESTIC_CONSENT -> domesticPaymentConsentDetails(ConsentEntityFixtures.domesticPaymentConsent());
+            case PAYMENT_DOMESTIC_SCHEDULED_CONSENT -> domesticScheduledPaymentConsentDetails(ConsentEntityFixtures.domesticScheduledPaymentConsent());
+            case PAYMENT_DOMESTIC_STANDING_ORDERS_CONSENT -> domesticStandingOrderConsentDetails(ConsentEntityFixtures.domesticStandingOrderConsent());
+            case PAYMENT_INTERNATIONAL_CONSENT -> internationalPaymentConsentDetails(ConsentEntityFixtures.internationalPaymentConsent());
+            case PAYMENT_INTERNATIONAL_SCHEDULED_CONSENT -> internationalScheduledPaymentConsentDetails(ConsentEntityFixtures.internationalScheduledPaymentConsent());
+            case PAYMENT_INTERNATIONAL_STANDING_ORDERS_CONSENT -> internationalStandingOrderConsentDetails(ConsentEntityFixtures.internationalStandingOrderConsent());
+            case PAYMENT_FILE_CONSENT -> filePaymentConsentDetails(ConsentEntityFixtures.filePaymentConsent());
+            case DOMESTIC_VRP_PAYMENT_CONSENT -> domesticVrpPaymentConsentDetails(ConsentEntityFixtures.domesticVrpConsent());
+            default -> throw new IllegalArgumentException("Unsupported intentType: " + intentType);
+        };
+        consentDetails.setConsentId(intentType.generateIntentId());
+        consentDetails.setUsername(USERNAME);
+        consentDetails.setUserId(USER_ID);
+        consentDetails.setClientId(ConsentEntityFixtures.API_CLIENT_ID);
+        consentDetails.setClientName("Benchmark TPP");
+        consentDetails.setLogo("https://tpp.example.com/logo.png");
+        consentDetails.setServiceProviderName("Test Bank");
+        return consentDetails;
+    }
+
+    private static List<FRAccountWithBalance> accounts() {
+        return List.of(FRAccountWithBalanceTestDataFactory.aValidFRAccountWithBalance(),
+                       FRAccountWithBalanceTestDataFactory.aValidFRAccountWithBalance(),
+                       FRAccountWithBalanceTestDataFactory.aValidFRAccountWithBalance());
+    }
+
+    private static AccountsConsentDetails accountsConsentDetails(AccountAccessConsentEntity consent) {
+        final AccountsConsentDetails consentDetails = new AccountsConsentDetails();
+        consentDetails.setPermissions(consent.getRequestObj().getData().getPermissions());
+        consentDetails.setFromTransaction(consent.getRequestObj().getData().getTransactionFromDateTime());
+        consentDetails.setToTransaction(consent.getRequestObj().getData().getTransactionToDateTime());
+        consentDetails.setExpiredDate(consent.getRequestObj().getData().getExpirationDateTime());
+        consentDetails.setAccounts(accounts());
+        return consentDetails;
+    }
+
+    private static CustomerInfoConsentDetails customerInfoConsentDetails(CustomerInfoConsentEntity consent) {
+        final CustomerInfoConsentDetails consentDetails = new CustomerInfoConsentDetails();
+        consentDetails.setPermissions(consent.getRequestObj().getData().getPermissions());
+        return consentDetails;
+    }
+
+    private static FundsConfirmationConsentDetails fundsConfirmationConsentDetails(FundsConfirmationConsentEntity consent) {
+        final FundsConfirmationConsentDetails consentDetails = new FundsConfirmationConsentDetails();
+        consentDetails.setExpirationDateTime(consent.getRequestObj().getData().getExpirationDateTime());
+        consentDetails.setDebtorAccount(consent.getRequestObj().getData().getDebtorAccount());
+        consentDetails.setAccounts(accounts());
+        return consentDetails;
+    }
+
+    private static DomesticPaymentConsentDetails domesticPaymentConsentDetails(DomesticPaymentConsentEntity consent) {
+        final DomesticPaymentConsentDetails consentDetails = new DomesticPaymentConsentDetails();
+        consentDetails.setCharges(computeTotalChargeAmount(consent.getCharges()));
+        consentDetails.setInitiation(consent.getRequestObj().getData().getInitiation());
+        consentDetails.setInstructedAmount(consentDetails.getInitiation().getInstructedAmount());
+        if (consentDetails.getInitiation().getRemittanceInformation() != null) {
+            consentDetails.setPaymentReference(consentDetails.getInitiation().getRemittanceInformation().getReference());
+        }
+        consentDetails.setAccounts(accounts());
+        return consentDetails;
+    }
+
+    private static DomesticScheduledPaymentConsentDetails domesticScheduledPaymentConsentDetails(DomesticScheduledPaymentConsentEntity consent) {
+        final DomesticScheduledPaymentConsentDetails consentDetails = new DomesticScheduledPaymentConsentDetails();
+        consentDetails.setCharges(computeTotalChargeAmount(consent.getCharges()));
+        consentDetails.setInitiation(consent.getRequestObj().getData().getInitiation());
+        consentDetails.setInstructedAmount(consentDetails.getInitiation().getInstructedAmount());
+        if (consentDetails.getInitiation().getRemittanceInformation() != null) {
+            consentDetails.setPaymentReference(consentDetails.getInitiation().getRemittanceInformation().getReference());
+        }
+        consentDetails.setPaymentDate(consentDetails.getInitiation().getRequestedExecutionDateTime());
+        consentDetails.setAccounts(accounts());
+        return consentDetails;
+    }
+
+    private static DomesticStandingOrderConsentDetails domesticStandingOrderConsentDetails(DomesticStandingOrderConsentEntity consent) {
+        final DomesticStandingOrderConsentDetails consentDetails = new DomesticStandingOrderConsentDetails();
+        consentDetails.setCharges(computeTotalChargeAmount(consent.getCharges()));
+        consentDetails.setInitiation(consent.getRequestObj().getData().getInitiation());
+        consentDetails.setPaymentReference(consentDetails.getInitiation().getReference());
+        consentDetails.setAccounts(accounts());
+        return consentDetails;
+    }
+
+    private static InternationalPaymentConsentDetails internationalPaymentConsentDetails(InternationalPaymentConsentEntity consent) {
+        final InternationalPaymentConsentDetails consentDetails = new InternationalPaymentConsentDetails();
+        consentDetails.setCharges(computeTotalChargeAmount(consent.getCharges()));
+        consentDetails.setInitiation(consent.getRequestObj().getData().getInitiation());
+        consentDetails.setInstructedAmount(consentDetails.getInitiation().getInstructedAmount());
+        if (consentDetails.getInitiation().getRemittanceInformation() != null) {
+            consentDetails.setPaymentReference(consentDetails.getInitiation().getRemittanceInformation().getReference());
+        }
+        consentDetails.setExchangeRateInformation(consent.getExchangeRateInformation());
+        consentDetails.setCurrencyOfTransfer(consentDetails.getInitiation().getCurrencyOfTransfer());
+        consentDetails.setAccounts(accounts());
+        return consentDetails;
+    }
+
+    private static InternationalScheduledPaymentConsentDetails internationalScheduledPaymentConsentDetails(InternationalScheduledPaymentConsentEntity consent) {
+        final InternationalScheduledPaymentConsentDetails consentDetails = new InternationalScheduledPaymentConsentDetails();
+        consentDetails.setCharges(computeTotalChargeAmount(consent.getCharges()));
+        consentDetails.setInitiation(consent.getRequestObj().getData().getInitiation());
+        consentDetails.setInstructedAmount(consentDetails.getInitiation().getInstructedAmount());
+        if (consentDetails.getInitiation().getRemittanceInformation() != null) {
+            consentDetails.setPaymentReference(consentDetails.getInitiation().getRemittanceInformation().getReference());
+        }
+        consentDetails.setPaymentDate(consentDetails.getInitiation().getRequestedExecutionDateTime());
+        consentDetails.setExchangeRateInformation(consent.getExchangeRateInformation());
+        consentDetails.setCurrencyOfTransfer(consentDetails.getInitiation().getCurrencyOfTransfer());
+        consentDetails.setAccounts(accounts());
+        return consentDetails;
+    }
+
+    private static InternationalStandingOrderConsentDetails internationalStandingOrderConsentDetails(InternationalStandingOrderConsentEntity consent) {
+        final InternationalStandingOrderConsentDetails consentDetails = new InternationalStandingOrderConsentDetails();
+        consentDetails.setCharges(computeTotalChargeAmount(consent.getCharges()));
+        consentDetails.setInitiation(consent.getRequestObj().getData().getInitiation());
+        consentDetails.setPaymentReference(consentDetails.getInitiation().getReference());
+        consentDetails.setCurrencyOfTransfer(consentDetails.getInitiation().getCurrencyOfTransfer());
+        consentDetails.setAccounts(accounts());
+        return consentDetails;
+    }
+
+    private static FilePaymentConsentDetails filePaymentConsentDetails(FilePaymentConsentEntity consent) {
+        final FilePaymentConsentDetails consentDetails = new FilePaymentConsentDetails();
+        consentDetails.setCharges(computeTotalChargeAmount(consent.getCharges()));
+        consentDetails.setFilePayment(consent.getRequestObj().getData().getInitiation());
+        consentDetails.setFileReference(consentDetails.getFilePayment().getFileReference());
+        consentDetails.setNumberOfTransactions(consentDetails.getFilePayment().getNumberOfTransactions());
+        consentDetails.setControlSum(consentDetails.getFilePayment().getControlSum());
+        if (consentDetails.getFilePayment().getRemittanceInformation() != null) {
+            consentDetails.setPaymentReference(consentDetails.getFilePayment().getRemittanceInformation().getReference());
+        }
+        consentDetails.setAccounts(accounts());
+        return consentDetails;
+    }
+
+    private static DomesticVrpPaymentConsentDetails domesticVrpPaymentConsentDetails(DomesticVRPConsentEntity consent) {
+        final DomesticVrpPaymentConsentDetails consentDetails = new DomesticVrpPaymentConsentDetails();
+        consentDetails.setInitiation(consent.getRequestObj().getData().getInitiation());
+        consentDetails.setControlParameters(consent.getRequestObj().getData().getControlParameters());
+        consentDetails.setAccounts(accounts());
+        return consentDetails;
+    }
+}
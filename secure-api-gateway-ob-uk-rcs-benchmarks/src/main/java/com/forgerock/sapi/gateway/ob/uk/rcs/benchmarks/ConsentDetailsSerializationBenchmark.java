@@ -0,0 +1,68 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.ob.uk.rcs.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.forgerock.sapi.gateway.ob.uk.rcs.api.dto.consent.details.ConsentDetails;
+import com.forgerock.sapi.gateway.uk.common.shared.api.meta.share.IntentType;
+
+/**
+ * Jackson serialization of each ConsentDetails type, as returned to the Consent UI by the consent details API.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConsentDetailsSerializationBenchmark {
+
+    @Param({"ACCOUNT_ACCESS_CONSENT", "CUSTOMER_INFO_CONSENT", "FUNDS_CONFIRMATION_CONSENT", "PAYMENT_DOMESTIC_CONSENT",
+            "PAYMENT_DOMESTIC_SCHEDULED_CONSENT", "PAYMENT_DOMESTIC_STANDING_ORDERS_CONSENT", "PAYMENT_INTERNATIONAL_CONSENT",
+            "PAYMENT_INTERNATIONAL_SCHEDULED_CONSENT", "PAYMENT_INTERNATIONAL_STANDING_ORDERS_CONSENT", "PAYMENT_FILE_CONSENT",
+            "DOMESTIC_VRP_PAYMENT_CONSENT"})
+    public IntentType intentType;
+
+    private ObjectMapper objectMapper;
+
+    private ConsentDetails consentDetails;
+
+    @Setup
+    public void setup() {
+        objectMapper = ObjectMapperFixtures.rcsObjectMapper();
+        consentDetails = ConsentDetailsFixtures.consentDetails(intentType);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(consentDetails);
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.ob.uk.rcs.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.DefaultDbRefResolver;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.vrp.DomesticVRPConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.convert.ConsentEntityTypeMapper;
+import com.forgerock.sapi.gateway.uk.common.shared.api.meta.share.IntentType;
+
+/**
+ * Consent document encoding with the {@code _class} type hint (Spring Data's default) and without it, via
+ * {@link ConsentEntityTypeMapper}.
+ * <p>
+ * Domestic VRP Consents are inserted into a collection per encoding, printing the average document size, then read
+ * back by id at random. Run with -prof gc to also measure the allocation per read (driver decoding plus entity mapping).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ConsentDocumentEncodingBenchmark {
+
+    private static final int DOCUMENT_COUNT = 10_000;
+
+    @Param({"typeHinted", "compact"})
+    public String encoding;
+
+    private ConfigurableApplicationContext applicationContext;
+
+    private MongoTemplate mongoTemplate;
+
+    private String collectionName;
+
+    private List<String> ids;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        applicationContext = ConsentStoreBenchmarkApplication.start();
+        final MongoDatabaseFactory mongoDatabaseFactory = applicationContext.getBean(MongoDatabaseFactory.class);
+        final MongoMappingContext mongoMappingContext = applicationContext.getBean(MongoMappingContext.class);
+
+        final MappingMongoConverter mappingMongoConverter = new MappingMongoConverter(new DefaultDbRefResolver(mongoDatabaseFactory),
+                                                                                      mongoMappingContext);
+        mappingMongoConverter.setCustomConversions(applicationContext.getBean(MongoCustomConversions.class));
+        if ("compact".equals(encoding)) {
+            mappingMongoConverter.setTypeMapper(new ConsentEntityTypeMapper(List.of(DomesticVRPConsentEntity.class), mongoMappingContext));
+        }
+        mappingMongoConverter.afterPropertiesSet();
+        mongoTemplate = new MongoTemplate(mongoDatabaseFactory, mappingMongoConverter);
+
+        collectionName = "encodingBenchmark_" + encoding;
+        mongoTemplate.dropCollection(collectionName);
+        ids = new ArrayList<>(DOCUMENT_COUNT);
+        for (int i = 0; i < DOCUMENT_COUNT; i++) {
+            final DomesticVRPConsentEntity consent = ConsentEntityFixtures.domesticVrpConsent();
+            consent.setId(IntentType.DOMESTIC_VRP_PAYMENT_CONSENT.generateIntentId());
+            ids.add(mongoTemplate.insert(consent, collectionName).getId());
+        }
+        final Document collStats = mongoTemplate.executeCommand(new Document("collStats", collectionName));
+        System.out.printf("%s: avgObjSize=%dB%n", collectionName, ((Number) collStats.get("avgObjSize")).longValue());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mongoTemplate.dropCollection(collectionName);
+        applicationContext.close();
+    }
+
+    @Benchmark
+    public DomesticVRPConsentEntity findById() {
+        return mongoTemplate.findById(ids.get(ThreadLocalRandom.current().nextInt(ids.size())), DomesticVRPConsentEntity.class,
+                                      collectionName);
+    }
+}
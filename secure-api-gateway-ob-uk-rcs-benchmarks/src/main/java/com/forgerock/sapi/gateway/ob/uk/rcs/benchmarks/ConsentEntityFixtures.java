@@ -0,0 +1,230 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.ob.uk.rcs.benchmarks;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import org.joda.time.DateTime;
+
+import com.forgerock.sapi.gateway.ob.uk.common.datamodel.common.FRAmount;
+import com.forgerock.sapi.gateway.ob.uk.common.datamodel.common.FRCharge;
+import com.forgerock.sapi.gateway.ob.uk.common.datamodel.common.FRChargeBearerType;
+import com.forgerock.sapi.gateway.ob.uk.common.datamodel.converter.v3.account.FRReadConsentConverter;
+import com.forgerock.sapi.gateway.ob.uk.common.datamodel.converter.v3.funds.FRFundsConfirmationConsentConverter;
+import com.forgerock.sapi.gateway.ob.uk.common.datamodel.converter.v3.payment.FRWriteDomesticConsentConverter;
+import com.forgerock.sapi.gateway.ob.uk.common.datamodel.converter.v3.payment.FRWriteDomesticScheduledConsentConverter;
+import com.forgerock.sapi.gateway.ob.uk.common.datamodel.converter.v3.payment.FRWriteDomesticStandingOrderConsentConverter;
+import com.forgerock.sapi.gateway.ob.uk.common.datamodel.converter.v3.payment.FRWriteFileConsentConverter;
+import com.forgerock.sapi.gateway.ob.uk.common.datamodel.converter.v3.payment.FRWriteInternationalConsentConverter;
+import com.forgerock.sapi.gateway.ob.uk.common.datamodel.converter.v3.payment.FRWriteInternationalScheduledConsentConverter;
+import com.forgerock.sapi.gateway.ob.uk.common.datamodel.converter.v3.payment.FRWriteInternationalStandingOrderConsentConverter;
+import com.forgerock.sapi.gateway.ob.uk.common.datamodel.converter.v3.vrp.FRDomesticVRPConsentConverters;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.BaseConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.account.AccountAccessConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.customerinfo.CustomerInfoConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.funds.FundsConfirmationConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.BasePaymentConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.domestic.DomesticPaymentConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.domestic.DomesticScheduledPaymentConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.domestic.DomesticStandingOrderConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.file.FilePaymentConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.international.InternationalPaymentConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.international.InternationalScheduledPaymentConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.international.InternationalStandingOrderConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.vrp.DomesticVRPConsentEntity;
+import com.forgerock.sapi.gateway.uk.common.shared.api.meta.obie.OBVersion;
+import com.forgerock.sapi.gateway.uk.common.shared.api.meta.share.IntentType;
+
+import uk.org.openbanking.datamodel.v3.account.OBReadConsent1;
+import uk.org.openbanking.datamodel.v3.account.OBReadConsent1Data;
+import uk.org.openbanking.datamodel.v3.account.OBRisk2;
+import uk.org.openbanking.datamodel.v3.common.OBExternalAccountIdentification4Code;
+import uk.org.openbanking.datamodel.v3.common.OBExternalPermissions1Code;
+import uk.org.openbanking.datamodel.v3.common.OBExternalRequestStatus1Code;
+import uk.org.openbanking.datamodel.v3.fund.OBFundsConfirmationConsent1;
+import uk.org.openbanking.datamodel.v3.fund.OBFundsConfirmationConsent1Data;
+import uk.org.openbanking.datamodel.v3.fund.OBFundsConfirmationConsent1DataDebtorAccount;
+import uk.org.openbanking.datamodel.v3.payment.OBPaymentConsentStatus;
+import uk.org.openbanking.testsupport.v3.payment.OBWriteDomesticConsentTestDataFactory;
+import uk.org.openbanking.testsupport.v3.payment.OBWriteDomesticScheduledConsentTestDataFactory;
+import uk.org.openbanking.testsupport.v3.payment.OBWriteDomesticStandingOrderConsentTestDataFactory;
+import uk.org.openbanking.testsupport.v3.payment.OBWriteFileConsentTestDataFactory;
+import uk.org.openbanking.testsupport.v3.payment.OBWriteInternationalConsentTestDataFactory;
+import uk.org.openbanking.testsupport.v3.payment.OBWriteInternationalScheduledConsentTestDataFactory;
+import uk.org.openbanking.testsupport.v3.payment.OBWriteInternationalStandingOrderConsentTestDataFactory;
+import uk.org.openbanking.testsupport.v3.vrp.OBDomesticVrpConsentRequestTestDataFactory;
+
+/**
+ * Consent Store entities used as the input data of the benchmarks, built in the same way as the Consent Store repo
+ * tests build their consents.
+ */
+public final class ConsentEntityFixtures {
+
+    public static final String API_CLIENT_ID = "benchmark-api-client";
+
+    private ConsentEntityFixtures() {
+    }
+
+    /**
+     * @return a new consent in its initial status, with an id assigned
+     */
+    public static BaseConsentEntity<?> consentEntity(IntentType intentType) {
+        final BaseConsentEntity<?> consent = switch (intentType) {
+            case ACCOUNT_ACCESS_CONSENT -> accountAccessConsent();
+            case CUSTOMER_INFO_CONSENT -> customerInfoConsent();
+            case FUNDS_CONFIRMATION_CONSENT -> fundsConfirmationConsent();
+            case PAYMENT_DOMESTIC_CONSENT -> domesticPaymentConsent();
+            case PAYMENT_DOMESTIC_SCHEDULED_CONSENT -> domesticScheduledPaymentConsent();
+            case PAYMENT_DOMESTIC_STANDING_ORDERS_CONSENT -> domesticStandingOrderConsent();
+            case PAYMENT_INTERNATIONAL_CONSENT -> internationalPaymentConsent();
+            case PAYMENT_INTERNATIONAL_SCHEDULED_CONSENT -> internationalScheduledPaymentConsent();
+            case PAYMENT_INTERNATIONAL_STANDING_ORDERS_CONSENT -> internationalStandingOrderConsent();
+            case PAYMENT_FILE_CONSENT -> filePaymentConsent();
+            case DOMESTIC_VRP_PAYMENT_CONSENT -> domesticVrpConsent();
+            default -> throw new IllegalArgumentException("Unsupported intentType: " + intentType);
+        };
+        consent.setId(intentType.generateIntentId());
+        return consent;
+    }
+
+    public static AccountAccessConsentEntity accountAccessConsent() {
+        final AccountAccessConsentEntity consent = new AccountAccessConsentEntity();
+        consent.setApiClientId(API_CLIENT_ID);
+        consent.setStatus(OBExternalRequestStatus1Code.AWAITINGAUTHORISATION.toString());
+        consent.setRequestVersion(OBVersion.v3_1_10);
+        final OBReadConsent1 obReadConsent = new OBReadConsent1();
+        obReadConsent.setData(new OBReadConsent1Data().permissions(List.of(OBExternalPermissions1Code.READACCOUNTSDETAIL,
+                                                                           OBExternalPermissions1Code.READBALANCES,
+                                                                           OBExternalPermissions1Code.READTRANSACTIONSDETAIL))
+                                                      .expirationDateTime(DateTime.now().plusDays(30)));
+        obReadConsent.setRisk(new OBRisk2());
+        consent.setRequestObj(FRReadConsentConverter.toFRReadConsent(obReadConsent));
+        return consent;
+    }
+
+    public static CustomerInfoConsentEntity customerInfoConsent() {
+        final CustomerInfoConsentEntity consent = new CustomerInfoConsentEntity();
+        consent.setApiClientId(API_CLIENT_ID);
+        consent.setStatus(OBExternalRequestStatus1Code.AWAITINGAUTHORISATION.toString());
+        consent.setRequestVersion(OBVersion.v1_0);
+        final OBReadConsent1 obReadConsent = new OBReadConsent1();
+        obReadConsent.setData(new OBReadConsent1Data().permissions(List.of(OBExternalPermissions1Code.READCUSTOMERINFO))
+                                                      .expirationDateTime(DateTime.now().plusDays(30)));
+        obReadConsent.setRisk(new OBRisk2());
+        consent.setRequestObj(FRReadConsentConverter.toFRReadConsent(obReadConsent));
+        return consent;
+    }
+
+    public static FundsConfirmationConsentEntity fundsConfirmationConsent() {
+        final FundsConfirmationConsentEntity consent = new FundsConfirmationConsentEntity();
+        consent.setApiClientId(API_CLIENT_ID);
+        consent.setStatus(OBExternalRequestStatus1Code.AWAITINGAUTHORISATION.toString());
+        consent.setRequestVersion(OBVersion.v3_1_10);
+        final OBFundsConfirmationConsent1 obConsent = new OBFundsConfirmationConsent1();
+        obConsent.setData(new OBFundsConfirmationConsent1Data()
+                .expirationDateTime(DateTime.now().plusDays(30))
+                .debtorAccount(new OBFundsConfirmationConsent1DataDebtorAccount()
+                        .schemeName(OBExternalAccountIdentification4Code.SORTCODEACCOUNTNUMBER.toString())
+                        .identification("08080021325698")
+                        .name("account-name")
+                        .secondaryIdentification("secondary-identification")));
+        consent.setRequestObj(FRFundsConfirmationConsentConverter.toFRFundsConfirmationConsent(obConsent));
+        return consent;
+    }
+
+    public static DomesticPaymentConsentEntity domesticPaymentConsent() {
+        final DomesticPaymentConsentEntity consent = paymentConsent(new DomesticPaymentConsentEntity());
+        consent.setRequestObj(FRWriteDomesticConsentConverter.toFRWriteDomesticConsent(
+                OBWriteDomesticConsentTestDataFactory.aValidOBWriteDomesticConsent4()));
+        return consent;
+    }
+
+    public static DomesticScheduledPaymentConsentEntity domesticScheduledPaymentConsent() {
+        final DomesticScheduledPaymentConsentEntity consent = paymentConsent(new DomesticScheduledPaymentConsentEntity());
+        consent.setRequestObj(FRWriteDomesticScheduledConsentConverter.toFRWriteDomesticScheduledConsent(
+                OBWriteDomesticScheduledConsentTestDataFactory.aValidOBWriteDomesticScheduledConsent4()));
+        return consent;
+    }
+
+    public static DomesticStandingOrderConsentEntity domesticStandingOrderConsent() {
+        final DomesticStandingOrderConsentEntity consent = paymentConsent(new DomesticStandingOrderConsentEntity());
+        consent.setRequestObj(FRWriteDomesticStandingOrderConsentConverter.toFRWriteDomesticStandingOrderConsent(
+                OBWriteDomesticStandingOrderConsentTestDataFactory.aValidOBWriteDomesticStandingOrderConsent5()));
+        return consent;
+    }
+
+    public static InternationalPaymentConsentEntity internationalPaymentConsent() {
+        final InternationalPaymentConsentEntity consent = paymentConsent(new InternationalPaymentConsentEntity());
+        consent.setRequestObj(FRWriteInternationalConsentConverter.toFRWriteInternationalConsent(
+                OBWriteInternationalConsentTestDataFactory.aValidOBWriteInternationalConsent5()));
+        return consent;
+    }
+
+    public static InternationalScheduledPaymentConsentEntity internationalScheduledPaymentConsent() {
+        final InternationalScheduledPaymentConsentEntity consent = paymentConsent(new InternationalScheduledPaymentConsentEntity());
+        consent.setRequestObj(FRWriteInternationalScheduledConsentConverter.toFRWriteInternationalScheduledConsent(
+                OBWriteInternationalScheduledConsentTestDataFactory.aValidOBWriteInternationalScheduledConsent5()));
+        return consent;
+    }
+
+    public static InternationalStandingOrderConsentEntity internationalStandingOrderConsent() {
+        final InternationalStandingOrderConsentEntity consent = paymentConsent(new InternationalStandingOrderConsentEntity());
+        consent.setRequestObj(FRWriteInternationalStandingOrderConsentConverter.toFRWriteInternationalStandingOrderConsent(
+                OBWriteInternationalStandingOrderConsentTestDataFactory.aValidOBWriteInternationalStandingOrderConsent6()));
+        return consent;
+    }
+
+    public static FilePaymentConsentEntity filePaymentConsent() {
+        final FilePaymentConsentEntity consent = paymentConsent(new FilePaymentConsentEntity());
+        consent.setRequestObj(FRWriteFileConsentConverter.toFRWriteFileConsent(
+                OBWriteFileConsentTestDataFactory.aValidOBWriteFileConsent3("test-type", "hash12343", "3", BigDecimal.ONE)));
+        return consent;
+    }
+
+    public static DomesticVRPConsentEntity domesticVrpConsent() {
+        final DomesticVRPConsentEntity consent = paymentConsent(new DomesticVRPConsentEntity());
+        consent.setRequestObj(FRDomesticVRPConsentConverters.toFRDomesticVRPConsent(
+                OBDomesticVrpConsentRequestTestDataFactory.aValidOBDomesticVRPConsentRequest()));
+        return consent;
+    }
+
+    /**
+     * @param chargeCount number of charges to create
+     * @return GBP charges, as calculated by the RS when the payment consent is created
+     */
+    public static List<FRCharge> charges(int chargeCount) {
+        return IntStream.range(0, chargeCount)
+                                         .mapToObj(i -> FRCharge.builder()
+                                                                .type("fee" + i)
+                                                                .chargeBearer(FRChargeBearerType.BORNEBYDEBTOR)
+                                                                .amount(new FRAmount("0." + (10 + i % 90), "GBP"))
+                                                                .build())
+                                         .toList();
+    }
+
+    private static <T extends BasePaymentConsentEntity<?>> T paymentConsent(T consent) {
+        consent.setApiClientId(API_CLIENT_ID);
+        consent.setRequestVersion(OBVersion.v3_1_10);
+        consent.setStatus(OBPaymentConsentStatus.AWAITINGAUTHORISATION.toString());
+        consent.setIdempotencyKey(UUID.randomUUID().toString());
+        consent.setIdempotencyKeyExpiration(DateTime.now().plusDays(1));
+        consent.setCharges(charges(2));
+        return consent;
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.ob.uk.rcs.benchmarks;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.bson.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.MongoOperations;
+
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.id.ConsentIdGenerators;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.id.ConsentIdStrategy;
+import com.forgerock.sapi.gateway.uk.common.shared.api.meta.share.IntentType;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.InsertManyOptions;
+
+/**
+ * Insert and recent read latency of consents with ids generated by each {@link ConsentIdStrategy}.
+ * <p>
+ * A collection per strategy is seeded with consentCount documents shaped like a Domestic Payment Consent, then new
+ * consents are inserted and the most recently seeded 1% of consents (the working set being authorised and consumed)
+ * are read by id. The _id index size is printed after seeding, and the number of pages read into the WiredTiger cache
+ * during the trial is printed at the end: the lower this number, the more of the recent working set was resident.
+ * <p>
+ * The cache behaviour only shows once the _id index outgrows the cache, so run against a deployment sized like
+ * production via -jvmArgsAppend -Dconsent.store.benchmark.mongoUri=mongodb://host/consent -p consentCount=50000000.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ConsentIdStrategyBenchmark {
+
+    private static final int SEED_BATCH_SIZE = 1000;
+    private static final int RECENT_SAMPLE_SIZE = 100_000;
+    private static final int PADDING_BYTES = 1500;
+
+    @Param({"RANDOM", "ULID", "UUID_V7"})
+    public ConsentIdStrategy strategy;
+
+    @Param({"1000000"})
+    public long consentCount;
+
+    private ConfigurableApplicationContext applicationContext;
+
+    private MongoOperations mongoOperations;
+
+    private MongoCollection<Document> collection;
+
+    private Supplier<String> idGenerator;
+
+    private String padding;
+
+    /**
+     * Ids of the most recently seeded consents, the targets of the reads
+     */
+    private List<String> recentIds;
+
+    private long pagesReadBefore;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        applicationContext = ConsentStoreBenchmarkApplication.start();
+        mongoOperations = applicationContext.getBean(MongoOperations.class);
+        final String collectionName = "consentIdBenchmark_" + strategy.name();
+        mongoOperations.dropCollection(collectionName);
+        collection = mongoOperations.getCollection(collectionName);
+
+        idGenerator = strategy == ConsentIdStrategy.RANDOM
+                ? IntentType.PAYMENT_DOMESTIC_CONSENT::generateIntentId
+                : new ConsentIdGenerators(EnumSet.of(IntentType.PAYMENT_DOMESTIC_CONSENT), strategy)
+                        .getIdGenerator(IntentType.PAYMENT_DOMESTIC_CONSENT).orElseThrow();
+        padding = "x".repeat(PADDING_BYTES);
+
+        final long recentFrom = consentCount - consentCount / 100;
+        recentIds = new ArrayList<>();
+        for (long seeded = 0; seeded < consentCount; ) {
+            final List<Document> batch = new ArrayList<>(SEED_BATCH_SIZE);
+            for (int i = 0; i < SEED_BATCH_SIZE && seeded < consentCount; i++, seeded++) {
+                final Document consent = newConsent();
+                if (seeded >= recentFrom && recentIds.size() < RECENT_SAMPLE_SIZE) {
+                    recentIds.add(consent.getString("_id"));
+                }
+                batch.add(consent);
+            }
+            collection.insertMany(batch, new InsertManyOptions().ordered(false));
+        }
+        final Document collStats = mongoOperations.executeCommand(new Document("collStats", collectionName));
+        System.out.printf("%s: count=%d, _id index size=%dMB%n", collectionName, consentCount,
+                ((Number) collStats.get("indexSizes", Document.class).get("_id_")).longValue() >> 20);
+        pagesReadBefore = getCacheStat("pages read into cache");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.out.printf("%s: pages read into cache=%d, cache size=%dMB%n", collection.getNamespace().getCollectionName(),
+                getCacheStat("pages read into cache") - pagesReadBefore, getCacheStat("bytes currently in the cache") >> 20);
+        applicationContext.close();
+    }
+
+    private long getCacheStat(String stat) {
+        final Document serverStatus = mongoOperations.executeCommand(new Document("serverStatus", 1));
+        final Document cache = serverStatus.get("wiredTiger", Document.class).get("cache", Document.class);
+        return ((Number) cache.get(stat)).longValue();
+    }
+
+    private Document newConsent() {
+        return new Document("_id", idGenerator.get()).append("apiClientId", ConsentEntityFixtures.API_CLIENT_ID)
+                                                     .append("status", "AwaitingAuthorisation")
+                                                     .append("requestObj", padding);
+    }
+
+    @Benchmark
+    public Object insert() {
+        return collection.insertOne(newConsent());
+    }
+
+    @Benchmark
+    public Document findRecent() {
+        return collection.find(Filters.eq("_id", recentIds.get(ThreadLocalRandom.current().nextInt(recentIds.size())))).first();
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.ob.uk.rcs.benchmarks;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.account.AccountAccessConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.funds.FundsConfirmationConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.account.AccountAccessAuthoriseConsentArgs;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.account.DefaultAccountAccessConsentService;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.funds.DefaultFundsConfirmationAccessConsentService;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.funds.FundsConfirmationAuthoriseConsentArgs;
+
+/**
+ * ConsentService state transitions (create, get, authorise, reject and delete) against an {@link InMemoryConsentRepository},
+ * measuring the service logic (state model validation, access checks and id generation) in isolation from Mongo.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConsentServiceTransitionBenchmark {
+
+    private static final String RESOURCE_OWNER_ID = UUID.randomUUID().toString();
+    private static final List<String> AUTHORISED_ACCOUNT_IDS = List.of(UUID.randomUUID().toString(), UUID.randomUUID().toString());
+    private static final String AUTHORISED_DEBTOR_ACCOUNT_ID = UUID.randomUUID().toString();
+
+    private DefaultAccountAccessConsentService accountAccessConsentService;
+
+    private DefaultFundsConfirmationAccessConsentService fundsConfirmationConsentService;
+
+    private AccountAccessConsentEntity accountAccessConsentTemplate;
+
+    private FundsConfirmationConsentEntity fundsConfirmationConsentTemplate;
+
+    private String existingAccountAccessConsentId;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        final MongoRepository<AccountAccessConsentEntity, String> accountAccessConsentRepo = InMemoryConsentRepository.create();
+        accountAccessConsentService = new DefaultAccountAccessConsentService(accountAccessConsentRepo);
+        final MongoRepository<FundsConfirmationConsentEntity, String> fundsConfirmationConsentRepo = InMemoryConsentRepository.create();
+        fundsConfirmationConsentService = new DefaultFundsConfirmationAccessConsentService(fundsConfirmationConsentRepo);
+
+        accountAccessConsentTemplate = ConsentEntityFixtures.accountAccessConsent();
+        fundsConfirmationConsentTemplate = ConsentEntityFixtures.fundsConfirmationConsent();
+        existingAccountAccessConsentId = accountAccessConsentService.createConsent(newAccountAccessConsent()).getId();
+    }
+
+    /**
+     * Consents share the requestObj of the template, so that the cost of building the request is not measured.
+     */
+    private AccountAccessConsentEntity newAccountAccessConsent() {
+        final AccountAccessConsentEntity consent = new AccountAccessConsentEntity();
+        consent.setApiClientId(accountAccessConsentTemplate.getApiClientId());
+        consent.setRequestVersion(accountAccessConsentTemplate.getRequestVersion());
+        consent.setRequestObj(accountAccessConsentTemplate.getRequestObj());
+        return consent;
+    }
+
+    private FundsConfirmationConsentEntity newFundsConfirmationConsent() {
+        final FundsConfirmationConsentEntity consent = new FundsConfirmationConsentEntity();
+        consent.setApiClientId(fundsConfirmationConsentTemplate.getApiClientId());
+        consent.setRequestVersion(fundsConfirmationConsentTemplate.getRequestVersion());
+        consent.setRequestObj(fundsConfirmationConsentTemplate.getRequestObj());
+        return consent;
+    }
+
+    @Benchmark
+    public AccountAccessConsentEntity accountAccessCreate() {
+        return accountAccessConsentService.createConsent(newAccountAccessConsent());
+    }
+
+    @Benchmark
+    public AccountAccessConsentEntity accountAccessGet() {
+        return accountAccessConsentService.getConsent(existingAccountAccessConsentId, ConsentEntityFixtures.API_CLIENT_ID);
+    }
+
+    @Benchmark
+    public AccountAccessConsentEntity accountAccessCreateAuthorise() {
+        final String consentId = accountAccessConsentService.createConsent(newAccountAccessConsent()).getId();
+        return accountAccessConsentService.authoriseConsent(new AccountAccessAuthoriseConsentArgs(consentId,
+                ConsentEntityFixtures.API_CLIENT_ID, RESOURCE_OWNER_ID, AUTHORISED_ACCOUNT_IDS));
+    }
+
+    @Benchmark
+    public AccountAccessConsentEntity accountAccessCreateReject() {
+        final String consentId = accountAccessConsentService.createConsent(newAccountAccessConsent()).getId();
+        return accountAccessConsentService.rejectConsent(consentId, ConsentEntityFixtures.API_CLIENT_ID, RESOURCE_OWNER_ID);
+    }
+
+    @Benchmark
+    public String accountAccessCreateAuthoriseDelete() {
+        final String consentId = accountAccessConsentService.createConsent(newAccountAccessConsent()).getId();
+        accountAccessConsentService.authoriseConsent(new AccountAccessAuthoriseConsentArgs(consentId,
+                ConsentEntityFixtures.API_CLIENT_ID, RESOURCE_OWNER_ID, AUTHORISED_ACCOUNT_IDS));
+        accountAccessConsentService.deleteConsent(consentId, ConsentEntityFixtures.API_CLIENT_ID);
+        return consentId;
+    }
+
+    @Benchmark
+    public FundsConfirmationConsentEntity fundsConfirmationCreateAuthorise() {
+        final String consentId = fundsConfirmationConsentService.createConsent(newFundsConfirmationConsent()).getId();
+        return fundsConfirmationConsentService.authoriseConsent(new FundsConfirmationAuthoriseConsentArgs(consentId,
+                ConsentEntityFixtures.API_CLIENT_ID, RESOURCE_OWNER_ID, AUTHORISED_DEBTOR_ACCOUNT_ID));
+    }
+}
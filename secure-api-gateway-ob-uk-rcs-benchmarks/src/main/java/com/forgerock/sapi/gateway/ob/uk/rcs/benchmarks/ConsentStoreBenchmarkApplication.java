@@ -0,0 +1,70 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.ob.uk.rcs.benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Profile;
+
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.ConsentStoreConfiguration;
+
+/**
+ * Consent Store repositories and services backed by Mongo, for the benchmarks which measure the Consent Store against
+ * a real database.
+ * <p>
+ * Embedded Mongo is used unless the consent.store.benchmark.mongoUri system property supplies the connection string
+ * (including the database) of an existing deployment. The profile prevents this application being picked up by
+ * component scanning in other applications which have this module on the classpath.
+ */
+@SpringBootApplication
+@Import(ConsentStoreConfiguration.class)
+@Profile(ConsentStoreBenchmarkApplication.PROFILE)
+public class ConsentStoreBenchmarkApplication {
+
+    static final String PROFILE = "consent-store-benchmark";
+
+    static final String MONGO_URI_PROPERTY = "consent.store.benchmark.mongoUri";
+
+    private static final String EMBEDDED_MONGO_VERSION = "4.4.0";
+
+    public static ConfigurableApplicationContext start() {
+        final Map<String, Object> properties = new HashMap<>();
+        properties.put("consent.store.enabled.intentTypes", String.join(",", SyntheticConsentGenerator.DEFAULT_MIX.keySet()
+                                                                                                               .stream()
+                                                                                                               .map(Enum::name)
+                                                                                                               .toList()));
+        properties.put("consent.store.sweeper.enabled", false);
+        properties.put("spring.data.mongodb.database", "consent");
+        properties.put("logging.level.org.mongodb", "WARN");
+        final String mongoUri = System.getProperty(MONGO_URI_PROPERTY);
+        if (mongoUri != null) {
+            properties.put("spring.data.mongodb.uri", mongoUri);
+            properties.put("spring.autoconfigure.exclude", "de.flapdoodle.embed.mongo.spring.autoconfigure.EmbeddedMongoAutoConfiguration");
+        } else {
+            properties.put("de.flapdoodle.mongodb.embedded.version", EMBEDDED_MONGO_VERSION);
+        }
+        return new SpringApplicationBuilder(ConsentStoreBenchmarkApplication.class).web(WebApplicationType.NONE)
+                                                                                 .profiles(PROFILE)
+                                                                                 .properties(properties)
+                                                                                 .run();
+    }
+}
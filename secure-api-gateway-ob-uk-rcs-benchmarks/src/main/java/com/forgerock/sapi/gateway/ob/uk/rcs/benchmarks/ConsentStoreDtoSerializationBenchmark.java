@@ -0,0 +1,104 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.ob.uk.rcs.benchmarks;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.joda.time.DateTime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.BaseConsent;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.BaseConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.account.AccountAccessConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.funds.FundsConfirmationConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.BasePaymentConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mapping.ConsentDtoMappings;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mapping.ConsentDtoMappings.ConsentDtoMapping;
+import com.forgerock.sapi.gateway.uk.common.shared.api.meta.share.IntentType;
+
+/**
+ * Jackson serialization and deserialization of the Consent Store DTOs, as exchanged between the RS and the Consent Store
+ * API. Consents are in the Authorised state so that all optional fields are populated.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConsentStoreDtoSerializationBenchmark {
+
+    @Param({"ACCOUNT_ACCESS_CONSENT", "CUSTOMER_INFO_CONSENT", "FUNDS_CONFIRMATION_CONSENT", "PAYMENT_DOMESTIC_CONSENT",
+            "PAYMENT_DOMESTIC_SCHEDULED_CONSENT", "PAYMENT_DOMESTIC_STANDING_ORDERS_CONSENT", "PAYMENT_INTERNATIONAL_CONSENT",
+            "PAYMENT_INTERNATIONAL_SCHEDULED_CONSENT", "PAYMENT_INTERNATIONAL_STANDING_ORDERS_CONSENT", "PAYMENT_FILE_CONSENT",
+            "DOMESTIC_VRP_PAYMENT_CONSENT"})
+    public IntentType intentType;
+
+    private ObjectMapper objectMapper;
+
+    private BaseConsent<?> consent;
+
+    private byte[] serializedConsent;
+
+    @Setup
+    public void setup() throws IOException {
+        objectMapper = ObjectMapperFixtures.consentStoreObjectMapper();
+        final ConsentDtoMapping<?, ?> mapping = ConsentDtoMappings.forIntentType(intentType).orElseThrow(
+                () -> new IllegalStateException("No ConsentDtoMapping for intentType: " + intentType));
+        consent = mapping.toDto(authorisedConsentEntity(intentType));
+        serializedConsent = objectMapper.writeValueAsBytes(consent);
+    }
+
+    private static BaseConsentEntity<?> authorisedConsentEntity(IntentType intentType) {
+        final BaseConsentEntity<?> consentEntity = ConsentEntityFixtures.consentEntity(intentType);
+        consentEntity.setStatus("Authorised");
+        consentEntity.setResourceOwnerId(UUID.randomUUID().toString());
+        if (consentEntity instanceof AccountAccessConsentEntity accountAccessConsent) {
+            accountAccessConsent.setAuthorisedAccountIds(List.of(UUID.randomUUID().toString(), UUID.randomUUID().toString(),
+                                                                 UUID.randomUUID().toString()));
+        } else if (consentEntity instanceof FundsConfirmationConsentEntity fundsConfirmationConsent) {
+            fundsConfirmationConsent.setAuthorisedDebtorAccountId(UUID.randomUUID().toString());
+        } else if (consentEntity instanceof BasePaymentConsentEntity<?> paymentConsent) {
+            paymentConsent.setAuthorisedDebtorAccountId(UUID.randomUUID().toString());
+            paymentConsent.setIdempotencyKeyExpiration(DateTime.now().plusDays(1));
+        }
+        return consentEntity;
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return objectMapper.writeValueAsBytes(consent);
+    }
+
+    @Benchmark
+    public BaseConsent<?> deserialize() throws IOException {
+        return objectMapper.readValue(serializedConsent, consent.getClass());
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.ob.uk.rcs.benchmarks;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.MongoOperations;
+
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.BaseConsentEntity;
+import com.forgerock.sapi.gateway.uk.common.shared.api.meta.share.IntentType;
+
+/**
+ * Seeds the Consent Store with synthetic consents, see {@link SyntheticConsentGenerator}.
+ * <p>
+ * Seeding is incremental: only the shortfall between the number of consents already in a collection and the target is
+ * inserted, so that a persistent Mongo deployment can be grown step by step (e.g. 1M, 10M then 50M) across runs.
+ */
+public class ConsentStoreSeeder {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final MongoOperations mongoOperations;
+    private final int batchSize;
+
+    public ConsentStoreSeeder(MongoOperations mongoOperations, int batchSize) {
+        this.mongoOperations = requireNonNull(mongoOperations, "mongoOperations must be provided");
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @param consentCount total number of consents that the Consent Store should contain, divided between the IntentTypes
+     *                     according to the mix
+     * @return the entity class of each IntentType seeded
+     */
+    public Map<IntentType, Class<?>> seed(SyntheticConsentGenerator generator, long consentCount, Map<IntentType, Double> mix) {
+        final double totalWeight = mix.values().stream().mapToDouble(Double::doubleValue).sum();
+        final Map<IntentType, Class<?>> entityClasses = new LinkedHashMap<>();
+        for (Map.Entry<IntentType, Double> entry : mix.entrySet()) {
+            final long targetCount = Math.round(consentCount * entry.getValue() / totalWeight);
+            entityClasses.put(entry.getKey(), seed(generator, entry.getKey(), targetCount));
+        }
+        return entityClasses;
+    }
+
+    private Class<?> seed(SyntheticConsentGenerator generator, IntentType intentType, long targetCount) {
+        final Class<?> entityClass = generator.next(intentType).getClass();
+        final long existingCount = mongoOperations.estimatedCount(entityClass);
+        if (existingCount >= targetCount) {
+            logger.info("{} already contains {} consents, target: {}", intentType, existingCount, targetCount);
+            return entityClass;
+        }
+        final long startMillis = System.currentTimeMillis();
+        long inserted = 0;
+        final List<BaseConsentEntity<?>> batch = new ArrayList<>(batchSize);
+        while (existingCount + inserted < targetCount) {
+            batch.clear();
+            final long remaining = targetCount - existingCount - inserted;
+            for (int i = 0; i < Math.min(batchSize, remaining); i++) {
+                batch.add(generator.next(intentType));
+            }
+            mongoOperations.insert(batch, entityClass);
+            inserted += batch.size();
+            if (inserted % (batchSize * 100L) < batchSize) {
+                logger.info("Inserted {} of {} {} consents", inserted, targetCount - existingCount, intentType);
+            }
+        }
+        logger.info("Inserted {} {} consents in {}ms", inserted, intentType, System.currentTimeMillis() - startMillis);
+        return entityClass;
+    }
+
+    /**
+     * @return the collStats of the collection holding the entity class, including the document and index sizes
+     */
+    public CollectionStats collectionStats(Class<?> entityClass) {
+        final String collectionName = mongoOperations.getCollectionName(entityClass);
+        final Document stats = mongoOperations.executeCommand(new Document("collStats", collectionName));
+        final Map<String, Long> indexSizes = new LinkedHashMap<>();
+        stats.get("indexSizes", Document.class).forEach((index, size) -> indexSizes.put(index, ((Number) size).longValue()));
+        return new CollectionStats(collectionName,
+                                   ((Number) stats.get("count")).longValue(),
+                                   ((Number) stats.get("size")).longValue(),
+                                   ((Number) stats.getOrDefault("avgObjSize", 0)).longValue(),
+                                   ((Number) stats.get("storageSize")).longValue(),
+                                   ((Number) stats.get("totalIndexSize")).longValue(),
+                                   indexSizes);
+    }
+
+    public record CollectionStats(String collection, long count, long sizeBytes, long avgObjSizeBytes,
+                                  long storageSizeBytes, long totalIndexSizeBytes, Map<String, Long> indexSizeBytes) {
+    }
+}
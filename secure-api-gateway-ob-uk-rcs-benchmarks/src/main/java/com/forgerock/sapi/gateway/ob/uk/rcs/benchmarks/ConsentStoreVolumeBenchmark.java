@@ -0,0 +1,176 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.ob.uk.rcs.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.joda.time.DateTime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.forgerock.sapi.gateway.ob.uk.rcs.benchmarks.ConsentStoreSeeder.CollectionStats;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.domestic.DomesticPaymentConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.payment.domestic.DomesticPaymentConsentRepository;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.payment.PaymentAuthoriseConsentArgs;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.payment.domestic.DefaultDomesticPaymentConsentService;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.payment.domestic.DomesticPaymentConsentServiceFactory;
+import com.forgerock.sapi.gateway.uk.common.shared.api.meta.obie.OBVersion;
+import com.forgerock.sapi.gateway.uk.common.shared.api.meta.share.IntentType;
+
+/**
+ * Consent Store repository and service latency against Mongo, as the number of consents in the store grows.
+ * <p>
+ * The store is seeded with a realistic mix of consents of every type (see {@link SyntheticConsentGenerator}), then
+ * domestic payment consents, the most frequently accessed type, are looked up by id and by idempotency data and taken
+ * through their lifecycle. The collStats of every consent collection, including data and index sizes, are written to
+ * target/consent-store-volume-{consentCount}.json so that the memory needed to hold the working set can be compared
+ * alongside the latencies. Run with -prof gc to also measure the allocation per operation.
+ * <p>
+ * Seeding millions of consents into embedded Mongo takes a while, larger volumes are best seeded once into a
+ * persistent deployment supplied via -jvmArgsAppend -Dconsent.store.benchmark.mongoUri=mongodb://host/consent,
+ * seeding only tops up the collections to the requested size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ConsentStoreVolumeBenchmark {
+
+    private static final int SEED_BATCH_SIZE = 1000;
+    private static final int LOOKUP_SAMPLE_SIZE = 10_000;
+    private static final String RESOURCE_OWNER_ID = "psu-benchmark";
+    private static final String AUTHORISED_DEBTOR_ACCOUNT_ID = UUID.randomUUID().toString();
+
+    @Param({"10000", "100000", "1000000"})
+    public long consentCount;
+
+    private ConfigurableApplicationContext applicationContext;
+
+    private DomesticPaymentConsentRepository repository;
+
+    private DefaultDomesticPaymentConsentService consentService;
+
+    /**
+     * Random sample of the seeded domestic payment consents, the targets of the lookups
+     */
+    private List<DomesticPaymentConsentEntity> existingConsents;
+
+    private DomesticPaymentConsentEntity consentTemplate;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        applicationContext = ConsentStoreBenchmarkApplication.start();
+        final MongoOperations mongoOperations = applicationContext.getBean(MongoOperations.class);
+        repository = applicationContext.getBean(DomesticPaymentConsentRepository.class);
+        consentService = applicationContext.getBean(DomesticPaymentConsentServiceFactory.class).createApiConsentService(OBVersion.v3_1_10);
+
+        final SyntheticConsentGenerator generator = new SyntheticConsentGenerator(consentCount, 200, 1_000_000);
+        final ConsentStoreSeeder seeder = new ConsentStoreSeeder(mongoOperations, SEED_BATCH_SIZE);
+        final Map<IntentType, Class<?>> entityClasses = seeder.seed(generator, consentCount, SyntheticConsentGenerator.DEFAULT_MIX);
+        writeCollectionStats(entityClasses.values().stream().map(seeder::collectionStats).toList());
+
+        existingConsents = mongoOperations.aggregate(Aggregation.newAggregation(Aggregation.sample(LOOKUP_SAMPLE_SIZE)),
+                                                     DomesticPaymentConsentEntity.class, DomesticPaymentConsentEntity.class)
+                                          .getMappedResults();
+        consentTemplate = (DomesticPaymentConsentEntity) generator.next(IntentType.PAYMENT_DOMESTIC_CONSENT);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        applicationContext.close();
+    }
+
+    private void writeCollectionStats(List<CollectionStats> collectionStats) throws IOException {
+        final Path statsFile = Path.of("target", "consent-store-volume-" + consentCount + ".json");
+        Files.createDirectories(statsFile.getParent());
+        ObjectMapperFixtures.consentStoreObjectMapper().enable(SerializationFeature.INDENT_OUTPUT)
+                            .writeValue(statsFile.toFile(), collectionStats);
+        collectionStats.forEach(stats -> System.out.printf("%s: count=%d, avgObjSize=%dB, storageSize=%dMB, totalIndexSize=%dMB%n",
+                stats.collection(), stats.count(), stats.avgObjSizeBytes(), stats.storageSizeBytes() >> 20,
+                stats.totalIndexSizeBytes() >> 20));
+    }
+
+    private DomesticPaymentConsentEntity randomExistingConsent() {
+        return existingConsents.get(ThreadLocalRandom.current().nextInt(existingConsents.size()));
+    }
+
+    /**
+     * A new consent sharing the requestObj of the template, the idempotency key is unique so that it is always created.
+     */
+    private DomesticPaymentConsentEntity newConsent() {
+        final DomesticPaymentConsentEntity consent = new DomesticPaymentConsentEntity();
+        consent.setApiClientId(consentTemplate.getApiClientId());
+        consent.setRequestVersion(consentTemplate.getRequestVersion());
+        consent.setRequestObj(consentTemplate.getRequestObj());
+        consent.setCharges(consentTemplate.getCharges());
+        consent.setIdempotencyKey(UUID.randomUUID().toString());
+        consent.setIdempotencyKeyExpiration(DateTime.now().plusDays(1));
+        return consent;
+    }
+
+    @Benchmark
+    public Optional<DomesticPaymentConsentEntity> repositoryFindById() {
+        return repository.findById(randomExistingConsent().getId());
+    }
+
+    /**
+     * The lookup made when every payment consent is created, most keys have expired so this is usually a miss.
+     */
+    @Benchmark
+    public Optional<DomesticPaymentConsentEntity> repositoryFindByIdempotencyData() {
+        final DomesticPaymentConsentEntity consent = randomExistingConsent();
+        return repository.findByIdempotencyData(consent.getApiClientId(), consent.getIdempotencyKey(), DateTime.now());
+    }
+
+    @Benchmark
+    public DomesticPaymentConsentEntity serviceGetConsent() {
+        final DomesticPaymentConsentEntity consent = randomExistingConsent();
+        return consentService.getConsent(consent.getId(), consent.getApiClientId());
+    }
+
+    @Benchmark
+    public DomesticPaymentConsentEntity serviceCreateAuthoriseConsume() {
+        final DomesticPaymentConsentEntity consent = consentService.createConsent(newConsent());
+        consentService.authoriseConsent(new PaymentAuthoriseConsentArgs(consent.getId(), consent.getApiClientId(),
+                                                                        RESOURCE_OWNER_ID, AUTHORISED_DEBTOR_ACCOUNT_ID));
+        return consentService.consumeConsent(consent.getId(), consent.getApiClientId());
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.ob.uk.rcs.benchmarks;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.BaseConsentEntity;
+
+/**
+ * MongoRepository backed by a ConcurrentHashMap, so that the ConsentService state transitions can be benchmarked without
+ * the cost of a round trip to Mongo.
+ * <p>
+ * Only the operations used by BaseConsentService are supported: insert, save, findById, findAll, count, deleteById and
+ * deleteAll.
+ */
+public final class InMemoryConsentRepository<T extends BaseConsentEntity<?>> implements InvocationHandler {
+
+    private final Map<String, T> consents = new ConcurrentHashMap<>();
+
+    private InMemoryConsentRepository() {
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T extends BaseConsentEntity<?>> MongoRepository<T, String> create() {
+        return (MongoRepository<T, String>) Proxy.newProxyInstance(InMemoryConsentRepository.class.getClassLoader(),
+                                                                   new Class<?>[]{MongoRepository.class},
+                                                                   new InMemoryConsentRepository<T>());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        final int argCount = args == null ? 0 : args.length;
+        switch (method.getName()) {
+            case "insert":
+                if (argCount == 1 && args[0] instanceof BaseConsentEntity) {
+                    final T consent = (T) args[0];
+                    if (consents.putIfAbsent(consent.getId(), consent) != null) {
+                        throw new IllegalStateException("Consent with id: " + consent.getId() + " already exists");
+                    }
+                    return consent;
+                }
+                break;
+            case "save":
+                if (argCount == 1 && args[0] instanceof BaseConsentEntity) {
+                    final T consent = (T) args[0];
+                    consents.put(consent.getId(), consent);
+                    return consent;
+                }
+                break;
+            case "findById":
+                return Optional.ofNullable(consents.get((String) args[0]));
+            case "existsById":
+                return consents.containsKey((String) args[0]);
+            case "findAll":
+                if (argCount == 0) {
+                    return new ArrayList<>(consents.values());
+                }
+                break;
+            case "count":
+                return (long) consents.size();
+            case "deleteById":
+                consents.remove((String) args[0]);
+                return null;
+            case "deleteAll":
+                if (argCount == 0) {
+                    consents.clear();
+                    return null;
+                }
+                break;
+            case "toString":
+                return "InMemoryConsentRepository[size=" + consents.size() + "]";
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            default:
+                break;
+        }
+        throw new UnsupportedOperationException("InMemoryConsentRepository does not support: " + method);
+    }
+}
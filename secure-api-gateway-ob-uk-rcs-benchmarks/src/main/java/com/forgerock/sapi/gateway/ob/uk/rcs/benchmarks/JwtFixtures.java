@@ -0,0 +1,74 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.ob.uk.rcs.benchmarks;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import com.forgerock.sapi.gateway.uk.common.shared.api.meta.share.IntentType;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+
+/**
+ * Consent request JWTs, in the format that the Identity Platform sends to the RCS.
+ */
+public final class JwtFixtures {
+
+    private static final byte[] SHARED_SECRET = UUID.randomUUID().toString().concat(UUID.randomUUID().toString()).getBytes();
+
+    private JwtFixtures() {
+    }
+
+    public static String consentRequestJwt() throws JOSEException {
+        return consentRequestJwt(IntentType.PAYMENT_DOMESTIC_CONSENT.generateIntentId(), ConsentEntityFixtures.API_CLIENT_ID,
+                                 "benchmark-psu");
+    }
+
+    /**
+     * @param intentId the id of the consent being authorised
+     * @param clientId the apiClientId of the TPP which created the consent
+     * @param username the id of the PSU authorising the consent
+     */
+    public static String consentRequestJwt(String intentId, String clientId, String username) throws JOSEException {
+        final long nowMillis = System.currentTimeMillis();
+        final JWTClaimsSet claimsSet = new JWTClaimsSet.Builder()
+                .claim("clientId", clientId)
+                .issuer("https://iam.example.com/am/oauth2/realms/root/realms/alpha")
+                .audience("rcs")
+                .claim("claims", Map.of("id_token", Map.of("openbanking_intent_id",
+                        Map.of("value", intentId, "essential", true)),
+                        "userinfo", Map.of("openbanking_intent_id", Map.of("essential", true))))
+                .claim("scopes", Map.of("openid", "openid", "accounts", "accounts", "payments", "payments"))
+                .expirationTime(new Date(nowMillis + 300_000))
+                .issueTime(new Date(nowMillis))
+                .claim("client_name", "Benchmark TPP")
+                .claim("consentApprovalRedirectUri", "https://iam.example.com/am/oauth2/authorize?response_type=code")
+                .claim("username", username)
+                .claim("save_consent_enabled", true)
+                .claim("csrf", UUID.randomUUID().toString())
+                .claim("acr_values", List.of("urn:openbanking:psd2:sca"))
+                .build();
+        final SignedJWT signedJWT = new SignedJWT(new JWSHeader(JWSAlgorithm.HS256), claimsSet);
+        signedJWT.sign(new MACSigner(SHARED_SECRET));
+        return signedJWT.serialize();
+    }
+}
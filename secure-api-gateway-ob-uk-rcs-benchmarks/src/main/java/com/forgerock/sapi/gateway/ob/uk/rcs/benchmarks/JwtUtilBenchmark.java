@@ -0,0 +1,77 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.ob.uk.rcs.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.forgerock.sapi.gateway.ob.uk.rcs.cloud.client.Constants;
+import com.forgerock.sapi.gateway.ob.uk.rcs.cloud.client.exceptions.ExceptionClient;
+import com.forgerock.sapi.gateway.ob.uk.rcs.cloud.client.utils.jwt.JwtUtil;
+import com.forgerock.sapi.gateway.uk.common.shared.claim.Claims;
+import com.nimbusds.jwt.SignedJWT;
+
+/**
+ * Parsing of the consent request JWT, which is done for every consent details and decision request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtUtilBenchmark {
+
+    private String consentRequestJwt;
+
+    private SignedJWT signedJwt;
+
+    @Setup
+    public void setup() throws Exception {
+        consentRequestJwt = JwtFixtures.consentRequestJwt();
+        signedJwt = JwtUtil.getSignedJWT(consentRequestJwt);
+    }
+
+    @Benchmark
+    public SignedJWT getSignedJWT() throws ExceptionClient {
+        return JwtUtil.getSignedJWT(consentRequestJwt);
+    }
+
+    @Benchmark
+    public Claims getClaims() throws ExceptionClient {
+        return JwtUtil.getClaims(signedJwt);
+    }
+
+    @Benchmark
+    public String getIntentId() throws ExceptionClient {
+        return JwtUtil.getIdTokenClaim(consentRequestJwt, Constants.Claims.INTENT_ID);
+    }
+
+    @Benchmark
+    public String getClientId() throws ExceptionClient {
+        return JwtUtil.getClaimValue(consentRequestJwt, Constants.Claims.CLIENT_ID);
+    }
+}
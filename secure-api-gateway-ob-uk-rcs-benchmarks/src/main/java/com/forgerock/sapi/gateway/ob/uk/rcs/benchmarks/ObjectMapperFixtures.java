@@ -0,0 +1,46 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.ob.uk.rcs.benchmarks;
+
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.forgerock.sapi.gateway.ob.uk.rcs.server.configuration.RcsApplicationConfiguration;
+
+/**
+ * ObjectMappers configured in the same way as the ones used by the applications.
+ */
+public final class ObjectMapperFixtures {
+
+    private ObjectMapperFixtures() {
+    }
+
+    /**
+     * @return ObjectMapper configured by the RCS server's Jackson2ObjectMapperBuilderCustomizer
+     */
+    public static ObjectMapper rcsObjectMapper() {
+        final Jackson2ObjectMapperBuilder builder = new Jackson2ObjectMapperBuilder();
+        new RcsApplicationConfiguration().objectMapperBuilderCustomizer().customize(builder);
+        return builder.build();
+    }
+
+    /**
+     * @return ObjectMapper with the Spring Boot defaults, as used by the Consent Store API
+     */
+    public static ObjectMapper consentStoreObjectMapper() {
+        return new Jackson2ObjectMapperBuilder().build();
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.ob.uk.rcs.benchmarks;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.forgerock.sapi.gateway.ob.uk.rcs.server.jwt.RcsJwtSigner;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+
+/**
+ * Signing of the consent decision response JWT, which is returned to the Identity Platform for every consent decision.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RcsJwtSignerBenchmark {
+
+    private static final String KID = "benchmark-signing-key";
+
+    @Param({"PS256", "RS256", "ES256"})
+    public String signingAlgorithm;
+
+    private RcsJwtSigner rcsJwtSigner;
+
+    private JWTClaimsSet consentResponseClaims;
+
+    @Setup
+    public void setup() throws JOSEException {
+        final JWSAlgorithm algorithm = JWSAlgorithm.parse(signingAlgorithm);
+        final JWSSigner signer;
+        if (JWSAlgorithm.Family.EC.contains(algorithm)) {
+            signer = new ECDSASigner(new ECKeyGenerator(Curve.P_256).keyUse(KeyUse.SIGNATURE).keyID(KID).generate());
+        } else {
+            signer = new RSASSASigner(new RSAKeyGenerator(2048).keyUse(KeyUse.SIGNATURE).keyID(KID).generate());
+        }
+        rcsJwtSigner = new RcsJwtSigner(KID, algorithm, signer);
+        consentResponseClaims = new JWTClaimsSet.Builder()
+                .issuer("secure-open-banking-rcs")
+                .audience("https://iam.example.com/am/oauth2/realms/root/realms/alpha")
+                .expirationTime(new Date(System.currentTimeMillis() + 300_000))
+                .claim("decision", true)
+                .claim("scopes", List.of("openid", "accounts", "payments"))
+                .claim("clientId", ConsentEntityFixtures.API_CLIENT_ID)
+                .claim("consentApprovalRedirectUri", "https://iam.example.com/am/oauth2/authorize?response_type=code")
+                .claim("claims", Map.of("id_token", Map.of("openbanking_intent_id", Map.of("value", "PDC_benchmark"))))
+                .build();
+    }
+
+    @Benchmark
+    public String createSignedJwt() throws JOSEException {
+        return rcsJwtSigner.createSignedJwt(consentResponseClaims);
+    }
+}
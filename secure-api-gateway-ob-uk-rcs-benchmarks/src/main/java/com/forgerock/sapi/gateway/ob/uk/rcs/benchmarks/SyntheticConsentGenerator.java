@@ -0,0 +1,281 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.ob.uk.rcs.benchmarks;
+
+import static com.forgerock.sapi.gateway.rcs.consent.store.repo.service.payment.PaymentConsentStateModel.CONSUMED;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+import org.joda.time.DateTime;
+
+import com.forgerock.sapi.gateway.ob.uk.common.datamodel.account.FRReadConsent;
+import com.forgerock.sapi.gateway.ob.uk.common.datamodel.converter.v3.account.FRReadConsentConverter;
+import com.forgerock.sapi.gateway.ob.uk.common.datamodel.converter.v3.payment.FRExchangeRateConverter;
+import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.PaymentInitiationFingerprint;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.BaseConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.account.AccountAccessConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.funds.FundsConfirmationConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.BasePaymentConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.domestic.DomesticScheduledPaymentConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.file.FilePaymentConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.international.BasePaymentConsentEntityWithExchangeRateInformation;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.international.InternationalScheduledPaymentConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.ConsentStateModel;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.ConsentTypeRegistry;
+import com.forgerock.sapi.gateway.uk.common.shared.api.meta.share.IntentType;
+
+import uk.org.openbanking.datamodel.v3.account.OBReadConsent1;
+import uk.org.openbanking.datamodel.v3.account.OBReadConsent1Data;
+import uk.org.openbanking.datamodel.v3.account.OBRisk2;
+import uk.org.openbanking.datamodel.v3.common.OBExternalPermissions1Code;
+import uk.org.openbanking.datamodel.v3.payment.OBExchangeRateType;
+import uk.org.openbanking.datamodel.v3.payment.OBWriteInternational3DataInitiationExchangeRateInformation;
+
+/**
+ * Generates consents of every type, as they would be found in the Consent Store of a production deployment, for
+ * seeding the Consent Store with realistic volumes of data.
+ * <p>
+ * The request objects are built by the OB test data factories. The fields which vary the most in size and which
+ * determine index selectivity are drawn from skewed distributions:
+ * <ul>
+ *     <li>apiClientId - a small number of TPPs create most of the consents</li>
+ *     <li>status - most payment consents are consumed, most long-lived consents are authorised or revoked</li>
+ *     <li>charges - most payments have no or one charge, a few have several</li>
+ *     <li>file contents - log-normally distributed around 16KB, capped at 4MB</li>
+ *     <li>exchange rate information - present on most international payments</li>
+ *     <li>account access permissions - between 3 and all of the commonly requested permissions</li>
+ *     <li>creation time - uniform over the last year</li>
+ * </ul>
+ * Generation is deterministic for a given seed.
+ */
+public class SyntheticConsentGenerator {
+
+    /**
+     * Proportion of each IntentType in the Consent Store, account access and domestic payments dominate.
+     */
+    public static final Map<IntentType, Double> DEFAULT_MIX = defaultMix();
+
+    private static final List<OBExternalPermissions1Code> ACCOUNT_PERMISSIONS = List.of(
+            OBExternalPermissions1Code.READACCOUNTSDETAIL, OBExternalPermissions1Code.READBALANCES,
+            OBExternalPermissions1Code.READTRANSACTIONSDETAIL, OBExternalPermissions1Code.READTRANSACTIONSCREDITS,
+            OBExternalPermissions1Code.READTRANSACTIONSDEBITS, OBExternalPermissions1Code.READBENEFICIARIESDETAIL,
+            OBExternalPermissions1Code.READDIRECTDEBITS, OBExternalPermissions1Code.READSTANDINGORDERSDETAIL,
+            OBExternalPermissions1Code.READSCHEDULEDPAYMENTSDETAIL, OBExternalPermissions1Code.READPRODUCTS,
+            OBExternalPermissions1Code.READPARTY, OBExternalPermissions1Code.READSTATEMENTSDETAIL);
+
+    private static final int MEDIAN_FILE_SIZE_BYTES = 16 * 1024;
+    private static final double FILE_SIZE_SIGMA = 1.2;
+    private static final int MAX_FILE_SIZE_BYTES = 4 * 1024 * 1024;
+    private static final String FILE_CONTENT = fileContent(MAX_FILE_SIZE_BYTES);
+
+    private static final long ONE_YEAR_MILLIS = 365L * 24 * 60 * 60 * 1000;
+
+    private final SplittableRandom random;
+    private final int apiClientCount;
+    private final int psuCount;
+    private final long nowMillis = System.currentTimeMillis();
+
+    /**
+     * @param seed           seed of the random number generator, the same seed generates the same consents
+     * @param apiClientCount number of distinct TPPs creating consents
+     * @param psuCount       number of distinct PSUs authorising consents
+     */
+    public SyntheticConsentGenerator(long seed, int apiClientCount, int psuCount) {
+        this.random = new SplittableRandom(seed);
+        this.apiClientCount = apiClientCount;
+        this.psuCount = psuCount;
+    }
+
+    /**
+     * @return a new consent, with an id assigned, ready to be inserted into the Consent Store
+     */
+    public BaseConsentEntity<?> next(IntentType intentType) {
+        final BaseConsentEntity<?> consent = ConsentEntityFixtures.consentEntity(intentType);
+        consent.setApiClientId(apiClientId());
+        final Date creationDateTime = new Date(nowMillis - random.nextLong(ONE_YEAR_MILLIS));
+        consent.setCreationDateTime(creationDateTime);
+        consent.setStatusUpdatedDateTime(new Date(creationDateTime.getTime() + random.nextLong(15 * 60 * 1000)));
+
+        if (consent instanceof AccountAccessConsentEntity accountAccessConsent) {
+            accountAccessConsent.setRequestObj(readConsent(new DateTime(creationDateTime).plusDays(90)));
+        }
+        if (consent instanceof BasePaymentConsentEntity<?> paymentConsent) {
+            paymentConsent.setIdempotencyKey(UUID.randomUUID().toString());
+            paymentConsent.setIdempotencyKeyExpiration(new DateTime(creationDateTime).plusHours(24));
+            paymentConsent.setCharges(ConsentEntityFixtures.charges(chargeCount()));
+            paymentConsent.setInitiationFingerprint(PaymentInitiationFingerprint.ofConsentRequest(paymentConsent.getRequestObj()));
+        }
+        if (consent instanceof BasePaymentConsentEntityWithExchangeRateInformation<?> internationalConsent && random.nextDouble() < 0.7) {
+            internationalConsent.setExchangeRateInformation(FRExchangeRateConverter.toFRExchangeRateInformation(
+                    new OBWriteInternational3DataInitiationExchangeRateInformation()
+                            .unitCurrency("GBP")
+                            .exchangeRate(BigDecimal.valueOf(0.8 + random.nextDouble(0.6)).setScale(4, RoundingMode.HALF_UP))
+                            .rateType(OBExchangeRateType.AGREED)
+                            .contractIdentification(UUID.randomUUID().toString())));
+        }
+        if (consent instanceof DomesticScheduledPaymentConsentEntity domesticScheduledConsent) {
+            domesticScheduledConsent.setRequestedExecutionDateTime(
+                    domesticScheduledConsent.getRequestObj().getData().getInitiation().getRequestedExecutionDateTime());
+        } else if (consent instanceof InternationalScheduledPaymentConsentEntity internationalScheduledConsent) {
+            internationalScheduledConsent.setRequestedExecutionDateTime(
+                    internationalScheduledConsent.getRequestObj().getData().getInitiation().getRequestedExecutionDateTime());
+        }
+        applyStatus(consent);
+        return consent;
+    }
+
+    /**
+     * @return the next IntentType drawn from the mix
+     */
+    public IntentType nextIntentType(Map<IntentType, Double> mix) {
+        final double total = mix.values().stream().mapToDouble(Double::doubleValue).sum();
+        double remaining = random.nextDouble(total);
+        for (Map.Entry<IntentType, Double> entry : mix.entrySet()) {
+            remaining -= entry.getValue();
+            if (remaining < 0) {
+                return entry.getKey();
+            }
+        }
+        return mix.keySet().iterator().next();
+    }
+
+    /**
+     * Zipf-like skew: the first 20% of TPPs create around 60% of the consents.
+     */
+    private String apiClientId() {
+        final double u = random.nextDouble();
+        return "api-client-" + (int) (apiClientCount * u * u * u);
+    }
+
+    private String psuId() {
+        return "psu-" + random.nextInt(psuCount);
+    }
+
+    private int chargeCount() {
+        final double u = random.nextDouble();
+        if (u < 0.4) {
+            return 0;
+        } else if (u < 0.7) {
+            return 1;
+        } else if (u < 0.9) {
+            return 2;
+        }
+        return 3 + random.nextInt(3);
+    }
+
+    /**
+     * @return a read consent requesting a random selection of between 3 and all of the common permissions
+     */
+    private FRReadConsent readConsent(DateTime expirationDateTime) {
+        final List<OBExternalPermissions1Code> permissions = new ArrayList<>(ACCOUNT_PERMISSIONS);
+        for (int i = permissions.size() - 1; i > 0; i--) {
+            final int j = random.nextInt(i + 1);
+            permissions.set(i, permissions.set(j, permissions.get(i)));
+        }
+        final int permissionCount = 3 + random.nextInt(ACCOUNT_PERMISSIONS.size() - 2);
+        final OBReadConsent1 obReadConsent = new OBReadConsent1();
+        obReadConsent.setData(new OBReadConsent1Data().permissions(List.copyOf(permissions.subList(0, permissionCount)))
+                                                      .expirationDateTime(expirationDateTime));
+        obReadConsent.setRisk(new OBRisk2());
+        return FRReadConsentConverter.toFRReadConsent(obReadConsent);
+    }
+
+    private int fileSizeBytes() {
+        final double logNormal = Math.exp(FILE_SIZE_SIGMA * gaussian());
+        return (int) Math.min(MAX_FILE_SIZE_BYTES, Math.max(256, MEDIAN_FILE_SIZE_BYTES * logNormal));
+    }
+
+    private double gaussian() {
+        // Box-Muller, SplittableRandom does not provide nextGaussian in Java 17
+        return Math.sqrt(-2 * Math.log(1 - random.nextDouble())) * Math.cos(2 * Math.PI * random.nextDouble());
+    }
+
+    private void applyStatus(BaseConsentEntity<?> consent) {
+        final ConsentStateModel stateModel = ConsentTypeRegistry.getConsentStateModels().get(consent.getClass());
+        final boolean consumable = stateModel.getValidStateTransitions().values().stream().anyMatch(statuses -> statuses.contains(CONSUMED));
+        final double u = random.nextDouble();
+        final String status;
+        if (consumable) {
+            status = u < 0.7 ? CONSUMED : u < 0.75 ? stateModel.getAuthorisedConsentStatus()
+                    : u < 0.85 ? stateModel.getRejectedConsentStatus() : stateModel.getInitialConsentStatus();
+        } else if (stateModel.getRevokedConsentStatus() != null) {
+            status = u < 0.55 ? stateModel.getAuthorisedConsentStatus() : u < 0.8 ? stateModel.getRevokedConsentStatus()
+                    : u < 0.9 ? stateModel.getRejectedConsentStatus() : stateModel.getInitialConsentStatus();
+        } else {
+            status = u < 0.75 ? stateModel.getAuthorisedConsentStatus()
+                    : u < 0.9 ? stateModel.getRejectedConsentStatus() : stateModel.getInitialConsentStatus();
+        }
+        consent.setStatus(status);
+
+        final boolean authorised = !status.equals(stateModel.getInitialConsentStatus()) && !status.equals(stateModel.getRejectedConsentStatus());
+        if (!status.equals(stateModel.getInitialConsentStatus())) {
+            consent.setResourceOwnerId(psuId());
+        }
+        if (consent instanceof FilePaymentConsentEntity fileConsent && !status.equals(stateModel.getInitialConsentStatus())) {
+            fileConsent.setFileContent(FILE_CONTENT.substring(0, fileSizeBytes()));
+            fileConsent.setFileUploadIdempotencyKey(UUID.randomUUID().toString());
+        }
+        if (authorised) {
+            if (consent instanceof AccountAccessConsentEntity accountAccessConsent) {
+                accountAccessConsent.setAuthorisedAccountIds(List.of(UUID.randomUUID().toString(), UUID.randomUUID().toString()));
+            } else if (consent instanceof FundsConfirmationConsentEntity fundsConfirmationConsent) {
+                fundsConfirmationConsent.setAuthorisedDebtorAccountId(UUID.randomUUID().toString());
+            } else if (consent instanceof BasePaymentConsentEntity<?> paymentConsent) {
+                paymentConsent.setAuthorisedDebtorAccountId(UUID.randomUUID().toString());
+            }
+        }
+    }
+
+    /**
+     * @return pain.001 style file content of the requested size
+     */
+    private static String fileContent(int sizeBytes) {
+        final StringBuilder content = new StringBuilder(sizeBytes + 512);
+        content.append("<Document><CstmrCdtTrfInitn><GrpHdr><MsgId>SYNTHETIC</MsgId></GrpHdr>");
+        for (int i = 0; content.length() < sizeBytes; i++) {
+            content.append("<CdtTrfTxInf><PmtId><EndToEndId>E2E").append(i)
+                   .append("</EndToEndId></PmtId><Amt><InstdAmt Ccy=\"GBP\">").append(10 + i % 990).append(".00</InstdAmt></Amt>")
+                   .append("<Cdtr><Nm>Creditor ").append(i).append("</Nm></Cdtr><CdtrAcct><Id><Othr><Id>0808002")
+                   .append(String.format("%07d", i % 10_000_000)).append("</Id></Othr></Id></CdtrAcct></CdtTrfTxInf>");
+        }
+        return content.append("</CstmrCdtTrfInitn></Document>").toString();
+    }
+
+    private static Map<IntentType, Double> defaultMix() {
+        final Map<IntentType, Double> mix = new LinkedHashMap<>();
+        mix.put(IntentType.ACCOUNT_ACCESS_CONSENT, 0.35);
+        mix.put(IntentType.PAYMENT_DOMESTIC_CONSENT, 0.30);
+        mix.put(IntentType.DOMESTIC_VRP_PAYMENT_CONSENT, 0.10);
+        mix.put(IntentType.FUNDS_CONFIRMATION_CONSENT, 0.05);
+        mix.put(IntentType.PAYMENT_INTERNATIONAL_CONSENT, 0.05);
+        mix.put(IntentType.PAYMENT_DOMESTIC_SCHEDULED_CONSENT, 0.04);
+        mix.put(IntentType.PAYMENT_DOMESTIC_STANDING_ORDERS_CONSENT, 0.04);
+        mix.put(IntentType.CUSTOMER_INFO_CONSENT, 0.03);
+        mix.put(IntentType.PAYMENT_FILE_CONSENT, 0.02);
+        mix.put(IntentType.PAYMENT_INTERNATIONAL_SCHEDULED_CONSENT, 0.01);
+        mix.put(IntentType.PAYMENT_INTERNATIONAL_STANDING_ORDERS_CONSENT, 0.01);
+        return Collections.unmodifiableMap(mix);
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.api.export;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.forgerock.sapi.gateway.uk.common.shared.api.meta.share.IntentType;
+
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiParam;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+import uk.org.openbanking.datamodel.v3.error.OBErrorResponse1;
+
+/**
+ * API for full and incremental extracts of an ApiClient's consents, for audit and analytics.
+ * <p>
+ * The response is newline delimited JSON (NDJSON), each line is a Consent Store data-model object as returned by the
+ * consent type's API (e.g. DomesticPaymentConsent). The response is gzipped if the client accepts gzip encoding.
+ * <p>
+ * This is an administrative API: it is disabled unless consent.store.export.api.enabled is true, and the gateway must
+ * only route it for administrative callers. Exports of all ApiClients' consents are only available from the bulk tool.
+ */
+@Validated
+public interface ConsentExportApi {
+
+    @ApiOperation(value = "Export consents as newline delimited JSON")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Consents matching the filters, one per line"),
+            @ApiResponse(code = 400, message = "Bad request", response = OBErrorResponse1.class),
+            @ApiResponse(code = 500, message = "Internal Server Error", response = OBErrorResponse1.class)
+    })
+    @RequestMapping(value = "/export",
+            produces = {"application/x-ndjson"},
+            method = RequestMethod.GET)
+    ResponseEntity<StreamingResponseBody> exportConsents(
+            @ApiParam(value = "IntentTypes of the consents to export, all types are exported if not supplied")
+            @RequestParam(value = "intentType", required = false) List<IntentType> intentTypes,
+            @ApiParam(value = "Statuses of the consents to export, consents in any status are exported if not supplied")
+            @RequestParam(value = "status", required = false) List<String> statuses,
+            @ApiParam(value = "Inclusive start of the statusUpdatedDateTime range")
+            @RequestParam(value = "statusUpdatedFrom", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime statusUpdatedFrom,
+            @ApiParam(value = "Exclusive end of the statusUpdatedDateTime range")
+            @RequestParam(value = "statusUpdatedTo", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime statusUpdatedTo,
+            @ApiParam(value = "Whether archived consents are exported")
+            @RequestParam(value = "includeArchived", required = false, defaultValue = "false") boolean includeArchived,
+            @ApiParam(value = "Number of consents read from the database per batch")
+            @RequestParam(value = "batchSize", required = false) Integer batchSize,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(value = "x-api-client-id") String apiClientId);
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.api.export;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.OutputStream;
+import java.time.OffsetDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.exception.ConsentStoreException;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.exception.ConsentStoreException.ErrorType;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mapping.ConsentDtoMappings;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.export.ConsentExportQuery;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.export.ConsentExportService;
+import com.forgerock.sapi.gateway.uk.common.shared.api.meta.share.IntentType;
+
+import io.swagger.annotations.Api;
+
+/**
+ * Implementation of ConsentExportApi.
+ * <p>
+ * This API is not versioned as exports span consents created via all OBIE API versions. Consents are written directly
+ * from the database cursor, so the memory used is independent of the number of consents exported.
+ * <p>
+ * Only the consents of the ApiClient in the x-api-client-id header are exported. The controller is only registered when
+ * consent.store.export.api.enabled is true.
+ */
+@Controller
+@ConditionalOnProperty(value = "consent.store.export.api.enabled", havingValue = "true")
+@Api(tags = {"export"})
+@RequestMapping(value = "/consent/store")
+public class ConsentExportApiController implements ConsentExportApi {
+
+    public static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    public static final int MAX_BATCH_SIZE = 10000;
+
+    private final ConsentExportService consentExportService;
+
+    public ConsentExportApiController(ConsentExportService consentExportService) {
+        this.consentExportService = requireNonNull(consentExportService, "consentExportService must be provided");
+    }
+
+    @Override
+    public ResponseEntity<StreamingResponseBody> exportConsents(List<IntentType> intentTypes, List<String> statuses,
+                                                                OffsetDateTime statusUpdatedFrom, OffsetDateTime statusUpdatedTo,
+                                                                boolean includeArchived, Integer batchSize, String acceptEncoding,
+                                                                String apiClientId) {
+        // Request parameters are validated before the response is committed, so that errors are reported as OBErrorResponse1
+        if (apiClientId.isBlank()) {
+            throw new ConsentStoreException(ErrorType.BAD_REQUEST, null, "x-api-client-id must be provided");
+        }
+        final Set<IntentType> intentTypeSet = intentTypes == null || intentTypes.isEmpty() ? Set.of() : EnumSet.copyOf(intentTypes);
+        for (IntentType intentType : intentTypeSet) {
+            if (ConsentDtoMappings.forIntentType(intentType).isEmpty()) {
+                throw new ConsentStoreException(ErrorType.BAD_REQUEST, null, "intentType: " + intentType + " is not supported");
+            }
+        }
+        final int cursorBatchSize = batchSize == null ? DEFAULT_BATCH_SIZE : batchSize;
+        if (cursorBatchSize < 1 || cursorBatchSize > MAX_BATCH_SIZE) {
+            throw new ConsentStoreException(ErrorType.BAD_REQUEST, null, "batchSize must be between 1 and " + MAX_BATCH_SIZE);
+        }
+        final ConsentExportQuery exportQuery;
+        try {
+            exportQuery = new ConsentExportQuery(apiClientId, intentTypeSet, statuses == null ? Set.of() : Set.copyOf(statuses),
+                    toDateTime(statusUpdatedFrom), toDateTime(statusUpdatedTo), includeArchived, cursorBatchSize);
+        } catch (IllegalArgumentException ex) {
+            throw new ConsentStoreException(ErrorType.BAD_REQUEST, null, ex.getMessage(), ex);
+        }
+
+        final boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+        final StreamingResponseBody responseBody = outputStream -> {
+            if (gzip) {
+                final GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream, 64 * 1024, true);
+                consentExportService.exportConsents(exportQuery, gzipOutputStream);
+                gzipOutputStream.finish();
+            } else {
+                consentExportService.exportConsents(exportQuery, outputStream);
+            }
+        };
+        final ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(APPLICATION_NDJSON);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING).body(responseBody);
+    }
+
+    private static DateTime toDateTime(OffsetDateTime offsetDateTime) {
+        return offsetDateTime == null ? null : new DateTime(offsetDateTime.toInstant().toEpochMilli(), DateTimeZone.UTC);
+    }
+}
@@ -101,7 +101,8 @@ public class BaseDomesticPaymentConsentApiController implements DomesticPaymentC
     @Override
     public ResponseEntity<DomesticPaymentConsent> consumeConsent(String consentId, ConsumePaymentConsentRequest request) {
         logger.info("Attempting to consumeConsent - id: {}, request: {}", consentId, request);
-        return ResponseEntity.ok(convertEntityToDto(consentService.consumeConsent(consentId, request.getApiClientId())));
+        return ResponseEntity.ok(convertEntityToDto(consentService.consumeConsent(consentId, request.getApiClientId(),
+                request.getExpectedInitiationFingerprint(), request.getExpectedDebtorAccountId())));
     }
 
     private DomesticPaymentConsent convertEntityToDto(DomesticPaymentConsentEntity entity) {
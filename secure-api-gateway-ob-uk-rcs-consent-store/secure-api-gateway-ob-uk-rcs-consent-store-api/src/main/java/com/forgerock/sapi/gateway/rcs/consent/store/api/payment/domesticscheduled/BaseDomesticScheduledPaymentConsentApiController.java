@@ -105,7 +105,8 @@ public class BaseDomesticScheduledPaymentConsentApiController implements Domesti
     @Override
     public ResponseEntity<DomesticScheduledPaymentConsent> consumeConsent(String consentId, ConsumePaymentConsentRequest request) {
         logger.info("Attempting to consumeConsent - id: {}, request: {}", consentId, request);
-        return ResponseEntity.ok(convertEntityToDto(consentService.consumeConsent(consentId, request.getApiClientId())));
+        return ResponseEntity.ok(convertEntityToDto(consentService.consumeConsent(consentId, request.getApiClientId(),
+                request.getExpectedInitiationFingerprint(), request.getExpectedDebtorAccountId())));
     }
 
     private DomesticScheduledPaymentConsent convertEntityToDto(DomesticScheduledPaymentConsentEntity entity) {
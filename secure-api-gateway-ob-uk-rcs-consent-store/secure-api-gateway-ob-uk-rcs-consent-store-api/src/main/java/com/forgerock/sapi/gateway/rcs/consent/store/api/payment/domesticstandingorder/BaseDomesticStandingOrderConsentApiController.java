@@ -101,7 +101,8 @@ public class BaseDomesticStandingOrderConsentApiController implements DomesticSt
     @Override
     public ResponseEntity<DomesticStandingOrderConsent> consumeConsent(String consentId, ConsumePaymentConsentRequest request) {
         logger.info("Attempting to consumeConsent - id: {}, request: {}", consentId, request);
-        return ResponseEntity.ok(convertEntityToDto(consentService.consumeConsent(consentId, request.getApiClientId())));
+        return ResponseEntity.ok(convertEntityToDto(consentService.consumeConsent(consentId, request.getApiClientId(),
+                request.getExpectedInitiationFingerprint(), request.getExpectedDebtorAccountId())));
     }
 
     private DomesticStandingOrderConsent convertEntityToDto(DomesticStandingOrderConsentEntity entity) {
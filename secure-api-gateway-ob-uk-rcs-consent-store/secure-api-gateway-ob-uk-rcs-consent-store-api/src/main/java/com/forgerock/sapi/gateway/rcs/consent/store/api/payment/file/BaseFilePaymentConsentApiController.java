@@ -113,7 +113,8 @@ public class BaseFilePaymentConsentApiController implements FilePaymentConsentAp
     @Override
     public ResponseEntity<FilePaymentConsent> consumeConsent(String consentId, ConsumePaymentConsentRequest request) {
         logger.info("Attempting to consumeConsent - id: {}, request: {}", consentId, request);
-        return ResponseEntity.ok(convertEntityToDto(consentService.consumeConsent(consentId, request.getApiClientId())));
+        return ResponseEntity.ok(convertEntityToDto(consentService.consumeConsent(consentId, request.getApiClientId(),
+                request.getExpectedInitiationFingerprint(), request.getExpectedDebtorAccountId())));
     }
 
     private FilePaymentConsent convertEntityToDto(FilePaymentConsentEntity entity) {
@@ -100,7 +100,8 @@ public class BaseInternationalPaymentConsentApiController implements Internation
     @Override
     public ResponseEntity<InternationalPaymentConsent> consumeConsent(String consentId, ConsumePaymentConsentRequest request) {
         logger.info("Attempting to consumeConsent - id: {}, request: {}", consentId, request);
-        return ResponseEntity.ok(convertEntityToDto(consentService.consumeConsent(consentId, request.getApiClientId())));
+        return ResponseEntity.ok(convertEntityToDto(consentService.consumeConsent(consentId, request.getApiClientId(),
+                request.getExpectedInitiationFingerprint(), request.getExpectedDebtorAccountId())));
     }
 
     private InternationalPaymentConsent convertEntityToDto(InternationalPaymentConsentEntity entity) {
@@ -0,0 +1,80 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.api.payment.scheduled;
+
+import java.time.OffsetDateTime;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.scheduled.DueScheduledPaymentConsentsPage;
+
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiParam;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+import uk.org.openbanking.datamodel.v3.error.OBErrorResponse1;
+
+/**
+ * API for payment schedulers to find the Authorised Scheduled Payment Consents with a requestedExecutionDateTime
+ * in the range [fromDateTime, toDateTime).
+ * <p>
+ * Results are ordered by requestedExecutionDateTime and are paginated, the nextPageToken of a response is supplied as
+ * the pageToken of the next request (with the same range) to fetch the next page.
+ */
+@Validated
+public interface DueScheduledPaymentConsentApi {
+
+    @ApiOperation(value = "Find Authorised Domestic Scheduled Payment Consents which are due to be executed")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Page of consents which are due", response = DueScheduledPaymentConsentsPage.class),
+            @ApiResponse(code = 400, message = "Bad request", response = OBErrorResponse1.class),
+            @ApiResponse(code = 500, message = "Internal Server Error", response = OBErrorResponse1.class)
+    })
+    @RequestMapping(value = "/domestic-scheduled-payment-consents/due",
+            produces = {"application/json; charset=utf-8"},
+            method = RequestMethod.GET)
+    ResponseEntity<StreamingResponseBody> getDueDomesticScheduledPaymentConsents(
+            @ApiParam(value = "Inclusive start of the requestedExecutionDateTime range", required = true)
+            @RequestParam("fromDateTime") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime fromDateTime,
+            @ApiParam(value = "Exclusive end of the requestedExecutionDateTime range", required = true)
+            @RequestParam("toDateTime") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime toDateTime,
+            @RequestParam(value = "pageSize", required = false) Integer pageSize,
+            @RequestParam(value = "pageToken", required = false) String pageToken);
+
+
+    @ApiOperation(value = "Find Authorised International Scheduled Payment Consents which are due to be executed")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Page of consents which are due", response = DueScheduledPaymentConsentsPage.class),
+            @ApiResponse(code = 400, message = "Bad request", response = OBErrorResponse1.class),
+            @ApiResponse(code = 500, message = "Internal Server Error", response = OBErrorResponse1.class)
+    })
+    @RequestMapping(value = "/international-scheduled-payment-consents/due",
+            produces = {"application/json; charset=utf-8"},
+            method = RequestMethod.GET)
+    ResponseEntity<StreamingResponseBody> getDueInternationalScheduledPaymentConsents(
+            @ApiParam(value = "Inclusive start of the requestedExecutionDateTime range", required = true)
+            @RequestParam("fromDateTime") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime fromDateTime,
+            @ApiParam(value = "Exclusive end of the requestedExecutionDateTime range", required = true)
+            @RequestParam("toDateTime") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime toDateTime,
+            @RequestParam(value = "pageSize", required = false) Integer pageSize,
+            @RequestParam(value = "pageToken", required = false) String pageToken);
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.api.payment.scheduled;
+
+import static java.util.Objects.requireNonNull;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.scheduled.DueScheduledPaymentConsent;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.ScheduledPaymentConsent;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.exception.ConsentStoreException;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.exception.ConsentStoreException.ErrorType;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.payment.DueScheduledPaymentConsentsQuery;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.payment.DueScheduledPaymentConsentService;
+
+import io.swagger.annotations.Api;
+
+/**
+ * Implementation of DueScheduledPaymentConsentApi.
+ * <p>
+ * This API is not versioned as the query spans consents created via all OBIE API versions. Responses are written
+ * directly from the database cursor, so the memory used is independent of the page size.
+ */
+@Controller
+@Api(tags = {"scheduled-payments"})
+@RequestMapping(value = "/consent/store")
+public class DueScheduledPaymentConsentApiController implements DueScheduledPaymentConsentApi {
+
+    public static final int DEFAULT_PAGE_SIZE = 500;
+
+    public static final int MAX_PAGE_SIZE = 5000;
+
+    private static final char PAGE_TOKEN_SEPARATOR = ':';
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final DueScheduledPaymentConsentService dueScheduledPaymentConsentService;
+
+    private final ObjectMapper objectMapper;
+
+    public DueScheduledPaymentConsentApiController(DueScheduledPaymentConsentService dueScheduledPaymentConsentService,
+                                                   ObjectMapper objectMapper) {
+        this.dueScheduledPaymentConsentService = requireNonNull(dueScheduledPaymentConsentService, "dueScheduledPaymentConsentService must be provided");
+        this.objectMapper = requireNonNull(objectMapper, "objectMapper must be provided");
+    }
+
+    @Override
+    public ResponseEntity<StreamingResponseBody> getDueDomesticScheduledPaymentConsents(OffsetDateTime fromDateTime, OffsetDateTime toDateTime,
+                                                                                        Integer pageSize, String pageToken) {
+        return streamDueConsents(dueScheduledPaymentConsentService::streamDueDomesticScheduledPaymentConsents,
+                fromDateTime, toDateTime, pageSize, pageToken);
+    }
+
+    @Override
+    public ResponseEntity<StreamingResponseBody> getDueInternationalScheduledPaymentConsents(OffsetDateTime fromDateTime, OffsetDateTime toDateTime,
+                                                                                             Integer pageSize, String pageToken) {
+        return streamDueConsents(dueScheduledPaymentConsentService::streamDueInternationalScheduledPaymentConsents,
+                fromDateTime, toDateTime, pageSize, pageToken);
+    }
+
+    private ResponseEntity<StreamingResponseBody> streamDueConsents(Function<DueScheduledPaymentConsentsQuery, Stream<ScheduledPaymentConsent>> consentStreamFunction,
+                                                                    OffsetDateTime fromDateTime, OffsetDateTime toDateTime,
+                                                                    Integer pageSize, String pageToken) {
+        // Request parameters are validated before the response is committed, so that errors are reported as OBErrorResponse1
+        final DateTime from = toDateTime(fromDateTime);
+        final DateTime to = toDateTime(toDateTime);
+        if (!from.isBefore(to)) {
+            throw new ConsentStoreException(ErrorType.BAD_REQUEST, null, "fromDateTime must be before toDateTime");
+        }
+        final int limit = pageSize == null ? DEFAULT_PAGE_SIZE : pageSize;
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ConsentStoreException(ErrorType.BAD_REQUEST, null, "pageSize must be between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        DateTime afterRequestedExecutionDateTime = null;
+        String afterConsentId = null;
+        if (pageToken != null) {
+            final String decodedPageToken = decodePageToken(pageToken);
+            final int separatorIndex = decodedPageToken.indexOf(PAGE_TOKEN_SEPARATOR);
+            try {
+                afterRequestedExecutionDateTime = new DateTime(Long.parseLong(decodedPageToken.substring(0, separatorIndex)), DateTimeZone.UTC);
+                afterConsentId = decodedPageToken.substring(separatorIndex + 1);
+            } catch (RuntimeException ex) {
+                throw new ConsentStoreException(ErrorType.BAD_REQUEST, null, "pageToken is invalid", ex);
+            }
+        }
+
+        // Fetch one more result than the page size to determine whether there is a next page
+        final DueScheduledPaymentConsentsQuery query = new DueScheduledPaymentConsentsQuery(from, to,
+                afterRequestedExecutionDateTime, afterConsentId, limit + 1);
+        logger.info("Streaming due scheduled payment consents - query: {}", query);
+
+        final StreamingResponseBody responseBody = outputStream -> {
+            try (Stream<ScheduledPaymentConsent> consents = consentStreamFunction.apply(query);
+                 JsonGenerator jsonGenerator = objectMapper.createGenerator(outputStream)) {
+
+                jsonGenerator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                jsonGenerator.writeStartObject();
+                jsonGenerator.writeArrayFieldStart("consents");
+                final Iterator<ScheduledPaymentConsent> consentIterator = consents.iterator();
+                ScheduledPaymentConsent lastConsent = null;
+                int consentsWritten = 0;
+                while (consentsWritten < limit && consentIterator.hasNext()) {
+                    lastConsent = consentIterator.next();
+                    jsonGenerator.writeObject(convertConsent(lastConsent));
+                    consentsWritten++;
+                }
+                jsonGenerator.writeEndArray();
+                if (consentIterator.hasNext()) {
+                    jsonGenerator.writeStringField("nextPageToken", encodePageToken(lastConsent));
+                } else {
+                    jsonGenerator.writeNullField("nextPageToken");
+                }
+                jsonGenerator.writeEndObject();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(responseBody);
+    }
+
+    private static DateTime toDateTime(OffsetDateTime offsetDateTime) {
+        return new DateTime(offsetDateTime.toInstant().toEpochMilli(), DateTimeZone.UTC);
+    }
+
+    static String encodePageToken(ScheduledPaymentConsent lastConsent) {
+        final String token = lastConsent.getRequestedExecutionDateTime().getMillis() + String.valueOf(PAGE_TOKEN_SEPARATOR) + lastConsent.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodePageToken(String pageToken) {
+        try {
+            final String decoded = new String(Base64.getUrlDecoder().decode(pageToken), StandardCharsets.UTF_8);
+            if (decoded.indexOf(PAGE_TOKEN_SEPARATOR) < 1) {
+                throw new IllegalArgumentException("separator missing");
+            }
+            return decoded;
+        } catch (IllegalArgumentException ex) {
+            throw new ConsentStoreException(ErrorType.BAD_REQUEST, null, "pageToken is invalid", ex);
+        }
+    }
+
+    private static DueScheduledPaymentConsent convertConsent(ScheduledPaymentConsent consent) {
+        final DueScheduledPaymentConsent dueConsent = new DueScheduledPaymentConsent();
+        dueConsent.setConsentId(consent.getId());
+        dueConsent.setApiClientId(consent.getApiClientId());
+        dueConsent.setResourceOwnerId(consent.getResourceOwnerId());
+        dueConsent.setAuthorisedDebtorAccountId(consent.getAuthorisedDebtorAccountId());
+        dueConsent.setRequestVersion(consent.getRequestVersion());
+        dueConsent.setRequestedExecutionDateTime(consent.getRequestedExecutionDateTime());
+        return dueConsent;
+    }
+}
@@ -15,6 +15,8 @@
  */
 package com.forgerock.sapi.gateway.rcs.consent.store.api.payment.vrp;
 
+import java.math.BigDecimal;
+import java.util.List;
 import java.util.Objects;
 import java.util.function.Supplier;
 
@@ -24,13 +26,23 @@ import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
+import com.forgerock.sapi.gateway.ob.uk.common.datamodel.common.FRAmount;
 import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.RejectConsentRequest;
 import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.AuthorisePaymentConsentRequest;
+import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.vrp.VRPLimitReleaseRequest;
+import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.vrp.VRPLimitReservation;
+import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.vrp.VRPLimitReservationRequest;
+import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.vrp.VRPPeriodicLimitUsage;
 import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.vrp.v3_1_10.CreateDomesticVRPConsentRequest;
 import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.vrp.v3_1_10.DomesticVRPConsent;
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.vrp.DomesticVRPConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.vrp.LimitReservation;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.vrp.PeriodicLimitUsage;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.exception.ConsentStoreException;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.exception.ConsentStoreException.ErrorType;
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.payment.PaymentAuthoriseConsentArgs;
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.payment.vrp.DomesticVRPConsentService;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.payment.vrp.VRPLimitReservationArgs;
 import com.forgerock.sapi.gateway.uk.common.shared.api.meta.obie.OBVersion;
 
 import uk.org.openbanking.datamodel.v3.vrp.OBDomesticVRPConsentResponseDataStatus;
@@ -101,6 +113,54 @@ public class BaseDomesticVRPConsentApiController implements DomesticVRPConsentAp
         return ResponseEntity.status(HttpStatus.OK).build();
     }
 
+    @Override
+    public ResponseEntity<VRPLimitReservation> reserveLimit(String consentId, VRPLimitReservationRequest request) {
+        logger.info("Attempting to reserveLimit - id: {}, request: {}", consentId, request);
+        final DateTime reservationDateTime = request.getReservationDateTime() != null ? request.getReservationDateTime() : DateTime.now();
+        final VRPLimitReservationArgs reservationArgs = createReservationArgs(consentId, request, reservationDateTime);
+        return ResponseEntity.ok(convertEntityToReservationDto(consentService.reserveLimit(reservationArgs), reservationArgs.getReservationId()));
+    }
+
+    @Override
+    public ResponseEntity<VRPLimitReservation> releaseLimit(String consentId, VRPLimitReleaseRequest request) {
+        logger.info("Attempting to releaseLimit - id: {}, request: {}", consentId, request);
+        final DomesticVRPConsentEntity entity = consentService.releaseLimit(consentId, request.getApiClientId(), request.getReservationId());
+        return ResponseEntity.ok(convertEntityToReservationDto(entity, request.getReservationId()));
+    }
+
+    private static VRPLimitReservationArgs createReservationArgs(String consentId, VRPLimitReservationRequest request, DateTime reservationDateTime) {
+        final BigDecimal amount;
+        try {
+            amount = new BigDecimal(request.getAmount().getAmount());
+        } catch (RuntimeException e) {
+            throw new ConsentStoreException(ErrorType.BAD_REQUEST, consentId, "Invalid amount: " + request.getAmount().getAmount());
+        }
+        return new VRPLimitReservationArgs(consentId, request.getApiClientId(), amount, request.getAmount().getCurrency(), reservationDateTime);
+    }
+
+    private static VRPLimitReservation convertEntityToReservationDto(DomesticVRPConsentEntity entity, String reservationId) {
+        final LimitReservation reservation = entity.getLimitReservations().stream()
+                                                   .filter(limitReservation -> limitReservation.getReservationId().equals(reservationId))
+                                                   .findFirst()
+                                                   .orElseThrow(() -> new ConsentStoreException(ErrorType.NOT_FOUND, entity.getId(),
+                                                           "Limit reservation: " + reservationId + " not found"));
+        final VRPLimitReservation dto = new VRPLimitReservation();
+        dto.setReservationId(reservationId);
+        dto.setConsentId(entity.getId());
+        dto.setAmount(new FRAmount(reservation.getAmount().toPlainString(), reservation.getCurrency()));
+        dto.setReservationDateTime(new DateTime(reservation.getReservationDateTime()));
+        final List<PeriodicLimitUsage> periodicLimitUsage = entity.getPeriodicLimitUsage() != null ? entity.getPeriodicLimitUsage() : List.of();
+        dto.setPeriodicLimitUsage(periodicLimitUsage.stream().map(usage -> {
+            final VRPPeriodicLimitUsage usageDto = new VRPPeriodicLimitUsage();
+            usageDto.setPeriodType(usage.getPeriodType().getValue());
+            usageDto.setPeriodAlignment(usage.getPeriodAlignment().getValue());
+            usageDto.setPeriodStart(usage.getPeriodStart());
+            usageDto.setReservedAmount(new FRAmount(usage.getReservedAmount().toPlainString(), usage.getCurrency()));
+            return usageDto;
+        }).toList());
+        return dto;
+    }
+
     private DomesticVRPConsent convertEntityToDto(DomesticVRPConsentEntity entity) {
         final DomesticVRPConsent dto = new DomesticVRPConsent();
         dto.setId(entity.getId());
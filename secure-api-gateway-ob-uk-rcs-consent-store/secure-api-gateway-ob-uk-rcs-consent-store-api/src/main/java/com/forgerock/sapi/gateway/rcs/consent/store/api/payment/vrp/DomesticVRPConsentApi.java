@@ -25,6 +25,9 @@ import org.springframework.web.bind.annotation.RequestMethod;
 
 import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.RejectConsentRequest;
 import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.AuthorisePaymentConsentRequest;
+import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.vrp.VRPLimitReleaseRequest;
+import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.vrp.VRPLimitReservation;
+import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.vrp.VRPLimitReservationRequest;
 import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.vrp.v3_1_10.CreateDomesticVRPConsentRequest;
 import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.vrp.v3_1_10.DomesticVRPConsent;
 
@@ -133,4 +136,45 @@ public interface DomesticVRPConsentApi {
     ResponseEntity<Void> deleteConsent(@PathVariable(value = "consentId") String consentId,
                                        @RequestHeader(value = "x-api-client-id") String apiClientId);
 
+    @ApiOperation(value = "Reserve an amount against the limits of a Domestic VRP Consent")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "VRPLimitReservation object representing the reservation made",
+                         response = VRPLimitReservation.class),
+            @ApiResponse(code = 400, message = "Bad request", response = OBErrorResponse1.class),
+            @ApiResponse(code = 403, message = "Forbidden", response = OBErrorResponse1.class),
+            @ApiResponse(code = 404, message = "Not found"),
+            @ApiResponse(code = 405, message = "Method Not Allowed"),
+            @ApiResponse(code = 406, message = "Not Acceptable"),
+            @ApiResponse(code = 500, message = "Internal Server Error", response = OBErrorResponse1.class)
+    })
+    @RequestMapping(value = "/domestic-vrp-consents/{consentId}/reserve-limit",
+            consumes = {"application/json; charset=utf-8"},
+            produces = {"application/json; charset=utf-8"},
+            method = RequestMethod.POST)
+    ResponseEntity<VRPLimitReservation> reserveLimit(@PathVariable(value = "consentId") String consentId,
+                                                     @ApiParam(value = "Limit Reservation Request", required = true)
+                                                     @Valid
+                                                     @RequestBody VRPLimitReservationRequest request);
+
+
+    @ApiOperation(value = "Release a reservation previously made against the limits of a Domestic VRP Consent, releasing a reservation which has already been released has no effect")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "VRPLimitReservation object representing the reservation released",
+                         response = VRPLimitReservation.class),
+            @ApiResponse(code = 400, message = "Bad request", response = OBErrorResponse1.class),
+            @ApiResponse(code = 403, message = "Forbidden", response = OBErrorResponse1.class),
+            @ApiResponse(code = 404, message = "Not found"),
+            @ApiResponse(code = 405, message = "Method Not Allowed"),
+            @ApiResponse(code = 406, message = "Not Acceptable"),
+            @ApiResponse(code = 500, message = "Internal Server Error", response = OBErrorResponse1.class)
+    })
+    @RequestMapping(value = "/domestic-vrp-consents/{consentId}/release-limit",
+            consumes = {"application/json; charset=utf-8"},
+            produces = {"application/json; charset=utf-8"},
+            method = RequestMethod.POST)
+    ResponseEntity<VRPLimitReservation> releaseLimit(@PathVariable(value = "consentId") String consentId,
+                                                     @ApiParam(value = "Limit Release Request", required = true)
+                                                     @Valid
+                                                     @RequestBody VRPLimitReleaseRequest request);
+
 }
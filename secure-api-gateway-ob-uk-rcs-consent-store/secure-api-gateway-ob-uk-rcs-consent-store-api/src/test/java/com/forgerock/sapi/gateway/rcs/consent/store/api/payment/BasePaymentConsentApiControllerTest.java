@@ -33,6 +33,7 @@ import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.AuthoriseP
 import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.BaseCreatePaymentConsentRequest;
 import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.BasePaymentConsent;
 import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.ConsumePaymentConsentRequest;
+import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.PaymentInitiationFingerprint;
 
 import uk.org.openbanking.datamodel.v3.error.OBErrorResponse1;
 
@@ -112,6 +113,34 @@ public abstract class BasePaymentConsentApiControllerTest<T extends BasePaymentC
         validateConsumedConsent(consumedConsent, authorisedConsent);
     }
 
+    @Test
+    public void consumeConsentWithExpectedInitiationAndDebtorAccount() {
+        final String debtorAccountId = "acc-123456";
+        final T consent = getConsentInStateToAuthoriseOrReject("client-1");
+
+        final AuthorisePaymentConsentRequest authoriseReq = new AuthorisePaymentConsentRequest();
+        authoriseReq.setConsentId(consent.getId());
+        authoriseReq.setApiClientId(consent.getApiClientId());
+        authoriseReq.setResourceOwnerId("psu4test");
+        authoriseReq.setAuthorisedDebtorAccountId(debtorAccountId);
+        final T authorisedConsent = authoriseConsent(authoriseReq, consentClass).getBody();
+
+        final ConsumePaymentConsentRequest consumeRequest = new ConsumePaymentConsentRequest();
+        consumeRequest.setConsentId(consent.getId());
+        consumeRequest.setApiClientId(consent.getApiClientId());
+        consumeRequest.setExpectedInitiationFingerprint(PaymentInitiationFingerprint.ofConsentRequest(consent.getRequestObj()));
+        consumeRequest.setExpectedDebtorAccountId("another-debtor-account");
+
+        final ResponseEntity<OBErrorResponse1> debtorMismatchResponse = consumeConsent(consumeRequest, OBErrorResponse1.class);
+        assertThat(debtorMismatchResponse.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(debtorMismatchResponse.getBody().getErrors().get(0).getErrorCode()).isEqualTo("INVALID_DEBTOR_ACCOUNT");
+
+        consumeRequest.setExpectedDebtorAccountId(debtorAccountId);
+        final ResponseEntity<T> consumeResponse = consumeConsent(consumeRequest, consentClass);
+        assertThat(consumeResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
+        validateConsumedConsent(consumeResponse.getBody(), authorisedConsent);
+    }
+
     @Test
     public void failToConsumeConsentCreatedByDifferentApiClient() {
         final String apiClientId = "client-1";
@@ -0,0 +1,90 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.bulk;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+
+import org.joda.time.DateTime;
+import org.joda.time.LocalDate;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.datatype.joda.JodaModule;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.ConsentArchiveRepository;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.export.ConsentExportRepository;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.migration.ConsentSchemaMigrationListener;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.migration.ConsentSchemaMigrations;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.routing.ConsentReadRouting;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.export.ConsentExportService;
+import com.forgerock.sapi.gateway.uk.common.shared.spring.converter.JodaTimeConverters;
+
+import uk.org.openbanking.jackson.DateTimeDeserializer;
+import uk.org.openbanking.jackson.DateTimeSerializer;
+import uk.org.openbanking.jackson.LocalDateDeserializer;
+import uk.org.openbanking.jackson.LocalDateSerializer;
+
+/**
+ * Command line application for moving consents in and out of the Consent Store in bulk.
+ * <p>
+ * The application connects directly to the Consent Store's Mongo database (configured via the standard spring.data.mongodb
+ * properties) and runs the tool selected by config, see the README for the available tools. The JSON and Mongo mappings
+ * match those used by the RCS server, so that files are interchangeable with the Consent Store REST API data-model.
+ */
+@SpringBootApplication
+@Import({ConsentExportService.class, ConsentExportRepository.class, ConsentArchiveRepository.class, ConsentReadRouting.class,
+         ConsentSchemaMigrations.class, ConsentSchemaMigrationListener.class})
+public class ConsentBulkToolApplication {
+
+    public static void main(String[] args) {
+        final SpringApplication application = new SpringApplicationBuilder(ConsentBulkToolApplication.class)
+                .web(WebApplicationType.NONE)
+                .build();
+        System.exit(SpringApplication.exit(application.run(args)));
+    }
+
+    /**
+     * Create MongoCustomConversions instance with Joda Time converters
+     */
+    @Bean
+    public MongoCustomConversions mongoCustomConversions() {
+        return new MongoCustomConversions(new ArrayList<>(JodaTimeConverters.getConvertersToRegister()));
+    }
+
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer objectMapperBuilderCustomizer() {
+        return (jacksonObjectMapperBuilder) -> {
+            jacksonObjectMapperBuilder.serializationInclusion(JsonInclude.Include.NON_NULL);
+            jacksonObjectMapperBuilder.featuresToDisable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+            jacksonObjectMapperBuilder.featuresToEnable(MapperFeature.USE_BASE_TYPE_AS_DEFAULT_IMPL);
+            jacksonObjectMapperBuilder.modules(new JodaModule());
+            jacksonObjectMapperBuilder.dateFormat(new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssZZ"));
+            jacksonObjectMapperBuilder.deserializerByType(DateTime.class, new DateTimeDeserializer());
+            jacksonObjectMapperBuilder.serializerByType(DateTime.class, new DateTimeSerializer(DateTime.class));
+            jacksonObjectMapperBuilder.deserializerByType(LocalDate.class, new LocalDateDeserializer());
+            jacksonObjectMapperBuilder.serializerByType(LocalDate.class, new LocalDateSerializer(LocalDate.class));
+        };
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.bulk.exporter;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+import org.joda.time.DateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.export.ConsentExportQuery;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.export.ConsentExportService;
+import com.forgerock.sapi.gateway.uk.common.shared.api.meta.share.IntentType;
+
+/**
+ * Runs an export when the application is started with the consent.store.export.file property set.
+ * <p>
+ * Consents are written as NDJSON, the file is gzipped if its name ends with .gz
+ */
+@Component
+@ConditionalOnProperty("consent.store.export.file")
+public class ConsentExportRunner implements ApplicationRunner {
+
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final ConsentExportService consentExportService;
+
+    private final Path file;
+
+    private final ConsentExportQuery exportQuery;
+
+    public ConsentExportRunner(ConsentExportService consentExportService,
+                               @Value("${consent.store.export.file}") String file,
+                               @Value("${consent.store.export.apiClientId:}") String apiClientId,
+                               @Value("${consent.store.export.intentTypes:}") Set<IntentType> intentTypes,
+                               @Value("${consent.store.export.statuses:}") Set<String> statuses,
+                               @Value("${consent.store.export.statusUpdatedFrom:}") String statusUpdatedFrom,
+                               @Value("${consent.store.export.statusUpdatedTo:}") String statusUpdatedTo,
+                               @Value("${consent.store.export.includeArchived:false}") boolean includeArchived,
+                               @Value("${consent.store.export.batchSize:1000}") int batchSize) {
+        this.consentExportService = requireNonNull(consentExportService, "consentExportService must be supplied");
+        this.file = Path.of(file);
+        this.exportQuery = new ConsentExportQuery(StringUtils.hasText(apiClientId) ? apiClientId : null, intentTypes, statuses, parseDateTime(statusUpdatedFrom),
+                parseDateTime(statusUpdatedTo), includeArchived, batchSize);
+    }
+
+    private static DateTime parseDateTime(String dateTime) {
+        return StringUtils.hasText(dateTime) ? DateTime.parse(dateTime) : null;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        logger.info("Exporting consents to file: {} using query: {}", file, exportQuery);
+        final long startTime = System.nanoTime();
+        final long exported;
+        try (OutputStream outputStream = openOutputStream()) {
+            exported = consentExportService.exportConsents(exportQuery, outputStream);
+        }
+        final double elapsedSeconds = (System.nanoTime() - startTime) / 1_000_000_000.0;
+        logger.info("Exported {} consents to file: {} in {}s ({} consents/s)", exported, file,
+                String.format("%.1f", elapsedSeconds), elapsedSeconds > 0 ? Math.round(exported / elapsedSeconds) : exported);
+    }
+
+    private OutputStream openOutputStream() throws IOException {
+        final OutputStream fileOutputStream = Files.newOutputStream(file);
+        if (file.getFileName().toString().endsWith(".gz")) {
+            return new GZIPOutputStream(fileOutputStream, OUTPUT_BUFFER_SIZE);
+        }
+        return new BufferedOutputStream(fileOutputStream, OUTPUT_BUFFER_SIZE);
+    }
+}
@@ -0,0 +1,401 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.bulk.importer;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.BaseConsent;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.BaseConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mapping.ConsentDtoMappings;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mapping.ConsentDtoMappings.ConsentDtoMapping;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.migration.ConsentSchemaMigrations;
+import com.forgerock.sapi.gateway.uk.common.shared.api.meta.share.IntentType;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.WriteConcern;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.ReplaceOneModel;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+/**
+ * Imports consents into the Consent Store from a file of newline delimited JSON (NDJSON), where each line is a Consent
+ * Store data-model object (DTO) as returned by the REST API e.g. DomesticPaymentConsent or AccountAccessConsent. Files
+ * ending in .gz are decompressed.
+ * <p>
+ * The type of each consent is identified from its id. Lines are read sequentially and grouped into batches, batches are
+ * parsed, mapped to entities and validated in parallel, then written in file order using unordered insertMany commands
+ * (one per collection in the batch). Consents are written as they are, bypassing the create flow, so that their status,
+ * creationDateTime and statusUpdatedDateTime are preserved. Imported documents are stamped with the entityVersion of a
+ * newly inserted consent and the current schemaVersion of their type, as the repository insert would do, so that they
+ * can be modified via the Consent Store services and are not upcast when read.
+ * <p>
+ * Lines which are not valid consents are rejected: they are logged with their line number and optionally copied to a
+ * rejects file, so that they can be corrected and imported separately. Consents which already exist are handled as per
+ * the {@link DuplicatePolicy}. Progress is checkpointed after every batch, see {@link ImportCheckpoint}, and throughput
+ * is logged periodically.
+ */
+@Component
+public class ConsentBulkImporter {
+
+    private static final int DUPLICATE_KEY_ERROR_CODE = 11000;
+    private static final String FIELD_CREATION_DATE_TIME = "creationDateTime";
+    private static final String FIELD_STATUS_UPDATED_DATE_TIME = "statusUpdatedDateTime";
+    private static final String FIELD_ENTITY_VERSION = "entityVersion";
+
+    /**
+     * The entityVersion Spring Data assigns to a newly inserted entity, a primitive version of 0 marks an entity as new
+     * so saving an imported consent with that version would attempt to insert it again.
+     */
+    private static final int INITIAL_ENTITY_VERSION = 1;
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final MongoOperations mongoOperations;
+
+    private final ConsentSchemaMigrations consentSchemaMigrations;
+
+    private final ObjectMapper objectMapper;
+
+    private final Validator validator;
+
+    private final int batchSize;
+
+    private final int parallelism;
+
+    private final DuplicatePolicy duplicatePolicy;
+
+    private final Duration progressInterval;
+
+    private final WriteConcern writeConcern;
+
+    public ConsentBulkImporter(MongoOperations mongoOperations, ConsentSchemaMigrations consentSchemaMigrations,
+                               ObjectMapper objectMapper, Validator validator,
+                               @Value("${consent.store.import.batchSize:1000}") int batchSize,
+                               @Value("${consent.store.import.parallelism:0}") int parallelism,
+                               @Value("${consent.store.import.duplicatePolicy:SKIP}") DuplicatePolicy duplicatePolicy,
+                               @Value("${consent.store.import.progressIntervalMillis:10000}") long progressIntervalMillis,
+                               @Value("${consent.store.import.writeConcern:}") String writeConcern) {
+        this.mongoOperations = requireNonNull(mongoOperations, "mongoOperations must be supplied");
+        this.consentSchemaMigrations = requireNonNull(consentSchemaMigrations, "consentSchemaMigrations must be supplied");
+        this.objectMapper = requireNonNull(objectMapper, "objectMapper must be supplied");
+        this.validator = requireNonNull(validator, "validator must be supplied");
+        this.duplicatePolicy = requireNonNull(duplicatePolicy, "duplicatePolicy must be supplied");
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be at least 1");
+        }
+        this.batchSize = batchSize;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.progressInterval = Duration.ofMillis(progressIntervalMillis);
+        if (StringUtils.hasText(writeConcern)) {
+            this.writeConcern = requireNonNull(WriteConcern.valueOf(writeConcern), "Unknown writeConcern: " + writeConcern);
+        } else {
+            this.writeConcern = null;
+        }
+    }
+
+    /**
+     * Imports the consents in the file, resuming from the file's checkpoint if a previous import was interrupted. The
+     * checkpoint is deleted once the whole file has been imported.
+     *
+     * @param file        NDJSON file of consents
+     * @param rejectsFile optional file to append rejected lines to, may be null
+     * @return the result of the import
+     */
+    public ImportResult importConsents(Path file, Path rejectsFile) throws IOException {
+        requireNonNull(file, "file must be supplied");
+        final long startTime = System.nanoTime();
+        final ImportCheckpoint checkpoint = ImportCheckpoint.loadOrCreate(file);
+        final long resumedFromLine = checkpoint.getLinesProcessed();
+        if (resumedFromLine > 0) {
+            logger.info("Resuming import of: {} after line: {} using checkpoint: {}", file, resumedFromLine, checkpoint.getCheckpointFile());
+        }
+        logger.info("Importing consents from: {} using batchSize: {}, parallelism: {}, duplicatePolicy: {}",
+                file, batchSize, parallelism, duplicatePolicy);
+
+        final AtomicInteger threadCount = new AtomicInteger();
+        final ExecutorService executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            final Thread thread = new Thread(runnable, "consent-import-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        final ProgressReporter progressReporter = new ProgressReporter(checkpoint);
+        try (BufferedReader reader = openReader(file);
+             BufferedWriter rejectsWriter = rejectsFile != null ? Files.newBufferedWriter(rejectsFile, StandardCharsets.UTF_8,
+                     StandardOpenOption.CREATE, StandardOpenOption.APPEND) : null) {
+
+            for (long i = 0; i < resumedFromLine; i++) {
+                if (reader.readLine() == null) {
+                    throw new IllegalStateException("Checkpoint: " + checkpoint.getCheckpointFile() + " is beyond the end of the file");
+                }
+            }
+
+            // Batches are parsed in parallel, bounding the number in flight limits the number of lines held in memory
+            final Deque<Future<ParsedBatch>> inFlightBatches = new ArrayDeque<>();
+            long lineNumber = resumedFromLine;
+            List<String> lines;
+            while (!(lines = readBatch(reader)).isEmpty()) {
+                final long firstLineNumber = lineNumber + 1;
+                final List<String> batchLines = lines;
+                inFlightBatches.add(executor.submit(() -> parseBatch(firstLineNumber, batchLines)));
+                lineNumber += lines.size();
+                if (inFlightBatches.size() >= parallelism * 2) {
+                    writeBatch(awaitBatch(inFlightBatches.poll()), checkpoint, rejectsWriter);
+                    progressReporter.reportIfDue();
+                }
+            }
+            while (!inFlightBatches.isEmpty()) {
+                writeBatch(awaitBatch(inFlightBatches.poll()), checkpoint, rejectsWriter);
+                progressReporter.reportIfDue();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        final ImportResult result = new ImportResult(checkpoint.getLinesProcessed(), checkpoint.getInserted(),
+                checkpoint.getDuplicates(), checkpoint.getReplaced(), checkpoint.getRejected(),
+                checkpoint.getLinesProcessed() - resumedFromLine, Duration.ofNanos(System.nanoTime() - startTime));
+        checkpoint.delete();
+        logger.info("Completed import of: {} - {}", file, result);
+        return result;
+    }
+
+    private static BufferedReader openReader(Path file) throws IOException {
+        InputStream inputStream = Files.newInputStream(file);
+        if (file.getFileName().toString().endsWith(".gz")) {
+            inputStream = new GZIPInputStream(inputStream, 64 * 1024);
+        }
+        return new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    private List<String> readBatch(BufferedReader reader) throws IOException {
+        final List<String> lines = new ArrayList<>(batchSize);
+        String line;
+        while (lines.size() < batchSize && (line = reader.readLine()) != null) {
+            lines.add(line);
+        }
+        return lines;
+    }
+
+    private static ParsedBatch awaitBatch(Future<ParsedBatch> batch) {
+        try {
+            return batch.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted whilst waiting for batch to be parsed", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to parse batch", e.getCause());
+        }
+    }
+
+    /**
+     * Parses, maps and validates a batch of lines, runs on the executor.
+     */
+    private ParsedBatch parseBatch(long firstLineNumber, List<String> lines) {
+        final Map<String, List<Document>> documentsByCollection = new LinkedHashMap<>();
+        final List<RejectedLine> rejectedLines = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            final String line = lines.get(i);
+            if (line.isBlank()) {
+                continue;
+            }
+            final long lineNumber = firstLineNumber + i;
+            try {
+                final JsonNode json = objectMapper.readTree(line);
+                final String consentId = json.path("id").textValue();
+                if (consentId == null) {
+                    rejectedLines.add(new RejectedLine(lineNumber, line, "id is missing"));
+                    continue;
+                }
+                final IntentType intentType = IntentType.identify(consentId);
+                final ConsentDtoMapping<?, ?> mapping = intentType == null ? null : ConsentDtoMappings.forIntentType(intentType).orElse(null);
+                if (mapping == null) {
+                    rejectedLines.add(new RejectedLine(lineNumber, line, "id: " + consentId + " is not the id of a supported consent type"));
+                    continue;
+                }
+
+                final BaseConsent<?> consent = objectMapper.treeToValue(json, mapping.getDtoClass());
+                final BaseConsentEntity<?> entity = mapping.toEntity(consent);
+                final Set<ConstraintViolation<BaseConsentEntity<?>>> violations = validator.validate(entity);
+                if (!violations.isEmpty()) {
+                    rejectedLines.add(new RejectedLine(lineNumber, line, violations.stream()
+                            .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                            .sorted()
+                            .collect(Collectors.joining(", "))));
+                    continue;
+                }
+                documentsByCollection.computeIfAbsent(mongoOperations.getCollectionName(mapping.getEntityClass()), name -> new ArrayList<>())
+                                     .add(toDocument(consent, entity));
+            } catch (JsonProcessingException | RuntimeException e) {
+                rejectedLines.add(new RejectedLine(lineNumber, line, e.getMessage()));
+            }
+        }
+        return new ParsedBatch(firstLineNumber + lines.size() - 1, documentsByCollection, rejectedLines);
+    }
+
+    /**
+     * Converts the entity to the Document that Spring Data would insert. The converter does not apply the insert
+     * callbacks, so the entityVersion and schemaVersion are set here. The audit dates are taken from the consent, as
+     * auditing would otherwise set them to the time of the import.
+     */
+    private Document toDocument(BaseConsent<?> consent, BaseConsentEntity<?> entity) {
+        final Document document = new Document();
+        mongoOperations.getConverter().write(entity, document);
+        document.put(FIELD_ENTITY_VERSION, INITIAL_ENTITY_VERSION);
+        document.put(ConsentSchemaMigrations.FIELD_SCHEMA_VERSION, consentSchemaMigrations.getCurrentSchemaVersion(entity.getClass()));
+        final Date creationDateTime = consent.getCreationDateTime() != null ? consent.getCreationDateTime() : new Date();
+        document.put(FIELD_CREATION_DATE_TIME, creationDateTime);
+        document.put(FIELD_STATUS_UPDATED_DATE_TIME, consent.getStatusUpdateDateTime() != null ? consent.getStatusUpdateDateTime() : creationDateTime);
+        return document;
+    }
+
+    private void writeBatch(ParsedBatch batch, ImportCheckpoint checkpoint, BufferedWriter rejectsWriter) throws IOException {
+        long inserted = 0;
+        long duplicates = 0;
+        long replaced = 0;
+        for (Map.Entry<String, List<Document>> collectionDocuments : batch.documentsByCollection().entrySet()) {
+            final WriteCounts writeCounts = insertDocuments(collectionDocuments.getKey(), collectionDocuments.getValue());
+            inserted += writeCounts.inserted();
+            duplicates += writeCounts.duplicates();
+            replaced += writeCounts.replaced();
+        }
+        for (RejectedLine rejectedLine : batch.rejectedLines()) {
+            logger.warn("Rejected line: {} - {}", rejectedLine.lineNumber(), rejectedLine.reason());
+            if (rejectsWriter != null) {
+                rejectsWriter.write(rejectedLine.line());
+                rejectsWriter.newLine();
+            }
+        }
+        if (rejectsWriter != null) {
+            rejectsWriter.flush();
+        }
+        checkpoint.recordBatch(batch.lastLineNumber(), inserted, duplicates, replaced, batch.rejectedLines().size());
+        checkpoint.save();
+    }
+
+    private WriteCounts insertDocuments(String collectionName, List<Document> documents) {
+        MongoCollection<Document> collection = mongoOperations.getCollection(collectionName);
+        if (writeConcern != null) {
+            collection = collection.withWriteConcern(writeConcern);
+        }
+        try {
+            collection.insertMany(documents, new InsertManyOptions().ordered(false));
+            return new WriteCounts(documents.size(), 0, 0);
+        } catch (MongoBulkWriteException e) {
+            final List<Document> duplicateDocuments = new ArrayList<>();
+            for (BulkWriteError writeError : e.getWriteErrors()) {
+                if (writeError.getCode() != DUPLICATE_KEY_ERROR_CODE) {
+                    throw e;
+                }
+                duplicateDocuments.add(documents.get(writeError.getIndex()));
+            }
+            final long inserted = documents.size() - duplicateDocuments.size();
+            return switch (duplicatePolicy) {
+                case SKIP -> new WriteCounts(inserted, duplicateDocuments.size(), 0);
+                case REPLACE -> new WriteCounts(inserted, 0, replaceDocuments(collection, duplicateDocuments));
+                case FAIL -> throw new IllegalStateException("Import contains consents which already exist in collection: "
+                        + collectionName + ", ids: " + duplicateDocuments.stream().map(document -> document.get("_id")).toList(), e);
+            };
+        }
+    }
+
+    private static long replaceDocuments(MongoCollection<Document> collection, List<Document> documents) {
+        final List<ReplaceOneModel<Document>> replacements = documents.stream()
+                .map(document -> new ReplaceOneModel<>(Filters.eq("_id", document.get("_id")), document))
+                .toList();
+        return collection.bulkWrite(replacements, new BulkWriteOptions().ordered(false)).getMatchedCount();
+    }
+
+    private record ParsedBatch(long lastLineNumber, Map<String, List<Document>> documentsByCollection, List<RejectedLine> rejectedLines) {
+    }
+
+    private record RejectedLine(long lineNumber, String line, String reason) {
+    }
+
+    private record WriteCounts(long inserted, long duplicates, long replaced) {
+    }
+
+    /**
+     * Logs the progress of the import, including the throughput since the last report.
+     */
+    private class ProgressReporter {
+
+        private final ImportCheckpoint checkpoint;
+        private long lastReportTime = System.nanoTime();
+        private long lastReportLinesProcessed;
+
+        private ProgressReporter(ImportCheckpoint checkpoint) {
+            this.checkpoint = checkpoint;
+            this.lastReportLinesProcessed = checkpoint.getLinesProcessed();
+        }
+
+        private void reportIfDue() {
+            final long now = System.nanoTime();
+            final long elapsedNanos = now - lastReportTime;
+            if (elapsedNanos < progressInterval.toNanos()) {
+                return;
+            }
+            final long linesProcessed = checkpoint.getLinesProcessed();
+            final double linesPerSecond = (linesProcessed - lastReportLinesProcessed) * 1_000_000_000.0 / Math.max(elapsedNanos, 1);
+            logger.info("Import progress - linesProcessed: {}, inserted: {}, duplicates: {}, replaced: {}, rejected: {}, linesPerSecond: {}",
+                    linesProcessed, checkpoint.getInserted(), checkpoint.getDuplicates(), checkpoint.getReplaced(),
+                    checkpoint.getRejected(), String.format("%.1f", linesPerSecond));
+            lastReportTime = now;
+            lastReportLinesProcessed = linesProcessed;
+        }
+    }
+}
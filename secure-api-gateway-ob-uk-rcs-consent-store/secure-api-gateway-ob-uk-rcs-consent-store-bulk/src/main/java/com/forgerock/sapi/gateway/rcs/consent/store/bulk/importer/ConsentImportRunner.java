@@ -0,0 +1,54 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.bulk.importer;
+
+import static java.util.Objects.requireNonNull;
+
+import java.nio.file.Path;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+/**
+ * Runs an import when the application is started with the consent.store.import.file property set.
+ */
+@Component
+@ConditionalOnProperty("consent.store.import.file")
+public class ConsentImportRunner implements ApplicationRunner {
+
+    private final ConsentBulkImporter consentBulkImporter;
+
+    private final Path file;
+
+    private final Path rejectsFile;
+
+    public ConsentImportRunner(ConsentBulkImporter consentBulkImporter,
+                               @Value("${consent.store.import.file}") String file,
+                               @Value("${consent.store.import.rejectsFile:}") String rejectsFile) {
+        this.consentBulkImporter = requireNonNull(consentBulkImporter, "consentBulkImporter must be supplied");
+        this.file = Path.of(file);
+        this.rejectsFile = StringUtils.hasText(rejectsFile) ? Path.of(rejectsFile) : null;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        consentBulkImporter.importConsents(file, rejectsFile);
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.bulk.importer;
+
+/**
+ * Controls what happens when an imported consent has the same id as a consent which already exists in the store.
+ */
+public enum DuplicatePolicy {
+    /**
+     * Keep the existing consent, the imported consent is counted as a duplicate. Allows a partially completed import to
+     * be re-run safely.
+     */
+    SKIP,
+    /**
+     * Replace the existing consent with the imported consent.
+     */
+    REPLACE,
+    /**
+     * Stop the import, consents in the same batch that are not duplicates will already have been inserted.
+     */
+    FAIL
+}
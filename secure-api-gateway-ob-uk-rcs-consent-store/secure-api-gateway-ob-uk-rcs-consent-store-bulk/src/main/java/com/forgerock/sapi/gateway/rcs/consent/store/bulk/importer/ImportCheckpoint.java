@@ -0,0 +1,144 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.bulk.importer;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * Progress of an import, persisted to a file next to the file being imported after every batch that is written.
+ * <p>
+ * The checkpoint records the number of lines of the source file which have been fully processed (either written to
+ * Mongo or rejected), allowing an interrupted import to be resumed from the next line, along with the running totals of
+ * the import. Lines of a batch which was being written when the import was interrupted are processed again on resume,
+ * their consents are then detected as duplicates.
+ */
+final class ImportCheckpoint {
+
+    static final String CHECKPOINT_FILE_SUFFIX = ".checkpoint";
+
+    private final Path checkpointFile;
+    private final String sourceFile;
+    private final long sourceFileSize;
+
+    private long linesProcessed;
+    private long inserted;
+    private long duplicates;
+    private long replaced;
+    private long rejected;
+
+    private ImportCheckpoint(Path checkpointFile, String sourceFile, long sourceFileSize) {
+        this.checkpointFile = checkpointFile;
+        this.sourceFile = sourceFile;
+        this.sourceFileSize = sourceFileSize;
+    }
+
+    /**
+     * Loads the checkpoint of a previous import of the sourceFile, or creates a new checkpoint if there is none.
+     *
+     * @throws IllegalStateException if the checkpoint was written for a different version of the sourceFile
+     */
+    static ImportCheckpoint loadOrCreate(Path sourceFile) throws IOException {
+        requireNonNull(sourceFile, "sourceFile must be supplied");
+        final Path checkpointFile = sourceFile.resolveSibling(sourceFile.getFileName() + CHECKPOINT_FILE_SUFFIX);
+        final String sourceFileName = sourceFile.toAbsolutePath().toString();
+        final long sourceFileSize = Files.size(sourceFile);
+        final ImportCheckpoint checkpoint = new ImportCheckpoint(checkpointFile, sourceFileName, sourceFileSize);
+        if (!Files.exists(checkpointFile)) {
+            return checkpoint;
+        }
+
+        final Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(checkpointFile, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        if (!sourceFileName.equals(properties.getProperty("sourceFile"))
+                || sourceFileSize != Long.parseLong(properties.getProperty("sourceFileSize", "-1"))) {
+            throw new IllegalStateException("Checkpoint: " + checkpointFile + " does not match the file being imported, "
+                    + "delete the checkpoint to import the file from the start");
+        }
+        checkpoint.linesProcessed = Long.parseLong(properties.getProperty("linesProcessed"));
+        checkpoint.inserted = Long.parseLong(properties.getProperty("inserted"));
+        checkpoint.duplicates = Long.parseLong(properties.getProperty("duplicates"));
+        checkpoint.replaced = Long.parseLong(properties.getProperty("replaced"));
+        checkpoint.rejected = Long.parseLong(properties.getProperty("rejected"));
+        return checkpoint;
+    }
+
+    /**
+     * Writes the checkpoint, the file is replaced atomically so that an interrupted write does not lose the progress.
+     */
+    void save() throws IOException {
+        final Properties properties = new Properties();
+        properties.setProperty("sourceFile", sourceFile);
+        properties.setProperty("sourceFileSize", Long.toString(sourceFileSize));
+        properties.setProperty("linesProcessed", Long.toString(linesProcessed));
+        properties.setProperty("inserted", Long.toString(inserted));
+        properties.setProperty("duplicates", Long.toString(duplicates));
+        properties.setProperty("replaced", Long.toString(replaced));
+        properties.setProperty("rejected", Long.toString(rejected));
+
+        final Path tempFile = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+            properties.store(writer, "Consent Store import checkpoint");
+        }
+        Files.move(tempFile, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    void delete() throws IOException {
+        Files.deleteIfExists(checkpointFile);
+    }
+
+    Path getCheckpointFile() {
+        return checkpointFile;
+    }
+
+    long getLinesProcessed() {
+        return linesProcessed;
+    }
+
+    long getInserted() {
+        return inserted;
+    }
+
+    long getDuplicates() {
+        return duplicates;
+    }
+
+    long getReplaced() {
+        return replaced;
+    }
+
+    long getRejected() {
+        return rejected;
+    }
+
+    void recordBatch(long linesProcessed, long inserted, long duplicates, long replaced, long rejected) {
+        this.linesProcessed = linesProcessed;
+        this.inserted += inserted;
+        this.duplicates += duplicates;
+        this.replaced += replaced;
+        this.rejected += rejected;
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.bulk.importer;
+
+import java.time.Duration;
+
+/**
+ * Outcome of an import. Totals include the work done by previous runs of an import which was resumed from a checkpoint.
+ */
+public class ImportResult {
+
+    private final long linesProcessed;
+    private final long inserted;
+    private final long duplicates;
+    private final long replaced;
+    private final long rejected;
+    private final long linesProcessedThisRun;
+    private final Duration elapsed;
+
+    public ImportResult(long linesProcessed, long inserted, long duplicates, long replaced, long rejected,
+                        long linesProcessedThisRun, Duration elapsed) {
+        this.linesProcessed = linesProcessed;
+        this.inserted = inserted;
+        this.duplicates = duplicates;
+        this.replaced = replaced;
+        this.rejected = rejected;
+        this.linesProcessedThisRun = linesProcessedThisRun;
+        this.elapsed = elapsed;
+    }
+
+    /**
+     * @return number of lines of the source file processed, including blank lines
+     */
+    public long getLinesProcessed() {
+        return linesProcessed;
+    }
+
+    public long getInserted() {
+        return inserted;
+    }
+
+    /**
+     * @return number of consents which already existed in the store and were not modified
+     */
+    public long getDuplicates() {
+        return duplicates;
+    }
+
+    /**
+     * @return number of consents which already existed in the store and were replaced
+     */
+    public long getReplaced() {
+        return replaced;
+    }
+
+    /**
+     * @return number of lines which could not be imported as they are not valid consents
+     */
+    public long getRejected() {
+        return rejected;
+    }
+
+    public long getLinesProcessedThisRun() {
+        return linesProcessedThisRun;
+    }
+
+    /**
+     * @return time taken by this run of the import
+     */
+    public Duration getElapsed() {
+        return elapsed;
+    }
+
+    public double getLinesPerSecond() {
+        final long elapsedMillis = Math.max(elapsed.toMillis(), 1);
+        return linesProcessedThisRun * 1000.0 / elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "ImportResult{" +
+                "linesProcessed=" + linesProcessed +
+                ", inserted=" + inserted +
+                ", duplicates=" + duplicates +
+                ", replaced=" + replaced +
+                ", rejected=" + rejected +
+                ", linesProcessedThisRun=" + linesProcessedThisRun +
+                ", elapsed=" + elapsed +
+                ", linesPerSecond=" + String.format("%.1f", getLinesPerSecond()) +
+                '}';
+    }
+}
@@ -0,0 +1,291 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.bulk.importer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import org.bson.Document;
+import org.joda.time.DateTime;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.forgerock.sapi.gateway.ob.uk.common.datamodel.converter.v3.account.FRReadConsentConverter;
+import com.forgerock.sapi.gateway.ob.uk.common.datamodel.converter.v3.payment.FRWriteDomesticConsentConverter;
+import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.BaseConsent;
+import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.account.v3_1_10.AccountAccessConsent;
+import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.PaymentInitiationFingerprint;
+import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.domestic.v3_1_10.DomesticPaymentConsent;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.account.AccountAccessConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.domestic.DomesticPaymentConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.MongoRepoPackageMarker;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.migration.ConsentSchemaMigrations;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.payment.domestic.DomesticPaymentConsentRepository;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.payment.PaymentAuthoriseConsentArgs;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.payment.domestic.DefaultDomesticPaymentConsentService;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.payment.domestic.DomesticPaymentConsentService;
+import com.forgerock.sapi.gateway.uk.common.shared.api.meta.obie.OBVersion;
+import com.forgerock.sapi.gateway.uk.common.shared.api.meta.share.IntentType;
+
+import jakarta.validation.Validator;
+import uk.org.openbanking.datamodel.v3.account.OBReadConsent1;
+import uk.org.openbanking.datamodel.v3.account.OBReadConsent1Data;
+import uk.org.openbanking.datamodel.v3.account.OBRisk2;
+import uk.org.openbanking.datamodel.v3.common.OBExternalPermissions1Code;
+import uk.org.openbanking.datamodel.v3.payment.OBPaymentConsentStatus;
+import uk.org.openbanking.testsupport.v3.payment.OBWriteDomesticConsentTestDataFactory;
+
+@SpringBootTest
+class ConsentBulkImporterTest {
+
+    private static final String TEST_API_CLIENT = "test-api-client-1";
+
+    /**
+     * The bulk tool does not use the Consent Store services, they are created here to check that imported consents
+     * can be modified by the RCS.
+     */
+    @TestConfiguration
+    @EnableMongoRepositories(basePackageClasses = MongoRepoPackageMarker.class)
+    static class ConsentServiceTestConfiguration {
+
+        @Bean
+        DomesticPaymentConsentService domesticPaymentConsentService(DomesticPaymentConsentRepository repository) {
+            return new DefaultDomesticPaymentConsentService(repository);
+        }
+    }
+
+    @Autowired
+    private ConsentBulkImporter consentBulkImporter;
+
+    @Autowired
+    private DomesticPaymentConsentService domesticPaymentConsentService;
+
+    @Autowired
+    private ConsentSchemaMigrations consentSchemaMigrations;
+
+    @Autowired
+    private MongoOperations mongoOperations;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void importConsents() throws IOException {
+        final DomesticPaymentConsent consumedPaymentConsent = domesticPaymentConsent(OBPaymentConsentStatus.CONSUMED.toString());
+        final DomesticPaymentConsent awaitingPaymentConsent = domesticPaymentConsent(OBPaymentConsentStatus.AWAITINGAUTHORISATION.toString());
+        final AccountAccessConsent accountAccessConsent = accountAccessConsent();
+        final DomesticPaymentConsent missingApiClientConsent = domesticPaymentConsent(OBPaymentConsentStatus.AWAITINGAUTHORISATION.toString());
+        missingApiClientConsent.setApiClientId(null);
+
+        final List<String> lines = new ArrayList<>();
+        lines.add(toJson(consumedPaymentConsent));
+        lines.add("");
+        lines.add(toJson(awaitingPaymentConsent));
+        lines.add("{not json");
+        lines.add(toJson(accountAccessConsent));
+        lines.add(toJson(missingApiClientConsent));
+        lines.add("{\"id\":\"UNKNOWN_123\"}");
+        final Path file = writeFile("consents.ndjson", lines);
+        final Path rejectsFile = tempDir.resolve("rejects.ndjson");
+
+        final ImportResult result = consentBulkImporter.importConsents(file, rejectsFile);
+
+        assertThat(result.getLinesProcessed()).isEqualTo(7);
+        assertThat(result.getLinesProcessedThisRun()).isEqualTo(7);
+        assertThat(result.getInserted()).isEqualTo(3);
+        assertThat(result.getRejected()).isEqualTo(3);
+        assertThat(result.getDuplicates()).isZero();
+        assertThat(Files.readAllLines(rejectsFile)).containsExactly(lines.get(3), lines.get(5), lines.get(6));
+        assertThat(Files.exists(tempDir.resolve("consents.ndjson" + ImportCheckpoint.CHECKPOINT_FILE_SUFFIX))).isFalse();
+
+        final DomesticPaymentConsentEntity importedPaymentConsent = mongoOperations.findById(consumedPaymentConsent.getId(), DomesticPaymentConsentEntity.class);
+        assertThat(importedPaymentConsent).isNotNull();
+        assertThat(importedPaymentConsent.getStatus()).isEqualTo(OBPaymentConsentStatus.CONSUMED.toString());
+        assertThat(importedPaymentConsent.getApiClientId()).isEqualTo(TEST_API_CLIENT);
+        assertThat(importedPaymentConsent.getIdempotencyKey()).isEqualTo(consumedPaymentConsent.getIdempotencyKey());
+        assertThat(importedPaymentConsent.getCreationDateTime()).isEqualTo(consumedPaymentConsent.getCreationDateTime());
+        assertThat(importedPaymentConsent.getStatusUpdatedDateTime()).isEqualTo(consumedPaymentConsent.getStatusUpdateDateTime());
+        assertThat(importedPaymentConsent.getInitiationFingerprint())
+                .isEqualTo(PaymentInitiationFingerprint.ofConsentRequest(consumedPaymentConsent.getRequestObj()));
+
+        final AccountAccessConsentEntity importedAccountAccessConsent = mongoOperations.findById(accountAccessConsent.getId(), AccountAccessConsentEntity.class);
+        assertThat(importedAccountAccessConsent).isNotNull();
+        assertThat(importedAccountAccessConsent.getAuthorisedAccountIds()).isEqualTo(accountAccessConsent.getAuthorisedAccountIds());
+        assertThat(importedAccountAccessConsent.getResourceOwnerId()).isEqualTo(accountAccessConsent.getResourceOwnerId());
+    }
+
+    @Test
+    void importedConsentsCanBeAuthorisedAndRejected() throws IOException {
+        final DomesticPaymentConsent consentToAuthorise = domesticPaymentConsent(OBPaymentConsentStatus.AWAITINGAUTHORISATION.toString());
+        final DomesticPaymentConsent consentToReject = domesticPaymentConsent(OBPaymentConsentStatus.AWAITINGAUTHORISATION.toString());
+        consentBulkImporter.importConsents(writeFile("awaiting.ndjson", List.of(toJson(consentToAuthorise), toJson(consentToReject))), null);
+
+        final Document importedDocument = mongoOperations.findById(consentToAuthorise.getId(), Document.class,
+                mongoOperations.getCollectionName(DomesticPaymentConsentEntity.class));
+        assertThat(importedDocument.get("entityVersion")).isEqualTo(1);
+        assertThat(importedDocument.get(ConsentSchemaMigrations.FIELD_SCHEMA_VERSION))
+                .isEqualTo(consentSchemaMigrations.getCurrentSchemaVersion(DomesticPaymentConsentEntity.class));
+
+        final DomesticPaymentConsentEntity authorisedConsent = domesticPaymentConsentService.authoriseConsent(
+                new PaymentAuthoriseConsentArgs(consentToAuthorise.getId(), TEST_API_CLIENT, "psu4test", "acc-1"));
+        assertThat(authorisedConsent.getStatus()).isEqualTo(OBPaymentConsentStatus.AUTHORISED.toString());
+        assertThat(authorisedConsent.getEntityVersion()).isEqualTo(2);
+
+        final DomesticPaymentConsentEntity rejectedConsent = domesticPaymentConsentService.rejectConsent(
+                consentToReject.getId(), TEST_API_CLIENT, "psu4test");
+        assertThat(rejectedConsent.getStatus()).isEqualTo(OBPaymentConsentStatus.REJECTED.toString());
+        assertThat(mongoOperations.findById(consentToReject.getId(), DomesticPaymentConsentEntity.class).getStatus())
+                .isEqualTo(OBPaymentConsentStatus.REJECTED.toString());
+    }
+
+    @Test
+    void skipDuplicatesWhenFileIsImportedAgain() throws IOException {
+        final Path file = writeFile("duplicates.ndjson", List.of(toJson(domesticPaymentConsent(OBPaymentConsentStatus.AUTHORISED.toString())),
+                toJson(accountAccessConsent())));
+        assertThat(consentBulkImporter.importConsents(file, null).getInserted()).isEqualTo(2);
+
+        final ImportResult result = consentBulkImporter.importConsents(file, null);
+        assertThat(result.getInserted()).isZero();
+        assertThat(result.getDuplicates()).isEqualTo(2);
+    }
+
+    @Test
+    void replaceDuplicates() throws IOException {
+        final DomesticPaymentConsent consent = domesticPaymentConsent(OBPaymentConsentStatus.AWAITINGAUTHORISATION.toString());
+        consentBulkImporter.importConsents(writeFile("original.ndjson", List.of(toJson(consent))), null);
+
+        consent.setStatus(OBPaymentConsentStatus.REJECTED.toString());
+        final ImportResult result = importer(DuplicatePolicy.REPLACE).importConsents(writeFile("replacement.ndjson", List.of(toJson(consent))), null);
+        assertThat(result.getReplaced()).isEqualTo(1);
+        assertThat(mongoOperations.findById(consent.getId(), DomesticPaymentConsentEntity.class).getStatus())
+                .isEqualTo(OBPaymentConsentStatus.REJECTED.toString());
+    }
+
+    @Test
+    void failOnDuplicates() throws IOException {
+        final Path file = writeFile("fail.ndjson", List.of(toJson(domesticPaymentConsent(OBPaymentConsentStatus.AUTHORISED.toString()))));
+        consentBulkImporter.importConsents(file, null);
+
+        final IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> importer(DuplicatePolicy.FAIL).importConsents(file, null));
+        assertThat(exception.getMessage()).startsWith("Import contains consents which already exist");
+    }
+
+    @Test
+    void resumeFromCheckpoint() throws IOException {
+        final List<DomesticPaymentConsent> consents = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            consents.add(domesticPaymentConsent(OBPaymentConsentStatus.AUTHORISED.toString()));
+        }
+        final Path file = writeFile("resume.ndjson", consents.stream().map(this::toJson).toList());
+
+        // Simulate a previous run which was interrupted after importing the first 2 lines
+        final ImportCheckpoint checkpoint = ImportCheckpoint.loadOrCreate(file);
+        checkpoint.recordBatch(2, 2, 0, 0, 0);
+        checkpoint.save();
+
+        final ImportResult result = importer(DuplicatePolicy.SKIP).importConsents(file, null);
+        assertThat(result.getLinesProcessed()).isEqualTo(5);
+        assertThat(result.getLinesProcessedThisRun()).isEqualTo(3);
+        assertThat(result.getInserted()).isEqualTo(5);
+        assertThat(mongoOperations.findById(consents.get(0).getId(), DomesticPaymentConsentEntity.class)).isNull();
+        for (DomesticPaymentConsent consent : consents.subList(2, 5)) {
+            assertThat(mongoOperations.findById(consent.getId(), DomesticPaymentConsentEntity.class)).isNotNull();
+        }
+        assertThat(Files.exists(checkpoint.getCheckpointFile())).isFalse();
+    }
+
+    @Test
+    void failToResumeFromCheckpointOfDifferentFile() throws IOException {
+        final Path file = writeFile("changed.ndjson", List.of(toJson(accountAccessConsent())));
+        final ImportCheckpoint checkpoint = ImportCheckpoint.loadOrCreate(file);
+        checkpoint.recordBatch(1, 1, 0, 0, 0);
+        checkpoint.save();
+        writeFile("changed.ndjson", List.of(toJson(accountAccessConsent()), toJson(accountAccessConsent())));
+
+        assertThrows(IllegalStateException.class, () -> consentBulkImporter.importConsents(file, null));
+    }
+
+    private ConsentBulkImporter importer(DuplicatePolicy duplicatePolicy) {
+        // Small batches and parallelism so that multiple batches are in flight
+        return new ConsentBulkImporter(mongoOperations, consentSchemaMigrations, objectMapper, validator, 2, 2, duplicatePolicy, 10_000, "");
+    }
+
+    private Path writeFile(String fileName, List<String> lines) throws IOException {
+        return Files.write(tempDir.resolve(fileName), lines, StandardCharsets.UTF_8);
+    }
+
+    private String toJson(BaseConsent<?> consent) {
+        try {
+            return objectMapper.writeValueAsString(consent);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static DomesticPaymentConsent domesticPaymentConsent(String status) {
+        final DomesticPaymentConsent consent = new DomesticPaymentConsent();
+        consent.setId(IntentType.PAYMENT_DOMESTIC_CONSENT.generateIntentId());
+        consent.setRequestObj(FRWriteDomesticConsentConverter.toFRWriteDomesticConsent(
+                OBWriteDomesticConsentTestDataFactory.aValidOBWriteDomesticConsent4()));
+        consent.setRequestVersion(OBVersion.v3_1_10);
+        consent.setStatus(status);
+        consent.setApiClientId(TEST_API_CLIENT);
+        consent.setIdempotencyKey(UUID.randomUUID().toString());
+        consent.setIdempotencyKeyExpiration(DateTime.now().plusDays(1));
+        consent.setCreationDateTime(new Date(1_700_000_000_000L));
+        consent.setStatusUpdateDateTime(new Date(1_700_000_060_000L));
+        return consent;
+    }
+
+    private static AccountAccessConsent accountAccessConsent() {
+        final AccountAccessConsent consent = new AccountAccessConsent();
+        consent.setId(IntentType.ACCOUNT_ACCESS_CONSENT.generateIntentId());
+        consent.setRequestObj(FRReadConsentConverter.toFRReadConsent(new OBReadConsent1()
+                .data(new OBReadConsent1Data().permissions(List.of(OBExternalPermissions1Code.READACCOUNTSBASIC)))
+                .risk(new OBRisk2())));
+        consent.setRequestVersion(OBVersion.v3_1_10);
+        consent.setStatus("Authorised");
+        consent.setApiClientId(TEST_API_CLIENT);
+        consent.setResourceOwnerId("psu4test");
+        consent.setAuthorisedAccountIds(List.of("acc-1", "acc-2"));
+        consent.setCreationDateTime(new Date(1_700_000_000_000L));
+        consent.setStatusUpdateDateTime(new Date(1_700_000_060_000L));
+        return consent;
+    }
+}
@@ -32,6 +32,8 @@ import org.springframework.web.client.RestTemplate;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.forgerock.sapi.gateway.rcs.consent.store.client.ConsentStoreClientException.ErrorType;
+import com.forgerock.sapi.gateway.rcs.consent.store.client.loadbalancer.ConsentStoreLoadBalancer;
+import com.forgerock.sapi.gateway.rcs.consent.store.client.loadbalancer.LoadBalancingClientHttpRequestInterceptor;
 import com.forgerock.sapi.gateway.uk.common.shared.api.meta.obie.OBHeaders;
 import com.forgerock.sapi.gateway.uk.common.shared.fapi.FapiInteractionIdContext;
 
@@ -54,9 +56,36 @@ public abstract class BaseRestConsentStoreClient {
         this.objectMapper = Objects.requireNonNull(objectMapper, "objectMapper must be provided");
     }
 
+    /**
+     * Creates a client which routes requests via the ConsentStoreLoadBalancer, if one has been configured.
+     */
+    public BaseRestConsentStoreClient(ConsentStoreClientConfiguration consentStoreClientConfiguration,
+                                      RestTemplateBuilder restTemplateBuilder, ObjectMapper objectMapper) {
+        this(applyLoadBalancer(consentStoreClientConfiguration, restTemplateBuilder), objectMapper);
+    }
+
+    private static RestTemplateBuilder applyLoadBalancer(ConsentStoreClientConfiguration consentStoreClientConfiguration,
+                                                         RestTemplateBuilder restTemplateBuilder) {
+        Objects.requireNonNull(consentStoreClientConfiguration, "consentStoreClientConfiguration must be provided");
+        Objects.requireNonNull(restTemplateBuilder, "restTemplateBuilder must be provided");
+        final ConsentStoreLoadBalancer loadBalancer = consentStoreClientConfiguration.getLoadBalancer();
+        if (loadBalancer == null) {
+            return restTemplateBuilder;
+        }
+        return restTemplateBuilder.additionalInterceptors(new LoadBalancingClientHttpRequestInterceptor(loadBalancer));
+    }
+
     protected HttpHeaders createHeaders(String apiClientId) {
-        final HttpHeaders headers = new HttpHeaders();
+        final HttpHeaders headers = createHeaders();
         headers.add(API_CLIENT_ID_HEADER, apiClientId);
+        return headers;
+    }
+
+    /**
+     * Creates the headers for calls which are not made on behalf of a particular ApiClient
+     */
+    protected HttpHeaders createHeaders() {
+        final HttpHeaders headers = new HttpHeaders();
         // Pass the x-fapi-interaction-id in the call to the RCS, if one is not found in context then generate one.
         headers.add(OBHeaders.X_FAPI_INTERACTION_ID, FapiInteractionIdContext.getFapiInteractionId()
                                                                              .orElseGet(() -> UUID.randomUUID().toString()));
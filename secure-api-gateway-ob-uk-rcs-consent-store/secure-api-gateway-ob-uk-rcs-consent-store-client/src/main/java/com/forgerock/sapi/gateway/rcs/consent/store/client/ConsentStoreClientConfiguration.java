@@ -15,19 +15,130 @@
  */
 package com.forgerock.sapi.gateway.rcs.consent.store.client;
 
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import com.forgerock.sapi.gateway.rcs.consent.store.client.loadbalancer.ConsentStoreEndpointResolver;
+import com.forgerock.sapi.gateway.rcs.consent.store.client.loadbalancer.ConsentStoreLoadBalancer;
+import com.forgerock.sapi.gateway.rcs.consent.store.client.loadbalancer.ConsentStoreLoadBalancerPolicy;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 
 @Configuration
 @ComponentScan(basePackageClasses = ConsentStoreClientConfiguration.class)
 public class ConsentStoreClientConfiguration {
 
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
     @Value("${rcs.consent.store.api.baseUri}")
     private String baseUri;
 
+    /**
+     * Optional list of Consent Store node base URIs (scheme, host and port) to balance requests across.
+     * When configured, requests to the baseUri are routed to one of these nodes.
+     */
+    @Value("${rcs.consent.store.api.loadBalancer.endpoints:}")
+    private List<URI> loadBalancerEndpoints;
+
+    /**
+     * Resolve every address of the baseUri host and balance requests across them, intended for use with a headless
+     * Kubernetes service. Ignored if loadBalancer.endpoints is configured.
+     */
+    @Value("${rcs.consent.store.api.loadBalancer.resolveAllAddresses:false}")
+    private boolean resolveAllAddresses;
+
+    @Value("${rcs.consent.store.api.loadBalancer.dnsRefreshIntervalSeconds:30}")
+    private int dnsRefreshIntervalSeconds;
+
+    @Value("${rcs.consent.store.api.loadBalancer.ewmaDecay:0.3}")
+    private double ewmaDecay;
+
+    @Value("${rcs.consent.store.api.loadBalancer.consecutiveFailuresToEject:5}")
+    private int consecutiveFailuresToEject;
+
+    @Value("${rcs.consent.store.api.loadBalancer.latencySpikeFactor:3.0}")
+    private double latencySpikeFactor;
+
+    @Value("${rcs.consent.store.api.loadBalancer.minimumLatencySpikeMillis:50}")
+    private long minimumLatencySpikeMillis;
+
+    @Value("${rcs.consent.store.api.loadBalancer.baseEjectionTimeMillis:10000}")
+    private long baseEjectionTimeMillis;
+
+    @Value("${rcs.consent.store.api.loadBalancer.maxEjectionTimeMillis:120000}")
+    private long maxEjectionTimeMillis;
+
+    @Value("${rcs.consent.store.api.loadBalancer.maxEjectionPercent:50}")
+    private int maxEjectionPercent;
+
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    private ConsentStoreLoadBalancer loadBalancer;
+
+    private ScheduledExecutorService endpointRefreshExecutor;
+
+    public ConsentStoreClientConfiguration(ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this.meterRegistryProvider = meterRegistryProvider;
+    }
+
+    @PostConstruct
+    void initialiseLoadBalancer() {
+        final boolean staticEndpointsConfigured = loadBalancerEndpoints != null && !loadBalancerEndpoints.isEmpty();
+        final ConsentStoreEndpointResolver endpointResolver;
+        if (staticEndpointsConfigured) {
+            endpointResolver = ConsentStoreEndpointResolver.staticEndpoints(loadBalancerEndpoints);
+        } else if (resolveAllAddresses) {
+            endpointResolver = ConsentStoreEndpointResolver.dnsEndpoints(URI.create(baseUri));
+        } else {
+            return;
+        }
+
+        final ConsentStoreLoadBalancerPolicy policy = new ConsentStoreLoadBalancerPolicy(ewmaDecay,
+                consecutiveFailuresToEject, latencySpikeFactor, Duration.ofMillis(minimumLatencySpikeMillis),
+                Duration.ofMillis(baseEjectionTimeMillis), Duration.ofMillis(maxEjectionTimeMillis), maxEjectionPercent);
+        logger.info("Configuring Consent Store client side load balancing - policy: {}", policy);
+        loadBalancer = new ConsentStoreLoadBalancer(endpointResolver, policy, meterRegistryProvider.getIfAvailable());
+        logger.info("Consent Store endpoints: {}", loadBalancer.getEndpoints());
+
+        if (!staticEndpointsConfigured) {
+            final CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("consent-store-dns-");
+            threadFactory.setDaemon(true);
+            endpointRefreshExecutor = Executors.newSingleThreadScheduledExecutor(threadFactory);
+            endpointRefreshExecutor.scheduleWithFixedDelay(loadBalancer::refreshEndpoints, dnsRefreshIntervalSeconds,
+                    dnsRefreshIntervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (endpointRefreshExecutor != null) {
+            endpointRefreshExecutor.shutdownNow();
+        }
+    }
+
     public String getBaseUri() {
         return baseUri;
     }
 
+    /**
+     * @return the load balancer to route requests with, or null if client side load balancing is not configured
+     */
+    public ConsentStoreLoadBalancer getLoadBalancer() {
+        return loadBalancer;
+    }
+
 }
@@ -27,6 +27,9 @@ public class ConsentStoreClientException extends RuntimeException {
         INVALID_STATE_TRANSITION,
         FAILED_TO_DECODE_RESPONSE,
         IDEMPOTENCY_ERROR,
+        INVALID_DEBTOR_ACCOUNT,
+        INVALID_PAYMENT_INITIATION,
+        VRP_LIMIT_EXCEEDED,
         UNKNOWN
     }
 
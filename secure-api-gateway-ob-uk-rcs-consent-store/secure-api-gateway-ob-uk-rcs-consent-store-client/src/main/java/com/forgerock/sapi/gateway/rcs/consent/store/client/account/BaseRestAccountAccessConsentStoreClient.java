@@ -41,7 +41,7 @@ public class BaseRestAccountAccessConsentStoreClient extends BaseRestConsentStor
                                                    RestTemplateBuilder restTemplateBuilder,
                                                    ObjectMapper objectMapper,
                                                    OBVersion obVersion) {
-        super(restTemplateBuilder, objectMapper);
+        super(consentStoreClientConfiguration, restTemplateBuilder, objectMapper);
         this.consentServiceBaseUrl = consentStoreClientConfiguration.getBaseUri() + "/v" + obVersion.getCanonicalVersion() + "/account-access-consents";
     }
 
@@ -48,7 +48,7 @@ public class RestCustomerInfoConsentStoreClient extends BaseRestConsentStoreClie
     public RestCustomerInfoConsentStoreClient(ConsentStoreClientConfiguration consentStoreClientConfiguration,
                                               RestTemplateBuilder restTemplateBuilder, ObjectMapper objectMapper,
                                               OBVersion obVersion) {
-        super(restTemplateBuilder, objectMapper);
+        super(consentStoreClientConfiguration, restTemplateBuilder, objectMapper);
         Objects.requireNonNull(consentStoreClientConfiguration, "consentStoreClientConfiguration must be provided");
         this.consentServiceBaseUrl = consentStoreClientConfiguration.getBaseUri() + "/" + obVersion.getCanonicalName() + "/customer-info-consents";
     }
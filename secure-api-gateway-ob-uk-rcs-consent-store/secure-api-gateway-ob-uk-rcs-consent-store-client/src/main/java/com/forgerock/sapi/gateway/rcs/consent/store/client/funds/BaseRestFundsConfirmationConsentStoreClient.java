@@ -39,7 +39,7 @@ public class BaseRestFundsConfirmationConsentStoreClient extends BaseRestConsent
     public BaseRestFundsConfirmationConsentStoreClient(ConsentStoreClientConfiguration consentStoreClientConfiguration,
                                                        RestTemplateBuilder restTemplateBuilder, ObjectMapper objectMapper,
                                                        OBVersion obVersion) {
-        super(restTemplateBuilder, objectMapper);
+        super(consentStoreClientConfiguration, restTemplateBuilder, objectMapper);
         this.consentServiceBaseUrl = consentStoreClientConfiguration.getBaseUri() + "/" + obVersion.getCanonicalName() + "/funds-confirmation-consents";
     }
 
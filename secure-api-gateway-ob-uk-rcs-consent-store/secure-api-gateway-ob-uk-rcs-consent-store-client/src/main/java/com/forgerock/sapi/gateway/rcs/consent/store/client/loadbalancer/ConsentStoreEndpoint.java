@@ -0,0 +1,156 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.client.loadbalancer;
+
+import static java.util.Objects.requireNonNull;
+
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A single Consent Store node that requests can be routed to, together with the live statistics that the
+ * {@link ConsentStoreLoadBalancer} uses to make routing and ejection decisions.
+ * <p>
+ * All state is held in atomics so that the request path never needs to take a lock.
+ */
+public class ConsentStoreEndpoint {
+
+    /**
+     * Base URI of the node, only the scheme, host and port are used when routing a request.
+     */
+    private final URI uri;
+
+    private final AtomicInteger inFlightRequests = new AtomicInteger();
+
+    /**
+     * Exponentially weighted moving average of the request latency in nanoseconds, 0 means no samples have been taken
+     */
+    private final AtomicLong ewmaLatencyNanos = new AtomicLong();
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+    /**
+     * Number of times this endpoint has been ejected, used to back off repeat offenders
+     */
+    private final AtomicInteger ejectionCount = new AtomicInteger();
+
+    /**
+     * Value of the nano clock at which the current ejection expires, or Long.MIN_VALUE when the endpoint is not ejected
+     */
+    private final AtomicLong ejectedUntilNanos = new AtomicLong(Long.MIN_VALUE);
+
+    public ConsentStoreEndpoint(URI uri) {
+        this.uri = requireNonNull(uri, "uri must be provided");
+    }
+
+    public URI getUri() {
+        return uri;
+    }
+
+    public int getInFlightRequests() {
+        return inFlightRequests.get();
+    }
+
+    public long getEwmaLatencyNanos() {
+        return ewmaLatencyNanos.get();
+    }
+
+    public int getConsecutiveFailures() {
+        return consecutiveFailures.get();
+    }
+
+    public int getEjectionCount() {
+        return ejectionCount.get();
+    }
+
+    public boolean isEjected(long nowNanos) {
+        final long ejectedUntil = ejectedUntilNanos.get();
+        return ejectedUntil != Long.MIN_VALUE && nowNanos - ejectedUntil < 0;
+    }
+
+    boolean isEjectionExpired(long nowNanos) {
+        final long ejectedUntil = ejectedUntilNanos.get();
+        return ejectedUntil != Long.MIN_VALUE && nowNanos - ejectedUntil >= 0;
+    }
+
+    /**
+     * The load metric used by power-of-two-choices, lower is better.
+     * <p>
+     * Endpoints that have not served a request yet report a latency of 0, so they are preferred until a sample is taken.
+     */
+    double getLoadScore() {
+        return (double) ewmaLatencyNanos.get() * (inFlightRequests.get() + 1);
+    }
+
+    void onRequestStarted() {
+        inFlightRequests.incrementAndGet();
+    }
+
+    void onRequestCompleted(long latencyNanos, boolean success, double ewmaDecay) {
+        inFlightRequests.decrementAndGet();
+        ewmaLatencyNanos.getAndUpdate(current -> current == 0 ? latencyNanos
+                : (long) (current + ewmaDecay * (latencyNanos - current)));
+        if (success) {
+            consecutiveFailures.set(0);
+        } else {
+            consecutiveFailures.incrementAndGet();
+        }
+    }
+
+    /**
+     * Ejects the endpoint until the supplied time, returns false if another thread ejected the endpoint first.
+     */
+    boolean eject(long nowNanos, long ejectedUntil) {
+        final long current = ejectedUntilNanos.get();
+        if (current != Long.MIN_VALUE && nowNanos - current < 0) {
+            return false;
+        }
+        if (ejectedUntilNanos.compareAndSet(current, ejectedUntil)) {
+            ejectionCount.incrementAndGet();
+            consecutiveFailures.set(0);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the endpoint to service once its ejection time has passed, the latency estimate is reset to the supplied
+     * value so that the endpoint is neither flooded nor starved while fresh samples are collected.
+     */
+    boolean restoreIfEjectionExpired(long nowNanos, long latencyEstimateNanos) {
+        final long current = ejectedUntilNanos.get();
+        if (current == Long.MIN_VALUE || nowNanos - current < 0) {
+            return false;
+        }
+        if (ejectedUntilNanos.compareAndSet(current, Long.MIN_VALUE)) {
+            ewmaLatencyNanos.set(latencyEstimateNanos);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "ConsentStoreEndpoint{" +
+                "uri=" + uri +
+                ", inFlightRequests=" + inFlightRequests +
+                ", ewmaLatencyNanos=" + ewmaLatencyNanos +
+                ", consecutiveFailures=" + consecutiveFailures +
+                ", ejectionCount=" + ejectionCount +
+                '}';
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.client.loadbalancer;
+
+import static java.util.Objects.requireNonNull;
+
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Supplies the set of Consent Store nodes that the {@link ConsentStoreLoadBalancer} can route requests to.
+ * <p>
+ * Resolvers may be called periodically, implementations should return the current view of the nodes each time.
+ */
+@FunctionalInterface
+public interface ConsentStoreEndpointResolver {
+
+    List<URI> resolveEndpoints() throws Exception;
+
+    /**
+     * Resolver for a fixed list of endpoints, supplied via config
+     */
+    static ConsentStoreEndpointResolver staticEndpoints(List<URI> endpoints) {
+        final List<URI> endpointsCopy = List.copyOf(requireNonNull(endpoints, "endpoints must be provided"));
+        if (endpointsCopy.isEmpty()) {
+            throw new IllegalArgumentException("endpoints must not be empty");
+        }
+        return () -> endpointsCopy;
+    }
+
+    /**
+     * Resolver which looks up all the A/AAAA records for the host in the supplied URI, producing one endpoint per
+     * address (keeping the scheme and port of the supplied URI). This supports headless Kubernetes services, where
+     * the service DNS name resolves to the address of each ready pod.
+     * <p>
+     * Requests are sent to the resolved address rather than the host name, so https is not supported: the certificate
+     * presented by the node would not match the address. Use {@link #staticEndpoints(List)} with the host name of each
+     * node instead.
+     */
+    static ConsentStoreEndpointResolver dnsEndpoints(URI serviceUri) {
+        requireNonNull(serviceUri, "serviceUri must be provided");
+        requireNonNull(serviceUri.getHost(), "serviceUri must contain a host");
+        if ("https".equalsIgnoreCase(serviceUri.getScheme())) {
+            throw new IllegalArgumentException("Resolving all addresses is not supported for https serviceUri: " + serviceUri
+                    + ", requests to an address would fail TLS hostname verification. Configure the endpoints with the"
+                    + " host name of each node instead");
+        }
+        return () -> resolveAllAddresses(serviceUri);
+    }
+
+    private static List<URI> resolveAllAddresses(URI serviceUri) throws UnknownHostException {
+        return Arrays.stream(InetAddress.getAllByName(serviceUri.getHost()))
+                     .map(address -> withHost(serviceUri, address.getHostAddress()))
+                     .distinct()
+                     .toList();
+    }
+
+    private static URI withHost(URI uri, String host) {
+        try {
+            return new URI(uri.getScheme(), null, host, uri.getPort(), null, null, null);
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException("Failed to build endpoint URI for host: " + host, e);
+        }
+    }
+}
@@ -0,0 +1,283 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.client.loadbalancer;
+
+import static java.util.Objects.requireNonNull;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Client side load balancer which spreads Consent Store API calls across multiple Consent Store nodes.
+ * <p>
+ * Endpoints are chosen using power-of-two-choices: two endpoints are picked at random and the one with the lowest
+ * load score (EWMA latency weighted by the number of in-flight requests) is used. This avoids the herding behaviour
+ * of always picking the least loaded node, while still routing around slow nodes.
+ * <p>
+ * Outlier detection ejects endpoints that return consecutive failures, or whose latency spikes well above that of
+ * their peers. Ejected endpoints are returned to service after a back-off period, and no more than
+ * {@link ConsentStoreLoadBalancerPolicy#getMaxEjectionPercent()} of the endpoints are ever ejected at once. If every
+ * endpoint is unavailable then the balancer fails open and considers all of them.
+ * <p>
+ * When a {@link MeterRegistry} is supplied the following per endpoint metrics are exported:
+ * <ul>
+ *     <li>consent.store.client.requests - timer tagged with the endpoint and outcome</li>
+ *     <li>consent.store.client.endpoint.inflight - gauge of in-flight requests</li>
+ *     <li>consent.store.client.endpoint.latency.ewma - gauge of the EWMA latency in seconds</li>
+ *     <li>consent.store.client.endpoint.ejected - gauge which is 1 while the endpoint is ejected</li>
+ *     <li>consent.store.client.endpoint.ejections - gauge of the number of times the endpoint has been ejected</li>
+ * </ul>
+ * The metrics of an endpoint are removed when it is no longer returned by the resolver, requests to it which are still
+ * in flight are not recorded.
+ */
+public class ConsentStoreLoadBalancer {
+
+    static final String REQUESTS_METRIC = "consent.store.client.requests";
+    static final String ENDPOINT_METRIC_PREFIX = "consent.store.client.endpoint.";
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final ConsentStoreEndpointResolver endpointResolver;
+
+    private final ConsentStoreLoadBalancerPolicy policy;
+
+    private final MeterRegistry meterRegistry;
+
+    private final LongSupplier nanoClock;
+
+    /**
+     * Current endpoints, replaced wholesale (copy on write) when the resolver returns a different set of nodes
+     */
+    private volatile List<ConsentStoreEndpoint> endpoints = List.of();
+
+    /**
+     * Meters of the current endpoints, an endpoint's entry is removed when it is dropped from the pool
+     */
+    private final Map<ConsentStoreEndpoint, EndpointMeters> endpointMeters = new ConcurrentHashMap<>();
+
+    public ConsentStoreLoadBalancer(ConsentStoreEndpointResolver endpointResolver, ConsentStoreLoadBalancerPolicy policy,
+                                    MeterRegistry meterRegistry) {
+        this(endpointResolver, policy, meterRegistry, System::nanoTime);
+    }
+
+    ConsentStoreLoadBalancer(ConsentStoreEndpointResolver endpointResolver, ConsentStoreLoadBalancerPolicy policy,
+                             MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        this.endpointResolver = requireNonNull(endpointResolver, "endpointResolver must be provided");
+        this.policy = requireNonNull(policy, "policy must be provided");
+        this.meterRegistry = meterRegistry;
+        this.nanoClock = requireNonNull(nanoClock, "nanoClock must be provided");
+        refreshEndpoints();
+        if (endpoints.isEmpty()) {
+            throw new IllegalStateException("Failed to resolve any Consent Store endpoints");
+        }
+    }
+
+    public List<ConsentStoreEndpoint> getEndpoints() {
+        return endpoints;
+    }
+
+    /**
+     * Re-runs the endpoint resolver, preserving the statistics of endpoints which are still present. Failures and
+     * empty results are logged and ignored so that a DNS outage does not take down the client.
+     */
+    public synchronized void refreshEndpoints() {
+        final List<URI> resolvedUris;
+        try {
+            resolvedUris = endpointResolver.resolveEndpoints();
+        } catch (Exception e) {
+            logger.warn("Failed to resolve Consent Store endpoints, continuing to use: {}", endpoints, e);
+            return;
+        }
+        if (resolvedUris == null || resolvedUris.isEmpty()) {
+            logger.warn("Consent Store endpoint resolution returned no endpoints, continuing to use: {}", endpoints);
+            return;
+        }
+
+        final Map<URI, ConsentStoreEndpoint> existingEndpoints = new LinkedHashMap<>();
+        endpoints.forEach(endpoint -> existingEndpoints.put(endpoint.getUri(), endpoint));
+
+        final List<ConsentStoreEndpoint> newEndpoints = new ArrayList<>(resolvedUris.size());
+        for (URI uri : resolvedUris) {
+            final ConsentStoreEndpoint existing = existingEndpoints.remove(uri);
+            if (existing != null) {
+                newEndpoints.add(existing);
+            } else {
+                final ConsentStoreEndpoint endpoint = new ConsentStoreEndpoint(uri);
+                registerMeters(endpoint);
+                newEndpoints.add(endpoint);
+            }
+        }
+        existingEndpoints.values().forEach(this::removeMeters);
+
+        if (!existingEndpoints.isEmpty() || newEndpoints.size() != endpoints.size()) {
+            logger.info("Consent Store endpoints updated to: {}", resolvedUris);
+        }
+        endpoints = List.copyOf(newEndpoints);
+    }
+
+    /**
+     * Chooses the endpoint to send the next request to using power-of-two-choices over the available endpoints
+     */
+    public ConsentStoreEndpoint chooseEndpoint() {
+        final long now = nanoClock.getAsLong();
+        final List<ConsentStoreEndpoint> currentEndpoints = endpoints;
+        final List<ConsentStoreEndpoint> candidates = new ArrayList<>(currentEndpoints.size());
+        for (ConsentStoreEndpoint endpoint : currentEndpoints) {
+            if (endpoint.isEjected(now)) {
+                continue;
+            }
+            if (endpoint.isEjectionExpired(now)
+                    && endpoint.restoreIfEjectionExpired(now, peerMedianLatency(endpoint, currentEndpoints, now))) {
+                logger.info("Returning Consent Store endpoint: {} to service", endpoint.getUri());
+            }
+            candidates.add(endpoint);
+        }
+        if (candidates.isEmpty()) {
+            logger.warn("All Consent Store endpoints are ejected, failing open");
+            candidates.addAll(currentEndpoints);
+        }
+
+        final int size = candidates.size();
+        if (size == 1) {
+            return candidates.get(0);
+        }
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final int first = random.nextInt(size);
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+        final ConsentStoreEndpoint a = candidates.get(first);
+        final ConsentStoreEndpoint b = candidates.get(second);
+        return a.getLoadScore() <= b.getLoadScore() ? a : b;
+    }
+
+    /**
+     * Marks a request as started against the endpoint, callers must call {@link #onRequestCompleted} exactly once
+     * for each call to this method.
+     *
+     * @return the value of the nano clock when the request started
+     */
+    public long onRequestStarted(ConsentStoreEndpoint endpoint) {
+        endpoint.onRequestStarted();
+        return nanoClock.getAsLong();
+    }
+
+    public void onRequestCompleted(ConsentStoreEndpoint endpoint, long startNanos, boolean success) {
+        final long now = nanoClock.getAsLong();
+        final long latencyNanos = now - startNanos;
+        endpoint.onRequestCompleted(latencyNanos, success, policy.getEwmaDecay());
+        final EndpointMeters meters = endpointMeters.get(endpoint);
+        if (meters != null) {
+            (success ? meters.successTimer() : meters.failureTimer()).record(latencyNanos, TimeUnit.NANOSECONDS);
+        }
+
+        if (!success && endpoint.getConsecutiveFailures() >= policy.getConsecutiveFailuresToEject()) {
+            tryEject(endpoint, now, "consecutive failures: " + endpoint.getConsecutiveFailures());
+        } else if (isLatencyOutlier(endpoint, now)) {
+            tryEject(endpoint, now, "latency spike, ewmaLatencyMillis: "
+                    + TimeUnit.NANOSECONDS.toMillis(endpoint.getEwmaLatencyNanos()));
+        }
+    }
+
+    private boolean isLatencyOutlier(ConsentStoreEndpoint endpoint, long now) {
+        final long ewma = endpoint.getEwmaLatencyNanos();
+        if (ewma < policy.getMinimumLatencySpike().toNanos()) {
+            return false;
+        }
+        final long peerMedian = peerMedianLatency(endpoint, endpoints, now);
+        return peerMedian > 0 && ewma > peerMedian * policy.getLatencySpikeFactor();
+    }
+
+    private void tryEject(ConsentStoreEndpoint endpoint, long now, String reason) {
+        final List<ConsentStoreEndpoint> currentEndpoints = endpoints;
+        final int maxEjected = currentEndpoints.size() * policy.getMaxEjectionPercent() / 100;
+        final long currentlyEjected = currentEndpoints.stream().filter(e -> e.isEjected(now)).count();
+        if (currentlyEjected >= maxEjected) {
+            logger.debug("Not ejecting Consent Store endpoint: {} due to {}, max ejection limit reached", endpoint.getUri(), reason);
+            return;
+        }
+        final long ejectionNanos = Math.min(policy.getBaseEjectionTime().toNanos() * (endpoint.getEjectionCount() + 1),
+                                            policy.getMaxEjectionTime().toNanos());
+        if (endpoint.eject(now, now + ejectionNanos)) {
+            logger.warn("Ejected Consent Store endpoint: {} for {}ms due to {}", endpoint.getUri(),
+                    TimeUnit.NANOSECONDS.toMillis(ejectionNanos), reason);
+        }
+    }
+
+    /**
+     * Median EWMA latency of the other non-ejected endpoints which have taken at least one sample, 0 if there are none
+     */
+    private static long peerMedianLatency(ConsentStoreEndpoint endpoint, List<ConsentStoreEndpoint> endpoints, long now) {
+        final long[] latencies = endpoints.stream()
+                                          .filter(e -> e != endpoint && !e.isEjected(now) && e.getEwmaLatencyNanos() > 0)
+                                          .mapToLong(ConsentStoreEndpoint::getEwmaLatencyNanos)
+                                          .sorted()
+                                          .toArray();
+        return latencies.length == 0 ? 0 : latencies[latencies.length / 2];
+    }
+
+    private Tags endpointTags(ConsentStoreEndpoint endpoint) {
+        return Tags.of("endpoint", endpoint.getUri().getAuthority());
+    }
+
+    private void registerMeters(ConsentStoreEndpoint endpoint) {
+        if (meterRegistry == null) {
+            return;
+        }
+        final Tags tags = endpointTags(endpoint);
+        final Timer successTimer = Timer.builder(REQUESTS_METRIC).tags(tags.and("outcome", "success")).register(meterRegistry);
+        final Timer failureTimer = Timer.builder(REQUESTS_METRIC).tags(tags.and("outcome", "failure")).register(meterRegistry);
+        endpointMeters.put(endpoint, new EndpointMeters(successTimer, failureTimer, List.of(successTimer, failureTimer,
+                Gauge.builder(ENDPOINT_METRIC_PREFIX + "inflight", endpoint, ConsentStoreEndpoint::getInFlightRequests)
+                     .tags(tags).strongReference(true).register(meterRegistry),
+                Gauge.builder(ENDPOINT_METRIC_PREFIX + "latency.ewma", endpoint, e -> e.getEwmaLatencyNanos() / 1e9)
+                     .tags(tags).baseUnit("seconds").strongReference(true).register(meterRegistry),
+                Gauge.builder(ENDPOINT_METRIC_PREFIX + "ejected", endpoint, e -> e.isEjected(nanoClock.getAsLong()) ? 1 : 0)
+                     .tags(tags).strongReference(true).register(meterRegistry),
+                Gauge.builder(ENDPOINT_METRIC_PREFIX + "ejections", endpoint, ConsentStoreEndpoint::getEjectionCount)
+                     .tags(tags).strongReference(true).register(meterRegistry))));
+    }
+
+    private void removeMeters(ConsentStoreEndpoint endpoint) {
+        if (meterRegistry == null) {
+            return;
+        }
+        final EndpointMeters meters = endpointMeters.remove(endpoint);
+        if (meters != null) {
+            meters.meters().forEach(meterRegistry::remove);
+        }
+    }
+
+    private record EndpointMeters(Timer successTimer, Timer failureTimer, List<Meter> meters) {
+    }
+}
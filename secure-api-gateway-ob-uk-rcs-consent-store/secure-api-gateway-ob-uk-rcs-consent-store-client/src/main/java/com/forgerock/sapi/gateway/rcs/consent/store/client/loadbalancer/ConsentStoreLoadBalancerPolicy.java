@@ -0,0 +1,128 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.client.loadbalancer;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+
+/**
+ * Tuning parameters for the {@link ConsentStoreLoadBalancer}.
+ */
+public class ConsentStoreLoadBalancerPolicy {
+
+    /**
+     * Weight given to each new latency sample when updating the EWMA, must be in the range (0, 1]
+     */
+    private final double ewmaDecay;
+
+    /**
+     * Number of consecutive failed requests (IO errors or 5xx responses) which cause an endpoint to be ejected
+     */
+    private final int consecutiveFailuresToEject;
+
+    /**
+     * An endpoint is ejected when its EWMA latency exceeds this multiple of the median EWMA latency of its peers
+     */
+    private final double latencySpikeFactor;
+
+    /**
+     * Latency spikes below this value are ignored, this prevents ejections caused by noise when all nodes are fast
+     */
+    private final Duration minimumLatencySpike;
+
+    /**
+     * Duration of the first ejection, repeat ejections of the same endpoint are multiplied by the ejection count
+     */
+    private final Duration baseEjectionTime;
+
+    private final Duration maxEjectionTime;
+
+    /**
+     * Upper bound on the percentage of endpoints that may be ejected at the same time
+     */
+    private final int maxEjectionPercent;
+
+    public ConsentStoreLoadBalancerPolicy(double ewmaDecay, int consecutiveFailuresToEject, double latencySpikeFactor,
+                                          Duration minimumLatencySpike, Duration baseEjectionTime,
+                                          Duration maxEjectionTime, int maxEjectionPercent) {
+        if (ewmaDecay <= 0 || ewmaDecay > 1) {
+            throw new IllegalArgumentException("ewmaDecay must be in the range (0, 1]");
+        }
+        if (consecutiveFailuresToEject < 1) {
+            throw new IllegalArgumentException("consecutiveFailuresToEject must be at least 1");
+        }
+        if (latencySpikeFactor <= 1) {
+            throw new IllegalArgumentException("latencySpikeFactor must be greater than 1");
+        }
+        if (maxEjectionPercent < 0 || maxEjectionPercent > 100) {
+            throw new IllegalArgumentException("maxEjectionPercent must be in the range [0, 100]");
+        }
+        this.ewmaDecay = ewmaDecay;
+        this.consecutiveFailuresToEject = consecutiveFailuresToEject;
+        this.latencySpikeFactor = latencySpikeFactor;
+        this.minimumLatencySpike = requireNonNull(minimumLatencySpike, "minimumLatencySpike must be provided");
+        this.baseEjectionTime = requireNonNull(baseEjectionTime, "baseEjectionTime must be provided");
+        this.maxEjectionTime = requireNonNull(maxEjectionTime, "maxEjectionTime must be provided");
+        this.maxEjectionPercent = maxEjectionPercent;
+    }
+
+    public static ConsentStoreLoadBalancerPolicy defaultPolicy() {
+        return new ConsentStoreLoadBalancerPolicy(0.3, 5, 3.0, Duration.ofMillis(50),
+                Duration.ofSeconds(10), Duration.ofMinutes(2), 50);
+    }
+
+    public double getEwmaDecay() {
+        return ewmaDecay;
+    }
+
+    public int getConsecutiveFailuresToEject() {
+        return consecutiveFailuresToEject;
+    }
+
+    public double getLatencySpikeFactor() {
+        return latencySpikeFactor;
+    }
+
+    public Duration getMinimumLatencySpike() {
+        return minimumLatencySpike;
+    }
+
+    public Duration getBaseEjectionTime() {
+        return baseEjectionTime;
+    }
+
+    public Duration getMaxEjectionTime() {
+        return maxEjectionTime;
+    }
+
+    public int getMaxEjectionPercent() {
+        return maxEjectionPercent;
+    }
+
+    @Override
+    public String toString() {
+        return "ConsentStoreLoadBalancerPolicy{" +
+                "ewmaDecay=" + ewmaDecay +
+                ", consecutiveFailuresToEject=" + consecutiveFailuresToEject +
+                ", latencySpikeFactor=" + latencySpikeFactor +
+                ", minimumLatencySpike=" + minimumLatencySpike +
+                ", baseEjectionTime=" + baseEjectionTime +
+                ", maxEjectionTime=" + maxEjectionTime +
+                ", maxEjectionPercent=" + maxEjectionPercent +
+                '}';
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.client.loadbalancer;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.net.URI;
+
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.support.HttpRequestWrapper;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * RestTemplate interceptor which routes each request to an endpoint chosen by the {@link ConsentStoreLoadBalancer}.
+ * <p>
+ * The scheme, host and port of the request URI are replaced with those of the chosen endpoint, the path and query are
+ * left untouched. IO errors and 5xx responses are reported to the load balancer as failures.
+ */
+public class LoadBalancingClientHttpRequestInterceptor implements ClientHttpRequestInterceptor {
+
+    private final ConsentStoreLoadBalancer loadBalancer;
+
+    public LoadBalancingClientHttpRequestInterceptor(ConsentStoreLoadBalancer loadBalancer) {
+        this.loadBalancer = requireNonNull(loadBalancer, "loadBalancer must be provided");
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+        final ConsentStoreEndpoint endpoint = loadBalancer.chooseEndpoint();
+        final URI routedUri = routeToEndpoint(request.getURI(), endpoint.getUri());
+
+        final long startNanos = loadBalancer.onRequestStarted(endpoint);
+        boolean success = false;
+        try {
+            final ClientHttpResponse response = execution.execute(new HttpRequestWrapper(request) {
+                @Override
+                public URI getURI() {
+                    return routedUri;
+                }
+            }, body);
+            success = !response.getStatusCode().is5xxServerError();
+            return response;
+        } finally {
+            loadBalancer.onRequestCompleted(endpoint, startNanos, success);
+        }
+    }
+
+    static URI routeToEndpoint(URI requestUri, URI endpointUri) {
+        return UriComponentsBuilder.fromUri(requestUri)
+                                   .scheme(endpointUri.getScheme())
+                                   .host(endpointUri.getHost())
+                                   .port(endpointUri.getPort())
+                                   .build(true)
+                                   .toUri();
+    }
+}
@@ -44,7 +44,7 @@ public class BaseRestDomesticStandingOrderConsentStoreClient extends BaseRestCon
                                                            RestTemplateBuilder restTemplateBuilder,
                                                            ObjectMapper objectMapper,
                                                            OBVersion obVersion) {
-        super(restTemplateBuilder, objectMapper);
+        super(consentStoreClientConfiguration, restTemplateBuilder, objectMapper);
         this.obVersion = requireNonNull(obVersion, "obVersion must be provided");
         this.consentServiceBaseUrl = consentStoreClientConfiguration.getBaseUri() + "/v" + obVersion.getCanonicalVersion()
                 + "/domestic-standing-order-consents";
@@ -46,7 +46,7 @@ public class BaseRestInternationalPaymentConsentStoreClient extends BaseRestCons
             ObjectMapper objectMapper,
             OBVersion obVersion) {
 
-        super(restTemplateBuilder, objectMapper);
+        super(consentStoreClientConfiguration, restTemplateBuilder, objectMapper);
         this.obVersion = requireNonNull(obVersion, "obVersion must be provided");
         this.consentServiceBaseUrl = consentStoreClientConfiguration.getBaseUri() + "/v" + obVersion.getCanonicalVersion()
                 + "/international-payment-consents";
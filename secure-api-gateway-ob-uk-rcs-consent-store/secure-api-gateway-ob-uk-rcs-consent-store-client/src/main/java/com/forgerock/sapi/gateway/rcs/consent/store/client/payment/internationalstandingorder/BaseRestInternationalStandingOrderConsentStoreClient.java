@@ -47,7 +47,7 @@ public class BaseRestInternationalStandingOrderConsentStoreClient extends BaseRe
             RestTemplateBuilder restTemplateBuilder,
             ObjectMapper objectMapper,
             OBVersion obVersion) {
-        super(restTemplateBuilder, objectMapper);
+        super(consentStoreClientConfiguration, restTemplateBuilder, objectMapper);
         this.obVersion = requireNonNull(obVersion, "obVersion must be provided");
         this.consentServiceBaseUrl = consentStoreClientConfiguration.getBaseUri() + "/v" + obVersion.getCanonicalVersion()
                 + "/international-standing-order-consents";
@@ -0,0 +1,44 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.client.payment.scheduled;
+
+import org.joda.time.DateTime;
+
+import com.forgerock.sapi.gateway.rcs.consent.store.client.ConsentStoreClientException;
+import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.scheduled.DueScheduledPaymentConsentsPage;
+
+/**
+ * Client for payment schedulers to find the Authorised Scheduled Payment Consents which are due to be executed.
+ * <p>
+ * Results are for the requestedExecutionDateTime range [fromDateTime, toDateTime), to fetch all results keep calling
+ * with the nextPageToken from the previous page until it is null.
+ */
+public interface DueScheduledPaymentConsentStoreClient {
+
+    /**
+     * @param pageSize optional number of consents to return, the server default is used if null
+     * @param pageToken optional nextPageToken from the previous page, null to fetch the first page
+     */
+    DueScheduledPaymentConsentsPage getDueDomesticScheduledPaymentConsents(DateTime fromDateTime, DateTime toDateTime,
+                                                                          Integer pageSize, String pageToken) throws ConsentStoreClientException;
+
+    /**
+     * @param pageSize optional number of consents to return, the server default is used if null
+     * @param pageToken optional nextPageToken from the previous page, null to fetch the first page
+     */
+    DueScheduledPaymentConsentsPage getDueInternationalScheduledPaymentConsents(DateTime fromDateTime, DateTime toDateTime,
+                                                                               Integer pageSize, String pageToken) throws ConsentStoreClientException;
+}
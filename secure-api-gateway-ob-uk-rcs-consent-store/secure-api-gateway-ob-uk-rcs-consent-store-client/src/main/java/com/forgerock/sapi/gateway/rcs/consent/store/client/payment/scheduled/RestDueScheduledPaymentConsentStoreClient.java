@@ -0,0 +1,79 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.client.payment.scheduled;
+
+import static java.util.Objects.requireNonNull;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.forgerock.sapi.gateway.rcs.consent.store.client.BaseRestConsentStoreClient;
+import com.forgerock.sapi.gateway.rcs.consent.store.client.ConsentStoreClientConfiguration;
+import com.forgerock.sapi.gateway.rcs.consent.store.client.ConsentStoreClientException;
+import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.scheduled.DueScheduledPaymentConsentsPage;
+
+/**
+ * Implementation of the DueScheduledPaymentConsentStoreClient which makes REST calls over HTTP
+ */
+@Component
+public class RestDueScheduledPaymentConsentStoreClient extends BaseRestConsentStoreClient implements DueScheduledPaymentConsentStoreClient {
+
+    private final String consentStoreBaseUrl;
+
+    public RestDueScheduledPaymentConsentStoreClient(ConsentStoreClientConfiguration consentStoreClientConfiguration,
+                                                     RestTemplateBuilder restTemplateBuilder,
+                                                     ObjectMapper objectMapper) {
+
+        super(consentStoreClientConfiguration, restTemplateBuilder, objectMapper);
+        this.consentStoreBaseUrl = consentStoreClientConfiguration.getBaseUri();
+    }
+
+    @Override
+    public DueScheduledPaymentConsentsPage getDueDomesticScheduledPaymentConsents(DateTime fromDateTime, DateTime toDateTime,
+                                                                                 Integer pageSize, String pageToken) throws ConsentStoreClientException {
+        return getDueConsents("/domestic-scheduled-payment-consents/due", fromDateTime, toDateTime, pageSize, pageToken);
+    }
+
+    @Override
+    public DueScheduledPaymentConsentsPage getDueInternationalScheduledPaymentConsents(DateTime fromDateTime, DateTime toDateTime,
+                                                                                      Integer pageSize, String pageToken) throws ConsentStoreClientException {
+        return getDueConsents("/international-scheduled-payment-consents/due", fromDateTime, toDateTime, pageSize, pageToken);
+    }
+
+    private DueScheduledPaymentConsentsPage getDueConsents(String path, DateTime fromDateTime, DateTime toDateTime,
+                                                           Integer pageSize, String pageToken) {
+        requireNonNull(fromDateTime, "fromDateTime must be provided");
+        requireNonNull(toDateTime, "toDateTime must be provided");
+        // Times are sent in UTC so that the values do not contain characters which require encoding
+        final UriComponentsBuilder uriBuilder = UriComponentsBuilder.fromHttpUrl(consentStoreBaseUrl + path)
+                .queryParam("fromDateTime", fromDateTime.withZone(DateTimeZone.UTC))
+                .queryParam("toDateTime", toDateTime.withZone(DateTimeZone.UTC));
+        if (pageSize != null) {
+            uriBuilder.queryParam("pageSize", pageSize);
+        }
+        if (pageToken != null) {
+            uriBuilder.queryParam("pageToken", pageToken);
+        }
+        final HttpEntity<Object> requestEntity = new HttpEntity<>(createHeaders());
+        return doRestCall(uriBuilder.build().toUriString(), HttpMethod.GET, requestEntity, DueScheduledPaymentConsentsPage.class);
+    }
+}
@@ -25,6 +25,9 @@ import com.forgerock.sapi.gateway.rcs.consent.store.client.ConsentStoreClientCon
 import com.forgerock.sapi.gateway.rcs.consent.store.client.ConsentStoreClientException;
 import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.RejectConsentRequest;
 import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.AuthorisePaymentConsentRequest;
+import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.vrp.VRPLimitReleaseRequest;
+import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.vrp.VRPLimitReservation;
+import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.vrp.VRPLimitReservationRequest;
 import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.vrp.v3_1_10.CreateDomesticVRPConsentRequest;
 import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.vrp.v3_1_10.DomesticVRPConsent;
 import com.forgerock.sapi.gateway.uk.common.shared.api.meta.obie.OBVersion;
@@ -38,7 +41,7 @@ public class BaseRestDomesticVRPConsentStoreClient extends BaseRestConsentStoreC
 
     public BaseRestDomesticVRPConsentStoreClient(ConsentStoreClientConfiguration consentStoreClientConfiguration, RestTemplateBuilder restTemplateBuilder,
                                                  ObjectMapper objectMapper, OBVersion obVersion) {
-        super(restTemplateBuilder, objectMapper);
+        super(consentStoreClientConfiguration, restTemplateBuilder, objectMapper);
         this.consentServiceBaseUrl = consentStoreClientConfiguration.getBaseUri() + "/v" + obVersion.getCanonicalVersion() + "/domestic-vrp-consents";
     }
 
@@ -76,4 +79,18 @@ public class BaseRestDomesticVRPConsentStoreClient extends BaseRestConsentStoreC
         doRestCall(url, HttpMethod.DELETE, requestEntity, Void.class);
     }
 
+    @Override
+    public VRPLimitReservation reserveLimit(VRPLimitReservationRequest reservationRequest) throws ConsentStoreClientException {
+        final String url = consentServiceBaseUrl + "/" + reservationRequest.getConsentId() + "/reserve-limit";
+        final HttpEntity<VRPLimitReservationRequest> requestEntity = new HttpEntity<>(reservationRequest, createHeaders(reservationRequest.getApiClientId()));
+        return doRestCall(url, HttpMethod.POST, requestEntity, VRPLimitReservation.class);
+    }
+
+    @Override
+    public VRPLimitReservation releaseLimit(VRPLimitReleaseRequest releaseRequest) throws ConsentStoreClientException {
+        final String url = consentServiceBaseUrl + "/" + releaseRequest.getConsentId() + "/release-limit";
+        final HttpEntity<VRPLimitReleaseRequest> requestEntity = new HttpEntity<>(releaseRequest, createHeaders(releaseRequest.getApiClientId()));
+        return doRestCall(url, HttpMethod.POST, requestEntity, VRPLimitReservation.class);
+    }
+
 }
@@ -18,6 +18,9 @@ package com.forgerock.sapi.gateway.rcs.consent.store.client.payment.vrp;
 import com.forgerock.sapi.gateway.rcs.consent.store.client.ConsentStoreClientException;
 import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.RejectConsentRequest;
 import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.AuthorisePaymentConsentRequest;
+import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.vrp.VRPLimitReleaseRequest;
+import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.vrp.VRPLimitReservation;
+import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.vrp.VRPLimitReservationRequest;
 import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.vrp.v3_1_10.CreateDomesticVRPConsentRequest;
 import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.vrp.v3_1_10.DomesticVRPConsent;
 
@@ -36,4 +39,17 @@ public interface DomesticVRPConsentStoreClient {
 
     void deleteConsent(String consentId, String apiClientId) throws ConsentStoreClientException;
 
+    /**
+     * Atomically checks the amount against the consent's limits and reserves it against the PeriodicLimits, throws a
+     * ConsentStoreClientException with ErrorType VRP_LIMIT_EXCEEDED if a limit would be exceeded.
+     */
+    VRPLimitReservation reserveLimit(VRPLimitReservationRequest reservationRequest) throws ConsentStoreClientException;
+
+    /**
+     * Releases a reservation made by {@link #reserveLimit(VRPLimitReservationRequest)}, the request must contain the
+     * reservationId returned by the reservation. Releasing is idempotent so the call may be safely retried, throws a
+     * ConsentStoreClientException with ErrorType NOT_FOUND if the consent has no reservation with the reservationId.
+     */
+    VRPLimitReservation releaseLimit(VRPLimitReleaseRequest releaseRequest) throws ConsentStoreClientException;
+
 }
@@ -0,0 +1,304 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.client.loadbalancer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ConsentStoreLoadBalancerTest {
+
+    private static final URI NODE_1 = URI.create("http://10.0.0.1:8080");
+    private static final URI NODE_2 = URI.create("http://10.0.0.2:8080");
+    private static final URI NODE_3 = URI.create("http://10.0.0.3:8080");
+    private static final URI NODE_4 = URI.create("http://10.0.0.4:8080");
+
+    private final ConsentStoreLoadBalancerPolicy policy = new ConsentStoreLoadBalancerPolicy(0.5, 3, 3.0,
+            Duration.ofMillis(10), Duration.ofSeconds(10), Duration.ofSeconds(30), 50);
+
+    private AtomicLong clock;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void beforeEach() {
+        clock = new AtomicLong(0);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    private ConsentStoreLoadBalancer createLoadBalancer(List<URI> endpoints) {
+        return new ConsentStoreLoadBalancer(() -> endpoints, policy, meterRegistry, clock::get);
+    }
+
+    private ConsentStoreEndpoint getEndpoint(ConsentStoreLoadBalancer loadBalancer, URI uri) {
+        return loadBalancer.getEndpoints().stream().filter(e -> e.getUri().equals(uri)).findFirst().orElseThrow();
+    }
+
+    private void simulateRequest(ConsentStoreLoadBalancer loadBalancer, ConsentStoreEndpoint endpoint,
+                                 long latencyMillis, boolean success) {
+        final long start = loadBalancer.onRequestStarted(endpoint);
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(latencyMillis));
+        loadBalancer.onRequestCompleted(endpoint, start, success);
+    }
+
+    private Map<URI, Integer> chooseEndpoints(ConsentStoreLoadBalancer loadBalancer, int numRequests) {
+        final Map<URI, Integer> counts = new HashMap<>();
+        for (int i = 0; i < numRequests; i++) {
+            counts.merge(loadBalancer.chooseEndpoint().getUri(), 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    @Test
+    void failsToCreateWhenNoEndpointsResolved() {
+        final IllegalStateException ex = assertThrows(IllegalStateException.class, () -> createLoadBalancer(List.of()));
+        assertThat(ex.getMessage()).isEqualTo("Failed to resolve any Consent Store endpoints");
+    }
+
+    @Test
+    void singleEndpointIsAlwaysChosen() {
+        final ConsentStoreLoadBalancer loadBalancer = createLoadBalancer(List.of(NODE_1));
+        assertThat(chooseEndpoints(loadBalancer, 10)).isEqualTo(Map.of(NODE_1, 10));
+    }
+
+    @Test
+    void prefersEndpointWithLowerLatency() {
+        final ConsentStoreLoadBalancer loadBalancer = createLoadBalancer(List.of(NODE_1, NODE_2));
+        simulateRequest(loadBalancer, getEndpoint(loadBalancer, NODE_1), 5, true);
+        simulateRequest(loadBalancer, getEndpoint(loadBalancer, NODE_2), 9, true);
+
+        // With 2 endpoints power-of-two-choices always compares both
+        assertThat(chooseEndpoints(loadBalancer, 100)).isEqualTo(Map.of(NODE_1, 100));
+    }
+
+    @Test
+    void prefersEndpointWithFewerInFlightRequests() {
+        final ConsentStoreLoadBalancer loadBalancer = createLoadBalancer(List.of(NODE_1, NODE_2));
+        final ConsentStoreEndpoint endpoint1 = getEndpoint(loadBalancer, NODE_1);
+        simulateRequest(loadBalancer, endpoint1, 5, true);
+        simulateRequest(loadBalancer, getEndpoint(loadBalancer, NODE_2), 9, true);
+
+        // Node 1 is faster, but has 2 requests in flight: 5 * 3 > 9 * 1
+        loadBalancer.onRequestStarted(endpoint1);
+        loadBalancer.onRequestStarted(endpoint1);
+
+        assertThat(loadBalancer.chooseEndpoint().getUri()).isEqualTo(NODE_2);
+    }
+
+    @Test
+    void ejectsEndpointAfterConsecutiveFailures() {
+        final ConsentStoreLoadBalancer loadBalancer = createLoadBalancer(List.of(NODE_1, NODE_2));
+        final ConsentStoreEndpoint endpoint1 = getEndpoint(loadBalancer, NODE_1);
+        simulateRequest(loadBalancer, endpoint1, 1, false);
+        simulateRequest(loadBalancer, endpoint1, 1, false);
+        assertThat(endpoint1.isEjected(clock.get())).isFalse();
+
+        simulateRequest(loadBalancer, endpoint1, 1, false);
+        assertThat(endpoint1.isEjected(clock.get())).isTrue();
+        assertThat(endpoint1.getEjectionCount()).isEqualTo(1);
+        assertThat(chooseEndpoints(loadBalancer, 20)).isEqualTo(Map.of(NODE_2, 20));
+        assertThat(meterRegistry.get("consent.store.client.endpoint.ejected").tag("endpoint", "10.0.0.1:8080").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void successResetsConsecutiveFailures() {
+        final ConsentStoreLoadBalancer loadBalancer = createLoadBalancer(List.of(NODE_1, NODE_2));
+        final ConsentStoreEndpoint endpoint1 = getEndpoint(loadBalancer, NODE_1);
+        simulateRequest(loadBalancer, endpoint1, 1, false);
+        simulateRequest(loadBalancer, endpoint1, 1, false);
+        simulateRequest(loadBalancer, endpoint1, 1, true);
+        simulateRequest(loadBalancer, endpoint1, 1, false);
+
+        assertThat(endpoint1.getConsecutiveFailures()).isEqualTo(1);
+        assertThat(endpoint1.isEjected(clock.get())).isFalse();
+    }
+
+    @Test
+    void ejectedEndpointIsRestoredAfterEjectionTime() {
+        final ConsentStoreLoadBalancer loadBalancer = createLoadBalancer(List.of(NODE_1, NODE_2));
+        final ConsentStoreEndpoint endpoint1 = getEndpoint(loadBalancer, NODE_1);
+        final ConsentStoreEndpoint endpoint2 = getEndpoint(loadBalancer, NODE_2);
+        simulateRequest(loadBalancer, endpoint2, 20, true);
+        for (int i = 0; i < 3; i++) {
+            simulateRequest(loadBalancer, endpoint1, 1, false);
+        }
+        assertThat(endpoint1.isEjected(clock.get())).isTrue();
+
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+        loadBalancer.chooseEndpoint();
+
+        assertThat(endpoint1.isEjected(clock.get())).isFalse();
+        // Latency estimate is reset to that of the peers
+        assertThat(endpoint1.getEwmaLatencyNanos()).isEqualTo(endpoint2.getEwmaLatencyNanos());
+    }
+
+    @Test
+    void repeatEjectionsBackOff() {
+        final ConsentStoreLoadBalancer loadBalancer = createLoadBalancer(List.of(NODE_1, NODE_2));
+        final ConsentStoreEndpoint endpoint1 = getEndpoint(loadBalancer, NODE_1);
+        for (int i = 0; i < 3; i++) {
+            simulateRequest(loadBalancer, endpoint1, 1, false);
+        }
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+        loadBalancer.chooseEndpoint();
+        for (int i = 0; i < 3; i++) {
+            simulateRequest(loadBalancer, endpoint1, 1, false);
+        }
+        assertThat(endpoint1.getEjectionCount()).isEqualTo(2);
+
+        // Second ejection lasts for 2 * baseEjectionTime
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+        assertThat(endpoint1.isEjected(clock.get())).isTrue();
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+        assertThat(endpoint1.isEjected(clock.get())).isFalse();
+    }
+
+    @Test
+    void doesNotEjectMoreThanMaxEjectionPercent() {
+        final ConsentStoreLoadBalancer loadBalancer = createLoadBalancer(List.of(NODE_1, NODE_2));
+        final ConsentStoreEndpoint endpoint1 = getEndpoint(loadBalancer, NODE_1);
+        final ConsentStoreEndpoint endpoint2 = getEndpoint(loadBalancer, NODE_2);
+        for (int i = 0; i < 3; i++) {
+            simulateRequest(loadBalancer, endpoint1, 1, false);
+            simulateRequest(loadBalancer, endpoint2, 1, false);
+        }
+
+        assertThat(endpoint1.isEjected(clock.get())).isTrue();
+        assertThat(endpoint2.isEjected(clock.get())).isFalse();
+    }
+
+    @Test
+    void failsOpenWhenAllEndpointsAreEjected() {
+        final ConsentStoreLoadBalancerPolicy ejectAllPolicy = new ConsentStoreLoadBalancerPolicy(0.5, 1, 3.0,
+                Duration.ofMillis(10), Duration.ofSeconds(10), Duration.ofSeconds(30), 100);
+        final ConsentStoreLoadBalancer loadBalancer = new ConsentStoreLoadBalancer(() -> List.of(NODE_1, NODE_2),
+                ejectAllPolicy, meterRegistry, clock::get);
+        simulateRequest(loadBalancer, getEndpoint(loadBalancer, NODE_1), 1, false);
+        simulateRequest(loadBalancer, getEndpoint(loadBalancer, NODE_2), 1, false);
+
+        assertThat(chooseEndpoints(loadBalancer, 100)).containsKeys(NODE_1, NODE_2);
+    }
+
+    @Test
+    void ejectsEndpointWithLatencySpike() {
+        final ConsentStoreLoadBalancer loadBalancer = createLoadBalancer(List.of(NODE_1, NODE_2, NODE_3, NODE_4));
+        simulateRequest(loadBalancer, getEndpoint(loadBalancer, NODE_1), 10, true);
+        simulateRequest(loadBalancer, getEndpoint(loadBalancer, NODE_2), 12, true);
+        simulateRequest(loadBalancer, getEndpoint(loadBalancer, NODE_3), 11, true);
+
+        final ConsentStoreEndpoint slowEndpoint = getEndpoint(loadBalancer, NODE_4);
+        simulateRequest(loadBalancer, slowEndpoint, 30, true);
+        assertThat(slowEndpoint.isEjected(clock.get())).isFalse();
+
+        simulateRequest(loadBalancer, slowEndpoint, 100, true);
+        assertThat(slowEndpoint.isEjected(clock.get())).isTrue();
+    }
+
+    @Test
+    void ignoresLatencySpikesBelowMinimum() {
+        final ConsentStoreLoadBalancer loadBalancer = createLoadBalancer(List.of(NODE_1, NODE_2));
+        simulateRequest(loadBalancer, getEndpoint(loadBalancer, NODE_1), 1, true);
+        final ConsentStoreEndpoint endpoint2 = getEndpoint(loadBalancer, NODE_2);
+        simulateRequest(loadBalancer, endpoint2, 9, true);
+
+        assertThat(endpoint2.isEjected(clock.get())).isFalse();
+    }
+
+    @Test
+    void refreshEndpointsKeepsStatsForExistingEndpoints() {
+        final AtomicReference<List<URI>> resolvedEndpoints = new AtomicReference<>(List.of(NODE_1, NODE_2));
+        final ConsentStoreLoadBalancer loadBalancer = new ConsentStoreLoadBalancer(resolvedEndpoints::get, policy,
+                meterRegistry, clock::get);
+        final ConsentStoreEndpoint endpoint2 = getEndpoint(loadBalancer, NODE_2);
+        simulateRequest(loadBalancer, endpoint2, 5, true);
+
+        resolvedEndpoints.set(List.of(NODE_2, NODE_3));
+        loadBalancer.refreshEndpoints();
+
+        assertThat(loadBalancer.getEndpoints()).extracting(ConsentStoreEndpoint::getUri).containsExactly(NODE_2, NODE_3);
+        assertThat(getEndpoint(loadBalancer, NODE_2)).isSameAs(endpoint2);
+        assertThat(meterRegistry.find("consent.store.client.endpoint.inflight").tag("endpoint", "10.0.0.1:8080").gauge()).isNull();
+        assertThat(meterRegistry.find("consent.store.client.requests").tag("endpoint", "10.0.0.1:8080").timer()).isNull();
+        assertThat(meterRegistry.find("consent.store.client.endpoint.inflight").tag("endpoint", "10.0.0.3:8080").gauge()).isNotNull();
+    }
+
+    @Test
+    void requestCompletingAfterEndpointRemovedDoesNotRegisterMetrics() {
+        final AtomicReference<List<URI>> resolvedEndpoints = new AtomicReference<>(List.of(NODE_1, NODE_2));
+        final ConsentStoreLoadBalancer loadBalancer = new ConsentStoreLoadBalancer(resolvedEndpoints::get, policy,
+                meterRegistry, clock::get);
+        final ConsentStoreEndpoint endpoint1 = getEndpoint(loadBalancer, NODE_1);
+        final long start = loadBalancer.onRequestStarted(endpoint1);
+
+        resolvedEndpoints.set(List.of(NODE_2));
+        loadBalancer.refreshEndpoints();
+        loadBalancer.onRequestCompleted(endpoint1, start, true);
+
+        assertThat(meterRegistry.find("consent.store.client.requests").tag("endpoint", "10.0.0.1:8080").timer()).isNull();
+    }
+
+    @Test
+    void dnsEndpointsRejectsHttps() {
+        final IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> ConsentStoreEndpointResolver.dnsEndpoints(URI.create("https://consent-store:8443")));
+        assertThat(ex.getMessage()).contains("TLS hostname verification");
+    }
+
+    @Test
+    void refreshEndpointsIgnoresResolutionFailures() {
+        final AtomicReference<List<URI>> resolvedEndpoints = new AtomicReference<>(List.of(NODE_1, NODE_2));
+        final ConsentStoreLoadBalancer loadBalancer = new ConsentStoreLoadBalancer(() -> {
+            final List<URI> uris = resolvedEndpoints.get();
+            if (uris == null) {
+                throw new IllegalStateException("DNS failure");
+            }
+            return uris;
+        }, policy, meterRegistry, clock::get);
+
+        resolvedEndpoints.set(null);
+        loadBalancer.refreshEndpoints();
+        resolvedEndpoints.set(List.of());
+        loadBalancer.refreshEndpoints();
+
+        assertThat(loadBalancer.getEndpoints()).extracting(ConsentStoreEndpoint::getUri).containsExactly(NODE_1, NODE_2);
+    }
+
+    @Test
+    void recordsRequestMetricsPerEndpoint() {
+        final ConsentStoreLoadBalancer loadBalancer = createLoadBalancer(List.of(NODE_1, NODE_2));
+        simulateRequest(loadBalancer, getEndpoint(loadBalancer, NODE_1), 5, true);
+        simulateRequest(loadBalancer, getEndpoint(loadBalancer, NODE_1), 5, false);
+        simulateRequest(loadBalancer, getEndpoint(loadBalancer, NODE_2), 5, true);
+
+        assertThat(meterRegistry.get("consent.store.client.requests").tags("endpoint", "10.0.0.1:8080", "outcome", "success").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("consent.store.client.requests").tags("endpoint", "10.0.0.1:8080", "outcome", "failure").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("consent.store.client.requests").tags("endpoint", "10.0.0.2:8080", "outcome", "success").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("consent.store.client.endpoint.latency.ewma").tag("endpoint", "10.0.0.2:8080").gauge().value()).isEqualTo(0.005);
+    }
+}
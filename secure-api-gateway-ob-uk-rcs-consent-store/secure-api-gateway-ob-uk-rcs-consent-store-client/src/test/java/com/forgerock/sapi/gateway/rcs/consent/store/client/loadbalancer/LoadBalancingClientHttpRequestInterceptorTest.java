@@ -0,0 +1,216 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.client.loadbalancer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Tests the interceptor routing real HTTP calls across several local stub Consent Store servers
+ */
+class LoadBalancingClientHttpRequestInterceptorTest {
+
+    /**
+     * Logical address used by the client, this is never resolved as the interceptor rewrites the host.
+     */
+    private static final String LOGICAL_BASE_URI = "http://consent-store.invalid/consent/store";
+
+    private final List<StubConsentStoreServer> stubServers = new ArrayList<>();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @AfterEach
+    void stopStubServers() {
+        stubServers.forEach(StubConsentStoreServer::stop);
+    }
+
+    private StubConsentStoreServer startStubServer(int statusCode, long latencyMillis) throws IOException {
+        final StubConsentStoreServer server = new StubConsentStoreServer(statusCode, latencyMillis);
+        stubServers.add(server);
+        return server;
+    }
+
+    /**
+     * Policy which disables latency based ejection, so that slow first requests on a cold JVM do not eject endpoints
+     */
+    private static ConsentStoreLoadBalancerPolicy failureEjectionOnlyPolicy() {
+        return new ConsentStoreLoadBalancerPolicy(0.3, 3, 3.0, Duration.ofMinutes(1), Duration.ofMinutes(1),
+                Duration.ofMinutes(2), 50);
+    }
+
+    private RestTemplate createRestTemplate(ConsentStoreLoadBalancer loadBalancer) {
+        return new RestTemplateBuilder().additionalInterceptors(new LoadBalancingClientHttpRequestInterceptor(loadBalancer)).build();
+    }
+
+    private ConsentStoreLoadBalancer createLoadBalancer(ConsentStoreLoadBalancerPolicy policy) {
+        final List<URI> endpoints = stubServers.stream().map(StubConsentStoreServer::getUri).toList();
+        return new ConsentStoreLoadBalancer(ConsentStoreEndpointResolver.staticEndpoints(endpoints), policy, meterRegistry);
+    }
+
+    @Test
+    void routesRequestsAcrossAllHealthyEndpoints() throws IOException {
+        final StubConsentStoreServer server1 = startStubServer(200, 0);
+        final StubConsentStoreServer server2 = startStubServer(200, 0);
+        final StubConsentStoreServer server3 = startStubServer(200, 0);
+        final RestTemplate restTemplate = createRestTemplate(createLoadBalancer(failureEjectionOnlyPolicy()));
+
+        for (int i = 0; i < 60; i++) {
+            final String response = restTemplate.getForObject(LOGICAL_BASE_URI + "/v4.0.0/domestic-payment-consents/PDC_123?a=b", String.class);
+            assertThat(response).isEqualTo("/consent/store/v4.0.0/domestic-payment-consents/PDC_123?a=b");
+        }
+
+        assertThat(server1.getRequestCount() + server2.getRequestCount() + server3.getRequestCount()).isEqualTo(60);
+        assertThat(server1.getRequestCount()).isPositive();
+        assertThat(server2.getRequestCount()).isPositive();
+        assertThat(server3.getRequestCount()).isPositive();
+    }
+
+    @Test
+    void failingEndpointIsEjected() throws IOException {
+        final StubConsentStoreServer healthyServer = startStubServer(200, 0);
+        final StubConsentStoreServer failingServer = startStubServer(500, 0);
+        final ConsentStoreLoadBalancer loadBalancer = createLoadBalancer(failureEjectionOnlyPolicy());
+        final ConsentStoreEndpoint failingEndpoint = loadBalancer.getEndpoints().stream()
+                .filter(endpoint -> endpoint.getUri().equals(failingServer.getUri())).findFirst().orElseThrow();
+        final RestTemplate restTemplate = createRestTemplate(loadBalancer);
+
+        // Which endpoint each request is routed to depends on timing, so send requests until the failing one is ejected
+        int failures = 0;
+        for (int i = 0; i < 100 && !failingEndpoint.isEjected(System.nanoTime()); i++) {
+            try {
+                restTemplate.getForObject(LOGICAL_BASE_URI + "/test", String.class);
+            } catch (HttpServerErrorException e) {
+                failures++;
+            }
+        }
+        assertThat(failingEndpoint.isEjected(System.nanoTime())).isTrue();
+        final int failingServerRequestsBeforeEjection = failingServer.getRequestCount();
+        assertThat(failingServerRequestsBeforeEjection).isGreaterThanOrEqualTo(3);
+        assertThat(failures).isEqualTo(failingServerRequestsBeforeEjection);
+        assertThat(meterRegistry.get("consent.store.client.requests")
+                                .tags("endpoint", failingServer.getUri().getAuthority(), "outcome", "failure")
+                                .timer().count()).isEqualTo(failingServerRequestsBeforeEjection);
+
+        // Once ejected, no further requests are routed to the failing endpoint
+        final int healthyServerRequestsBeforeEjection = healthyServer.getRequestCount();
+        for (int i = 0; i < 30; i++) {
+            restTemplate.getForObject(LOGICAL_BASE_URI + "/test", String.class);
+        }
+        assertThat(failingServer.getRequestCount()).isEqualTo(failingServerRequestsBeforeEjection);
+        assertThat(healthyServer.getRequestCount()).isEqualTo(healthyServerRequestsBeforeEjection + 30);
+    }
+
+    @Test
+    void connectionFailuresAreRecordedAsFailures() throws IOException {
+        final StubConsentStoreServer server = startStubServer(200, 0);
+        final URI deadEndpoint = server.getUri();
+        server.stop();
+        final ConsentStoreLoadBalancer loadBalancer = new ConsentStoreLoadBalancer(
+                ConsentStoreEndpointResolver.staticEndpoints(List.of(deadEndpoint)),
+                ConsentStoreLoadBalancerPolicy.defaultPolicy(), meterRegistry);
+        final RestTemplate restTemplate = createRestTemplate(loadBalancer);
+
+        try {
+            restTemplate.getForObject(LOGICAL_BASE_URI + "/test", String.class);
+        } catch (RuntimeException expected) {
+            // connection refused
+        }
+
+        final ConsentStoreEndpoint endpoint = loadBalancer.getEndpoints().get(0);
+        assertThat(endpoint.getConsecutiveFailures()).isEqualTo(1);
+        assertThat(endpoint.getInFlightRequests()).isZero();
+    }
+
+    @Test
+    void slowEndpointReceivesLessTraffic() throws IOException {
+        final StubConsentStoreServer fastServer = startStubServer(200, 0);
+        final StubConsentStoreServer slowServer = startStubServer(200, 40);
+        final RestTemplate restTemplate = createRestTemplate(createLoadBalancer(failureEjectionOnlyPolicy()));
+
+        for (int i = 0; i < 40; i++) {
+            restTemplate.getForObject(LOGICAL_BASE_URI + "/test", String.class);
+        }
+
+        assertThat(slowServer.getRequestCount()).isLessThan(fastServer.getRequestCount());
+    }
+
+    @Test
+    void routeToEndpointReplacesSchemeHostAndPort() {
+        final URI routed = LoadBalancingClientHttpRequestInterceptor.routeToEndpoint(
+                URI.create("http://consent-store:8080/consent/store/v4.0.0/account-access-consents/AAC_1?x=%20y"),
+                URI.create("https://10.1.2.3:8443"));
+        assertThat(routed).isEqualTo(URI.create("https://10.1.2.3:8443/consent/store/v4.0.0/account-access-consents/AAC_1?x=%20y"));
+    }
+
+    /**
+     * Minimal HTTP server which echoes the request path and query, returning a configurable status after a delay
+     */
+    private static class StubConsentStoreServer {
+
+        private final HttpServer httpServer;
+        private final AtomicInteger requestCount = new AtomicInteger();
+
+        StubConsentStoreServer(int statusCode, long latencyMillis) throws IOException {
+            httpServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            httpServer.createContext("/", exchange -> {
+                requestCount.incrementAndGet();
+                try {
+                    Thread.sleep(latencyMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                final byte[] body = exchange.getRequestURI().toString().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "text/plain");
+                exchange.sendResponseHeaders(statusCode, body.length);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(body);
+                }
+            });
+            httpServer.start();
+        }
+
+        URI getUri() {
+            return URI.create("http://127.0.0.1:" + httpServer.getAddress().getPort());
+        }
+
+        int getRequestCount() {
+            return requestCount.get();
+        }
+
+        void stop() {
+            httpServer.stop(0);
+        }
+    }
+}
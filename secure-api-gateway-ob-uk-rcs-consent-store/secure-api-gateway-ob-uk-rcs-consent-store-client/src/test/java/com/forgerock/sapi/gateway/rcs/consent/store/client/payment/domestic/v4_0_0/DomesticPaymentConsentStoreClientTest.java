@@ -47,6 +47,7 @@ import com.forgerock.sapi.gateway.rcs.consent.store.client.TestConsentStoreClien
 import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.RejectConsentRequest;
 import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.AuthorisePaymentConsentRequest;
 import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.ConsumePaymentConsentRequest;
+import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.PaymentInitiationFingerprint;
 import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.domestic.v3_1_10.CreateDomesticPaymentConsentRequest;
 import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.domestic.v3_1_10.DomesticPaymentConsent;
 
@@ -141,6 +142,53 @@ class DomesticPaymentConsentStoreClientTest {
         validateConsumedConsent(consumedConsent, authResponse);
     }
 
+    @Test
+    void testConsumeConsentWithExpectedInitiationAndDebtorAccount() {
+        final CreateDomesticPaymentConsentRequest createConsentRequest = buildCreateConsentRequest();
+        final DomesticPaymentConsent consent = apiClient.createConsent(createConsentRequest);
+        final DomesticPaymentConsent authResponse = apiClient.authoriseConsent(buildAuthoriseConsentRequest(consent, "psu4test", "acc-12345"));
+
+        final ConsumePaymentConsentRequest consumeRequest = buildConsumeRequest(consent);
+        consumeRequest.setExpectedInitiationFingerprint(PaymentInitiationFingerprint.of(createConsentRequest.getConsentRequest().getData().getInitiation()));
+        consumeRequest.setExpectedDebtorAccountId("acc-12345");
+        final DomesticPaymentConsent consumedConsent = apiClient.consumeConsent(consumeRequest);
+
+        validateConsumedConsent(consumedConsent, authResponse);
+
+        final ConsentStoreClientException consumeTwiceException = assertThrows(ConsentStoreClientException.class,
+                () -> apiClient.consumeConsent(consumeRequest));
+        assertThat(consumeTwiceException.getErrorType()).isEqualTo(ErrorType.INVALID_STATE_TRANSITION);
+    }
+
+    @Test
+    void failToConsumeConsentWithDifferentInitiation() {
+        final DomesticPaymentConsent consent = apiClient.createConsent(buildCreateConsentRequest());
+        apiClient.authoriseConsent(buildAuthoriseConsentRequest(consent, "psu4test", "acc-12345"));
+
+        final ConsumePaymentConsentRequest consumeRequest = buildConsumeRequest(consent);
+        consumeRequest.setExpectedInitiationFingerprint("does-not-match");
+        consumeRequest.setExpectedDebtorAccountId("acc-12345");
+
+        final ConsentStoreClientException exception = assertThrows(ConsentStoreClientException.class,
+                () -> apiClient.consumeConsent(consumeRequest));
+        assertThat(exception.getErrorType()).isEqualTo(ErrorType.INVALID_PAYMENT_INITIATION);
+        assertThat(apiClient.getConsent(consent.getId(), consent.getApiClientId()).getStatus())
+                .isEqualTo(OBPaymentConsentStatus.AUTHORISED.toString());
+    }
+
+    @Test
+    void failToConsumeConsentWithDifferentDebtorAccount() {
+        final DomesticPaymentConsent consent = apiClient.createConsent(buildCreateConsentRequest());
+        apiClient.authoriseConsent(buildAuthoriseConsentRequest(consent, "psu4test", "acc-12345"));
+
+        final ConsumePaymentConsentRequest consumeRequest = buildConsumeRequest(consent);
+        consumeRequest.setExpectedDebtorAccountId("acc-99999");
+
+        final ConsentStoreClientException exception = assertThrows(ConsentStoreClientException.class,
+                () -> apiClient.consumeConsent(consumeRequest));
+        assertThat(exception.getErrorType()).isEqualTo(ErrorType.INVALID_DEBTOR_ACCOUNT);
+    }
+
     @Test
     void testGetConsent() {
         final CreateDomesticPaymentConsentRequest createConsentRequest = buildCreateConsentRequest();
@@ -0,0 +1,148 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.client.payment.scheduled;
+
+import static com.forgerock.sapi.gateway.rcs.consent.store.client.TestConsentStoreClientConfigurationFactory.createConsentStoreClientConfiguration;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.forgerock.sapi.gateway.ob.uk.common.datamodel.converter.v3.payment.FRWriteDomesticScheduledConsentConverter;
+import com.forgerock.sapi.gateway.rcs.consent.store.client.ConsentStoreClientException;
+import com.forgerock.sapi.gateway.rcs.consent.store.client.ConsentStoreClientException.ErrorType;
+import com.forgerock.sapi.gateway.rcs.consent.store.client.payment.domesticscheduled.v3_1_10.RestDomesticScheduledPaymentConsentStoreClient;
+import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.AuthorisePaymentConsentRequest;
+import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.domesticscheduled.v3_1_10.CreateDomesticScheduledPaymentConsentRequest;
+import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.domesticscheduled.v3_1_10.DomesticScheduledPaymentConsent;
+import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.scheduled.DueScheduledPaymentConsent;
+import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.scheduled.DueScheduledPaymentConsentsPage;
+import com.forgerock.sapi.gateway.uk.common.shared.api.meta.obie.OBVersion;
+
+import uk.org.openbanking.testsupport.v3.payment.OBWriteDomesticScheduledConsentTestDataFactory;
+
+@SpringBootTest(webEnvironment = RANDOM_PORT, properties = {"rcs.consent.store.api.baseUri= 'ignored'"})
+@ActiveProfiles("test")
+@ExtendWith(SpringExtension.class)
+class DueScheduledPaymentConsentStoreClientTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private RestTemplateBuilder restTemplateBuilder;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private RestDomesticScheduledPaymentConsentStoreClient domesticScheduledPaymentConsentClient;
+
+    private RestDueScheduledPaymentConsentStoreClient apiClient;
+
+    /**
+     * Time window used by the test so that consents created by other tests do not affect the results
+     */
+    private DateTime windowStart;
+
+    @BeforeEach
+    public void beforeEach() {
+        domesticScheduledPaymentConsentClient = new RestDomesticScheduledPaymentConsentStoreClient(
+                createConsentStoreClientConfiguration(port), restTemplateBuilder, objectMapper);
+        apiClient = new RestDueScheduledPaymentConsentStoreClient(createConsentStoreClientConfiguration(port),
+                restTemplateBuilder, objectMapper);
+        windowStart = new DateTime(2090, 1, 1, 0, 0, DateTimeZone.UTC).plusHours(new Random().nextInt(24 * 365 * 5));
+    }
+
+    @Test
+    void testPagesThroughDueDomesticScheduledPaymentConsents() {
+        final List<String> expectedConsentIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            expectedConsentIds.add(createAuthorisedConsent(windowStart.plusMinutes(i)).getId());
+        }
+        // Due outside of the requested window
+        createAuthorisedConsent(windowStart.plusHours(1));
+
+        final List<DueScheduledPaymentConsent> dueConsents = new ArrayList<>();
+        String pageToken = null;
+        int pages = 0;
+        do {
+            final DueScheduledPaymentConsentsPage page = apiClient.getDueDomesticScheduledPaymentConsents(windowStart,
+                    windowStart.plusHours(1), 2, pageToken);
+            dueConsents.addAll(page.getConsents());
+            pageToken = page.getNextPageToken();
+            pages++;
+        } while (pageToken != null);
+
+        assertThat(pages).isEqualTo(3);
+        assertThat(dueConsents).extracting(DueScheduledPaymentConsent::getConsentId).containsExactlyElementsOf(expectedConsentIds);
+        final DueScheduledPaymentConsent dueConsent = dueConsents.get(0);
+        assertThat(dueConsent.getApiClientId()).isEqualTo("test-client-1");
+        assertThat(dueConsent.getResourceOwnerId()).isEqualTo("psu4test");
+        assertThat(dueConsent.getAuthorisedDebtorAccountId()).isEqualTo("acc-12345");
+        assertThat(dueConsent.getRequestVersion()).isEqualTo(OBVersion.v3_1_10);
+        assertThat(dueConsent.getRequestedExecutionDateTime().getMillis()).isEqualTo(windowStart.getMillis());
+    }
+
+    @Test
+    void failsWhenRangeIsInvalid() {
+        final ConsentStoreClientException clientException = assertThrows(ConsentStoreClientException.class,
+                () -> apiClient.getDueInternationalScheduledPaymentConsents(windowStart, windowStart, null, null));
+        assertThat(clientException.getErrorType()).isEqualTo(ErrorType.BAD_REQUEST);
+        assertThat(clientException.getMessage()).contains("fromDateTime must be before toDateTime");
+    }
+
+    @Test
+    void failsWhenPageTokenIsInvalid() {
+        final ConsentStoreClientException clientException = assertThrows(ConsentStoreClientException.class,
+                () -> apiClient.getDueDomesticScheduledPaymentConsents(windowStart, windowStart.plusHours(1), null, "not-a-token"));
+        assertThat(clientException.getErrorType()).isEqualTo(ErrorType.BAD_REQUEST);
+        assertThat(clientException.getMessage()).contains("pageToken is invalid");
+    }
+
+    private DomesticScheduledPaymentConsent createAuthorisedConsent(DateTime requestedExecutionDateTime) {
+        final CreateDomesticScheduledPaymentConsentRequest createConsentRequest = new CreateDomesticScheduledPaymentConsentRequest();
+        createConsentRequest.setIdempotencyKey(UUID.randomUUID().toString());
+        createConsentRequest.setApiClientId("test-client-1");
+        createConsentRequest.setConsentRequest(FRWriteDomesticScheduledConsentConverter.toFRWriteDomesticScheduledConsent(
+                OBWriteDomesticScheduledConsentTestDataFactory.aValidOBWriteDomesticScheduledConsent4()));
+        createConsentRequest.getConsentRequest().getData().getInitiation().setRequestedExecutionDateTime(requestedExecutionDateTime);
+        final DomesticScheduledPaymentConsent consent = domesticScheduledPaymentConsentClient.createConsent(createConsentRequest);
+
+        final AuthorisePaymentConsentRequest authRequest = new AuthorisePaymentConsentRequest();
+        authRequest.setConsentId(consent.getId());
+        authRequest.setApiClientId(consent.getApiClientId());
+        authRequest.setResourceOwnerId("psu4test");
+        authRequest.setAuthorisedDebtorAccountId("acc-12345");
+        return domesticScheduledPaymentConsentClient.authoriseConsent(authRequest);
+    }
+}
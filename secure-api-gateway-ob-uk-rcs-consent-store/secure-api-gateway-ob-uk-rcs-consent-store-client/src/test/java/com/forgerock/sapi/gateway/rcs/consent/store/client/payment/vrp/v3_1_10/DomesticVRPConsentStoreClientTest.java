@@ -41,10 +41,15 @@ import com.forgerock.sapi.gateway.ob.uk.common.datamodel.common.FRAmount;
 import com.forgerock.sapi.gateway.ob.uk.common.datamodel.common.FRCharge;
 import com.forgerock.sapi.gateway.ob.uk.common.datamodel.common.FRChargeBearerType;
 import com.forgerock.sapi.gateway.ob.uk.common.datamodel.converter.v3.vrp.FRDomesticVRPConsentConverters;
+import com.forgerock.sapi.gateway.ob.uk.common.datamodel.vrp.FRDomesticVRPControlParameters;
+import com.forgerock.sapi.gateway.ob.uk.common.datamodel.vrp.FRPeriodicLimits;
 import com.forgerock.sapi.gateway.rcs.consent.store.client.ConsentStoreClientException;
 import com.forgerock.sapi.gateway.rcs.consent.store.client.ConsentStoreClientException.ErrorType;
 import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.RejectConsentRequest;
 import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.AuthorisePaymentConsentRequest;
+import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.vrp.VRPLimitReleaseRequest;
+import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.vrp.VRPLimitReservation;
+import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.vrp.VRPLimitReservationRequest;
 import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.vrp.v3_1_10.CreateDomesticVRPConsentRequest;
 import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.vrp.v3_1_10.DomesticVRPConsent;
 
@@ -129,6 +134,85 @@ class DomesticVRPConsentStoreClientTest {
         apiClient.deleteConsent(consent.getId(), consent.getApiClientId());
     }
 
+    @Test
+    void testReserveAndReleaseLimit() {
+        final DomesticVRPConsent consent = apiClient.createConsent(buildCreateConsentRequestWithLimits());
+        apiClient.authoriseConsent(buildAuthoriseConsentRequest(consent, "psu4test", "acc-12345"));
+
+        final VRPLimitReservation reservation = apiClient.reserveLimit(buildReservationRequest(consent, "60.00"));
+        assertThat(reservation.getConsentId()).isEqualTo(consent.getId());
+        assertThat(reservation.getReservationDateTime()).isNotNull();
+        assertThat(reservation.getPeriodicLimitUsage()).hasSize(1);
+        assertThat(reservation.getPeriodicLimitUsage().get(0).getReservedAmount().getAmount()).isEqualTo("60.00");
+
+        final ConsentStoreClientException clientException = assertThrows(ConsentStoreClientException.class,
+                () -> apiClient.reserveLimit(buildReservationRequest(consent, "50.00")));
+        assertThat(clientException.getErrorType()).isEqualTo(ErrorType.VRP_LIMIT_EXCEEDED);
+
+        final VRPLimitReleaseRequest releaseRequest = buildReleaseRequest(consent, reservation.getReservationId());
+        final VRPLimitReservation release = apiClient.releaseLimit(releaseRequest);
+        assertThat(release.getReservationId()).isEqualTo(reservation.getReservationId());
+        assertThat(release.getAmount().getAmount()).isEqualTo("60.00");
+        assertThat(release.getPeriodicLimitUsage().get(0).getReservedAmount().getAmount()).isEqualTo("0.00");
+
+        // Retrying the release does not release the amount again
+        final VRPLimitReservation secondReservation = apiClient.reserveLimit(buildReservationRequest(consent, "30.00"));
+        final VRPLimitReservation retriedRelease = apiClient.releaseLimit(releaseRequest);
+        assertThat(retriedRelease.getPeriodicLimitUsage().get(0).getReservedAmount().getAmount()).isEqualTo("30.00");
+        assertThat(secondReservation.getReservationId()).isNotEqualTo(reservation.getReservationId());
+    }
+
+    @Test
+    void failsToReleaseUnknownReservation() {
+        final DomesticVRPConsent consent = apiClient.createConsent(buildCreateConsentRequestWithLimits());
+        apiClient.authoriseConsent(buildAuthoriseConsentRequest(consent, "psu4test", "acc-12345"));
+        apiClient.reserveLimit(buildReservationRequest(consent, "10.00"));
+
+        final ConsentStoreClientException clientException = assertThrows(ConsentStoreClientException.class,
+                () -> apiClient.releaseLimit(buildReleaseRequest(consent, UUID.randomUUID().toString())));
+        assertThat(clientException.getErrorType()).isEqualTo(ErrorType.NOT_FOUND);
+    }
+
+    @Test
+    void failsToReleaseLimitWithoutReservationId() {
+        final DomesticVRPConsent consent = apiClient.createConsent(buildCreateConsentRequestWithLimits());
+        final ConsentStoreClientException clientException = assertThrows(ConsentStoreClientException.class,
+                () -> apiClient.releaseLimit(buildReleaseRequest(consent, null)));
+        assertThat(clientException.getErrorType()).isEqualTo(ErrorType.BAD_REQUEST);
+    }
+
+    /**
+     * Builds a request for a consent with a MaximumIndividualAmount of 60.00 GBP and a single PeriodicLimit of 100.00 GBP
+     */
+    private static CreateDomesticVRPConsentRequest buildCreateConsentRequestWithLimits() {
+        final CreateDomesticVRPConsentRequest createConsentRequest = buildCreateConsentRequest();
+        final FRDomesticVRPControlParameters controlParameters = createConsentRequest.getConsentRequest().getData().getControlParameters();
+        controlParameters.setValidFromDateTime(null);
+        controlParameters.setValidToDateTime(null);
+        controlParameters.setMaximumIndividualAmount(new FRAmount("60.00", "GBP"));
+        final FRPeriodicLimits periodicLimit = controlParameters.getPeriodicLimits().get(0);
+        periodicLimit.setAmount("100.00");
+        periodicLimit.setCurrency("GBP");
+        controlParameters.setPeriodicLimits(List.of(periodicLimit));
+        return createConsentRequest;
+    }
+
+    private static VRPLimitReservationRequest buildReservationRequest(DomesticVRPConsent consent, String amount) {
+        final VRPLimitReservationRequest reservationRequest = new VRPLimitReservationRequest();
+        reservationRequest.setApiClientId(consent.getApiClientId());
+        reservationRequest.setConsentId(consent.getId());
+        reservationRequest.setAmount(new FRAmount(amount, "GBP"));
+        return reservationRequest;
+    }
+
+    private static VRPLimitReleaseRequest buildReleaseRequest(DomesticVRPConsent consent, String reservationId) {
+        final VRPLimitReleaseRequest releaseRequest = new VRPLimitReleaseRequest();
+        releaseRequest.setApiClientId(consent.getApiClientId());
+        releaseRequest.setConsentId(consent.getId());
+        releaseRequest.setReservationId(reservationId);
+        return releaseRequest;
+    }
+
     private static CreateDomesticVRPConsentRequest buildCreateConsentRequest() {
         final CreateDomesticVRPConsentRequest createConsentRequest = new CreateDomesticVRPConsentRequest();
         createConsentRequest.setIdempotencyKey(UUID.randomUUID().toString());
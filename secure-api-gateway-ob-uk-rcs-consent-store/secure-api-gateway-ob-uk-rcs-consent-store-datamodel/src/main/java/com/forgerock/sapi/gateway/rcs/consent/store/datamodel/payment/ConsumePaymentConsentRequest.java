@@ -28,6 +28,18 @@ public class ConsumePaymentConsentRequest {
     @NotNull
     private String consentId;
 
+    /**
+     * Optional - fingerprint of the initiation that the payment is being made with, see {@link PaymentInitiationFingerprint}.
+     * When supplied, the consent is only consumed if its initiation has the same fingerprint.
+     */
+    private String expectedInitiationFingerprint;
+
+    /**
+     * Optional - id of the DebtorAccount that the payment is being taken from. When supplied, the consent is only
+     * consumed if this matches the authorisedDebtorAccountId.
+     */
+    private String expectedDebtorAccountId;
+
     public ConsumePaymentConsentRequest(){
     }
 
@@ -47,11 +59,29 @@ public class ConsumePaymentConsentRequest {
         this.apiClientId = apiClientId;
     }
 
+    public String getExpectedInitiationFingerprint() {
+        return expectedInitiationFingerprint;
+    }
+
+    public void setExpectedInitiationFingerprint(String expectedInitiationFingerprint) {
+        this.expectedInitiationFingerprint = expectedInitiationFingerprint;
+    }
+
+    public String getExpectedDebtorAccountId() {
+        return expectedDebtorAccountId;
+    }
+
+    public void setExpectedDebtorAccountId(String expectedDebtorAccountId) {
+        this.expectedDebtorAccountId = expectedDebtorAccountId;
+    }
+
     @Override
     public String toString() {
         return "ConsumePaymentConsentRequest{" +
                 "apiClientId='" + apiClientId + '\'' +
                 ", consentId='" + consentId + '\'' +
+                ", expectedInitiationFingerprint='" + expectedInitiationFingerprint + '\'' +
+                ", expectedDebtorAccountId='" + expectedDebtorAccountId + '\'' +
                 '}';
     }
 }
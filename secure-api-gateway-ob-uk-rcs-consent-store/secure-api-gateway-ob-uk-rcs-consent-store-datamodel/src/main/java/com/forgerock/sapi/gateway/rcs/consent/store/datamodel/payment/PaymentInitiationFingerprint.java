@@ -0,0 +1,85 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment;
+
+import static java.util.Objects.requireNonNull;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+/**
+ * Computes a fingerprint of a Payment Initiation, allowing a payment submission to be checked against the initiation
+ * of the consent it is made against without transferring and comparing the whole initiation object.
+ * <p>
+ * The fingerprint is the base64url encoded SHA-256 digest of a canonical JSON representation of the initiation:
+ * properties and map entries are sorted, nulls are omitted and dates are written as epoch milliseconds. Callers must
+ * fingerprint the same data-model type that is stored in the consent's requestObj (the FR data-model initiation).
+ */
+public final class PaymentInitiationFingerprint {
+
+    private static final ObjectMapper CANONICAL_MAPPER = JsonMapper.builder()
+                                                                   .findAndAddModules()
+                                                                   .enable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+                                                                   .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+                                                                   .enable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                                                                   .serializationInclusion(JsonInclude.Include.NON_NULL)
+                                                                   .build();
+
+    private PaymentInitiationFingerprint() {
+    }
+
+    /**
+     * @param initiation the payment initiation object e.g. FRWriteDomesticDataInitiation
+     * @return the fingerprint of the initiation
+     */
+    public static String of(Object initiation) {
+        requireNonNull(initiation, "initiation must be provided");
+        return digest(CANONICAL_MAPPER.valueToTree(initiation));
+    }
+
+    /**
+     * @param consentRequest the consent request object containing the initiation at data.initiation e.g. FRWriteDomesticConsent
+     * @return the fingerprint of the initiation contained in the consent request
+     */
+    public static String ofConsentRequest(Object consentRequest) {
+        requireNonNull(consentRequest, "consentRequest must be provided");
+        final JsonNode initiation = CANONICAL_MAPPER.valueToTree(consentRequest).path("data").path("initiation");
+        if (initiation.isMissingNode() || initiation.isNull()) {
+            throw new IllegalArgumentException("consentRequest of type: " + consentRequest.getClass().getSimpleName()
+                    + " does not contain data.initiation");
+        }
+        return digest(initiation);
+    }
+
+    private static String digest(JsonNode initiation) {
+        try {
+            final byte[] canonicalJson = CANONICAL_MAPPER.writeValueAsBytes(initiation);
+            final byte[] hash = MessageDigest.getInstance("SHA-256").digest(canonicalJson);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Failed to compute payment initiation fingerprint", e);
+        }
+    }
+}
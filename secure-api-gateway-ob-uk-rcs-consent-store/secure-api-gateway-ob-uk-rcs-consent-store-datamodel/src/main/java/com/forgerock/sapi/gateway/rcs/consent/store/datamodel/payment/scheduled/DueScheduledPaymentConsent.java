@@ -0,0 +1,99 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.scheduled;
+
+import org.joda.time.DateTime;
+
+import com.forgerock.sapi.gateway.uk.common.shared.api.meta.obie.OBVersion;
+
+/**
+ * Summary of an Authorised Scheduled Payment Consent which is due to be executed, contains the data required by a
+ * payment scheduler to decide when to make the payment.
+ */
+public class DueScheduledPaymentConsent {
+
+    private String consentId;
+
+    private String apiClientId;
+
+    private String resourceOwnerId;
+
+    private String authorisedDebtorAccountId;
+
+    private OBVersion requestVersion;
+
+    private DateTime requestedExecutionDateTime;
+
+    public String getConsentId() {
+        return consentId;
+    }
+
+    public void setConsentId(String consentId) {
+        this.consentId = consentId;
+    }
+
+    public String getApiClientId() {
+        return apiClientId;
+    }
+
+    public void setApiClientId(String apiClientId) {
+        this.apiClientId = apiClientId;
+    }
+
+    public String getResourceOwnerId() {
+        return resourceOwnerId;
+    }
+
+    public void setResourceOwnerId(String resourceOwnerId) {
+        this.resourceOwnerId = resourceOwnerId;
+    }
+
+    public String getAuthorisedDebtorAccountId() {
+        return authorisedDebtorAccountId;
+    }
+
+    public void setAuthorisedDebtorAccountId(String authorisedDebtorAccountId) {
+        this.authorisedDebtorAccountId = authorisedDebtorAccountId;
+    }
+
+    public OBVersion getRequestVersion() {
+        return requestVersion;
+    }
+
+    public void setRequestVersion(OBVersion requestVersion) {
+        this.requestVersion = requestVersion;
+    }
+
+    public DateTime getRequestedExecutionDateTime() {
+        return requestedExecutionDateTime;
+    }
+
+    public void setRequestedExecutionDateTime(DateTime requestedExecutionDateTime) {
+        this.requestedExecutionDateTime = requestedExecutionDateTime;
+    }
+
+    @Override
+    public String toString() {
+        return "DueScheduledPaymentConsent{" +
+                "consentId='" + consentId + '\'' +
+                ", apiClientId='" + apiClientId + '\'' +
+                ", resourceOwnerId='" + resourceOwnerId + '\'' +
+                ", authorisedDebtorAccountId='" + authorisedDebtorAccountId + '\'' +
+                ", requestVersion=" + requestVersion +
+                ", requestedExecutionDateTime=" + requestedExecutionDateTime +
+                '}';
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.scheduled;
+
+import java.util.List;
+
+/**
+ * Page of Scheduled Payment Consents which are due to be executed.
+ */
+public class DueScheduledPaymentConsentsPage {
+
+    private List<DueScheduledPaymentConsent> consents;
+
+    /**
+     * Opaque token used to fetch the next page of results, null if this is the last page.
+     */
+    private String nextPageToken;
+
+    public List<DueScheduledPaymentConsent> getConsents() {
+        return consents;
+    }
+
+    public void setConsents(List<DueScheduledPaymentConsent> consents) {
+        this.consents = consents;
+    }
+
+    public String getNextPageToken() {
+        return nextPageToken;
+    }
+
+    public void setNextPageToken(String nextPageToken) {
+        this.nextPageToken = nextPageToken;
+    }
+
+    @Override
+    public String toString() {
+        return "DueScheduledPaymentConsentsPage{" +
+                "consents=" + consents +
+                ", nextPageToken='" + nextPageToken + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.vrp;
+
+import org.springframework.validation.annotation.Validated;
+
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * Request to release a reservation previously made against the limits of a Domestic VRP Consent.
+ */
+@Validated
+public class VRPLimitReleaseRequest {
+
+    @NotNull
+    private String apiClientId;
+
+    @NotNull
+    private String consentId;
+
+    /**
+     * The reservationId returned by the reservation being released
+     */
+    @NotNull
+    private String reservationId;
+
+    public VRPLimitReleaseRequest() {
+    }
+
+    public String getApiClientId() {
+        return apiClientId;
+    }
+
+    public void setApiClientId(String apiClientId) {
+        this.apiClientId = apiClientId;
+    }
+
+    public String getConsentId() {
+        return consentId;
+    }
+
+    public void setConsentId(String consentId) {
+        this.consentId = consentId;
+    }
+
+    public String getReservationId() {
+        return reservationId;
+    }
+
+    public void setReservationId(String reservationId) {
+        this.reservationId = reservationId;
+    }
+
+    @Override
+    public String toString() {
+        return "VRPLimitReleaseRequest{" +
+                "apiClientId='" + apiClientId + '\'' +
+                ", consentId='" + consentId + '\'' +
+                ", reservationId='" + reservationId + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.vrp;
+
+import java.util.List;
+
+import org.joda.time.DateTime;
+
+import com.forgerock.sapi.gateway.ob.uk.common.datamodel.common.FRAmount;
+
+/**
+ * Result of reserving, or releasing, an amount against the limits of a Domestic VRP Consent.
+ */
+public class VRPLimitReservation {
+
+    /**
+     * Id of the reservation, this must be supplied to release the reservation.
+     */
+    private String reservationId;
+
+    private String consentId;
+
+    private FRAmount amount;
+
+    /**
+     * Time used to determine the periods the amount was reserved in.
+     */
+    private DateTime reservationDateTime;
+
+    /**
+     * Usage of each of the consent's PeriodicLimits after the operation
+     */
+    private List<VRPPeriodicLimitUsage> periodicLimitUsage;
+
+    public String getReservationId() {
+        return reservationId;
+    }
+
+    public void setReservationId(String reservationId) {
+        this.reservationId = reservationId;
+    }
+
+    public String getConsentId() {
+        return consentId;
+    }
+
+    public void setConsentId(String consentId) {
+        this.consentId = consentId;
+    }
+
+    public FRAmount getAmount() {
+        return amount;
+    }
+
+    public void setAmount(FRAmount amount) {
+        this.amount = amount;
+    }
+
+    public DateTime getReservationDateTime() {
+        return reservationDateTime;
+    }
+
+    public void setReservationDateTime(DateTime reservationDateTime) {
+        this.reservationDateTime = reservationDateTime;
+    }
+
+    public List<VRPPeriodicLimitUsage> getPeriodicLimitUsage() {
+        return periodicLimitUsage;
+    }
+
+    public void setPeriodicLimitUsage(List<VRPPeriodicLimitUsage> periodicLimitUsage) {
+        this.periodicLimitUsage = periodicLimitUsage;
+    }
+
+    @Override
+    public String toString() {
+        return "VRPLimitReservation{" +
+                "reservationId='" + reservationId + '\'' +
+                ", consentId='" + consentId + '\'' +
+                ", amount=" + amount +
+                ", reservationDateTime=" + reservationDateTime +
+                ", periodicLimitUsage=" + periodicLimitUsage +
+                '}';
+    }
+}
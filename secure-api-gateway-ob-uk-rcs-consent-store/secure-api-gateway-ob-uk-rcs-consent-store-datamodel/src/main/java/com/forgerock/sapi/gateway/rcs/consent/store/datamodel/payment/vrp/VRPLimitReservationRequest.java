@@ -0,0 +1,93 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.vrp;
+
+import org.joda.time.DateTime;
+import org.springframework.validation.annotation.Validated;
+
+import com.forgerock.sapi.gateway.ob.uk.common.datamodel.common.FRAmount;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * Request to reserve a VRP payment amount against the limits of a Domestic VRP Consent.
+ */
+@Validated
+public class VRPLimitReservationRequest {
+
+    @NotNull
+    private String apiClientId;
+
+    @NotNull
+    private String consentId;
+
+    @NotNull
+    @Valid
+    private FRAmount amount;
+
+    /**
+     * Time of the payment, which determines the PeriodicLimits periods that the amount is reserved in.
+     * <p>
+     * Optional, defaults to the current time.
+     */
+    private DateTime reservationDateTime;
+
+    public VRPLimitReservationRequest() {
+    }
+
+    public String getApiClientId() {
+        return apiClientId;
+    }
+
+    public void setApiClientId(String apiClientId) {
+        this.apiClientId = apiClientId;
+    }
+
+    public String getConsentId() {
+        return consentId;
+    }
+
+    public void setConsentId(String consentId) {
+        this.consentId = consentId;
+    }
+
+    public FRAmount getAmount() {
+        return amount;
+    }
+
+    public void setAmount(FRAmount amount) {
+        this.amount = amount;
+    }
+
+    public DateTime getReservationDateTime() {
+        return reservationDateTime;
+    }
+
+    public void setReservationDateTime(DateTime reservationDateTime) {
+        this.reservationDateTime = reservationDateTime;
+    }
+
+    @Override
+    public String toString() {
+        return "VRPLimitReservationRequest{" +
+                "apiClientId='" + apiClientId + '\'' +
+                ", consentId='" + consentId + '\'' +
+                ", amount=" + amount +
+                ", reservationDateTime=" + reservationDateTime +
+                '}';
+    }
+}
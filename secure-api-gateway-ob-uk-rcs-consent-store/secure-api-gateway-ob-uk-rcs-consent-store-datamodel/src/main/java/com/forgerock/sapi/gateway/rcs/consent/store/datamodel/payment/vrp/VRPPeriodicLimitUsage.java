@@ -0,0 +1,97 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.vrp;
+
+import java.util.Date;
+import java.util.Objects;
+
+import com.forgerock.sapi.gateway.ob.uk.common.datamodel.common.FRAmount;
+
+/**
+ * The amount reserved against one of the PeriodicLimits of a Domestic VRP Consent in the period starting at periodStart.
+ */
+public class VRPPeriodicLimitUsage {
+
+    /**
+     * OBIE PeriodType value e.g. Day
+     */
+    private String periodType;
+
+    /**
+     * OBIE PeriodAlignment value e.g. Consent
+     */
+    private String periodAlignment;
+
+    private Date periodStart;
+
+    private FRAmount reservedAmount;
+
+    public String getPeriodType() {
+        return periodType;
+    }
+
+    public void setPeriodType(String periodType) {
+        this.periodType = periodType;
+    }
+
+    public String getPeriodAlignment() {
+        return periodAlignment;
+    }
+
+    public void setPeriodAlignment(String periodAlignment) {
+        this.periodAlignment = periodAlignment;
+    }
+
+    public Date getPeriodStart() {
+        return periodStart;
+    }
+
+    public void setPeriodStart(Date periodStart) {
+        this.periodStart = periodStart;
+    }
+
+    public FRAmount getReservedAmount() {
+        return reservedAmount;
+    }
+
+    public void setReservedAmount(FRAmount reservedAmount) {
+        this.reservedAmount = reservedAmount;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        VRPPeriodicLimitUsage that = (VRPPeriodicLimitUsage) o;
+        return Objects.equals(periodType, that.periodType) && Objects.equals(periodAlignment, that.periodAlignment)
+                && Objects.equals(periodStart, that.periodStart) && Objects.equals(reservedAmount, that.reservedAmount);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(periodType, periodAlignment, periodStart, reservedAmount);
+    }
+
+    @Override
+    public String toString() {
+        return "VRPPeriodicLimitUsage{" +
+                "periodType='" + periodType + '\'' +
+                ", periodAlignment='" + periodAlignment + '\'' +
+                ", periodStart=" + periodStart +
+                ", reservedAmount=" + reservedAmount +
+                '}';
+    }
+}
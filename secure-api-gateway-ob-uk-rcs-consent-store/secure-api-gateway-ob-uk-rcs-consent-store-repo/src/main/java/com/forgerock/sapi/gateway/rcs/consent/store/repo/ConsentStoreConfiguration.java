@@ -15,31 +15,54 @@
  */
 package com.forgerock.sapi.gateway.rcs.consent.store.repo;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
 import org.springframework.data.mongodb.config.EnableMongoAuditing;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.DefaultDbRefResolver;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
 import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.observability.ContextProviderFactory;
+import org.springframework.data.mongodb.observability.MongoObservationCommandListener;
 import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
 
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.MongoRepoPackageMarker;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.convert.ConsentEntityTypeMapper;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.metrics.MongoCommandMetricsListener;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.metrics.MongoConnectionPoolMetricsListener;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.metrics.RepositoryMethodContextBeanPostProcessor;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.partition.ConsentPartitionRoutingBeanPostProcessor;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.partition.ConsentPartitions;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.routing.ConsentReadRouting;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.routing.ConsentReadRoutingMongoTemplate;
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.BaseConsentService;
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.ConsentServiceFactory;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.ConsentTypeRegistry;
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.version.ApiVersionValidator;
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.version.BackwardsCompatibilityApiVersionValidator;
 import com.forgerock.sapi.gateway.uk.common.shared.api.meta.share.IntentType;
 import com.forgerock.sapi.gateway.uk.common.shared.spring.converter.JodaTimeConverters;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
 import jakarta.annotation.PostConstruct;
 
 @Configuration
@@ -76,6 +99,93 @@ public class ConsentStoreConfiguration {
         return new MongoCustomConversions(new ArrayList<>(JodaTimeConverters.getConvertersToRegister()));
     }
 
+    /**
+     * MappingMongoConverter configured as Spring Boot would, except that consent entity documents are written without
+     * the {@code _class} type hint (see {@link ConsentEntityTypeMapper}). Set consent.store.mongo.entityTypeHints=true
+     * to keep writing the hint, e.g. for external tools which read the collections as a generic type.
+     */
+    @Bean
+    public MappingMongoConverter mappingMongoConverter(MongoDatabaseFactory mongoDatabaseFactory,
+                                                       MongoMappingContext mongoMappingContext,
+                                                       MongoCustomConversions mongoCustomConversions,
+                                                       @Value("${consent.store.mongo.entityTypeHints:false}") boolean entityTypeHints) {
+        final MappingMongoConverter mappingMongoConverter = new MappingMongoConverter(new DefaultDbRefResolver(mongoDatabaseFactory),
+                                                                                      mongoMappingContext);
+        mappingMongoConverter.setCustomConversions(mongoCustomConversions);
+        if (!entityTypeHints) {
+            mappingMongoConverter.setTypeMapper(new ConsentEntityTypeMapper(ConsentTypeRegistry.getConsentStateModels().keySet(),
+                                                                            mongoMappingContext));
+        }
+        return mappingMongoConverter;
+    }
+
+    /**
+     * Registers listeners with the Mongo driver which record command latencies (per collection, command and repository
+     * method) and connection pool checkout waits in the MeterRegistry, see {@link MongoCommandMetricsListener}.
+     */
+    @Bean
+    public MongoClientSettingsBuilderCustomizer consentStoreMongoMetricsCustomizer(
+            ObjectProvider<MeterRegistry> meterRegistryProvider,
+            @Value("${consent.store.mongo.metrics.enabled:true}") boolean metricsEnabled,
+            @Value("${consent.store.mongo.metrics.slowCommandThresholdMillis:100}") long slowCommandThresholdMillis) {
+        if (!metricsEnabled) {
+            logger.info("Consent Store Mongo metrics disabled");
+            return builder -> {};
+        }
+        final MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable(SimpleMeterRegistry::new);
+        final MongoCommandMetricsListener commandListener = new MongoCommandMetricsListener(meterRegistry,
+                Duration.ofMillis(slowCommandThresholdMillis));
+        final MongoConnectionPoolMetricsListener connectionPoolListener = new MongoConnectionPoolMetricsListener(meterRegistry);
+        return builder -> builder.addCommandListener(commandListener)
+                                 .applyToConnectionPoolSettings(pool -> pool.addConnectionPoolListener(connectionPoolListener));
+    }
+
+    /**
+     * Registers a listener with the Mongo driver which creates an observation per command, a child of the observation
+     * of the request being handled, so that Mongo commands appear as spans when tracing is enabled.
+     */
+    @Bean
+    public MongoClientSettingsBuilderCustomizer consentStoreMongoTracingCustomizer(
+            ObjectProvider<ObservationRegistry> observationRegistryProvider,
+            @Value("${consent.store.mongo.tracing.enabled:false}") boolean tracingEnabled) {
+        final ObservationRegistry observationRegistry = observationRegistryProvider.getIfAvailable();
+        if (!tracingEnabled || observationRegistry == null) {
+            return builder -> {};
+        }
+        logger.info("Consent Store Mongo tracing enabled");
+        return builder -> builder.contextProvider(ContextProviderFactory.create(observationRegistry))
+                                 .addCommandListener(new MongoObservationCommandListener(observationRegistry));
+    }
+
+    /**
+     * Records the repository method that is executing, so that Mongo commands can be attributed to it.
+     * Static as this is a BeanPostProcessor, which must be created before the repositories.
+     */
+    @Bean
+    public static RepositoryMethodContextBeanPostProcessor repositoryMethodContextBeanPostProcessor() {
+        return new RepositoryMethodContextBeanPostProcessor();
+    }
+
+    /**
+     * Routes the consent repositories to the partition holding the consents they operate on.
+     * Static as this is a BeanPostProcessor, which must be created before the repositories.
+     */
+    @Bean
+    public static ConsentPartitionRoutingBeanPostProcessor consentPartitionRoutingBeanPostProcessor(
+            ObjectProvider<ConsentPartitions> consentPartitionsProvider) {
+        return new ConsentPartitionRoutingBeanPostProcessor(consentPartitionsProvider);
+    }
+
+    /**
+     * MongoTemplate which routes reads according to the {@link ConsentReadRouting} configuration and operations to the
+     * current {@link ConsentPartitions} partition, replaces the MongoTemplate that Spring Boot would otherwise create.
+     */
+    @Bean
+    public MongoTemplate mongoTemplate(MongoDatabaseFactory mongoDatabaseFactory, MongoConverter mongoConverter,
+                                       ConsentReadRouting consentReadRouting, ConsentPartitions consentPartitions) {
+        return new ConsentReadRoutingMongoTemplate(mongoDatabaseFactory, mongoConverter, consentReadRouting, consentPartitions);
+    }
+
     @Bean
     public ApiVersionValidator apiVersionValidator() {
         return new BackwardsCompatibilityApiVersionValidator();
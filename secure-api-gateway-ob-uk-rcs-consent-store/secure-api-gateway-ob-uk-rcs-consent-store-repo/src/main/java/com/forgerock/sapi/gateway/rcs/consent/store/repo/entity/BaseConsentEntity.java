@@ -23,6 +23,7 @@ import jakarta.validation.constraints.NotNull;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.annotation.Transient;
 import org.springframework.data.annotation.Version;
 import org.springframework.validation.annotation.Validated;
 
@@ -41,6 +42,14 @@ public class BaseConsentEntity<T> {
     @Version
     private int entityVersion;
 
+    /**
+     * Version of the stored document's schema, documents with an older schemaVersion are upcast as they are read.
+     * Documents written before schema versioning was introduced have no schemaVersion, which reads as 0.
+     *
+     * @see com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.migration.ConsentSchemaMigrations
+     */
+    private int schemaVersion;
+
     /**
      * OBIE data-model Consent Request object e.g. {@link uk.org.openbanking.datamodel.payment.OBWriteDomesticConsent4}
      */
@@ -92,6 +101,13 @@ public class BaseConsentEntity<T> {
     @LastModifiedDate
     private Date statusUpdatedDateTime;
 
+    /**
+     * Flag indicating that this Consent was read from the archive, archived Consents are in a terminal state and
+     * cannot be modified.
+     */
+    @Transient
+    private boolean archived;
+
     public BaseConsentEntity() {
     }
 
@@ -156,6 +172,14 @@ public class BaseConsentEntity<T> {
         return entityVersion;
     }
 
+    public int getSchemaVersion() {
+        return schemaVersion;
+    }
+
+    public void setSchemaVersion(int schemaVersion) {
+        this.schemaVersion = schemaVersion;
+    }
+
     public boolean isDeleted() {
         return deleted;
     }
@@ -164,11 +188,20 @@ public class BaseConsentEntity<T> {
         this.deleted = deleted;
     }
 
+    public boolean isArchived() {
+        return archived;
+    }
+
+    public void setArchived(boolean archived) {
+        this.archived = archived;
+    }
+
     @Override
     public String toString() {
         return "BaseConsentEntity{" +
                 "id='" + id + '\'' +
                 ", entityVersion=" + entityVersion +
+                ", schemaVersion=" + schemaVersion +
                 ", requestObj=" + requestObj +
                 ", requestVersion=" + requestVersion +
                 ", status='" + status + '\'' +
@@ -177,6 +210,7 @@ public class BaseConsentEntity<T> {
                 ", deleted=" + deleted +
                 ", creationDateTime=" + creationDateTime +
                 ", statusUpdatedDateTime=" + statusUpdatedDateTime +
+                ", archived=" + archived +
                 '}';
     }
 }
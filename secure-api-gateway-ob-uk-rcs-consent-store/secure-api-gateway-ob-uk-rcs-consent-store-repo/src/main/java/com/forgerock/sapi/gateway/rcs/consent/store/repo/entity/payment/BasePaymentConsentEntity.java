@@ -51,6 +51,12 @@ public abstract class BasePaymentConsentEntity<T> extends BaseConsentEntity<T> {
      */
     @Valid
     private List<FRCharge> charges;
+    /**
+     * Fingerprint of the payment initiation in the requestObj, used to check that a payment matches this consent as
+     * part of consuming it. This is set when the consent is created, consents created by earlier versions may not
+     * have this field set.
+     */
+    private String initiationFingerprint;
 
     public void setAuthorisedDebtorAccountId(String authorisedDebtorAccountId) {
         this.authorisedDebtorAccountId = authorisedDebtorAccountId;
@@ -83,4 +89,12 @@ public abstract class BasePaymentConsentEntity<T> extends BaseConsentEntity<T> {
     public void setCharges(List<FRCharge> charges) {
         this.charges = charges;
     }
+
+    public String getInitiationFingerprint() {
+        return initiationFingerprint;
+    }
+
+    public void setInitiationFingerprint(String initiationFingerprint) {
+        this.initiationFingerprint = initiationFingerprint;
+    }
 }
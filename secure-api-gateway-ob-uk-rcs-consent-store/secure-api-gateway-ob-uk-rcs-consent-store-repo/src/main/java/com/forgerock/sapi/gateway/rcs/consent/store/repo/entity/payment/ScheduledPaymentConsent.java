@@ -0,0 +1,52 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment;
+
+import org.joda.time.DateTime;
+
+import com.forgerock.sapi.gateway.uk.common.shared.api.meta.obie.OBVersion;
+
+/**
+ * Scheduled Payment Consents, which are executed at the RequestedExecutionDateTime of their initiation.
+ * <p>
+ * The RequestedExecutionDateTime is copied from the requestObj into the top level requestedExecutionDateTime field
+ * when the consent is created, so that it can be indexed and queried efficiently.
+ */
+public interface ScheduledPaymentConsent {
+
+    String FIELD_REQUESTED_EXECUTION_DATE_TIME = "requestedExecutionDateTime";
+
+    /**
+     * Path of the RequestedExecutionDateTime within the stored requestObj
+     */
+    String FIELD_REQUEST_OBJ_REQUESTED_EXECUTION_DATE_TIME = "requestObj.data.initiation.requestedExecutionDateTime";
+
+    String getId();
+
+    String getApiClientId();
+
+    String getResourceOwnerId();
+
+    String getAuthorisedDebtorAccountId();
+
+    String getStatus();
+
+    OBVersion getRequestVersion();
+
+    DateTime getRequestedExecutionDateTime();
+
+    void setRequestedExecutionDateTime(DateTime requestedExecutionDateTime);
+}
@@ -15,16 +15,33 @@
  */
 package com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.domestic;
 
+import org.joda.time.DateTime;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.validation.annotation.Validated;
 
 import com.forgerock.sapi.gateway.ob.uk.common.datamodel.payment.FRWriteDomesticScheduledConsent;
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.BasePaymentConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.ScheduledPaymentConsent;
 
 /**
  * OBIE Domestic Scheduled Payment Consent: https://openbankinguk.github.io/read-write-api-site3/v3.1.10/resources-and-data-models/pisp/domestic-scheduled-payment-consents.html
  */
 @Document("DomesticScheduledPaymentConsent")
 @Validated
-public class DomesticScheduledPaymentConsentEntity extends BasePaymentConsentEntity<FRWriteDomesticScheduledConsent> {
+public class DomesticScheduledPaymentConsentEntity extends BasePaymentConsentEntity<FRWriteDomesticScheduledConsent> implements ScheduledPaymentConsent {
+
+    /**
+     * Copy of requestObj.data.initiation.requestedExecutionDateTime, see {@link ScheduledPaymentConsent}
+     */
+    private DateTime requestedExecutionDateTime;
+
+    @Override
+    public DateTime getRequestedExecutionDateTime() {
+        return requestedExecutionDateTime;
+    }
+
+    @Override
+    public void setRequestedExecutionDateTime(DateTime requestedExecutionDateTime) {
+        this.requestedExecutionDateTime = requestedExecutionDateTime;
+    }
 }
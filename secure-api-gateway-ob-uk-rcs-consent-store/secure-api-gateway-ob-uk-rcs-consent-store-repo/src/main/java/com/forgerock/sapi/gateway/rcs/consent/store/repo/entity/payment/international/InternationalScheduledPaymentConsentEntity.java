@@ -15,15 +15,32 @@
  */
 package com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.international;
 
+import org.joda.time.DateTime;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.validation.annotation.Validated;
 
 import com.forgerock.sapi.gateway.ob.uk.common.datamodel.payment.FRWriteInternationalScheduledConsent;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.ScheduledPaymentConsent;
 
 /**
  * OBIE International Scheduled Payment Consent: https://openbankinguk.github.io/read-write-api-site3/v3.1.10/resources-and-data-models/pisp/international-scheduled-payment-consents.html
  */
 @Document("InternationalScheduledPaymentConsent")
 @Validated
-public class InternationalScheduledPaymentConsentEntity extends BasePaymentConsentEntityWithExchangeRateInformation<FRWriteInternationalScheduledConsent> {
+public class InternationalScheduledPaymentConsentEntity extends BasePaymentConsentEntityWithExchangeRateInformation<FRWriteInternationalScheduledConsent> implements ScheduledPaymentConsent {
+
+    /**
+     * Copy of requestObj.data.initiation.requestedExecutionDateTime, see {@link ScheduledPaymentConsent}
+     */
+    private DateTime requestedExecutionDateTime;
+
+    @Override
+    public DateTime getRequestedExecutionDateTime() {
+        return requestedExecutionDateTime;
+    }
+
+    @Override
+    public void setRequestedExecutionDateTime(DateTime requestedExecutionDateTime) {
+        this.requestedExecutionDateTime = requestedExecutionDateTime;
+    }
 }
@@ -15,6 +15,8 @@
  */
 package com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.vrp;
 
+import java.util.List;
+
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.validation.annotation.Validated;
 
@@ -27,4 +29,32 @@ import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.BasePaym
 @Document("DomesticVRPConsent")
 @Validated
 public class DomesticVRPConsentEntity extends BasePaymentConsentEntity<FRDomesticVRPConsent> {
+
+    /**
+     * Amounts reserved against each of the ControlParameters.PeriodicLimits for the current period, entries are
+     * created lazily by the first reservation made in a period.
+     */
+    private List<PeriodicLimitUsage> periodicLimitUsage;
+
+    /**
+     * The most recent reservations made against the PeriodicLimits, used to release a reservation by its id. At most
+     * VRPLimitReservationRepositoryImpl.MAX_RETAINED_RESERVATIONS are retained, unreleased reservations first.
+     */
+    private List<LimitReservation> limitReservations;
+
+    public List<PeriodicLimitUsage> getPeriodicLimitUsage() {
+        return periodicLimitUsage;
+    }
+
+    public void setPeriodicLimitUsage(List<PeriodicLimitUsage> periodicLimitUsage) {
+        this.periodicLimitUsage = periodicLimitUsage;
+    }
+
+    public List<LimitReservation> getLimitReservations() {
+        return limitReservations;
+    }
+
+    public void setLimitReservations(List<LimitReservation> limitReservations) {
+        this.limitReservations = limitReservations;
+    }
 }
@@ -0,0 +1,94 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.vrp;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+/**
+ * Record of an amount reserved against the PeriodicLimits of a Domestic VRP Consent.
+ * <p>
+ * Releasing is done by reservationId, the released flag ensures that a reservation is only ever released once so that
+ * a retried release does not free the amount twice. The periods that the amount was reserved in are derived from the
+ * reservationDateTime.
+ */
+public class LimitReservation {
+
+    private String reservationId;
+
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal amount;
+
+    private String currency;
+
+    private Date reservationDateTime;
+
+    private boolean released;
+
+    public String getReservationId() {
+        return reservationId;
+    }
+
+    public void setReservationId(String reservationId) {
+        this.reservationId = reservationId;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public void setCurrency(String currency) {
+        this.currency = currency;
+    }
+
+    public Date getReservationDateTime() {
+        return reservationDateTime;
+    }
+
+    public void setReservationDateTime(Date reservationDateTime) {
+        this.reservationDateTime = reservationDateTime;
+    }
+
+    public boolean isReleased() {
+        return released;
+    }
+
+    public void setReleased(boolean released) {
+        this.released = released;
+    }
+
+    @Override
+    public String toString() {
+        return "LimitReservation{" +
+                "reservationId='" + reservationId + '\'' +
+                ", amount=" + amount +
+                ", currency='" + currency + '\'' +
+                ", reservationDateTime=" + reservationDateTime +
+                ", released=" + released +
+                '}';
+    }
+}
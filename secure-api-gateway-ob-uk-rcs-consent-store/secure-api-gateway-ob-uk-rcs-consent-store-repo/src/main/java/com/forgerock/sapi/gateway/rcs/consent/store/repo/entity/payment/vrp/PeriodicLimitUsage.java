@@ -0,0 +1,95 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.vrp;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+/**
+ * Usage counter for one of the PeriodicLimits of a Domestic VRP Consent.
+ * <p>
+ * The counter holds the total amount reserved by payments made in the period starting at periodStart. Counters are only
+ * ever modified via conditional updates (see
+ * {@link com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.payment.vrp.VRPLimitReservationRepository}), the
+ * reservedAmount is stored as Decimal128 so that it can be incremented server side without loss of precision.
+ */
+public class PeriodicLimitUsage {
+
+    private VRPPeriodType periodType;
+
+    private VRPPeriodAlignment periodAlignment;
+
+    private Date periodStart;
+
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal reservedAmount;
+
+    private String currency;
+
+    public VRPPeriodType getPeriodType() {
+        return periodType;
+    }
+
+    public void setPeriodType(VRPPeriodType periodType) {
+        this.periodType = periodType;
+    }
+
+    public VRPPeriodAlignment getPeriodAlignment() {
+        return periodAlignment;
+    }
+
+    public void setPeriodAlignment(VRPPeriodAlignment periodAlignment) {
+        this.periodAlignment = periodAlignment;
+    }
+
+    public Date getPeriodStart() {
+        return periodStart;
+    }
+
+    public void setPeriodStart(Date periodStart) {
+        this.periodStart = periodStart;
+    }
+
+    public BigDecimal getReservedAmount() {
+        return reservedAmount;
+    }
+
+    public void setReservedAmount(BigDecimal reservedAmount) {
+        this.reservedAmount = reservedAmount;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public void setCurrency(String currency) {
+        this.currency = currency;
+    }
+
+    @Override
+    public String toString() {
+        return "PeriodicLimitUsage{" +
+                "periodType=" + periodType +
+                ", periodAlignment=" + periodAlignment +
+                ", periodStart=" + periodStart +
+                ", reservedAmount=" + reservedAmount +
+                ", currency='" + currency + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.vrp;
+
+/**
+ * OBIE VRP PeriodicLimits PeriodAlignment values
+ */
+public enum VRPPeriodAlignment {
+    /**
+     * Periods start from the consent's ValidFromDateTime (or creation time if that is not set)
+     */
+    CONSENT("Consent"),
+    /**
+     * Periods start at the beginning of the calendar period
+     */
+    CALENDAR("Calendar");
+
+    private final String value;
+
+    VRPPeriodAlignment(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * Lenient lookup which accepts either the OBIE value (e.g. "Calendar") or the enum name of a data-model type
+     * (e.g. "CALENDAR").
+     */
+    public static VRPPeriodAlignment fromValue(String value) {
+        final String normalisedValue = VRPPeriodType.normalise(value);
+        for (VRPPeriodAlignment periodAlignment : values()) {
+            if (VRPPeriodType.normalise(periodAlignment.value).equals(normalisedValue)) {
+                return periodAlignment;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported PeriodAlignment: " + value);
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.vrp;
+
+import java.util.Locale;
+
+/**
+ * OBIE VRP PeriodicLimits PeriodType values
+ */
+public enum VRPPeriodType {
+    DAY("Day"),
+    WEEK("Week"),
+    FORTNIGHT("Fortnight"),
+    MONTH("Month"),
+    HALF_YEAR("Half-year"),
+    YEAR("Year");
+
+    private final String value;
+
+    VRPPeriodType(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * Lenient lookup which accepts either the OBIE value (e.g. "Half-year") or the enum name of a data-model type
+     * (e.g. "HALF_YEAR").
+     */
+    public static VRPPeriodType fromValue(String value) {
+        final String normalisedValue = normalise(value);
+        for (VRPPeriodType periodType : values()) {
+            if (normalise(periodType.value).equals(normalisedValue)) {
+                return periodType;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported PeriodType: " + value);
+    }
+
+    static String normalise(String value) {
+        return value == null ? "" : value.replaceAll("[^A-Za-z]", "").toUpperCase(Locale.ROOT);
+    }
+}
@@ -24,6 +24,8 @@ public class ConsentStoreException extends RuntimeException {
         INVALID_STATE_TRANSITION,
         INVALID_CONSENT_DECISION,
         INVALID_DEBTOR_ACCOUNT,
+        INVALID_PAYMENT_INITIATION,
+        VRP_LIMIT_EXCEEDED,
         INVALID_API_VERSION,
         CONSENT_REAUTHENTICATION_NOT_SUPPORTED,
         IDEMPOTENCY_ERROR
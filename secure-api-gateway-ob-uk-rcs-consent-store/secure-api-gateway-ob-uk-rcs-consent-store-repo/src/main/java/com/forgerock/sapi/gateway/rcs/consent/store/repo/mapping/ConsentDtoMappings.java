@@ -0,0 +1,248 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.mapping;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.BaseConsent;
+import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.account.v3_1_10.AccountAccessConsent;
+import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.customerinfo.v1_0.CustomerInfoConsent;
+import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.funds.v3_1_10.FundsConfirmationConsent;
+import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.BasePaymentConsent;
+import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.PaymentInitiationFingerprint;
+import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.domestic.v3_1_10.DomesticPaymentConsent;
+import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.domesticscheduled.v3_1_10.DomesticScheduledPaymentConsent;
+import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.domesticstandingorder.v3_1_10.DomesticStandingOrderConsent;
+import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.file.v3_1_10.FilePaymentConsent;
+import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.international.v3_1_10.InternationalPaymentConsent;
+import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.internationalscheduled.v3_1_10.InternationalScheduledPaymentConsent;
+import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.internationalstandingorder.v3_1_10.InternationalStandingOrderConsent;
+import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.vrp.v3_1_10.DomesticVRPConsent;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.BaseConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.account.AccountAccessConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.customerinfo.CustomerInfoConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.funds.FundsConfirmationConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.BasePaymentConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.domestic.DomesticPaymentConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.domestic.DomesticScheduledPaymentConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.domestic.DomesticStandingOrderConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.file.FilePaymentConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.international.InternationalPaymentConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.international.InternationalScheduledPaymentConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.international.InternationalStandingOrderConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.vrp.DomesticVRPConsentEntity;
+import com.forgerock.sapi.gateway.uk.common.shared.api.meta.share.IntentType;
+
+/**
+ * Mappings between the Consent Store data-model classes (DTOs) and the Consent Entities, for every supported
+ * {@link IntentType}.
+ * <p>
+ * The REST API controllers map the fields they expose individually, these mappings are used where whole consents are
+ * moved in and out of the store (bulk import and export), where a DTO must be mapped to an Entity without going through
+ * the create / authorise flows and vice versa.
+ */
+public final class ConsentDtoMappings {
+
+    private static final Map<IntentType, ConsentDtoMapping<?, ?>> MAPPINGS = new EnumMap<>(IntentType.class);
+
+    private static final BiConsumer<Object, Object> NO_FIELDS = (source, target) -> { };
+
+    static {
+        register(new ConsentDtoMapping<>(IntentType.ACCOUNT_ACCESS_CONSENT,
+                AccountAccessConsent.class, AccountAccessConsent::new, AccountAccessConsentEntity.class, AccountAccessConsentEntity::new,
+                (dto, entity) -> entity.setAuthorisedAccountIds(dto.getAuthorisedAccountIds()),
+                (entity, dto) -> dto.setAuthorisedAccountIds(entity.getAuthorisedAccountIds())));
+        register(new ConsentDtoMapping<>(IntentType.FUNDS_CONFIRMATION_CONSENT,
+                FundsConfirmationConsent.class, FundsConfirmationConsent::new, FundsConfirmationConsentEntity.class, FundsConfirmationConsentEntity::new,
+                (dto, entity) -> entity.setAuthorisedDebtorAccountId(dto.getAuthorisedDebtorAccountId()),
+                (entity, dto) -> dto.setAuthorisedDebtorAccountId(entity.getAuthorisedDebtorAccountId())));
+        register(new ConsentDtoMapping<>(IntentType.CUSTOMER_INFO_CONSENT,
+                CustomerInfoConsent.class, CustomerInfoConsent::new, CustomerInfoConsentEntity.class, CustomerInfoConsentEntity::new,
+                NO_FIELDS, NO_FIELDS));
+        register(new ConsentDtoMapping<>(IntentType.PAYMENT_DOMESTIC_CONSENT,
+                DomesticPaymentConsent.class, DomesticPaymentConsent::new, DomesticPaymentConsentEntity.class, DomesticPaymentConsentEntity::new,
+                NO_FIELDS, NO_FIELDS));
+        register(new ConsentDtoMapping<>(IntentType.PAYMENT_DOMESTIC_SCHEDULED_CONSENT,
+                DomesticScheduledPaymentConsent.class, DomesticScheduledPaymentConsent::new, DomesticScheduledPaymentConsentEntity.class, DomesticScheduledPaymentConsentEntity::new,
+                (dto, entity) -> entity.setRequestedExecutionDateTime(dto.getRequestObj().getData().getInitiation().getRequestedExecutionDateTime()),
+                NO_FIELDS));
+        register(new ConsentDtoMapping<>(IntentType.PAYMENT_DOMESTIC_STANDING_ORDERS_CONSENT,
+                DomesticStandingOrderConsent.class, DomesticStandingOrderConsent::new, DomesticStandingOrderConsentEntity.class, DomesticStandingOrderConsentEntity::new,
+                NO_FIELDS, NO_FIELDS));
+        register(new ConsentDtoMapping<>(IntentType.PAYMENT_INTERNATIONAL_CONSENT,
+                InternationalPaymentConsent.class, InternationalPaymentConsent::new, InternationalPaymentConsentEntity.class, InternationalPaymentConsentEntity::new,
+                (dto, entity) -> entity.setExchangeRateInformation(dto.getExchangeRateInformation()),
+                (entity, dto) -> dto.setExchangeRateInformation(entity.getExchangeRateInformation())));
+        register(new ConsentDtoMapping<>(IntentType.PAYMENT_INTERNATIONAL_SCHEDULED_CONSENT,
+                InternationalScheduledPaymentConsent.class, InternationalScheduledPaymentConsent::new, InternationalScheduledPaymentConsentEntity.class, InternationalScheduledPaymentConsentEntity::new,
+                (dto, entity) -> {
+                    entity.setExchangeRateInformation(dto.getExchangeRateInformation());
+                    entity.setRequestedExecutionDateTime(dto.getRequestObj().getData().getInitiation().getRequestedExecutionDateTime());
+                },
+                (entity, dto) -> dto.setExchangeRateInformation(entity.getExchangeRateInformation())));
+        register(new ConsentDtoMapping<>(IntentType.PAYMENT_INTERNATIONAL_STANDING_ORDERS_CONSENT,
+                InternationalStandingOrderConsent.class, InternationalStandingOrderConsent::new, InternationalStandingOrderConsentEntity.class, InternationalStandingOrderConsentEntity::new,
+                NO_FIELDS, NO_FIELDS));
+        register(new ConsentDtoMapping<>(IntentType.PAYMENT_FILE_CONSENT,
+                FilePaymentConsent.class, FilePaymentConsent::new, FilePaymentConsentEntity.class, FilePaymentConsentEntity::new,
+                (dto, entity) -> {
+                    entity.setFileContent(dto.getFileContent());
+                    entity.setFileUploadIdempotencyKey(dto.getFileUploadIdempotencyKey());
+                },
+                (entity, dto) -> {
+                    dto.setFileContent(entity.getFileContent());
+                    dto.setFileUploadIdempotencyKey(entity.getFileUploadIdempotencyKey());
+                }));
+        register(new ConsentDtoMapping<>(IntentType.DOMESTIC_VRP_PAYMENT_CONSENT,
+                DomesticVRPConsent.class, DomesticVRPConsent::new, DomesticVRPConsentEntity.class, DomesticVRPConsentEntity::new,
+                NO_FIELDS, NO_FIELDS));
+    }
+
+    private ConsentDtoMappings() {
+    }
+
+    private static void register(ConsentDtoMapping<?, ?> mapping) {
+        MAPPINGS.put(mapping.getIntentType(), mapping);
+    }
+
+    /**
+     * @param intentType the IntentType to get the mapping for
+     * @return the mapping for the intentType, or empty if consents of this type are not supported by the store
+     */
+    public static Optional<ConsentDtoMapping<?, ?>> forIntentType(IntentType intentType) {
+        return Optional.ofNullable(MAPPINGS.get(intentType));
+    }
+
+    /**
+     * @return the mappings for all IntentTypes supported by the store
+     */
+    public static Collection<ConsentDtoMapping<?, ?>> getMappings() {
+        return Collections.unmodifiableCollection(MAPPINGS.values());
+    }
+
+    /**
+     * Mapping between the DTO and Entity classes of a particular IntentType.
+     *
+     * @param <D> type of the Consent DTO
+     * @param <E> type of the Consent Entity
+     */
+    public static final class ConsentDtoMapping<D extends BaseConsent<?>, E extends BaseConsentEntity<?>> {
+
+        private final IntentType intentType;
+        private final Class<D> dtoClass;
+        private final Supplier<D> dtoFactory;
+        private final Class<E> entityClass;
+        private final Supplier<E> entityFactory;
+        private final BiConsumer<? super D, ? super E> entityFieldsMapper;
+        private final BiConsumer<? super E, ? super D> dtoFieldsMapper;
+
+        /**
+         * @param entityFieldsMapper maps the type specific fields of the DTO to the Entity
+         * @param dtoFieldsMapper    maps the type specific fields of the Entity to the DTO
+         */
+        ConsentDtoMapping(IntentType intentType, Class<D> dtoClass, Supplier<D> dtoFactory, Class<E> entityClass,
+                          Supplier<E> entityFactory, BiConsumer<? super D, ? super E> entityFieldsMapper,
+                          BiConsumer<? super E, ? super D> dtoFieldsMapper) {
+            this.intentType = requireNonNull(intentType, "intentType must be supplied");
+            this.dtoClass = requireNonNull(dtoClass, "dtoClass must be supplied");
+            this.dtoFactory = requireNonNull(dtoFactory, "dtoFactory must be supplied");
+            this.entityClass = requireNonNull(entityClass, "entityClass must be supplied");
+            this.entityFactory = requireNonNull(entityFactory, "entityFactory must be supplied");
+            this.entityFieldsMapper = requireNonNull(entityFieldsMapper, "entityFieldsMapper must be supplied");
+            this.dtoFieldsMapper = requireNonNull(dtoFieldsMapper, "dtoFieldsMapper must be supplied");
+        }
+
+        public IntentType getIntentType() {
+            return intentType;
+        }
+
+        public Class<D> getDtoClass() {
+            return dtoClass;
+        }
+
+        public Class<E> getEntityClass() {
+            return entityClass;
+        }
+
+        /**
+         * Maps a DTO to a new Entity.
+         * <p>
+         * The creationDateTime and statusUpdatedDateTime are maintained by Spring Data auditing and are not mapped,
+         * callers which need to preserve them must write them separately. For payment consents the initiationFingerprint
+         * is derived from the requestObj, as it is when consents are created via the API.
+         *
+         * @param consent DTO of type dtoClass
+         * @return the entity
+         */
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        public E toEntity(BaseConsent<?> consent) {
+            final D dto = dtoClass.cast(consent);
+            final E entity = entityFactory.get();
+            entity.setId(dto.getId());
+            ((BaseConsentEntity) entity).setRequestObj(dto.getRequestObj());
+            entity.setRequestVersion(dto.getRequestVersion());
+            entity.setStatus(dto.getStatus());
+            entity.setApiClientId(dto.getApiClientId());
+            entity.setResourceOwnerId(dto.getResourceOwnerId());
+            if (dto instanceof BasePaymentConsent<?> paymentDto && entity instanceof BasePaymentConsentEntity<?> paymentEntity) {
+                paymentEntity.setIdempotencyKey(paymentDto.getIdempotencyKey());
+                paymentEntity.setIdempotencyKeyExpiration(paymentDto.getIdempotencyKeyExpiration());
+                paymentEntity.setAuthorisedDebtorAccountId(paymentDto.getAuthorisedDebtorAccountId());
+                paymentEntity.setCharges(paymentDto.getCharges());
+                paymentEntity.setInitiationFingerprint(PaymentInitiationFingerprint.ofConsentRequest(paymentDto.getRequestObj()));
+            }
+            entityFieldsMapper.accept(dto, entity);
+            return entity;
+        }
+
+        /**
+         * Maps an Entity to a new DTO, including the fields which are maintained by the store such as the
+         * creationDateTime and statusUpdateDateTime.
+         *
+         * @param consentEntity Entity of type entityClass
+         * @return the DTO
+         */
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        public D toDto(BaseConsentEntity<?> consentEntity) {
+            final E entity = entityClass.cast(consentEntity);
+            final D dto = dtoFactory.get();
+            dto.setId(entity.getId());
+            ((BaseConsent) dto).setRequestObj(entity.getRequestObj());
+            dto.setRequestVersion(entity.getRequestVersion());
+            dto.setStatus(entity.getStatus());
+            dto.setApiClientId(entity.getApiClientId());
+            dto.setResourceOwnerId(entity.getResourceOwnerId());
+            dto.setCreationDateTime(entity.getCreationDateTime());
+            dto.setStatusUpdateDateTime(entity.getStatusUpdatedDateTime());
+            if (entity instanceof BasePaymentConsentEntity<?> paymentEntity && dto instanceof BasePaymentConsent<?> paymentDto) {
+                paymentDto.setIdempotencyKey(paymentEntity.getIdempotencyKey());
+                paymentDto.setIdempotencyKeyExpiration(paymentEntity.getIdempotencyKeyExpiration());
+                paymentDto.setAuthorisedDebtorAccountId(paymentEntity.getAuthorisedDebtorAccountId());
+                paymentDto.setCharges(paymentEntity.getCharges());
+            }
+            dtoFieldsMapper.accept(entity, dto);
+            return dto;
+        }
+    }
+}
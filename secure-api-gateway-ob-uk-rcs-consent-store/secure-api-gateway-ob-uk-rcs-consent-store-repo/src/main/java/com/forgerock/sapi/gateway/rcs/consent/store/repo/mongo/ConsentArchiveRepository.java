@@ -0,0 +1,296 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.Document;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.bson.types.Binary;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.BaseConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.migration.ConsentSchemaMigrations;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.partition.ConsentPartitions;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.DeleteOneModel;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+
+/**
+ * Repository for the cold tier of the Consent Store: consents that can no longer change are moved out of the live
+ * collections into per-type archive collections, so that the live collections (and their indexes) only hold the
+ * consents that are still in use.
+ * <p>
+ * Archive collections are named after the live collection with an "Archive" suffix. The archived form of a consent
+ * drops the fileContent of File Payment consents and stores the requestObj as gzipped BSON in the requestObjGzip field,
+ * all other fields are kept so that the archived document can be read back into the consent entity.
+ * <p>
+ * Consents are archived within their partition. Archived consents are read from the partition of their id, or from
+ * every partition when streamed, archiveBatch archives the consents of the current partition scope.
+ */
+@Repository
+public class ConsentArchiveRepository {
+
+    public static final String ARCHIVE_COLLECTION_SUFFIX = "Archive";
+
+    static final String FIELD_REQUEST_OBJ = "requestObj";
+    static final String FIELD_REQUEST_OBJ_GZIP = "requestObjGzip";
+    static final String FIELD_FILE_CONTENT = "fileContent";
+    static final String FIELD_ARCHIVED_DATE_TIME = "archivedDateTime";
+    static final String FIELD_STATUS_UPDATED_DATE_TIME = "statusUpdatedDateTime";
+    static final String FIELD_ENTITY_VERSION = "entityVersion";
+
+    /**
+     * Number of times a batch's consents are copied to the archive when they are modified whilst they are archived,
+     * consents still being modified after that are left in the live collection for the next run.
+     */
+    static final int MAX_ARCHIVE_ATTEMPTS = 3;
+
+    private static final DocumentCodec DOCUMENT_CODEC = new DocumentCodec(MongoClientSettings.getDefaultCodecRegistry());
+
+    private final MongoOperations mongoOperations;
+
+    private ConsentSchemaMigrations consentSchemaMigrations;
+
+    private ConsentPartitions consentPartitions = ConsentPartitions.single();
+
+    public ConsentArchiveRepository(MongoOperations mongoOperations) {
+        this.mongoOperations = requireNonNull(mongoOperations, "mongoOperations must be provided");
+    }
+
+    @Autowired(required = false)
+    public void setConsentPartitions(ConsentPartitions consentPartitions) {
+        this.consentPartitions = requireNonNull(consentPartitions, "consentPartitions must be provided");
+    }
+
+    /**
+     * Optionally configures the migrations applied to archived consents as they are read, archived consents are
+     * immutable so the migrated documents are not written back.
+     */
+    @Autowired(required = false)
+    public void setConsentSchemaMigrations(ConsentSchemaMigrations consentSchemaMigrations) {
+        this.consentSchemaMigrations = consentSchemaMigrations;
+    }
+
+    public String getArchiveCollectionName(Class<?> entityClass) {
+        return mongoOperations.getCollectionName(entityClass) + ARCHIVE_COLLECTION_SUFFIX;
+    }
+
+    /**
+     * Indexes on the live collection used to find consents to archive: terminal consents by status and soft deleted
+     * consents (whatever their status) by the time of their last status change.
+     */
+    public static List<Index> archiveCandidateIndexes() {
+        return List.of(new Index().on("status", Direction.ASC)
+                                  .on(FIELD_STATUS_UPDATED_DATE_TIME, Direction.ASC)
+                                  .named("statusByStatusUpdatedDateTime"),
+                       new Index().on("deleted", Direction.ASC)
+                                  .on(FIELD_STATUS_UPDATED_DATE_TIME, Direction.ASC)
+                                  .named("deletedByStatusUpdatedDateTime")
+                                  .partial(PartialIndexFilter.of(Criteria.where("deleted").is(true))));
+    }
+
+    /**
+     * Archives a batch of consents whose status has not changed since the cutoff, and which are either in one of the
+     * terminalStatuses or have been deleted.
+     * <p>
+     * Consents are upserted into the archive before they are removed from the live collection, so a failure part way
+     * through a batch leaves the consent in both collections and the next run archives it again. A consent is only
+     * removed from the live collection if its entityVersion is that of the copy written to the archive. Consents that
+     * were modified whilst they were archived are read again: those that are still archivable are archived again from
+     * their current version, and the stale archive copies of the others are removed.
+     *
+     * @return the number of consents removed from the live collection
+     */
+    public long archiveBatch(Class<? extends BaseConsentEntity<?>> entityClass, Collection<String> terminalStatuses,
+                             Date cutoff, int batchSize) {
+        final String collectionName = mongoOperations.getCollectionName(entityClass);
+
+        List<Document> candidates = new ArrayList<>(batchSize);
+        candidates.addAll(mongoOperations.find(new Query(Criteria.where("status").in(terminalStatuses)
+                .and(FIELD_STATUS_UPDATED_DATE_TIME).lt(cutoff)).limit(batchSize), Document.class, collectionName));
+        if (candidates.size() < batchSize) {
+            candidates.addAll(mongoOperations.find(new Query(Criteria.where("deleted").is(true)
+                            .and(FIELD_STATUS_UPDATED_DATE_TIME).lt(cutoff).and("status").nin(terminalStatuses))
+                    .limit(batchSize - candidates.size()), Document.class, collectionName));
+        }
+
+        long removed = 0;
+        for (int attempt = 1; attempt <= MAX_ARCHIVE_ATTEMPTS && !candidates.isEmpty(); attempt++) {
+            final List<Object> consentIds = candidates.stream().map(consent -> consent.get("_id")).toList();
+            copyToArchive(entityClass, candidates);
+            removed += removeArchivedVersions(collectionName, candidates);
+
+            final List<Object> modifiedIds = mongoOperations.find(new Query(Criteria.where("_id").in(consentIds)),
+                    Document.class, collectionName).stream().map(consent -> consent.get("_id")).toList();
+            if (modifiedIds.isEmpty()) {
+                break;
+            }
+            candidates = mongoOperations.find(new Query(Criteria.where("_id").in(modifiedIds)
+                    .and(FIELD_STATUS_UPDATED_DATE_TIME).lt(cutoff)
+                    .orOperator(Criteria.where("status").in(terminalStatuses), Criteria.where("deleted").is(true))),
+                    Document.class, collectionName);
+            final Set<Object> archivableIds = candidates.stream().map(consent -> consent.get("_id")).collect(Collectors.toSet());
+            final List<Object> noLongerArchivableIds = modifiedIds.stream().filter(id -> !archivableIds.contains(id)).toList();
+            if (!noLongerArchivableIds.isEmpty()) {
+                mongoOperations.getCollection(getArchiveCollectionName(entityClass)).deleteMany(Filters.in("_id", noLongerArchivableIds));
+            }
+        }
+        return removed;
+    }
+
+    private void copyToArchive(Class<? extends BaseConsentEntity<?>> entityClass, List<Document> consents) {
+        final Date archivedDateTime = new Date();
+        final List<ReplaceOneModel<Document>> archiveWrites = new ArrayList<>(consents.size());
+        for (Document consent : consents) {
+            archiveWrites.add(new ReplaceOneModel<>(new Document("_id", consent.get("_id")),
+                    toArchivedDocument(consent, archivedDateTime), new ReplaceOptions().upsert(true)));
+        }
+        mongoOperations.getCollection(getArchiveCollectionName(entityClass))
+                       .bulkWrite(archiveWrites, new BulkWriteOptions().ordered(false));
+    }
+
+    /**
+     * Removes the consents from the live collection, provided that they have not been modified since they were read.
+     */
+    private long removeArchivedVersions(String collectionName, List<Document> archivedConsents) {
+        final List<DeleteOneModel<Document>> removals = archivedConsents.stream()
+                .map(consent -> new DeleteOneModel<Document>(new Document("_id", consent.get("_id"))
+                        .append(FIELD_ENTITY_VERSION, consent.get(FIELD_ENTITY_VERSION))))
+                .toList();
+        return mongoOperations.getCollection(collectionName)
+                              .bulkWrite(removals, new BulkWriteOptions().ordered(false))
+                              .getDeletedCount();
+    }
+
+    /**
+     * @return the archived consent, with its requestObj restored, or an empty Optional if the consent is not archived
+     */
+    public <T extends BaseConsentEntity<?>> Optional<T> findArchivedConsent(Class<T> entityClass, String consentId) {
+        final Document archivedConsent = consentPartitions.onPartition(consentPartitions.getPartition(consentId),
+                () -> mongoOperations.findById(consentId, Document.class, getArchiveCollectionName(entityClass)));
+        if (archivedConsent == null) {
+            return Optional.empty();
+        }
+        return Optional.of(readArchivedConsent(entityClass, archivedConsent));
+    }
+
+    /**
+     * Streams the archived consents matching the query, with their requestObj restored. The caller must close the
+     * returned Stream.
+     */
+    public <T extends BaseConsentEntity<?>> Stream<T> streamArchivedConsents(Class<T> entityClass, Query query) {
+        return consentPartitions.streamEachPartition(() -> mongoOperations.stream(query, Document.class, getArchiveCollectionName(entityClass)))
+                                .map(archivedConsent -> readArchivedConsent(entityClass, archivedConsent));
+    }
+
+    private <T extends BaseConsentEntity<?>> T readArchivedConsent(Class<T> entityClass, Document archivedConsent) {
+        final Document consentDocument = fromArchivedDocument(archivedConsent);
+        if (consentSchemaMigrations != null) {
+            consentSchemaMigrations.upcast(entityClass, consentDocument);
+        }
+        final T consent = mongoOperations.getConverter().read(entityClass, consentDocument);
+        consent.setArchived(true);
+        return consent;
+    }
+
+    /**
+     * Soft deletes an archived consent, archived consents are otherwise immutable.
+     */
+    public void deleteArchivedConsent(Class<?> entityClass, String consentId, String revokedStatus) {
+        consentPartitions.onPartition(consentPartitions.getPartition(consentId), () ->
+                mongoOperations.updateFirst(new Query(Criteria.where("_id").is(consentId)),
+                        new Update().set("status", revokedStatus)
+                                    .set("deleted", true)
+                                    .set(FIELD_STATUS_UPDATED_DATE_TIME, new Date())
+                                    .inc(FIELD_ENTITY_VERSION, 1),
+                        getArchiveCollectionName(entityClass)));
+    }
+
+    static Document toArchivedDocument(Document consent, Date archivedDateTime) {
+        final Document archivedConsent = new Document(consent);
+        archivedConsent.remove(FIELD_FILE_CONTENT);
+        final Object requestObj = archivedConsent.remove(FIELD_REQUEST_OBJ);
+        if (requestObj instanceof Document requestObjDocument) {
+            archivedConsent.put(FIELD_REQUEST_OBJ_GZIP, new Binary(compress(requestObjDocument)));
+        }
+        archivedConsent.put(FIELD_ARCHIVED_DATE_TIME, archivedDateTime);
+        return archivedConsent;
+    }
+
+    static Document fromArchivedDocument(Document archivedConsent) {
+        final Document consent = new Document(archivedConsent);
+        consent.remove(FIELD_ARCHIVED_DATE_TIME);
+        final Object requestObjGzip = consent.remove(FIELD_REQUEST_OBJ_GZIP);
+        if (requestObjGzip instanceof Binary compressed) {
+            consent.put(FIELD_REQUEST_OBJ, decompress(compressed.getData()));
+        }
+        return consent;
+    }
+
+    static byte[] compress(Document document) {
+        final BasicOutputBuffer bsonBuffer = new BasicOutputBuffer();
+        DOCUMENT_CODEC.encode(new BsonBinaryWriter(bsonBuffer), document, EncoderContext.builder().build());
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream(bsonBuffer.getSize() / 2);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            bsonBuffer.pipe(gzip);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to compress document", e);
+        }
+        return compressed.toByteArray();
+    }
+
+    static Document decompress(byte[] compressed) {
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            final byte[] bson = gzip.readAllBytes();
+            return DOCUMENT_CODEC.decode(new BsonBinaryReader(ByteBuffer.wrap(bson)), DecoderContext.builder().build());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to decompress document", e);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo;
+
+/**
+ * The ownership and soft delete state of a consent, see {@link OwnedConsentRepository#findConsentOwnership}
+ */
+public class ConsentOwnership {
+
+    private final String apiClientId;
+
+    private final boolean deleted;
+
+    public ConsentOwnership(String apiClientId, boolean deleted) {
+        this.apiClientId = apiClientId;
+        this.deleted = deleted;
+    }
+
+    public String getApiClientId() {
+        return apiClientId;
+    }
+
+    public boolean isDeleted() {
+        return deleted;
+    }
+
+    @Override
+    public String toString() {
+        return "ConsentOwnership{" +
+                "apiClientId='" + apiClientId + '\'' +
+                ", deleted=" + deleted +
+                '}';
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo;
+
+import static com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.ScheduledPaymentConsent.FIELD_REQUESTED_EXECUTION_DATE_TIME;
+import static com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.ScheduledPaymentConsent.FIELD_REQUEST_OBJ_REQUESTED_EXECUTION_DATE_TIME;
+import static java.util.Objects.requireNonNull;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.BasePaymentConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.domestic.DomesticScheduledPaymentConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.international.InternationalScheduledPaymentConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.export.ConsentExportRepository;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.partition.ConsentPartitions;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.payment.DueScheduledPaymentConsentRepository;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.payment.PaymentConsentRepository;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.ConsentTypeRegistry;
+
+import jakarta.annotation.PostConstruct;
+import uk.org.openbanking.datamodel.v3.payment.OBPaymentConsentStatus;
+
+/**
+ * Ensures that the indexes required by the Consent Store queries exist.
+ * <p>
+ * Spring Data's automatic index creation is disabled by default, so indexes are created explicitly on startup. Index
+ * creation is idempotent, this can be disabled via config where indexes are managed externally. Indexes are created in
+ * every partition of the Consent Store.
+ */
+@Component
+public class ConsentStoreIndexInitialiser {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final MongoOperations mongoOperations;
+
+    @Value("${consent.store.mongo.ensureIndexes:true}")
+    private boolean ensureIndexes;
+
+    @Value("${consent.store.export.statusUpdatedDateTimeIndex:false}")
+    private boolean ensureExportIndex;
+
+    private ConsentPartitions consentPartitions = ConsentPartitions.single();
+
+    public ConsentStoreIndexInitialiser(MongoOperations mongoOperations) {
+        this.mongoOperations = requireNonNull(mongoOperations, "mongoOperations must be provided");
+    }
+
+    @Autowired(required = false)
+    public void setConsentPartitions(ConsentPartitions consentPartitions) {
+        this.consentPartitions = requireNonNull(consentPartitions, "consentPartitions must be provided");
+    }
+
+    @PostConstruct
+    public void initialiseIndexes() {
+        if (!ensureIndexes) {
+            logger.info("Consent Store index creation disabled");
+            return;
+        }
+        consentPartitions.onEachPartition(() -> {
+            initialisePartitionIndexes();
+            return null;
+        });
+    }
+
+    private void initialisePartitionIndexes() {
+        for (Class<?> scheduledEntityClass : List.of(DomesticScheduledPaymentConsentEntity.class, InternationalScheduledPaymentConsentEntity.class)) {
+            ensureDueScheduledPaymentIndex(scheduledEntityClass);
+        }
+        for (Class<?> entityClass : ConsentTypeRegistry.getConsentStateModels().keySet()) {
+            if (BasePaymentConsentEntity.class.isAssignableFrom(entityClass)) {
+                ensureIndex(entityClass, PaymentConsentRepository.idempotencyIndex());
+            }
+        }
+        if (ensureExportIndex) {
+            for (Class<?> entityClass : ConsentTypeRegistry.getConsentStateModels().keySet()) {
+                ensureIndex(entityClass, ConsentExportRepository.exportIndex());
+            }
+        }
+    }
+
+    /**
+     * Ensures that an index required by another component exists, unless index creation has been disabled.
+     */
+    public void ensureIndex(Class<?> entityClass, IndexDefinition index) {
+        if (!ensureIndexes) {
+            return;
+        }
+        logger.debug("Ensuring index: {} exists for type: {}", index.getIndexOptions().get("name"), entityClass.getSimpleName());
+        consentPartitions.onEachPartition(() -> mongoOperations.indexOps(entityClass).ensureIndex(index));
+    }
+
+    /**
+     * Creates the index used to query for due Scheduled Payment Consents. When the index is first created, consents
+     * created before the requestedExecutionDateTime field was introduced are backfilled server side from their requestObj.
+     */
+    private void ensureDueScheduledPaymentIndex(Class<?> entityClass) {
+        final IndexOperations indexOperations = mongoOperations.indexOps(entityClass);
+        final boolean indexExists = indexOperations.getIndexInfo().stream()
+                                                   .anyMatch(indexInfo -> DueScheduledPaymentConsentRepository.DUE_INDEX_NAME.equals(indexInfo.getName()));
+        if (!indexExists) {
+            final Query missingFieldQuery = new Query(Criteria.where(FIELD_REQUESTED_EXECUTION_DATE_TIME).exists(false)
+                                                              .and(FIELD_REQUEST_OBJ_REQUESTED_EXECUTION_DATE_TIME).exists(true));
+            final AggregationUpdate backfill = AggregationUpdate.update().set(FIELD_REQUESTED_EXECUTION_DATE_TIME)
+                                                                .toValueOf(FIELD_REQUEST_OBJ_REQUESTED_EXECUTION_DATE_TIME);
+            final long backfilled = mongoOperations.updateMulti(missingFieldQuery, backfill, entityClass).getModifiedCount();
+            logger.info("Backfilled {} for {} consents of type: {}", FIELD_REQUESTED_EXECUTION_DATE_TIME, backfilled, entityClass.getSimpleName());
+        }
+        indexOperations.ensureIndex(DueScheduledPaymentConsentRepository.dueIndex(OBPaymentConsentStatus.AUTHORISED.toString()));
+    }
+}
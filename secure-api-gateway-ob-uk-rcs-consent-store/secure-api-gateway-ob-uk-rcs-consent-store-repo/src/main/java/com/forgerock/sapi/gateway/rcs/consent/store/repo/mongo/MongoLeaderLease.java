@@ -0,0 +1,97 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo;
+
+import static java.util.Objects.requireNonNull;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Date;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+/**
+ * Time limited leases stored in Mongo, used to elect a single Consent Store replica to run background tasks.
+ * <p>
+ * A lease is a document keyed by the lease name which records the owner and the time the lease expires. A replica
+ * acquires the lease if it is unowned, expired or already owned by this replica, the owner must renew the lease
+ * (by acquiring it again) before it expires to retain it. The atomicity of the upsert on the _id field guarantees that
+ * only one replica can hold a lease at a time, provided that replica clocks are roughly in sync relative to the
+ * lease duration.
+ */
+@Component
+public class MongoLeaderLease {
+
+    public static final String LEASE_COLLECTION = "consentStoreLeases";
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final MongoOperations mongoOperations;
+
+    private final String ownerId;
+
+    public MongoLeaderLease(MongoOperations mongoOperations) {
+        this(mongoOperations, ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID());
+    }
+
+    MongoLeaderLease(MongoOperations mongoOperations, String ownerId) {
+        this.mongoOperations = requireNonNull(mongoOperations, "mongoOperations must be provided");
+        this.ownerId = requireNonNull(ownerId, "ownerId must be provided");
+    }
+
+    public String getOwnerId() {
+        return ownerId;
+    }
+
+    /**
+     * Attempts to acquire, or renew, a lease.
+     *
+     * @param leaseName     the name of the lease
+     * @param leaseDuration how long the lease is held for if it is acquired
+     * @return true if this replica now holds the lease
+     */
+    public boolean tryAcquire(String leaseName, Duration leaseDuration) {
+        final Date now = new Date();
+        final Query leaseAvailableQuery = new Query(Criteria.where("_id").is(leaseName)
+                .orOperator(Criteria.where("owner").is(ownerId), Criteria.where("expiresAt").lt(now)));
+        final Update acquireLease = new Update().set("owner", ownerId)
+                                                .set("expiresAt", new Date(now.getTime() + leaseDuration.toMillis()));
+        try {
+            mongoOperations.upsert(leaseAvailableQuery, acquireLease, LEASE_COLLECTION);
+            return true;
+        } catch (DuplicateKeyException e) {
+            // The lease document exists and is held by another replica, so the upsert attempted to insert a duplicate _id
+            logger.debug("Lease: {} is held by another owner", leaseName);
+            return false;
+        }
+    }
+
+    /**
+     * Releases a lease held by this replica, allowing another replica to acquire it without waiting for it to expire.
+     */
+    public void release(String leaseName) {
+        mongoOperations.updateFirst(new Query(Criteria.where("_id").is(leaseName).and("owner").is(ownerId)),
+                new Update().set("expiresAt", new Date(0)), LEASE_COLLECTION);
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo;
+
+import java.util.Optional;
+
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.BaseConsentEntity;
+
+/**
+ * Repository fragment providing reads of a consent by its owner, with the ownership and soft delete checks pushed down
+ * into the query.
+ * <p>
+ * Consents which are deleted or belong to another ApiClient are never read in full (the requestObj of a consent is
+ * large and expensive to deserialise). When the owner read finds nothing, {@link #findConsentOwnership} reads just the
+ * apiClientId and deleted fields to report why.
+ * <p>
+ * Spring Data only discovers fragments declared directly on a repository interface, therefore each concrete consent
+ * repository must list this interface in its extends clause.
+ */
+public interface OwnedConsentRepository<T extends BaseConsentEntity> {
+
+    /**
+     * @param consentId   the id of the consent
+     * @param apiClientId the ApiClient that must own the consent
+     * @param entityClass the entity class of the consent
+     * @return the consent, or an empty Optional if no consent exists with this id that is owned by the apiClientId and
+     * has not been deleted
+     */
+    Optional<T> findOwnedConsent(String consentId, String apiClientId, Class<T> entityClass);
+
+    /**
+     * Reads only the ownership and soft delete fields of a consent.
+     *
+     * @return the ownership of the consent, or an empty Optional if no consent exists with this id
+     */
+    Optional<ConsentOwnership> findConsentOwnership(String consentId, Class<T> entityClass);
+}
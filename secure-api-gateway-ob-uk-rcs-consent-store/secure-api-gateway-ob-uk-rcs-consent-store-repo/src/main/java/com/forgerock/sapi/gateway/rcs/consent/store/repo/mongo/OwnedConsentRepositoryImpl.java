@@ -0,0 +1,63 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Optional;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.BaseConsentEntity;
+
+/**
+ * Implementation of the {@link OwnedConsentRepository} fragment.
+ */
+public class OwnedConsentRepositoryImpl<T extends BaseConsentEntity> implements OwnedConsentRepository<T> {
+
+    static final String FIELD_API_CLIENT_ID = "apiClientId";
+
+    static final String FIELD_DELETED = "deleted";
+
+    private final MongoOperations mongoOperations;
+
+    public OwnedConsentRepositoryImpl(MongoOperations mongoOperations) {
+        this.mongoOperations = requireNonNull(mongoOperations, "mongoOperations must be provided");
+    }
+
+    @Override
+    public Optional<T> findOwnedConsent(String consentId, String apiClientId, Class<T> entityClass) {
+        final Query query = new Query(Criteria.where("_id").is(consentId)
+                                              .and(FIELD_API_CLIENT_ID).is(apiClientId)
+                                              .and(FIELD_DELETED).is(false));
+        return Optional.ofNullable(mongoOperations.findOne(query, entityClass));
+    }
+
+    @Override
+    public Optional<ConsentOwnership> findConsentOwnership(String consentId, Class<T> entityClass) {
+        final Query query = new Query(Criteria.where("_id").is(consentId));
+        query.fields().include(FIELD_API_CLIENT_ID).include(FIELD_DELETED);
+        final Document ownership = mongoOperations.findOne(query, Document.class, mongoOperations.getCollectionName(entityClass));
+        if (ownership == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new ConsentOwnership(ownership.getString(FIELD_API_CLIENT_ID),
+                Boolean.TRUE.equals(ownership.getBoolean(FIELD_DELETED))));
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.convert;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Collection;
+import java.util.Set;
+
+import org.bson.conversions.Bson;
+import org.springframework.data.mapping.PersistentEntity;
+import org.springframework.data.mapping.context.MappingContext;
+import org.springframework.data.mongodb.core.convert.DefaultMongoTypeMapper;
+import org.springframework.data.util.TypeInformation;
+
+/**
+ * MongoTypeMapper which does not write the {@code _class} type hint into the root document of consent entities.
+ * <p>
+ * Each consent entity class has its own collection and every read of a consent (repositories, the archive and the
+ * export) supplies the concrete entity class, so the hint stores the fully qualified class name in every consent
+ * document without ever being used. Nested values keep their hints: Spring Data only writes those when the value is a
+ * subtype of the declared property type, where the hint is needed to read the value back.
+ * <p>
+ * Documents written with a hint remain readable, the hint names the same class as the requested type.
+ */
+public class ConsentEntityTypeMapper extends DefaultMongoTypeMapper {
+
+    private final Set<Class<?>> collectionTypes;
+
+    /**
+     * @param collectionTypes the entity classes whose collection fixes their type
+     * @param mappingContext the MappingContext, used to resolve any @TypeAlias of nested values
+     */
+    public ConsentEntityTypeMapper(Collection<? extends Class<?>> collectionTypes,
+                                   MappingContext<? extends PersistentEntity<?, ?>, ?> mappingContext) {
+        super(DEFAULT_TYPE_KEY, requireNonNull(mappingContext, "mappingContext must be provided"));
+        this.collectionTypes = Set.copyOf(requireNonNull(collectionTypes, "collectionTypes must be provided"));
+    }
+
+    @Override
+    public void writeType(TypeInformation<?> info, Bson sink) {
+        if (collectionTypes.contains(info.getType())) {
+            return;
+        }
+        super.writeType(info, sink);
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.counter;
+
+import static java.util.Objects.requireNonNull;
+
+import com.forgerock.sapi.gateway.uk.common.shared.api.meta.share.IntentType;
+
+/**
+ * The number of consents of an IntentType, created by an ApiClient, which are in a particular status.
+ */
+public class ConsentStatusCount {
+
+    private final IntentType intentType;
+
+    private final String apiClientId;
+
+    private final String status;
+
+    private final long count;
+
+    public ConsentStatusCount(IntentType intentType, String apiClientId, String status, long count) {
+        this.intentType = requireNonNull(intentType, "intentType must be provided");
+        this.apiClientId = requireNonNull(apiClientId, "apiClientId must be provided");
+        this.status = requireNonNull(status, "status must be provided");
+        this.count = count;
+    }
+
+    public IntentType getIntentType() {
+        return intentType;
+    }
+
+    public String getApiClientId() {
+        return apiClientId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return "ConsentStatusCount{" +
+                "intentType=" + intentType +
+                ", apiClientId='" + apiClientId + '\'' +
+                ", status='" + status + '\'' +
+                ", count=" + count +
+                '}';
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.counter;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import com.forgerock.sapi.gateway.uk.common.shared.api.meta.share.IntentType;
+import com.mongodb.bulk.BulkWriteResult;
+
+/**
+ * Repository for the materialised consent counts: one document per (IntentType, apiClientId, status) holding the number
+ * of consents (which have not been deleted) in that status, including consents which have been archived.
+ * <p>
+ * Counts are maintained incrementally with $inc upserts as consents are created and change status, so that reading
+ * them does not require aggregating over the consent collections. Counts can drift if a process fails between updating
+ * a consent and its counter, {@link #countConsents(String)} is used to periodically rebuild them from the source
+ * collections.
+ */
+@Repository
+public class ConsentStatusCounterRepository {
+
+    public static final String COUNTERS_COLLECTION = "consentStatusCounters";
+
+    static final String FIELD_INTENT_TYPE = "intentType";
+    static final String FIELD_API_CLIENT_ID = "apiClientId";
+    static final String FIELD_STATUS = "status";
+    static final String FIELD_COUNT = "count";
+
+    private final MongoOperations mongoOperations;
+
+    public ConsentStatusCounterRepository(MongoOperations mongoOperations) {
+        this.mongoOperations = requireNonNull(mongoOperations, "mongoOperations must be provided");
+    }
+
+    static String counterId(IntentType intentType, String apiClientId, String status) {
+        return intentType.name() + '|' + apiClientId + '|' + status;
+    }
+
+    /**
+     * Adjusts the count of consents in a status by delta, creating the counter if it does not exist.
+     */
+    public void increment(IntentType intentType, String apiClientId, String status, long delta) {
+        mongoOperations.upsert(counterQuery(intentType, apiClientId, status),
+                counterUpdate(intentType, apiClientId, status, delta), COUNTERS_COLLECTION);
+    }
+
+    /**
+     * Moves count consents from the fromStatus counter to the toStatus counter, using a single unordered bulk write.
+     */
+    public void transition(IntentType intentType, String apiClientId, String fromStatus, String toStatus, long count) {
+        mongoOperations.bulkOps(BulkMode.UNORDERED, COUNTERS_COLLECTION)
+                       .upsert(counterQuery(intentType, apiClientId, fromStatus), counterUpdate(intentType, apiClientId, fromStatus, -count))
+                       .upsert(counterQuery(intentType, apiClientId, toStatus), counterUpdate(intentType, apiClientId, toStatus, count))
+                       .execute();
+    }
+
+    private static Query counterQuery(IntentType intentType, String apiClientId, String status) {
+        return new Query(Criteria.where("_id").is(counterId(intentType, apiClientId, status)));
+    }
+
+    private static Update counterUpdate(IntentType intentType, String apiClientId, String status, long delta) {
+        return new Update().inc(FIELD_COUNT, delta)
+                           .setOnInsert(FIELD_INTENT_TYPE, intentType.name())
+                           .setOnInsert(FIELD_API_CLIENT_ID, apiClientId)
+                           .setOnInsert(FIELD_STATUS, status);
+    }
+
+    /**
+     * Finds the non-zero counts, optionally filtered by intentType and apiClientId.
+     *
+     * @param intentType  IntentType to filter by, or null for all IntentTypes
+     * @param apiClientId apiClientId to filter by, or null for all ApiClients
+     */
+    public List<ConsentStatusCount> findCounts(IntentType intentType, String apiClientId) {
+        final Criteria criteria = Criteria.where(FIELD_COUNT).ne(0L);
+        if (intentType != null) {
+            criteria.and(FIELD_INTENT_TYPE).is(intentType.name());
+        }
+        if (apiClientId != null) {
+            criteria.and(FIELD_API_CLIENT_ID).is(apiClientId);
+        }
+        return mongoOperations.find(new Query(criteria), Document.class, COUNTERS_COLLECTION).stream()
+                              .map(ConsentStatusCounterRepository::toConsentStatusCount)
+                              .toList();
+    }
+
+    /**
+     * @return the counts summed over all ApiClients, keyed by IntentType then status
+     */
+    public Map<IntentType, Map<String, Long>> sumCountsByIntentTypeAndStatus() {
+        final Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.group(FIELD_INTENT_TYPE, FIELD_STATUS).sum(FIELD_COUNT).as(FIELD_COUNT));
+        final Map<IntentType, Map<String, Long>> totals = new HashMap<>();
+        for (Document total : mongoOperations.aggregate(aggregation, COUNTERS_COLLECTION, Document.class)) {
+            final Document group = total.get("_id", Document.class);
+            totals.computeIfAbsent(IntentType.valueOf(group.getString(FIELD_INTENT_TYPE)), ignored -> new HashMap<>())
+                  .put(group.getString(FIELD_STATUS), ((Number) total.get(FIELD_COUNT)).longValue());
+        }
+        return totals;
+    }
+
+    /**
+     * Counts the consents in a consent (or consent archive) collection by apiClientId and status, consents which have
+     * been deleted are not counted.
+     *
+     * @return counts keyed by apiClientId then status
+     */
+    public Map<String, Map<String, Long>> countConsents(String collectionName) {
+        final Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("deleted").is(false)),
+                Aggregation.group(FIELD_API_CLIENT_ID, FIELD_STATUS).count().as(FIELD_COUNT))
+                .withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+        final Map<String, Map<String, Long>> counts = new HashMap<>();
+        for (Document count : mongoOperations.aggregate(aggregation, collectionName, Document.class)) {
+            final Document group = count.get("_id", Document.class);
+            if (group.getString(FIELD_API_CLIENT_ID) == null || group.getString(FIELD_STATUS) == null) {
+                continue;
+            }
+            counts.computeIfAbsent(group.getString(FIELD_API_CLIENT_ID), ignored -> new HashMap<>())
+                  .put(group.getString(FIELD_STATUS), ((Number) count.get(FIELD_COUNT)).longValue());
+        }
+        return counts;
+    }
+
+    /**
+     * Replaces the counters of an IntentType with the supplied counts, counters which are not in the supplied counts
+     * are reset to zero.
+     *
+     * @return the number of counters whose value was changed
+     */
+    public long replaceCounts(IntentType intentType, List<ConsentStatusCount> counts) {
+        final BulkOperations bulkOperations = mongoOperations.bulkOps(BulkMode.UNORDERED, COUNTERS_COLLECTION);
+        final Set<String> counterIds = new HashSet<>();
+        for (ConsentStatusCount count : counts) {
+            final String counterId = counterId(intentType, count.getApiClientId(), count.getStatus());
+            counterIds.add(counterId);
+            bulkOperations.upsert(new Query(Criteria.where("_id").is(counterId)),
+                    new Update().set(FIELD_COUNT, count.getCount())
+                                .setOnInsert(FIELD_INTENT_TYPE, intentType.name())
+                                .setOnInsert(FIELD_API_CLIENT_ID, count.getApiClientId())
+                                .setOnInsert(FIELD_STATUS, count.getStatus()));
+        }
+        bulkOperations.updateMulti(new Query(Criteria.where(FIELD_INTENT_TYPE).is(intentType.name())
+                                                     .and("_id").nin(counterIds)
+                                                     .and(FIELD_COUNT).ne(0L)),
+                new Update().set(FIELD_COUNT, 0L));
+        final BulkWriteResult result = bulkOperations.execute();
+        return result.getModifiedCount() + result.getUpserts().size();
+    }
+
+    private static ConsentStatusCount toConsentStatusCount(Document counter) {
+        return new ConsentStatusCount(IntentType.valueOf(counter.getString(FIELD_INTENT_TYPE)),
+                counter.getString(FIELD_API_CLIENT_ID), counter.getString(FIELD_STATUS),
+                ((Number) counter.get(FIELD_COUNT)).longValue());
+    }
+}
@@ -16,7 +16,9 @@
 package com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.customerinfo;
 
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.customerinfo.CustomerInfoConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.OwnedConsentRepository;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
-public interface CustomerInfoConsentRepository extends MongoRepository<CustomerInfoConsentEntity, String> {
+public interface CustomerInfoConsentRepository extends MongoRepository<CustomerInfoConsentEntity, String>,
+                                                       OwnedConsentRepository<CustomerInfoConsentEntity> {
 }
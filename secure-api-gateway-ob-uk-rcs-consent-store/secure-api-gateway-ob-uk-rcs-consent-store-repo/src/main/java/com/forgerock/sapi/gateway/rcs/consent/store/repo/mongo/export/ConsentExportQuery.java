@@ -0,0 +1,115 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.export;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+import org.joda.time.DateTime;
+
+import com.forgerock.sapi.gateway.uk.common.shared.api.meta.share.IntentType;
+
+/**
+ * Query for the consents to export: consents of the apiClientId and intentTypes, in one of the statuses and with a
+ * statusUpdatedDateTime in the range [statusUpdatedFrom, statusUpdatedTo).
+ * <p>
+ * An empty intentTypes or statuses matches all values, a null statusUpdatedFrom or statusUpdatedTo leaves that end of
+ * the range open. A null apiClientId exports the consents of every ApiClient, this is only used by the bulk tool.
+ * Deleted consents are not exported.
+ */
+public class ConsentExportQuery {
+
+    private final String apiClientId;
+
+    private final Set<IntentType> intentTypes;
+
+    private final Set<String> statuses;
+
+    private final DateTime statusUpdatedFrom;
+
+    private final DateTime statusUpdatedTo;
+
+    private final boolean includeArchived;
+
+    private final int batchSize;
+
+    /**
+     * @param apiClientId     id of the ApiClient whose consents are exported, null to export the consents of all ApiClients
+     * @param includeArchived whether consents in the archive collections are exported as well as the live consents
+     * @param batchSize       number of consents fetched from Mongo per cursor batch
+     */
+    public ConsentExportQuery(String apiClientId, Set<IntentType> intentTypes, Set<String> statuses, DateTime statusUpdatedFrom,
+                              DateTime statusUpdatedTo, boolean includeArchived, int batchSize) {
+        requireNonNull(intentTypes, "intentTypes must be provided");
+        this.intentTypes = intentTypes.isEmpty() ? Collections.emptySet() : Collections.unmodifiableSet(EnumSet.copyOf(intentTypes));
+        this.statuses = Set.copyOf(requireNonNull(statuses, "statuses must be provided"));
+        if (statusUpdatedFrom != null && statusUpdatedTo != null && !statusUpdatedFrom.isBefore(statusUpdatedTo)) {
+            throw new IllegalArgumentException("statusUpdatedFrom must be before statusUpdatedTo");
+        }
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be greater than zero");
+        }
+        this.apiClientId = apiClientId;
+        this.statusUpdatedFrom = statusUpdatedFrom;
+        this.statusUpdatedTo = statusUpdatedTo;
+        this.includeArchived = includeArchived;
+        this.batchSize = batchSize;
+    }
+
+    public String getApiClientId() {
+        return apiClientId;
+    }
+
+    public Set<IntentType> getIntentTypes() {
+        return intentTypes;
+    }
+
+    public Set<String> getStatuses() {
+        return statuses;
+    }
+
+    public DateTime getStatusUpdatedFrom() {
+        return statusUpdatedFrom;
+    }
+
+    public DateTime getStatusUpdatedTo() {
+        return statusUpdatedTo;
+    }
+
+    public boolean isIncludeArchived() {
+        return includeArchived;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    @Override
+    public String toString() {
+        return "ConsentExportQuery{" +
+                "apiClientId=" + apiClientId +
+                ", intentTypes=" + intentTypes +
+                ", statuses=" + statuses +
+                ", statusUpdatedFrom=" + statusUpdatedFrom +
+                ", statusUpdatedTo=" + statusUpdatedTo +
+                ", includeArchived=" + includeArchived +
+                ", batchSize=" + batchSize +
+                '}';
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.export;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Repository;
+
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.BaseConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.ConsentArchiveRepository;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.partition.ConsentPartitions;
+
+/**
+ * Streams consents matching a {@link ConsentExportQuery} from the live and archive collections of a consent type.
+ * <p>
+ * Results are read from the database cursor in batches of the query's batchSize, so the memory used is independent of
+ * the number of consents exported. Results are not sorted, avoiding an in memory sort on the server, and are read from
+ * each partition of the Consent Store in turn.
+ */
+@Repository
+public class ConsentExportRepository {
+
+    public static final String EXPORT_INDEX_NAME = "exportByStatusUpdatedDateTime";
+
+    static final String FIELD_STATUS_UPDATED_DATE_TIME = "statusUpdatedDateTime";
+
+    private final MongoOperations mongoOperations;
+
+    private final ConsentArchiveRepository consentArchiveRepository;
+
+    private ConsentPartitions consentPartitions = ConsentPartitions.single();
+
+    public ConsentExportRepository(MongoOperations mongoOperations, ConsentArchiveRepository consentArchiveRepository) {
+        this.mongoOperations = requireNonNull(mongoOperations, "mongoOperations must be provided");
+        this.consentArchiveRepository = requireNonNull(consentArchiveRepository, "consentArchiveRepository must be provided");
+    }
+
+    @Autowired(required = false)
+    public void setConsentPartitions(ConsentPartitions consentPartitions) {
+        this.consentPartitions = requireNonNull(consentPartitions, "consentPartitions must be provided");
+    }
+
+    /**
+     * @return definition of the index which supports incremental exports, i.e. queries by statusUpdatedDateTime range
+     * only. Exports which also filter by status can use the archiver's (status, statusUpdatedDateTime) index.
+     */
+    public static Index exportIndex() {
+        return new Index().on(FIELD_STATUS_UPDATED_DATE_TIME, Direction.ASC).named(EXPORT_INDEX_NAME);
+    }
+
+    /**
+     * Streams the live consents matching the query, the caller must close the returned Stream.
+     */
+    public <T extends BaseConsentEntity<?>> Stream<T> streamConsents(Class<T> entityClass, ConsentExportQuery exportQuery) {
+        final Query query = toQuery(exportQuery);
+        return consentPartitions.streamEachPartition(() -> mongoOperations.stream(query, entityClass));
+    }
+
+    /**
+     * Streams the archived consents matching the query, the caller must close the returned Stream.
+     */
+    public <T extends BaseConsentEntity<?>> Stream<T> streamArchivedConsents(Class<T> entityClass, ConsentExportQuery exportQuery) {
+        return consentArchiveRepository.streamArchivedConsents(entityClass, toQuery(exportQuery));
+    }
+
+    static Query toQuery(ConsentExportQuery exportQuery) {
+        final Criteria criteria = Criteria.where("deleted").is(false);
+        if (exportQuery.getApiClientId() != null) {
+            criteria.and("apiClientId").is(exportQuery.getApiClientId());
+        }
+        if (!exportQuery.getStatuses().isEmpty()) {
+            criteria.and("status").in(exportQuery.getStatuses());
+        }
+        if (exportQuery.getStatusUpdatedFrom() != null || exportQuery.getStatusUpdatedTo() != null) {
+            final Criteria statusUpdatedCriteria = criteria.and(FIELD_STATUS_UPDATED_DATE_TIME);
+            if (exportQuery.getStatusUpdatedFrom() != null) {
+                statusUpdatedCriteria.gte(exportQuery.getStatusUpdatedFrom().toDate());
+            }
+            if (exportQuery.getStatusUpdatedTo() != null) {
+                statusUpdatedCriteria.lt(exportQuery.getStatusUpdatedTo().toDate());
+            }
+        }
+        return new Query(criteria).cursorBatchSize(exportQuery.getBatchSize());
+    }
+}
@@ -16,7 +16,9 @@
 package com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.funds;
 
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.funds.FundsConfirmationConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.OwnedConsentRepository;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
-public interface FundsConfirmationConsentRepository extends MongoRepository<FundsConfirmationConsentEntity, String> {
+public interface FundsConfirmationConsentRepository extends MongoRepository<FundsConfirmationConsentEntity, String>,
+                                                            OwnedConsentRepository<FundsConfirmationConsentEntity> {
 }
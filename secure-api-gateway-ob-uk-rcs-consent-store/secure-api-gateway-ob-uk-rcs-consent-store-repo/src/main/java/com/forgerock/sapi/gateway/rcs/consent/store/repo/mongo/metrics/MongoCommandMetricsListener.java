@@ -0,0 +1,195 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.metrics;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Mongo driver {@link CommandListener} which records the latency of every command issued by the Consent Store.
+ * <p>
+ * Latencies are recorded by the consent.store.mongo.commands timer, tagged by collection, command (e.g. find, update),
+ * repositoryMethod (see {@link RepositoryMethodContext}) and outcome (success or failure).
+ * <p>
+ * Commands which take longer than the slowCommandThreshold are logged at WARN along with the shape of their filter,
+ * the filter is redacted so that only field names and operators are logged, never values.
+ */
+public class MongoCommandMetricsListener implements CommandListener {
+
+    static final String COMMAND_TIMER = "consent.store.mongo.commands";
+
+    static final String UNKNOWN = "unknown";
+
+    /**
+     * Commands which are issued by the driver itself, these are not recorded
+     */
+    private static final Set<String> IGNORED_COMMANDS = Set.of("hello", "isMaster", "ismaster", "buildInfo", "ping",
+            "saslStart", "saslContinue", "getnonce", "endSessions");
+
+    private static final Logger logger = LoggerFactory.getLogger(MongoCommandMetricsListener.class);
+
+    private final MeterRegistry meterRegistry;
+
+    private final Duration slowCommandThreshold;
+
+    /**
+     * Context of the commands in flight, keyed by the command's requestId
+     */
+    private final Map<Integer, CommandContext> inFlightCommands = new ConcurrentHashMap<>();
+
+    public MongoCommandMetricsListener(MeterRegistry meterRegistry, Duration slowCommandThreshold) {
+        this.meterRegistry = requireNonNull(meterRegistry, "meterRegistry must be provided");
+        this.slowCommandThreshold = requireNonNull(slowCommandThreshold, "slowCommandThreshold must be provided");
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        final String commandName = event.getCommandName();
+        if (IGNORED_COMMANDS.contains(commandName)) {
+            return;
+        }
+        // The command document is only valid during this callback, so extract everything needed now
+        final BsonDocument command = event.getCommand();
+        final String filterShape = isSlowCommandLoggingEnabled() ? redactedFilterShape(command) : null;
+        inFlightCommands.put(event.getRequestId(), new CommandContext(collectionName(commandName, command),
+                RepositoryMethodContext.current(), filterShape));
+    }
+
+    /**
+     * @return the collection the command operates on: the value of the command name field for most commands (including
+     * killCursors), the collection field for getMore (whose command name field is the cursor id)
+     */
+    static String collectionName(String commandName, BsonDocument command) {
+        final BsonValue collection = command.get(commandName);
+        if (collection != null && collection.isString()) {
+            return collection.asString().getValue();
+        }
+        final BsonValue cursorCollection = command.get("collection");
+        if (cursorCollection != null && cursorCollection.isString()) {
+            return cursorCollection.asString().getValue();
+        }
+        return UNKNOWN;
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        recordCommand(event.getRequestId(), event.getCommandName(), event.getElapsedTime(TimeUnit.NANOSECONDS), "success");
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        recordCommand(event.getRequestId(), event.getCommandName(), event.getElapsedTime(TimeUnit.NANOSECONDS), "failure");
+    }
+
+    private void recordCommand(int requestId, String commandName, long elapsedNanos, String outcome) {
+        final CommandContext context = inFlightCommands.remove(requestId);
+        if (context == null) {
+            return;
+        }
+        Timer.builder(COMMAND_TIMER)
+             .tag("collection", context.collection())
+             .tag("command", commandName)
+             .tag("repositoryMethod", context.repositoryMethod())
+             .tag("outcome", outcome)
+             .register(meterRegistry)
+             .record(elapsedNanos, TimeUnit.NANOSECONDS);
+
+        if (isSlowCommandLoggingEnabled() && elapsedNanos >= slowCommandThreshold.toNanos()) {
+            logger.warn("Slow Mongo command - command: {}, collection: {}, repositoryMethod: {}, outcome: {}, elapsedMillis: {}, filter: {}",
+                    commandName, context.collection(), context.repositoryMethod(), outcome,
+                    TimeUnit.NANOSECONDS.toMillis(elapsedNanos), context.filterShape());
+        }
+    }
+
+    private boolean isSlowCommandLoggingEnabled() {
+        return !slowCommandThreshold.isZero() && !slowCommandThreshold.isNegative();
+    }
+
+    /**
+     * Finds the filter of a command and returns its shape: the field names and operators with all values replaced by ?
+     * e.g. {"_id": ?, "status": {"$in": [?]}}
+     */
+    static String redactedFilterShape(BsonDocument command) {
+        for (String filterField : new String[] {"filter", "query", "pipeline"}) {
+            if (command.containsKey(filterField)) {
+                return shape(command.get(filterField));
+            }
+        }
+        // update and delete commands contain a list of statements, each with a filter in the q field
+        for (String statementsField : new String[] {"updates", "deletes"}) {
+            final BsonValue statements = command.get(statementsField);
+            if (statements != null && statements.isArray() && !statements.asArray().isEmpty()
+                    && statements.asArray().get(0).isDocument()) {
+                return shape(statements.asArray().get(0).asDocument().get("q"));
+            }
+        }
+        return "{}";
+    }
+
+    private static String shape(BsonValue value) {
+        if (value == null) {
+            return "{}";
+        }
+        if (value.isDocument()) {
+            final StringBuilder shape = new StringBuilder("{");
+            for (Map.Entry<String, BsonValue> entry : value.asDocument().entrySet()) {
+                if (shape.length() > 1) {
+                    shape.append(", ");
+                }
+                shape.append('"').append(entry.getKey()).append("\": ").append(shape(entry.getValue()));
+            }
+            return shape.append('}').toString();
+        }
+        if (value.isArray()) {
+            final BsonArray array = value.asArray();
+            // Arrays of documents (e.g. $or, pipelines) are structure, arrays of values (e.g. $in) are data
+            if (!array.isEmpty() && array.get(0).isDocument()) {
+                final StringBuilder shape = new StringBuilder("[");
+                for (BsonValue element : array) {
+                    if (shape.length() > 1) {
+                        shape.append(", ");
+                    }
+                    shape.append(shape(element));
+                }
+                return shape.append(']').toString();
+            }
+            return "[?]";
+        }
+        return "?";
+    }
+
+    private record CommandContext(String collection, String repositoryMethod, String filterShape) {
+    }
+}
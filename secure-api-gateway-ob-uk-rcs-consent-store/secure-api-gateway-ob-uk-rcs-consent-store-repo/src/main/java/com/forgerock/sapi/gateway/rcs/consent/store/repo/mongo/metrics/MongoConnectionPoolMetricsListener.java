@@ -0,0 +1,85 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.metrics;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.mongodb.event.ConnectionCheckOutFailedEvent;
+import com.mongodb.event.ConnectionCheckOutStartedEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionPoolListener;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Mongo driver {@link ConnectionPoolListener} which records how long the Consent Store waits to check out a connection
+ * from the pool, a growing wait indicates that the pool is too small for the load or that commands are slow.
+ * <p>
+ * Metrics: consent.store.mongo.pool.checkout (timer tagged by outcome) and consent.store.mongo.pool.checkout.waiting
+ * (gauge of the threads currently waiting for a connection).
+ */
+public class MongoConnectionPoolMetricsListener implements ConnectionPoolListener {
+
+    static final String CHECKOUT_TIMER = "consent.store.mongo.pool.checkout";
+
+    /**
+     * Checkouts are made by the thread issuing the command, so the start of the wait is tracked per thread
+     */
+    private final ThreadLocal<Long> checkOutStartNanos = new ThreadLocal<>();
+
+    private final AtomicInteger waitingForCheckout = new AtomicInteger();
+
+    private final Timer checkedOutTimer;
+
+    private final Timer checkOutFailedTimer;
+
+    public MongoConnectionPoolMetricsListener(MeterRegistry meterRegistry) {
+        requireNonNull(meterRegistry, "meterRegistry must be provided");
+        this.checkedOutTimer = Timer.builder(CHECKOUT_TIMER).tag("outcome", "success").register(meterRegistry);
+        this.checkOutFailedTimer = Timer.builder(CHECKOUT_TIMER).tag("outcome", "failure").register(meterRegistry);
+        meterRegistry.gauge(CHECKOUT_TIMER + ".waiting", waitingForCheckout);
+    }
+
+    @Override
+    public void connectionCheckOutStarted(ConnectionCheckOutStartedEvent event) {
+        checkOutStartNanos.set(System.nanoTime());
+        waitingForCheckout.incrementAndGet();
+    }
+
+    @Override
+    public void connectionCheckedOut(ConnectionCheckedOutEvent event) {
+        recordCheckOut(checkedOutTimer);
+    }
+
+    @Override
+    public void connectionCheckOutFailed(ConnectionCheckOutFailedEvent event) {
+        recordCheckOut(checkOutFailedTimer);
+    }
+
+    private void recordCheckOut(Timer timer) {
+        final Long startNanos = checkOutStartNanos.get();
+        if (startNanos == null) {
+            return;
+        }
+        checkOutStartNanos.remove();
+        waitingForCheckout.decrementAndGet();
+        timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.metrics;
+
+/**
+ * Holds the name of the Spring Data repository method being executed by the current thread, so that the Mongo commands
+ * issued by the method can be attributed to it. The Mongo sync driver notifies command listeners on the thread which
+ * issued the command.
+ */
+public final class RepositoryMethodContext {
+
+    /**
+     * Tag value used for commands which are not issued via a repository method e.g. by MongoOperations directly
+     */
+    public static final String NONE = "none";
+
+    private static final ThreadLocal<String> CURRENT_METHOD = new ThreadLocal<>();
+
+    private RepositoryMethodContext() {
+    }
+
+    /**
+     * @return the current repository method in the form RepositoryInterface.method, or {@link #NONE}
+     */
+    public static String current() {
+        final String method = CURRENT_METHOD.get();
+        return method != null ? method : NONE;
+    }
+
+    /**
+     * Sets the current repository method
+     *
+     * @return the previous repository method, which must be restored via {@link #restore(String)}
+     */
+    static String enter(String repositoryMethod) {
+        final String previous = CURRENT_METHOD.get();
+        CURRENT_METHOD.set(repositoryMethod);
+        return previous;
+    }
+
+    static void restore(String previousRepositoryMethod) {
+        if (previousRepositoryMethod == null) {
+            CURRENT_METHOD.remove();
+        } else {
+            CURRENT_METHOD.set(previousRepositoryMethod);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.migration;
+
+import org.bson.Document;
+
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.BaseConsentEntity;
+
+/**
+ * Migrates stored consent documents of one entity type from one schemaVersion to the next, e.g. reshaping the
+ * requestObj after a change to the data-model classes.
+ * <p>
+ * Upcasters are registered as Spring beans and chained by {@link ConsentSchemaMigrations}: the upcasters of an entity
+ * type must have consecutive fromVersions starting at 0, and the current schemaVersion of the type is the number of
+ * upcasters registered for it. Upcasters operate on the raw document so that they do not depend on the previous shape
+ * of the entity classes. They must be deterministic, as a document may be upcast on read many times before the
+ * migrated document is written back.
+ */
+public interface ConsentDocumentUpcaster {
+
+    /**
+     * @return the consent entity class whose documents this upcaster migrates
+     */
+    Class<? extends BaseConsentEntity<?>> getEntityClass();
+
+    /**
+     * @return the schemaVersion of the documents that this upcaster accepts, it produces documents of fromVersion + 1
+     */
+    int getFromVersion();
+
+    /**
+     * Migrates the document in place. The schemaVersion field is maintained by the caller.
+     *
+     * @param document the consent document, as stored in the consent's live collection
+     */
+    void upcast(Document document);
+}
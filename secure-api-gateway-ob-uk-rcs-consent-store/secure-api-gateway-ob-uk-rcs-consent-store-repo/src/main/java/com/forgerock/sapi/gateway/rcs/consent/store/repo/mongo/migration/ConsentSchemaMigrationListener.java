@@ -0,0 +1,81 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.migration;
+
+import static java.util.Objects.requireNonNull;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterLoadEvent;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertEvent;
+import org.springframework.stereotype.Component;
+
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.BaseConsentEntity;
+
+/**
+ * Applies the {@link ConsentSchemaMigrations} to consents read and written via the MongoTemplate (and therefore the
+ * repositories): documents are upcast after they are loaded and before they are mapped to the entity, and consents
+ * are written with the current schemaVersion of their type.
+ * <p>
+ * Upcast documents are handed to the optional {@link MigratedConsentSink} to be written back, so that the upcast is
+ * not repeated on every read.
+ */
+@Component
+public class ConsentSchemaMigrationListener extends AbstractMongoEventListener<BaseConsentEntity<?>> {
+
+    /**
+     * Receives the live consent documents which have been upcast on read.
+     */
+    public interface MigratedConsentSink {
+
+        void migratedOnRead(Class<?> entityClass, String collectionName, Object consentId);
+    }
+
+    private final ConsentSchemaMigrations consentSchemaMigrations;
+
+    private MigratedConsentSink migratedConsentSink;
+
+    public ConsentSchemaMigrationListener(ConsentSchemaMigrations consentSchemaMigrations) {
+        this.consentSchemaMigrations = requireNonNull(consentSchemaMigrations, "consentSchemaMigrations must be provided");
+    }
+
+    /**
+     * Optionally configures where documents upcast on read are sent to be written back, by default they are only
+     * upcast in memory.
+     */
+    @Autowired(required = false)
+    public void setMigratedConsentSink(MigratedConsentSink migratedConsentSink) {
+        this.migratedConsentSink = migratedConsentSink;
+    }
+
+    @Override
+    public void onAfterLoad(AfterLoadEvent<BaseConsentEntity<?>> event) {
+        final Document document = event.getSource();
+        if (consentSchemaMigrations.upcast(event.getType(), document) && migratedConsentSink != null) {
+            migratedConsentSink.migratedOnRead(event.getType(), event.getCollectionName(), document.get("_id"));
+        }
+    }
+
+    @Override
+    public void onBeforeConvert(BeforeConvertEvent<BaseConsentEntity<?>> event) {
+        final BaseConsentEntity<?> consent = event.getSource();
+        final int currentSchemaVersion = consentSchemaMigrations.getCurrentSchemaVersion(consent.getClass());
+        if (consent.getSchemaVersion() < currentSchemaVersion) {
+            consent.setSchemaVersion(currentSchemaVersion);
+        }
+    }
+}
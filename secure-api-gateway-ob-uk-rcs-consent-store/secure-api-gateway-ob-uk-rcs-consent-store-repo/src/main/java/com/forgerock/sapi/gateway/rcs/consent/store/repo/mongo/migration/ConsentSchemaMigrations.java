@@ -0,0 +1,124 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.migration;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Registry of the {@link ConsentDocumentUpcaster}s, which upcasts stored consent documents to the current
+ * schemaVersion of their entity type.
+ * <p>
+ * Documents are upcast as they are read (see {@link ConsentSchemaMigrationListener}), so a change to the shape of the
+ * stored consents needs neither a maintenance window nor compatibility code in the entity classes: register an
+ * upcaster and the entity classes only ever see the current shape. Migrated documents are written back in the
+ * background by the ConsentSchemaMigrationWriter.
+ * <p>
+ * Documents with a schemaVersion newer than the current one (written by a newer release during a rolling upgrade) are
+ * read as they are.
+ * <p>
+ * Documents without a schemaVersion are read as schemaVersion 0, so writes which bypass the MongoTemplate's entity
+ * mapping must keep the schemaVersion accurate: the ConsentBulkImporter writes the current schemaVersion, the
+ * ConsentExpirySweeper only updates documents at the current schemaVersion, and the ConsentArchiveRepository copies
+ * documents with their schemaVersion and upcasts archived consents as they are read.
+ */
+@Component
+public class ConsentSchemaMigrations {
+
+    public static final String FIELD_SCHEMA_VERSION = "schemaVersion";
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final Map<Class<?>, List<ConsentDocumentUpcaster>> upcastersByEntity = new LinkedHashMap<>();
+
+    @Autowired
+    public ConsentSchemaMigrations(ObjectProvider<ConsentDocumentUpcaster> upcasterProvider) {
+        this(upcasterProvider.orderedStream().toList());
+    }
+
+    ConsentSchemaMigrations(List<ConsentDocumentUpcaster> upcasters) {
+        for (ConsentDocumentUpcaster upcaster : upcasters) {
+            upcastersByEntity.computeIfAbsent(upcaster.getEntityClass(), entityClass -> new ArrayList<>()).add(upcaster);
+        }
+        upcastersByEntity.forEach((entityClass, entityUpcasters) -> {
+            entityUpcasters.sort(Comparator.comparingInt(ConsentDocumentUpcaster::getFromVersion));
+            for (int version = 0; version < entityUpcasters.size(); version++) {
+                if (entityUpcasters.get(version).getFromVersion() != version) {
+                    throw new IllegalStateException("Upcasters for " + entityClass.getSimpleName()
+                            + " must have consecutive fromVersions starting at 0, missing or duplicate fromVersion: " + version);
+                }
+            }
+            logger.info("{} schemaVersion: {}", entityClass.getSimpleName(), entityUpcasters.size());
+        });
+    }
+
+    /**
+     * @return the entity classes which have upcasters registered, the only types that need migrating
+     */
+    public Set<Class<?>> getMigratedEntityClasses() {
+        return upcastersByEntity.keySet();
+    }
+
+    /**
+     * @return the schemaVersion of documents written by this release for the entityClass
+     */
+    public int getCurrentSchemaVersion(Class<?> entityClass) {
+        final List<ConsentDocumentUpcaster> upcasters = upcastersByEntity.get(entityClass);
+        return upcasters == null ? 0 : upcasters.size();
+    }
+
+    /**
+     * @return the schemaVersion of a stored document, 0 if it was written before schema versioning was introduced
+     */
+    public static int getSchemaVersion(Document document) {
+        final Object schemaVersion = document.get(FIELD_SCHEMA_VERSION);
+        return schemaVersion instanceof Number number ? number.intValue() : 0;
+    }
+
+    /**
+     * Upcasts the document in place to the current schemaVersion of the entityClass.
+     *
+     * @return true if the document was modified, false if it was already at (or beyond) the current schemaVersion
+     */
+    public boolean upcast(Class<?> entityClass, Document document) {
+        final List<ConsentDocumentUpcaster> upcasters = upcastersByEntity.get(entityClass);
+        if (upcasters == null) {
+            return false;
+        }
+        final int fromVersion = getSchemaVersion(document);
+        if (fromVersion >= upcasters.size()) {
+            return false;
+        }
+        for (int version = fromVersion; version < upcasters.size(); version++) {
+            upcasters.get(version).upcast(document);
+        }
+        document.put(FIELD_SCHEMA_VERSION, upcasters.size());
+        logger.trace("Upcast {} document: {} from schemaVersion: {} to: {}", entityClass.getSimpleName(),
+                document.get("_id"), fromVersion, upcasters.size());
+        return true;
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.partition;
+
+import static java.util.Objects.requireNonNull;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.data.util.Lazy;
+
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.BaseConsentEntity;
+
+/**
+ * Adds the {@link ConsentPartitionRoutingInterceptor} to the Consent Store's consent repositories.
+ * <p>
+ * The advice is added to the repository factory before the repository proxy is created, so this must run before the
+ * repository factory beans are initialised. The ConsentPartitions are resolved lazily, on the first repository call.
+ * <p>
+ * The methods of the consent repositories are validated as the repositories are created, so that a method whose results
+ * could not be merged across partitions fails startup rather than the first call made to it. Methods implemented by the
+ * Spring Data base repository are not validated. Of those, the paging and fluent query methods (findAll(Pageable),
+ * findAll(Example, Pageable) and findBy) cannot be merged and must not be used by the Consent Store.
+ */
+public class ConsentPartitionRoutingBeanPostProcessor implements BeanPostProcessor {
+
+    private final Lazy<ConsentPartitions> consentPartitions;
+
+    public ConsentPartitionRoutingBeanPostProcessor(ObjectProvider<ConsentPartitions> consentPartitionsProvider) {
+        requireNonNull(consentPartitionsProvider, "consentPartitionsProvider must be provided");
+        this.consentPartitions = Lazy.of(() -> consentPartitionsProvider.getIfAvailable(ConsentPartitions::single));
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
+        if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> repositoryFactoryBean) {
+            repositoryFactoryBean.addRepositoryFactoryCustomizer(repositoryFactory ->
+                    repositoryFactory.addRepositoryProxyPostProcessor((proxyFactory, repositoryInformation) -> {
+                        if (BaseConsentEntity.class.isAssignableFrom(repositoryInformation.getDomainType())) {
+                            validateRepositoryMethods(repositoryInformation);
+                            proxyFactory.addAdvice(new ConsentPartitionRoutingInterceptor(consentPartitions));
+                        }
+                    }));
+        }
+        return bean;
+    }
+
+    private static void validateRepositoryMethods(RepositoryInformation repositoryInformation) {
+        for (Method method : repositoryInformation.getRepositoryInterface().getMethods()) {
+            if (!method.isDefault() && !Modifier.isStatic(method.getModifiers()) && !repositoryInformation.isBaseClassMethod(method)) {
+                ConsentPartitionRoutingInterceptor.validateMergeable(method);
+            }
+        }
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.partition;
+
+import static java.util.Objects.requireNonNull;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.ProxyMethodInvocation;
+
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.BaseConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.payment.PaymentConsentConsumeConditions;
+import com.forgerock.sapi.gateway.uk.common.shared.api.meta.share.IntentType;
+
+/**
+ * Routes the methods of a consent repository to the partition holding the consents that they operate on.
+ * <p>
+ * Methods whose first argument identifies a consent (a consent entity, a consent id or PaymentConsentConsumeConditions)
+ * are sent to the consent's partition. Methods saving or inserting several consents are split by partition. All other
+ * methods, e.g. idempotency lookups and findAll, are run against every partition and their results are merged: streams
+ * and collections are concatenated, counts summed, booleans or'ed and the first present Optional or non-null entity is
+ * returned. Repository methods whose results cannot be merged are rejected at startup, see
+ * {@link #validateMergeable(Method)}.
+ * <p>
+ * Methods called in the scope of a partition (see {@link ConsentPartitions#onPartition(int, Supplier)}) are not
+ * routed, as the caller has already chosen the partition.
+ */
+public class ConsentPartitionRoutingInterceptor implements MethodInterceptor {
+
+    private final Supplier<ConsentPartitions> consentPartitionsSupplier;
+
+    public ConsentPartitionRoutingInterceptor(Supplier<ConsentPartitions> consentPartitionsSupplier) {
+        this.consentPartitionsSupplier = requireNonNull(consentPartitionsSupplier, "consentPartitionsSupplier must be provided");
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        final ConsentPartitions consentPartitions = consentPartitionsSupplier.get();
+        if (!consentPartitions.isPartitioned() || ConsentPartitions.currentPartition() != null) {
+            return invocation.proceed();
+        }
+        final Object[] arguments = invocation.getArguments();
+        final Object firstArgument = arguments.length > 0 ? arguments[0] : null;
+        final String consentId = getConsentId(firstArgument);
+        if (consentId != null) {
+            return proceedOnPartition(consentPartitions, consentPartitions.getPartition(consentId), (ProxyMethodInvocation) invocation, arguments);
+        }
+        final String methodName = invocation.getMethod().getName();
+        if (firstArgument instanceof Iterable<?> entities && (methodName.startsWith("save") || methodName.startsWith("insert"))) {
+            return proceedByPartition(consentPartitions, (ProxyMethodInvocation) invocation, entities);
+        }
+        return scatterGather(consentPartitions, (ProxyMethodInvocation) invocation);
+    }
+
+    /**
+     * @return the id of the consent that the argument identifies, or null if it does not identify a consent.
+     * Entities without an id (consents being inserted) are identified as a consent in partition 0.
+     */
+    private static String getConsentId(Object argument) {
+        if (argument instanceof BaseConsentEntity<?> consent) {
+            return consent.getId() != null ? consent.getId() : "";
+        }
+        if (argument instanceof PaymentConsentConsumeConditions conditions) {
+            return conditions.getConsentId();
+        }
+        if (argument instanceof String candidateId && IntentType.identify(candidateId) != null) {
+            return candidateId;
+        }
+        return null;
+    }
+
+    private static Object proceedOnPartition(ConsentPartitions consentPartitions, int partition,
+                                             ProxyMethodInvocation invocation, Object[] arguments) throws Throwable {
+        final MethodInvocation partitionInvocation = invocation.invocableClone(arguments);
+        try {
+            return consentPartitions.onPartition(partition, () -> proceedUnchecked(partitionInvocation));
+        } catch (InvocationFailure failure) {
+            throw failure.getCause();
+        }
+    }
+
+    private static Object proceedByPartition(ConsentPartitions consentPartitions, ProxyMethodInvocation invocation,
+                                             Iterable<?> entities) throws Throwable {
+        final Map<Integer, List<Object>> entitiesByPartition = new TreeMap<>();
+        for (Object entity : entities) {
+            final String consentId = entity instanceof BaseConsentEntity<?> consent ? consent.getId() : null;
+            entitiesByPartition.computeIfAbsent(consentPartitions.getPartition(consentId), partition -> new ArrayList<>()).add(entity);
+        }
+        final List<Object> results = new ArrayList<>();
+        for (Map.Entry<Integer, List<Object>> partitionEntities : entitiesByPartition.entrySet()) {
+            final Object[] arguments = invocation.getArguments().clone();
+            arguments[0] = partitionEntities.getValue();
+            results.add(proceedOnPartition(consentPartitions, partitionEntities.getKey(), invocation, arguments));
+        }
+        return merge(invocation, results);
+    }
+
+    private static Object scatterGather(ConsentPartitions consentPartitions, ProxyMethodInvocation invocation) throws Throwable {
+        final List<Object> results = new ArrayList<>(consentPartitions.getPartitionCount());
+        for (int partition = 0; partition < consentPartitions.getPartitionCount(); partition++) {
+            results.add(proceedOnPartition(consentPartitions, partition, invocation, invocation.getArguments()));
+        }
+        return merge(invocation, results);
+    }
+
+    /**
+     * Validates that the results of a repository method can be merged, should it be run against every partition.
+     * Methods whose first parameter is a consent entity or PaymentConsentConsumeConditions are always run against a
+     * single partition, so need not be mergeable.
+     *
+     * @throws IllegalStateException if the method's results cannot be merged
+     */
+    static void validateMergeable(Method method) {
+        final Class<?>[] parameterTypes = method.getParameterTypes();
+        if (parameterTypes.length > 0 && (BaseConsentEntity.class.isAssignableFrom(parameterTypes[0])
+                || PaymentConsentConsumeConditions.class.isAssignableFrom(parameterTypes[0]))) {
+            return;
+        }
+        if (!isMergeable(method.getReturnType())) {
+            throw new IllegalStateException("Results of repository method: " + method.getDeclaringClass().getSimpleName() + "."
+                    + method.getName() + " returning: " + method.getReturnType().getSimpleName() + " cannot be merged across partitions");
+        }
+    }
+
+    private static boolean isMergeable(Class<?> returnType) {
+        return returnType == void.class
+                || Optional.class.equals(returnType)
+                || Stream.class.equals(returnType)
+                || Collection.class.isAssignableFrom(returnType) || Iterable.class.equals(returnType)
+                || returnType == long.class || Long.class.equals(returnType)
+                || returnType == int.class || Integer.class.equals(returnType)
+                || returnType == boolean.class || Boolean.class.equals(returnType)
+                || BaseConsentEntity.class.isAssignableFrom(returnType);
+    }
+
+    private static Object merge(MethodInvocation invocation, List<Object> results) {
+        final Class<?> returnType = invocation.getMethod().getReturnType();
+        if (returnType == void.class) {
+            return null;
+        }
+        if (Optional.class.equals(returnType)) {
+            return results.stream().map(Optional.class::cast).filter(Optional::isPresent).findFirst().orElse(Optional.empty());
+        }
+        if (Stream.class.equals(returnType)) {
+            return results.stream().map(Stream.class::cast).reduce(Stream.empty(), Stream::concat);
+        }
+        if (Collection.class.isAssignableFrom(returnType) || Iterable.class.equals(returnType)) {
+            final List<Object> merged = new ArrayList<>();
+            results.forEach(result -> merged.addAll((Collection<?>) result));
+            return merged;
+        }
+        if (returnType == long.class || Long.class.equals(returnType)) {
+            return results.stream().mapToLong(result -> (Long) result).sum();
+        }
+        if (returnType == int.class || Integer.class.equals(returnType)) {
+            return results.stream().mapToInt(result -> (Integer) result).sum();
+        }
+        if (returnType == boolean.class || Boolean.class.equals(returnType)) {
+            return results.stream().anyMatch(Boolean.TRUE::equals);
+        }
+        if (BaseConsentEntity.class.isAssignableFrom(returnType)) {
+            return results.stream().filter(Objects::nonNull).findFirst().orElse(null);
+        }
+        throw new UnsupportedOperationException("Results of repository method: " + invocation.getMethod().getName()
+                + " returning: " + returnType.getSimpleName() + " cannot be merged across partitions");
+    }
+
+    private static Object proceedUnchecked(MethodInvocation invocation) {
+        try {
+            return invocation.proceed();
+        } catch (RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable ex) {
+            throw new InvocationFailure(ex);
+        }
+    }
+
+    /**
+     * Carries a checked exception thrown by a repository method out of a partition scope
+     */
+    private static class InvocationFailure extends RuntimeException {
+        InvocationFailure(Throwable cause) {
+            super(cause);
+        }
+    }
+}
@@ -0,0 +1,265 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.partition;
+
+import static java.util.Objects.requireNonNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.SimpleMongoClientDatabaseFactory;
+import org.springframework.stereotype.Component;
+
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.exception.ConsentStoreException;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.exception.ConsentStoreException.ErrorType;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.ConsentIdPartitioner;
+import com.forgerock.sapi.gateway.uk.common.shared.api.meta.share.IntentType;
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Horizontally partitions the consents across several Mongo deployments, each holding all the consent collections.
+ * <p>
+ * Partition 0 is the deployment configured via the standard spring.data.mongodb properties, additional partitions are
+ * configured via consent.store.partitioning.uris (connection strings which must include the database). Partitioning
+ * is disabled when no additional partitions are configured.
+ * <p>
+ * A consent's partition is chosen when it is created, by a hash of its apiClientId, and is embedded in its id after
+ * the IntentType prefix, e.g. PDC_p2-&lt;uuid&gt;, so that a consent can be routed by its id without a lookup. Ids
+ * without a partition tag (consents created before partitioning was enabled, or by the bulk tools) belong to
+ * partition 0. As a consent's partition never changes, partitions can be added without moving existing consents, but
+ * must never be removed.
+ * <p>
+ * Operations are routed by running them in the scope of a partition (see {@link #onPartition(int, Supplier)}), which
+ * the ConsentReadRoutingMongoTemplate uses to pick the database. The Consent Store repositories are routed by the
+ * {@link ConsentPartitionRoutingInterceptor}, other components route their operations explicitly. Operations run
+ * outside a partition scope (e.g. the leases and the consent status counters) use partition 0.
+ */
+@Component
+public class ConsentPartitions implements ConsentIdPartitioner {
+
+    private static final String PARTITION_TAG_PREFIX = "p";
+
+    private static final char PARTITION_TAG_SEPARATOR = '-';
+
+    private static final ThreadLocal<Integer> CURRENT_PARTITION = new ThreadLocal<>();
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final List<MongoClient> partitionClients = new ArrayList<>();
+
+    /**
+     * Database factories of partitions 1..n, partition 0 uses the application's MongoDatabaseFactory
+     */
+    private final List<MongoDatabaseFactory> partitionDatabaseFactories = new ArrayList<>();
+
+    @Autowired
+    public ConsentPartitions(@Value("${consent.store.partitioning.uris:}") List<String> partitionUris,
+                             ObjectProvider<MongoClientSettingsBuilderCustomizer> settingsCustomizers) {
+        for (String partitionUri : requireNonNull(partitionUris, "partitionUris must be provided")) {
+            final ConnectionString connectionString = new ConnectionString(partitionUri);
+            if (connectionString.getDatabase() == null) {
+                throw new IllegalArgumentException("consent.store.partitioning.uris must specify the database, uri for partition: "
+                        + (partitionDatabaseFactories.size() + 1) + " does not");
+            }
+            final MongoClientSettings.Builder settings = MongoClientSettings.builder().applyConnectionString(connectionString);
+            settingsCustomizers.orderedStream().forEach(customizer -> customizer.customize(settings));
+            final MongoClient mongoClient = MongoClients.create(settings.build());
+            partitionClients.add(mongoClient);
+            partitionDatabaseFactories.add(new SimpleMongoClientDatabaseFactory(mongoClient, connectionString.getDatabase()));
+        }
+        if (isPartitioned()) {
+            validatePartitionTags();
+        }
+        logger.info("Consent Store partitions: {}", getPartitionCount());
+    }
+
+    /**
+     * @return ConsentPartitions for an unpartitioned Consent Store
+     */
+    public static ConsentPartitions single() {
+        return new ConsentPartitions();
+    }
+
+    private ConsentPartitions() {
+    }
+
+    /**
+     * Partition tags must not stop IntentType.identify from resolving the IntentType of a consent from its id
+     */
+    private void validatePartitionTags() {
+        for (IntentType intentType : IntentType.values()) {
+            final String partitionedId = tagConsentId(intentType.generateIntentId(), getPartitionCount() - 1);
+            if (IntentType.identify(partitionedId) != intentType) {
+                throw new IllegalStateException("Partitioned id: " + partitionedId + " is not identified as IntentType: " + intentType);
+            }
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        partitionClients.forEach(MongoClient::close);
+    }
+
+    public int getPartitionCount() {
+        return partitionDatabaseFactories.size() + 1;
+    }
+
+    public boolean isPartitioned() {
+        return getPartitionCount() > 1;
+    }
+
+    /**
+     * @return the database factory of a partition other than partition 0
+     */
+    public MongoDatabaseFactory getPartitionDatabaseFactory(int partition) {
+        if (partition < 1 || partition >= getPartitionCount()) {
+            throw new IllegalArgumentException("partition: " + partition + " is not an additional partition");
+        }
+        return partitionDatabaseFactories.get(partition - 1);
+    }
+
+    /**
+     * @return the partition that the consents of an ApiClient are created in
+     */
+    public int getApiClientPartition(String apiClientId) {
+        if (!isPartitioned() || apiClientId == null) {
+            return 0;
+        }
+        final CRC32 crc32 = new CRC32();
+        crc32.update(apiClientId.getBytes(StandardCharsets.UTF_8));
+        return (int) (crc32.getValue() % getPartitionCount());
+    }
+
+    @Override
+    public String partitionConsentId(String consentId, String apiClientId) {
+        if (!isPartitioned()) {
+            return consentId;
+        }
+        return tagConsentId(consentId, getApiClientPartition(apiClientId));
+    }
+
+    private static String tagConsentId(String consentId, int partition) {
+        final int prefixEnd = consentId.lastIndexOf('_') + 1;
+        return consentId.substring(0, prefixEnd) + PARTITION_TAG_PREFIX + partition + PARTITION_TAG_SEPARATOR
+                + consentId.substring(prefixEnd);
+    }
+
+    /**
+     * @return the partition embedded in the consentId, 0 if the id has no partition tag
+     * @throws ConsentStoreException with ErrorType NOT_FOUND if the id is tagged with a partition which is not configured
+     */
+    public int getPartition(String consentId) {
+        if (!isPartitioned() || consentId == null) {
+            return 0;
+        }
+        final int tagStart = consentId.lastIndexOf('_') + 1;
+        if (!consentId.startsWith(PARTITION_TAG_PREFIX, tagStart)) {
+            return 0;
+        }
+        final int separator = consentId.indexOf(PARTITION_TAG_SEPARATOR, tagStart);
+        if (separator <= tagStart + 1 || separator > tagStart + 4) {
+            return 0;
+        }
+        int partition = 0;
+        for (int i = tagStart + 1; i < separator; i++) {
+            final char digit = consentId.charAt(i);
+            if (digit < '0' || digit > '9') {
+                return 0;
+            }
+            partition = partition * 10 + (digit - '0');
+        }
+        if (partition >= getPartitionCount()) {
+            // Either the id was not issued by this Consent Store or a partition has been removed from the configuration
+            logger.error("consentId: {} is tagged with partition: {} which is not configured, partitions: {}",
+                    consentId, partition, getPartitionCount());
+            throw new ConsentStoreException(ErrorType.NOT_FOUND, consentId, "Consent partition: " + partition + " is not configured");
+        }
+        return partition;
+    }
+
+    /**
+     * @return the partition scope of the current thread, or null if the thread is not running in a partition scope
+     */
+    public static Integer currentPartition() {
+        return CURRENT_PARTITION.get();
+    }
+
+    /**
+     * Runs the action in the scope of the partition: Mongo operations issued by the action are sent to the partition.
+     */
+    public <R> R onPartition(int partition, Supplier<R> action) {
+        if (partition < 0 || partition >= getPartitionCount()) {
+            throw new IllegalArgumentException("partition: " + partition + " is not configured");
+        }
+        final Integer previous = CURRENT_PARTITION.get();
+        CURRENT_PARTITION.set(partition);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                CURRENT_PARTITION.remove();
+            } else {
+                CURRENT_PARTITION.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Runs the action in the scope of each partition in turn (scatter-gather).
+     *
+     * @return the results of the action, in partition order
+     */
+    public <R> List<R> onEachPartition(Supplier<R> action) {
+        final List<R> results = new ArrayList<>(getPartitionCount());
+        for (int partition = 0; partition < getPartitionCount(); partition++) {
+            results.add(onPartition(partition, action));
+        }
+        return results;
+    }
+
+    /**
+     * Opens a Stream in the scope of each partition and concatenates them, the cursor of each Stream is opened on its
+     * partition as the Stream is created. Closing the returned Stream closes the Stream of every partition.
+     */
+    public <T> Stream<T> streamEachPartition(Supplier<Stream<T>> streamSupplier) {
+        Stream<T> concatenated = Stream.empty();
+        try {
+            for (int partition = 0; partition < getPartitionCount(); partition++) {
+                concatenated = Stream.concat(concatenated, onPartition(partition, streamSupplier));
+            }
+            return concatenated;
+        } catch (RuntimeException ex) {
+            concatenated.close();
+            throw ex;
+        }
+    }
+}
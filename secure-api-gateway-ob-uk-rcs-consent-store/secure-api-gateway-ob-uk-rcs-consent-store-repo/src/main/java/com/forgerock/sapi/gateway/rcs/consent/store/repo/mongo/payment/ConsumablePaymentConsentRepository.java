@@ -0,0 +1,51 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.payment;
+
+import java.util.Optional;
+
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.BasePaymentConsentEntity;
+
+/**
+ * Repository fragment providing atomic consumption of Payment Consents.
+ * <p>
+ * Consuming a consent via a read followed by a save of the whole document is subject to a race whereby two concurrent
+ * payment submissions can both see the consent as Authorised and both consume it. The operations in this fragment are
+ * implemented as single conditional updates, so that exactly one caller can consume a consent.
+ * <p>
+ * Spring Data only discovers fragments declared directly on a repository interface, therefore each concrete payment
+ * consent repository must also list this interface in its extends clause.
+ */
+public interface ConsumablePaymentConsentRepository<T extends BasePaymentConsentEntity> {
+
+    /**
+     * Atomically updates the consent status to consumedStatus, providing that the consent exists, is not deleted and
+     * meets all the supplied conditions.
+     *
+     * @param conditions     the conditions that the consent must meet
+     * @param consumedStatus the status to set
+     * @param entityClass    the entity class of the consent
+     * @return the consumed consent, or an empty Optional if no consent met the conditions
+     */
+    Optional<T> findAndConsume(PaymentConsentConsumeConditions conditions, String consumedStatus, Class<T> entityClass);
+
+    /**
+     * Sets the initiationFingerprint for a consent which was created without one.
+     *
+     * @return true if the fingerprint was set, false if the consent does not exist or already had a fingerprint
+     */
+    boolean setInitiationFingerprintIfAbsent(String consentId, String initiationFingerprint, Class<T> entityClass);
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.payment;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Date;
+import java.util.Optional;
+
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.BasePaymentConsentEntity;
+
+/**
+ * Implementation of the {@link ConsumablePaymentConsentRepository} fragment using findAndModify.
+ * <p>
+ * Note: findAndModify does not apply the auditing and versioning that the repository save operation does, therefore
+ * the statusUpdatedDateTime and entityVersion fields are updated explicitly.
+ */
+public class ConsumablePaymentConsentRepositoryImpl<T extends BasePaymentConsentEntity> implements ConsumablePaymentConsentRepository<T> {
+
+    private final MongoOperations mongoOperations;
+
+    public ConsumablePaymentConsentRepositoryImpl(MongoOperations mongoOperations) {
+        this.mongoOperations = requireNonNull(mongoOperations, "mongoOperations must be provided");
+    }
+
+    @Override
+    public Optional<T> findAndConsume(PaymentConsentConsumeConditions conditions, String consumedStatus, Class<T> entityClass) {
+        return Optional.ofNullable(mongoOperations.findAndModify(new Query(conditions.toCriteria()), consumeUpdate(consumedStatus),
+                FindAndModifyOptions.options().returnNew(true), entityClass));
+    }
+
+    /**
+     * @return Update which transitions a consent to the consumedStatus
+     */
+    public static Update consumeUpdate(String consumedStatus) {
+        return new Update().set("status", consumedStatus)
+                           .set("statusUpdatedDateTime", new Date())
+                           .inc("entityVersion", 1);
+    }
+
+    @Override
+    public boolean setInitiationFingerprintIfAbsent(String consentId, String initiationFingerprint, Class<T> entityClass) {
+        final Query query = new Query(Criteria.where("_id").is(consentId).and("initiationFingerprint").is(null));
+        final Update update = new Update().set("initiationFingerprint", initiationFingerprint).inc("entityVersion", 1);
+        return mongoOperations.updateFirst(query, update, entityClass).getModifiedCount() == 1;
+    }
+}
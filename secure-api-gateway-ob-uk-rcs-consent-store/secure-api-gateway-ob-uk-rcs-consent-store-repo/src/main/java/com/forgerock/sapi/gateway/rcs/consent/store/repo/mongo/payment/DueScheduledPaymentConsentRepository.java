@@ -0,0 +1,112 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.payment;
+
+import static com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.ScheduledPaymentConsent.FIELD_REQUESTED_EXECUTION_DATE_TIME;
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.joda.time.DateTime;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Repository;
+
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.BasePaymentConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.ScheduledPaymentConsent;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.partition.ConsentPartitions;
+
+/**
+ * Queries Scheduled Payment Consents by their requestedExecutionDateTime, for use by downstream payment schedulers.
+ * <p>
+ * The queries are served by the {@link #DUE_INDEX_NAME} partial index which only contains Authorised consents, keeping
+ * the index small regardless of the number of consents stored. Results are streamed from the database cursor and only
+ * the fields required by a scheduler are returned.
+ * <p>
+ * When the Consent Store is partitioned, a page is read from every partition and the pages are merged in
+ * (requestedExecutionDateTime, _id) order, so the results and their keyset pagination are the same as for a single
+ * partition. The merged page is held in memory, so the query limit bounds the memory used.
+ */
+@Repository
+public class DueScheduledPaymentConsentRepository {
+
+    public static final String DUE_INDEX_NAME = "authorisedByRequestedExecutionDateTime";
+
+    private final MongoOperations mongoOperations;
+
+    private ConsentPartitions consentPartitions = ConsentPartitions.single();
+
+    public DueScheduledPaymentConsentRepository(MongoOperations mongoOperations) {
+        this.mongoOperations = requireNonNull(mongoOperations, "mongoOperations must be provided");
+    }
+
+    @Autowired(required = false)
+    public void setConsentPartitions(ConsentPartitions consentPartitions) {
+        this.consentPartitions = requireNonNull(consentPartitions, "consentPartitions must be provided");
+    }
+
+    /**
+     * @param authorisedStatus the Authorised status value of the consent type
+     * @return definition of the index which supports {@link #streamDueConsents(Class, String, DueScheduledPaymentConsentsQuery)}
+     */
+    public static Index dueIndex(String authorisedStatus) {
+        return new Index().on(FIELD_REQUESTED_EXECUTION_DATE_TIME, Direction.ASC)
+                          .on("_id", Direction.ASC)
+                          .named(DUE_INDEX_NAME)
+                          .partial(PartialIndexFilter.of(Criteria.where("status").is(authorisedStatus).and("deleted").is(false)));
+    }
+
+    /**
+     * Streams the consents matching the query, the caller must close the returned Stream.
+     */
+    public <T extends BasePaymentConsentEntity<?> & ScheduledPaymentConsent> Stream<T> streamDueConsents(Class<T> entityClass,
+            String authorisedStatus, DueScheduledPaymentConsentsQuery dueQuery) {
+
+        final Criteria criteria = Criteria.where("status").is(authorisedStatus).and("deleted").is(false);
+        final DateTime after = dueQuery.getAfterRequestedExecutionDateTime();
+        if (after == null) {
+            criteria.and(FIELD_REQUESTED_EXECUTION_DATE_TIME).gte(dueQuery.getFromDateTime()).lt(dueQuery.getToDateTime());
+        } else {
+            // Keyset pagination: results after (requestedExecutionDateTime, _id) of the last result of the previous page
+            final DateTime lowerBound = after.isAfter(dueQuery.getFromDateTime()) ? after : dueQuery.getFromDateTime();
+            criteria.and(FIELD_REQUESTED_EXECUTION_DATE_TIME).gte(lowerBound).lt(dueQuery.getToDateTime())
+                    .orOperator(Criteria.where(FIELD_REQUESTED_EXECUTION_DATE_TIME).gt(after),
+                                Criteria.where("_id").gt(dueQuery.getAfterConsentId()));
+        }
+
+        final Query query = new Query(criteria).with(Sort.by(Direction.ASC, FIELD_REQUESTED_EXECUTION_DATE_TIME, "_id"))
+                                               .limit(dueQuery.getLimit());
+        query.fields().include("_id", "apiClientId", "resourceOwnerId", "authorisedDebtorAccountId", "status",
+                "requestVersion", FIELD_REQUESTED_EXECUTION_DATE_TIME);
+        if (!consentPartitions.isPartitioned()) {
+            return mongoOperations.stream(query, entityClass);
+        }
+        final List<T> merged = new ArrayList<>();
+        consentPartitions.onEachPartition(() -> mongoOperations.find(query, entityClass)).forEach(merged::addAll);
+        merged.sort(Comparator.comparing((T consent) -> consent.getRequestedExecutionDateTime().getMillis())
+                              .thenComparing(ScheduledPaymentConsent::getId));
+        return merged.stream().limit(dueQuery.getLimit());
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.payment;
+
+import static java.util.Objects.requireNonNull;
+
+import org.joda.time.DateTime;
+
+/**
+ * Query for the Authorised Scheduled Payment Consents with a requestedExecutionDateTime in the range [from, to).
+ * <p>
+ * Results are ordered by requestedExecutionDateTime then consentId. Subsequent pages are requested using keyset
+ * pagination, by supplying the requestedExecutionDateTime and consentId of the last result of the previous page.
+ */
+public class DueScheduledPaymentConsentsQuery {
+
+    private final DateTime fromDateTime;
+
+    private final DateTime toDateTime;
+
+    private final DateTime afterRequestedExecutionDateTime;
+
+    private final String afterConsentId;
+
+    private final int limit;
+
+    public DueScheduledPaymentConsentsQuery(DateTime fromDateTime, DateTime toDateTime, DateTime afterRequestedExecutionDateTime,
+                                            String afterConsentId, int limit) {
+        this.fromDateTime = requireNonNull(fromDateTime, "fromDateTime must be provided");
+        this.toDateTime = requireNonNull(toDateTime, "toDateTime must be provided");
+        if ((afterRequestedExecutionDateTime == null) != (afterConsentId == null)) {
+            throw new IllegalArgumentException("afterRequestedExecutionDateTime and afterConsentId must be supplied together");
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be greater than zero");
+        }
+        this.afterRequestedExecutionDateTime = afterRequestedExecutionDateTime;
+        this.afterConsentId = afterConsentId;
+        this.limit = limit;
+    }
+
+    public DateTime getFromDateTime() {
+        return fromDateTime;
+    }
+
+    public DateTime getToDateTime() {
+        return toDateTime;
+    }
+
+    public DateTime getAfterRequestedExecutionDateTime() {
+        return afterRequestedExecutionDateTime;
+    }
+
+    public String getAfterConsentId() {
+        return afterConsentId;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    @Override
+    public String toString() {
+        return "DueScheduledPaymentConsentsQuery{" +
+                "fromDateTime=" + fromDateTime +
+                ", toDateTime=" + toDateTime +
+                ", afterRequestedExecutionDateTime=" + afterRequestedExecutionDateTime +
+                ", afterConsentId='" + afterConsentId + '\'' +
+                ", limit=" + limit +
+                '}';
+    }
+}
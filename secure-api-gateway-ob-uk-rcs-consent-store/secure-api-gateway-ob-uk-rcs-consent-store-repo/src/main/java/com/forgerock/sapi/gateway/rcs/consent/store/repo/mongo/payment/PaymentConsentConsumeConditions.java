@@ -0,0 +1,122 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.payment;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Collection;
+
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import com.forgerock.sapi.gateway.uk.common.shared.api.meta.obie.OBVersion;
+
+/**
+ * Conditions that a Payment Consent must meet in order to be consumed by
+ * {@link ConsumablePaymentConsentRepository#findAndConsume(PaymentConsentConsumeConditions, String, Class)}
+ */
+public class PaymentConsentConsumeConditions {
+
+    private final String consentId;
+
+    private final String apiClientId;
+
+    /**
+     * Statuses which are allowed to transition to the consumed status
+     */
+    private final Collection<String> consumableStatuses;
+
+    /**
+     * Optional - the requestVersions that the consent may have been created with, null means any version
+     */
+    private final Collection<OBVersion> requestVersions;
+
+    /**
+     * Optional - the initiationFingerprint that the consent must have
+     */
+    private final String initiationFingerprint;
+
+    /**
+     * Optional - the authorisedDebtorAccountId that the consent must have
+     */
+    private final String authorisedDebtorAccountId;
+
+    public PaymentConsentConsumeConditions(String consentId, String apiClientId, Collection<String> consumableStatuses,
+                                           Collection<OBVersion> requestVersions, String initiationFingerprint,
+                                           String authorisedDebtorAccountId) {
+        this.consentId = requireNonNull(consentId, "consentId must be provided");
+        this.apiClientId = requireNonNull(apiClientId, "apiClientId must be provided");
+        this.consumableStatuses = requireNonNull(consumableStatuses, "consumableStatuses must be provided");
+        this.requestVersions = requestVersions;
+        this.initiationFingerprint = initiationFingerprint;
+        this.authorisedDebtorAccountId = authorisedDebtorAccountId;
+    }
+
+    public String getConsentId() {
+        return consentId;
+    }
+
+    public String getApiClientId() {
+        return apiClientId;
+    }
+
+    public Collection<String> getConsumableStatuses() {
+        return consumableStatuses;
+    }
+
+    public Collection<OBVersion> getRequestVersions() {
+        return requestVersions;
+    }
+
+    public String getInitiationFingerprint() {
+        return initiationFingerprint;
+    }
+
+    public String getAuthorisedDebtorAccountId() {
+        return authorisedDebtorAccountId;
+    }
+
+    /**
+     * @return Criteria matching the consent only if it meets all the conditions
+     */
+    public Criteria toCriteria() {
+        final Criteria criteria = Criteria.where("_id").is(consentId)
+                                          .and("apiClientId").is(apiClientId)
+                                          .and("deleted").is(false)
+                                          .and("status").in(consumableStatuses);
+        if (requestVersions != null) {
+            criteria.and("requestVersion").in(requestVersions);
+        }
+        if (initiationFingerprint != null) {
+            criteria.and("initiationFingerprint").is(initiationFingerprint);
+        }
+        if (authorisedDebtorAccountId != null) {
+            criteria.and("authorisedDebtorAccountId").is(authorisedDebtorAccountId);
+        }
+        return criteria;
+    }
+
+    @Override
+    public String toString() {
+        return "PaymentConsentConsumeConditions{" +
+                "consentId='" + consentId + '\'' +
+                ", apiClientId='" + apiClientId + '\'' +
+                ", consumableStatuses=" + consumableStatuses +
+                ", requestVersions=" + requestVersions +
+                ", initiationFingerprint='" + initiationFingerprint + '\'' +
+                ", authorisedDebtorAccountId='" + authorisedDebtorAccountId + '\'' +
+                '}';
+    }
+}
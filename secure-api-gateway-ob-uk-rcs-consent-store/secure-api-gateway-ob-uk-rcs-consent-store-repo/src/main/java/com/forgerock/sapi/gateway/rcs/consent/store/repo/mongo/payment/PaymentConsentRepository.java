@@ -18,14 +18,33 @@ package com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.payment;
 import java.util.Optional;
 
 import org.joda.time.DateTime;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.BasePaymentConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.OwnedConsentRepository;
 
-public interface PaymentConsentRepository<T extends BasePaymentConsentEntity> extends MongoRepository<T, String> {
+public interface PaymentConsentRepository<T extends BasePaymentConsentEntity> extends MongoRepository<T, String>, ConsumablePaymentConsentRepository<T>,
+                                                                                  OwnedConsentRepository<T> {
 
-    @Query("{ 'apiClientId': ?0, 'idempotencyKey' : ?1, 'idempotencyKeyExpiration': {$gt: ?2 } }")
+    String IDEMPOTENCY_INDEX_NAME = "idempotencyData";
+
+    /**
+     * Partial index supporting findByIdempotencyData, deleted consents are excluded from the index.
+     */
+    static Index idempotencyIndex() {
+        return new Index().on("apiClientId", Direction.ASC)
+                          .on("idempotencyKey", Direction.ASC)
+                          .on("idempotencyKeyExpiration", Direction.ASC)
+                          .named(IDEMPOTENCY_INDEX_NAME)
+                          .partial(PartialIndexFilter.of(Criteria.where("deleted").is(false)));
+    }
+
+    @Query("{ 'apiClientId': ?0, 'idempotencyKey' : ?1, 'idempotencyKeyExpiration': {$gt: ?2 }, 'deleted': false }")
     Optional<T> findByIdempotencyData(String apiClientId, String idempotencyKey, DateTime currentTime);
 
 }
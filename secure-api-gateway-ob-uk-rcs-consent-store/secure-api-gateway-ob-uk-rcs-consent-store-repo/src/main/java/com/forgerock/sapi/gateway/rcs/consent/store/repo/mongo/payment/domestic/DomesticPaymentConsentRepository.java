@@ -16,7 +16,9 @@
 package com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.payment.domestic;
 
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.domestic.DomesticPaymentConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.OwnedConsentRepository;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.payment.ConsumablePaymentConsentRepository;
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.payment.PaymentConsentRepository;
 
-public interface DomesticPaymentConsentRepository extends PaymentConsentRepository<DomesticPaymentConsentEntity> {
+public interface DomesticPaymentConsentRepository extends PaymentConsentRepository<DomesticPaymentConsentEntity>, ConsumablePaymentConsentRepository<DomesticPaymentConsentEntity>, OwnedConsentRepository<DomesticPaymentConsentEntity> {
 }
@@ -16,7 +16,9 @@
 package com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.payment.file;
 
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.file.FilePaymentConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.OwnedConsentRepository;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.payment.ConsumablePaymentConsentRepository;
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.payment.PaymentConsentRepository;
 
-public interface FilePaymentConsentRepository  extends PaymentConsentRepository<FilePaymentConsentEntity> {
+public interface FilePaymentConsentRepository extends PaymentConsentRepository<FilePaymentConsentEntity>, ConsumablePaymentConsentRepository<FilePaymentConsentEntity>, OwnedConsentRepository<FilePaymentConsentEntity> {
 }
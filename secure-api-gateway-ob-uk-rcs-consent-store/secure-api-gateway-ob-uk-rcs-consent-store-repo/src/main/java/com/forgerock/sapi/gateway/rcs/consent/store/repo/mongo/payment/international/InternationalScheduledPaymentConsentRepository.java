@@ -16,7 +16,9 @@
 package com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.payment.international;
 
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.international.InternationalScheduledPaymentConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.OwnedConsentRepository;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.payment.ConsumablePaymentConsentRepository;
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.payment.PaymentConsentRepository;
 
-public interface InternationalScheduledPaymentConsentRepository extends PaymentConsentRepository<InternationalScheduledPaymentConsentEntity> {
+public interface InternationalScheduledPaymentConsentRepository extends PaymentConsentRepository<InternationalScheduledPaymentConsentEntity>, ConsumablePaymentConsentRepository<InternationalScheduledPaymentConsentEntity>, OwnedConsentRepository<InternationalScheduledPaymentConsentEntity> {
 }
@@ -16,7 +16,9 @@
 package com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.payment.international;
 
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.international.InternationalStandingOrderConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.OwnedConsentRepository;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.payment.ConsumablePaymentConsentRepository;
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.payment.PaymentConsentRepository;
 
-public interface InternationalStandingOrderPaymentConsentRepository extends PaymentConsentRepository<InternationalStandingOrderConsentEntity> {
+public interface InternationalStandingOrderPaymentConsentRepository extends PaymentConsentRepository<InternationalStandingOrderConsentEntity>, ConsumablePaymentConsentRepository<InternationalStandingOrderConsentEntity>, OwnedConsentRepository<InternationalStandingOrderConsentEntity> {
 }
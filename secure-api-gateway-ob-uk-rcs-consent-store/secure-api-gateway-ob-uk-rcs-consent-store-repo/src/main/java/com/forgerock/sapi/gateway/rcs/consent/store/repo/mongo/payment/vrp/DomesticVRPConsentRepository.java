@@ -16,7 +16,12 @@
 package com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.payment.vrp;
 
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.vrp.DomesticVRPConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.OwnedConsentRepository;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.payment.ConsumablePaymentConsentRepository;
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.payment.PaymentConsentRepository;
 
-public interface DomesticVRPConsentRepository  extends PaymentConsentRepository<DomesticVRPConsentEntity> {
+public interface DomesticVRPConsentRepository extends PaymentConsentRepository<DomesticVRPConsentEntity>,
+                                                      ConsumablePaymentConsentRepository<DomesticVRPConsentEntity>,
+                                                      OwnedConsentRepository<DomesticVRPConsentEntity>,
+                                                      VRPLimitReservationRepository {
 }
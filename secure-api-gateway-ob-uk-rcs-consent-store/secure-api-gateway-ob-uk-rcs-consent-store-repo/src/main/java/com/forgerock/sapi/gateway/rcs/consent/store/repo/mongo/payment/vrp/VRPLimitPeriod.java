@@ -0,0 +1,80 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.payment.vrp;
+
+import static java.util.Objects.requireNonNull;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.vrp.VRPPeriodAlignment;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.vrp.VRPPeriodType;
+
+/**
+ * One of the PeriodicLimits of a VRP Consent, resolved to the period which a reservation is being made in.
+ */
+public class VRPLimitPeriod {
+
+    private final VRPPeriodType periodType;
+
+    private final VRPPeriodAlignment periodAlignment;
+
+    private final Date periodStart;
+
+    private final BigDecimal limitAmount;
+
+    private final String currency;
+
+    public VRPLimitPeriod(VRPPeriodType periodType, VRPPeriodAlignment periodAlignment, Date periodStart,
+                          BigDecimal limitAmount, String currency) {
+        this.periodType = requireNonNull(periodType, "periodType must be provided");
+        this.periodAlignment = requireNonNull(periodAlignment, "periodAlignment must be provided");
+        this.periodStart = requireNonNull(periodStart, "periodStart must be provided");
+        this.limitAmount = requireNonNull(limitAmount, "limitAmount must be provided");
+        this.currency = requireNonNull(currency, "currency must be provided");
+    }
+
+    public VRPPeriodType getPeriodType() {
+        return periodType;
+    }
+
+    public VRPPeriodAlignment getPeriodAlignment() {
+        return periodAlignment;
+    }
+
+    public Date getPeriodStart() {
+        return periodStart;
+    }
+
+    public BigDecimal getLimitAmount() {
+        return limitAmount;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    @Override
+    public String toString() {
+        return "VRPLimitPeriod{" +
+                "periodType=" + periodType +
+                ", periodAlignment=" + periodAlignment +
+                ", periodStart=" + periodStart +
+                ", limitAmount=" + limitAmount +
+                ", currency='" + currency + '\'' +
+                '}';
+    }
+}
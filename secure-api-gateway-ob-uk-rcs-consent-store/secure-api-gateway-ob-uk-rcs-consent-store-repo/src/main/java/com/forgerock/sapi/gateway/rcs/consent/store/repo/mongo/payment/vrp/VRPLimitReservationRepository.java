@@ -0,0 +1,66 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.payment.vrp;
+
+import java.util.List;
+import java.util.Optional;
+
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.vrp.DomesticVRPConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.vrp.LimitReservation;
+
+/**
+ * Repository fragment which tracks the usage of a VRP Consent's PeriodicLimits.
+ * <p>
+ * Many VRP payments may be made concurrently against the same consent, therefore usage is never calculated by reading
+ * the consent and saving it back. Instead each operation is a single conditional update which checks the limits and
+ * increments the per period counters (see {@link com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.vrp.PeriodicLimitUsage})
+ * atomically in the database.
+ */
+public interface VRPLimitReservationRepository {
+
+    /**
+     * Reserves the amount against every supplied period, providing that the consent has the expected status and that no
+     * period's limit would be exceeded. This fails if a period's usage counter is missing or is for a different period,
+     * in which case {@link #startLimitPeriods(String, List)} should be called before retrying.
+     *
+     * @param consentId       the id of the consent
+     * @param apiClientId     the id of the ApiClient that owns the consent
+     * @param requiredStatus  the status that the consent must be in
+     * @param reservation     the reservation to make, this is recorded against the consent so that it can later be released
+     * @param periods         the periods to reserve the amount in
+     * @return the updated consent, or an empty Optional if the reservation could not be made
+     */
+    Optional<DomesticVRPConsentEntity> reserveLimit(String consentId, String apiClientId, String requiredStatus,
+                                                    LimitReservation reservation, List<VRPLimitPeriod> periods);
+
+    /**
+     * Ensures that a usage counter exists for each of the periods, creating missing counters and resetting counters
+     * which belong to an earlier period. Counters are never moved back to an earlier period.
+     *
+     * @return true if any counter was created or reset
+     */
+    boolean startLimitPeriods(String consentId, List<VRPLimitPeriod> periods);
+
+    /**
+     * Releases a reservation previously made in the supplied periods, marking it as released. Periods which have since
+     * ended are left untouched, as their counters have already been reset, and counters never drop below zero.
+     *
+     * @return the updated consent, or an empty Optional if the consent does not have an unreleased reservation with
+     * the reservation's id
+     */
+    Optional<DomesticVRPConsentEntity> releaseLimit(String consentId, String apiClientId, LimitReservation reservation,
+                                                    List<VRPLimitPeriod> periods);
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.payment.vrp;
+
+import static java.util.Objects.requireNonNull;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.vrp.DomesticVRPConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.vrp.LimitReservation;
+
+/**
+ * Implementation of the {@link VRPLimitReservationRepository} fragment using conditional $inc updates with arrayFilters.
+ * <p>
+ * Note: these updates do not go through the repository save operation, therefore the entityVersion is incremented
+ * explicitly. This ensures that a concurrent read-modify-save of the consent (e.g. a re-authorisation) fails its
+ * optimistic locking check rather than overwriting the usage counters.
+ */
+public class VRPLimitReservationRepositoryImpl implements VRPLimitReservationRepository {
+
+    private static final String USAGE_FIELD = "periodicLimitUsage";
+
+    private static final String RESERVATIONS_FIELD = "limitReservations";
+
+    /**
+     * Number of reservations retained per consent. The reservations are embedded in the consent document, which is read
+     * and written in full on every consent operation, so only enough are kept to release the payments in flight:
+     * released reservations are dropped first, then the unreleased reservations with the oldest reservationDateTime.
+     * A dropped reservation can no longer be released.
+     */
+    public static final int MAX_RETAINED_RESERVATIONS = 20;
+
+    /**
+     * Order of the retained reservations: unreleased before released, most recent first
+     */
+    private static final Sort RETAINED_RESERVATIONS_ORDER = Sort.by(Sort.Order.asc("released"),
+                                                                    Sort.Order.desc("reservationDateTime"));
+
+    private final MongoOperations mongoOperations;
+
+    public VRPLimitReservationRepositoryImpl(MongoOperations mongoOperations) {
+        this.mongoOperations = requireNonNull(mongoOperations, "mongoOperations must be provided");
+    }
+
+    @Override
+    public Optional<DomesticVRPConsentEntity> reserveLimit(String consentId, String apiClientId, String requiredStatus,
+                                                           LimitReservation reservation, List<VRPLimitPeriod> periods) {
+        final BigDecimal amount = reservation.getAmount();
+        final Criteria criteria = Criteria.where("_id").is(consentId)
+                                          .and("apiClientId").is(apiClientId)
+                                          .and("deleted").is(false)
+                                          .and("status").is(requiredStatus);
+        final Update update = new Update().inc("entityVersion", 1);
+        update.push(RESERVATIONS_FIELD).sort(RETAINED_RESERVATIONS_ORDER).slice(MAX_RETAINED_RESERVATIONS).each(toDocument(reservation));
+        final List<Criteria> limitCriteria = new ArrayList<>();
+        for (int i = 0; i < periods.size(); i++) {
+            final VRPLimitPeriod period = periods.get(i);
+            final Decimal128 maxReservedBeforeThisPayment = new Decimal128(period.getLimitAmount().subtract(amount));
+            limitCriteria.add(Criteria.where(USAGE_FIELD).elemMatch(matchesPeriod(period)
+                    .and("reservedAmount").lte(maxReservedBeforeThisPayment)));
+
+            final String identifier = "p" + i;
+            update.inc(USAGE_FIELD + ".$[" + identifier + "].reservedAmount", new Decimal128(amount))
+                  .filterArray(matchesPeriod(identifier, period));
+        }
+        if (!limitCriteria.isEmpty()) {
+            criteria.andOperator(limitCriteria);
+        }
+        return Optional.ofNullable(mongoOperations.findAndModify(new Query(criteria), update,
+                FindAndModifyOptions.options().returnNew(true), DomesticVRPConsentEntity.class));
+    }
+
+    @Override
+    public boolean startLimitPeriods(String consentId, List<VRPLimitPeriod> periods) {
+        boolean modified = false;
+        for (VRPLimitPeriod period : periods) {
+            final Query missingCounterQuery = new Query(Criteria.where("_id").is(consentId)
+                                                                .and(USAGE_FIELD).not().elemMatch(matchesType(period)));
+            final Document counter = new Document("periodType", period.getPeriodType().name())
+                    .append("periodAlignment", period.getPeriodAlignment().name())
+                    .append("periodStart", period.getPeriodStart())
+                    .append("reservedAmount", Decimal128.POSITIVE_ZERO)
+                    .append("currency", period.getCurrency());
+            final Update addCounter = new Update().push(USAGE_FIELD, counter).inc("entityVersion", 1);
+            modified |= mongoOperations.updateFirst(missingCounterQuery, addCounter, DomesticVRPConsentEntity.class).getModifiedCount() == 1;
+
+            final Query staleCounterQuery = new Query(Criteria.where("_id").is(consentId)
+                                                              .and(USAGE_FIELD).elemMatch(matchesType(period)
+                                                                      .and("periodStart").lt(period.getPeriodStart())));
+            final Update resetCounter = new Update().set(USAGE_FIELD + ".$[s].periodStart", period.getPeriodStart())
+                                                    .set(USAGE_FIELD + ".$[s].reservedAmount", Decimal128.POSITIVE_ZERO)
+                                                    .inc("entityVersion", 1)
+                                                    .filterArray(matchesType("s", period).and("s.periodStart").lt(period.getPeriodStart()));
+            modified |= mongoOperations.updateFirst(staleCounterQuery, resetCounter, DomesticVRPConsentEntity.class).getModifiedCount() == 1;
+        }
+        return modified;
+    }
+
+    @Override
+    public Optional<DomesticVRPConsentEntity> releaseLimit(String consentId, String apiClientId, LimitReservation reservation,
+                                                           List<VRPLimitPeriod> periods) {
+        final Decimal128 amount = new Decimal128(reservation.getAmount());
+        final Query query = new Query(Criteria.where("_id").is(consentId)
+                                              .and("apiClientId").is(apiClientId)
+                                              .and("deleted").is(false)
+                                              .and(RESERVATIONS_FIELD).elemMatch(Criteria.where("reservationId").is(reservation.getReservationId())
+                                                                                         .and("released").is(false)));
+        final Update update = new Update().inc("entityVersion", 1)
+                                          .set(RESERVATIONS_FIELD + ".$[res].released", true)
+                                          .filterArray(Criteria.where("res.reservationId").is(reservation.getReservationId()));
+        for (int i = 0; i < periods.size(); i++) {
+            final VRPLimitPeriod period = periods.get(i);
+            final String identifier = "r" + i;
+            update.inc(USAGE_FIELD + ".$[" + identifier + "].reservedAmount", new Decimal128(reservation.getAmount().negate()))
+                  .filterArray(matchesPeriod(identifier, period).and(identifier + ".reservedAmount").gte(amount));
+        }
+        return Optional.ofNullable(mongoOperations.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), DomesticVRPConsentEntity.class));
+    }
+
+    private static Document toDocument(LimitReservation reservation) {
+        return new Document("reservationId", reservation.getReservationId())
+                .append("amount", new Decimal128(reservation.getAmount()))
+                .append("currency", reservation.getCurrency())
+                .append("reservationDateTime", reservation.getReservationDateTime())
+                .append("released", false);
+    }
+
+    private static Criteria matchesType(VRPLimitPeriod period) {
+        return Criteria.where("periodType").is(period.getPeriodType().name())
+                       .and("periodAlignment").is(period.getPeriodAlignment().name())
+                       .and("currency").is(period.getCurrency());
+    }
+
+    private static Criteria matchesPeriod(VRPLimitPeriod period) {
+        return matchesType(period).and("periodStart").is(period.getPeriodStart());
+    }
+
+    private static Criteria matchesType(String identifier, VRPLimitPeriod period) {
+        return Criteria.where(identifier + ".periodType").is(period.getPeriodType().name())
+                       .and(identifier + ".periodAlignment").is(period.getPeriodAlignment().name())
+                       .and(identifier + ".currency").is(period.getCurrency());
+    }
+
+    private static Criteria matchesPeriod(String identifier, VRPLimitPeriod period) {
+        return matchesType(identifier, period).and(identifier + ".periodStart").is(period.getPeriodStart());
+    }
+}
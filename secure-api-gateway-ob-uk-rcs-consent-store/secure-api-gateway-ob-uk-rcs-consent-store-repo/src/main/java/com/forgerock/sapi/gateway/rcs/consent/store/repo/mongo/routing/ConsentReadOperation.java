@@ -0,0 +1,38 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.routing;
+
+/**
+ * Classes of operation which read consents, each class can be routed to a different set of Mongo replica set members,
+ * see {@link ConsentReadRouting}
+ */
+public enum ConsentReadOperation {
+
+    /**
+     * Reads used to display a consent to the PSU e.g. the consent details UI
+     */
+    DETAILS,
+
+    /**
+     * Queries which find many consents e.g. the scheduled payment due-window queries
+     */
+    SEARCH,
+
+    /**
+     * Reads and writes which transition a consent to a new status, these always use the primary
+     */
+    TRANSITION
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.routing;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.BsonDocument;
+import org.bson.BsonTimestamp;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.stereotype.Component;
+
+import com.mongodb.ClientSessionOptions;
+import com.mongodb.ReadPreference;
+import com.mongodb.client.ClientSession;
+
+/**
+ * Routes consent reads to Mongo replica set members according to the class of operation being performed, allowing
+ * read only paths such as the consent details UI to be served by secondaries rather than competing with writes on the
+ * primary.
+ * <p>
+ * Each {@link ConsentReadOperation} has a configured ReadPreference: DETAILS and SEARCH default to secondaryPreferred
+ * bounded by maxStalenessSeconds, TRANSITION always uses the primary. Reads issued by the repository methods listed in
+ * primaryRepositoryMethods (e.g. DomesticPaymentConsentRepository.findOwnedConsent, which serves getConsent) always
+ * use the primary.
+ * <p>
+ * DETAILS and TRANSITION scopes use causally consistent sessions. When a TRANSITION scope keyed by a consentId closes,
+ * the operation time of its session is remembered, and a later DETAILS scope for the same consentId advances its
+ * session to that time, so that a secondary only serves the read once it has replicated the PSU's write. The
+ * operation times are held in memory (bounded by causalTokenCacheSize), so the guarantee only holds for reads served by
+ * the same Consent Store replica as the write: deployments must route a PSU's journey to one replica (sticky routing),
+ * otherwise a details read made by another replica may be served by a secondary up to maxStalenessSeconds behind.
+ * <p>
+ * Routing is disabled by default, in which case scopes have no effect.
+ */
+@Component
+public class ConsentReadRouting {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConsentReadRouting.class);
+
+    private final MongoDatabaseFactory mongoDatabaseFactory;
+
+    private final boolean enabled;
+
+    private final Map<ConsentReadOperation, ReadPreference> readPreferences;
+
+    private final Set<String> primaryRepositoryMethods;
+
+    private final Map<String, CausalToken> causalTokens;
+
+    public ConsentReadRouting(MongoDatabaseFactory mongoDatabaseFactory,
+                              @Value("${consent.store.mongo.readRouting.enabled:false}") boolean enabled,
+                              @Value("${consent.store.mongo.readRouting.details:secondaryPreferred}") String detailsReadPreference,
+                              @Value("${consent.store.mongo.readRouting.search:secondaryPreferred}") String searchReadPreference,
+                              @Value("${consent.store.mongo.readRouting.maxStalenessSeconds:90}") long maxStalenessSeconds,
+                              @Value("${consent.store.mongo.readRouting.primaryRepositoryMethods:}") Set<String> primaryRepositoryMethods,
+                              @Value("${consent.store.mongo.readRouting.causalTokenCacheSize:10000}") int causalTokenCacheSize) {
+        this.mongoDatabaseFactory = requireNonNull(mongoDatabaseFactory, "mongoDatabaseFactory must be provided");
+        this.enabled = enabled;
+        this.readPreferences = Map.of(ConsentReadOperation.DETAILS, createReadPreference(detailsReadPreference, maxStalenessSeconds),
+                                      ConsentReadOperation.SEARCH, createReadPreference(searchReadPreference, maxStalenessSeconds),
+                                      ConsentReadOperation.TRANSITION, ReadPreference.primary());
+        this.primaryRepositoryMethods = Set.copyOf(requireNonNull(primaryRepositoryMethods, "primaryRepositoryMethods must be provided"));
+        this.causalTokens = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CausalToken> eldest) {
+                return size() > causalTokenCacheSize;
+            }
+        });
+        logger.info("Consent read routing - enabled: {}, readPreferences: {}, primaryRepositoryMethods: {}",
+                enabled, readPreferences, primaryRepositoryMethods);
+    }
+
+    static ReadPreference createReadPreference(String name, long maxStalenessSeconds) {
+        final ReadPreference readPreference = ReadPreference.valueOf(name);
+        if (readPreference.equals(ReadPreference.primary())) {
+            return readPreference;
+        }
+        return ReadPreference.valueOf(name, List.of(), maxStalenessSeconds, TimeUnit.SECONDS);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public ReadPreference getReadPreference(ConsentReadOperation operation) {
+        return readPreferences.get(operation);
+    }
+
+    /**
+     * Opens a scope routing the reads made by the current thread for the operation.
+     *
+     * @param operation the class of operation being performed
+     * @param consentId the consent being read or written, used to provide causal consistency for DETAILS and
+     *                  TRANSITION scopes, may be null
+     * @return the scope, which must be closed
+     */
+    public ConsentReadScope openScope(ConsentReadOperation operation, String consentId) {
+        requireNonNull(operation, "operation must be provided");
+        if (!enabled) {
+            return new ConsentReadScope(operation, null, null, null);
+        }
+        final ReadPreference readPreference = readPreferences.get(operation);
+        if (operation == ConsentReadOperation.SEARCH || consentId == null) {
+            // Search results are streamed, the cursor may outlive the scope so it cannot be bound to a session
+            return new ConsentReadScope(operation, readPreference, null, null);
+        }
+
+        final ClientSession session = mongoDatabaseFactory.getSession(ClientSessionOptions.builder().causallyConsistent(true).build());
+        if (operation == ConsentReadOperation.TRANSITION) {
+            return new ConsentReadScope(operation, readPreference, session, () -> recordCausalToken(consentId, session));
+        }
+        final CausalToken causalToken = causalTokens.get(consentId);
+        if (causalToken != null) {
+            session.advanceClusterTime(causalToken.clusterTime());
+            session.advanceOperationTime(causalToken.operationTime());
+        }
+        return new ConsentReadScope(operation, readPreference, session, null);
+    }
+
+    private void recordCausalToken(String consentId, ClientSession session) {
+        if (session.getOperationTime() != null && session.getClusterTime() != null) {
+            causalTokens.put(consentId, new CausalToken(session.getClusterTime(), session.getOperationTime()));
+        }
+    }
+
+    /**
+     * @return the ReadPreference for reads made in the current scope by the repositoryMethod, or null if the default
+     * ReadPreference should be used
+     */
+    ReadPreference resolveReadPreference(ConsentReadScope scope, String repositoryMethod) {
+        if (scope == null || scope.getReadPreference() == null || primaryRepositoryMethods.contains(repositoryMethod)) {
+            return null;
+        }
+        return scope.getReadPreference();
+    }
+
+    private record CausalToken(BsonDocument clusterTime, BsonTimestamp operationTime) {
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.routing;
+
+import static java.util.Objects.requireNonNull;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.metrics.RepositoryMethodContext;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.partition.ConsentPartitions;
+import com.mongodb.ReadPreference;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+
+/**
+ * MongoTemplate which applies the {@link ConsentReadScope} of the current thread: reads use the scope's ReadPreference
+ * and all operations are bound to the scope's causally consistent session, if it has one. Outside of a scope this
+ * behaves exactly like MongoTemplate.
+ * <p>
+ * Write operations always go to the primary, as the ReadPreference of a collection only applies to reads.
+ * <p>
+ * Operations run in the scope of a partition other than partition 0 (see {@link ConsentPartitions}) are sent to that
+ * partition's deployment. Sessions belong to the deployment of partition 0, so such operations run without the scope's
+ * session, and are read from the primary when the scope requires causal consistency.
+ */
+public class ConsentReadRoutingMongoTemplate extends MongoTemplate {
+
+    private final ConsentReadRouting consentReadRouting;
+
+    private final ConsentPartitions consentPartitions;
+
+    public ConsentReadRoutingMongoTemplate(MongoDatabaseFactory mongoDbFactory, MongoConverter mongoConverter,
+                                           ConsentReadRouting consentReadRouting) {
+        this(mongoDbFactory, mongoConverter, consentReadRouting, ConsentPartitions.single());
+    }
+
+    public ConsentReadRoutingMongoTemplate(MongoDatabaseFactory mongoDbFactory, MongoConverter mongoConverter,
+                                           ConsentReadRouting consentReadRouting, ConsentPartitions consentPartitions) {
+        super(mongoDbFactory, mongoConverter);
+        this.consentReadRouting = requireNonNull(consentReadRouting, "consentReadRouting must be provided");
+        this.consentPartitions = requireNonNull(consentPartitions, "consentPartitions must be provided");
+    }
+
+    /**
+     * @return the partition of the current thread's partition scope, if it is a partition other than partition 0
+     */
+    private Integer currentAdditionalPartition() {
+        final Integer partition = ConsentPartitions.currentPartition();
+        return partition != null && partition > 0 ? partition : null;
+    }
+
+    @Override
+    protected MongoDatabase doGetDatabase() {
+        final Integer partition = currentAdditionalPartition();
+        if (partition != null) {
+            return consentPartitions.getPartitionDatabaseFactory(partition).getMongoDatabase();
+        }
+        final ConsentReadScope scope = ConsentReadScope.current();
+        if (scope != null && scope.getSession() != null) {
+            return getMongoDatabaseFactory().withSession(scope.getSession()).getMongoDatabase();
+        }
+        return super.doGetDatabase();
+    }
+
+    @Override
+    protected MongoCollection<Document> prepareCollection(MongoCollection<Document> collection) {
+        final MongoCollection<Document> preparedCollection = super.prepareCollection(collection);
+        final ConsentReadScope scope = ConsentReadScope.current();
+        if (scope != null && scope.getSession() != null && currentAdditionalPartition() != null) {
+            return preparedCollection.withReadPreference(ReadPreference.primary());
+        }
+        final ReadPreference readPreference = consentReadRouting.resolveReadPreference(scope, RepositoryMethodContext.current());
+        if (readPreference != null && !readPreference.equals(preparedCollection.getReadPreference())) {
+            return preparedCollection.withReadPreference(readPreference);
+        }
+        return preparedCollection;
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.routing;
+
+import com.mongodb.ReadPreference;
+import com.mongodb.client.ClientSession;
+
+/**
+ * Scope in which the reads made by the current thread are routed according to a {@link ConsentReadOperation}, scopes
+ * are opened via {@link ConsentReadRouting#openScope(ConsentReadOperation, String)} and must be closed by the thread
+ * that opened them, typically using try-with-resources.
+ */
+public class ConsentReadScope implements AutoCloseable {
+
+    private static final ThreadLocal<ConsentReadScope> CURRENT_SCOPE = new ThreadLocal<>();
+
+    private final ConsentReadOperation operation;
+
+    private final ReadPreference readPreference;
+
+    private final ClientSession session;
+
+    private final Runnable onClose;
+
+    private final ConsentReadScope previousScope;
+
+    private boolean closed;
+
+    ConsentReadScope(ConsentReadOperation operation, ReadPreference readPreference, ClientSession session, Runnable onClose) {
+        this.operation = operation;
+        this.readPreference = readPreference;
+        this.session = session;
+        this.onClose = onClose;
+        this.previousScope = CURRENT_SCOPE.get();
+        CURRENT_SCOPE.set(this);
+    }
+
+    /**
+     * @return the scope of the current thread, or null if no scope is open
+     */
+    public static ConsentReadScope current() {
+        return CURRENT_SCOPE.get();
+    }
+
+    public ConsentReadOperation getOperation() {
+        return operation;
+    }
+
+    /**
+     * @return the ReadPreference for reads in this scope, or null to use the default ReadPreference
+     */
+    public ReadPreference getReadPreference() {
+        return readPreference;
+    }
+
+    /**
+     * @return causally consistent session used by all operations in this scope, or null if the scope has no session
+     */
+    public ClientSession getSession() {
+        return session;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (onClose != null) {
+                onClose.run();
+            }
+        } finally {
+            if (session != null) {
+                session.close();
+            }
+            if (previousScope == null) {
+                CURRENT_SCOPE.remove();
+            } else {
+                CURRENT_SCOPE.set(previousScope);
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.service;
+
+import java.util.Optional;
+
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.BaseConsentEntity;
+
+/**
+ * Access to the consents of a particular type which have been moved to the archive, see
+ * {@link com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.ConsentArchiveRepository}
+ *
+ * @param <T> type of the consent entity
+ */
+public interface ArchivedConsentStore<T extends BaseConsentEntity<?>> {
+
+    /**
+     * Store used when archiving is not configured, no consents are archived.
+     */
+    static <T extends BaseConsentEntity<?>> ArchivedConsentStore<T> none() {
+        return new ArchivedConsentStore<>() {
+            @Override
+            public Optional<T> findArchivedConsent(String consentId) {
+                return Optional.empty();
+            }
+
+            @Override
+            public void deleteArchivedConsent(String consentId, String revokedStatus) {
+                throw new IllegalStateException("Consent: " + consentId + " is not archived");
+            }
+        };
+    }
+
+    Optional<T> findArchivedConsent(String consentId);
+
+    void deleteArchivedConsent(String consentId, String revokedStatus);
+}
@@ -17,19 +17,25 @@ package com.forgerock.sapi.gateway.rcs.consent.store.repo.service;
 
 import static java.util.Objects.requireNonNull;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
+import org.springframework.core.GenericTypeResolver;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.util.MultiValueMap;
 
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.BaseConsentEntity;
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.exception.ConsentStoreException;
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.exception.ConsentStoreException.ErrorType;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.ConsentOwnership;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.OwnedConsentRepository;
+import com.forgerock.sapi.gateway.uk.common.shared.api.meta.obie.OBVersion;
 
 public abstract class BaseConsentService<T extends BaseConsentEntity<?>, A extends AuthoriseConsentArgs> implements ConsentService<T, A> {
 
@@ -37,6 +43,18 @@ public abstract class BaseConsentService<T extends BaseConsentEntity<?>, A exten
 
     protected final MongoRepository<T, String> repo;
 
+    /**
+     * The repo as an OwnedConsentRepository, used to push the ownership and soft delete checks of getConsent down into
+     * the query. Null if the repo does not implement the fragment, in which case the checks are applied to the consent
+     * after it has been read.
+     */
+    private final OwnedConsentRepository<T> ownedConsentRepo;
+
+    /**
+     * Entity class of the consents managed by this service, null if ownedConsentRepo is null
+     */
+    private final Class<T> entityClass;
+
     /**
      * Map of the valid state transitions.
      *
@@ -45,7 +63,11 @@ public abstract class BaseConsentService<T extends BaseConsentEntity<?>, A exten
      */
     private final MultiValueMap<String, String> validStateTransitions;
 
-    private final Supplier<String> idGenerator;
+    /**
+     * Generates the ids of new consents, defaults to the generator supplied on construction. The Supplier is wrapped in
+     * an AtomicReference to allow the id strategy to be customised when the service has been created.
+     */
+    private final AtomicReference<Supplier<String>> idGenerator;
 
     /**
      * Initial status of the consent when it has been newly created
@@ -75,9 +97,42 @@ public abstract class BaseConsentService<T extends BaseConsentEntity<?>, A exten
      */
     private final AtomicReference<Consumer<T>> apiVersionValidationStrategy = new AtomicReference<>(NO_VALIDATION_STRATEGY);
 
+    /**
+     * The requestVersions of the consents that pass the apiVersionValidationStrategy, this allows the API version
+     * validation to be pushed down into queries which update a consent without reading it first.
+     * <p>
+     * By default, this is null meaning that consents with any requestVersion may be accessed.
+     */
+    private final AtomicReference<Collection<OBVersion>> accessibleRequestVersions = new AtomicReference<>();
+
+    /**
+     * Store of the consents that have been moved to the archive, getConsent falls back to reading from the archive
+     * when a consent is not found in the repo.
+     * <p>
+     * By default, consents are not archived.
+     */
+    private final AtomicReference<ArchivedConsentStore<T>> archivedConsentStore = new AtomicReference<>(ArchivedConsentStore.none());
+
+    /**
+     * Listener notified of consent creation, status changes and deletion, used to maintain the consent status counts.
+     * <p>
+     * By default, status changes are not tracked.
+     */
+    private final AtomicReference<ConsentStatusListener> consentStatusListener = new AtomicReference<>(ConsentStatusListener.none());
+
+    /**
+     * Embeds the partition that new consents are stored in into their ids.
+     * <p>
+     * By default, the Consent Store is not partitioned.
+     */
+    private final AtomicReference<ConsentIdPartitioner> consentIdPartitioner = new AtomicReference<>(ConsentIdPartitioner.none());
+
+    @SuppressWarnings("unchecked")
     public BaseConsentService(MongoRepository<T, String> repo, Supplier<String> idGenerator, ConsentStateModel consentStateModel) {
         this.repo = requireNonNull(repo, "repo must be provided");
-        this.idGenerator = requireNonNull(idGenerator, "idGenerator must be provided");
+        this.entityClass = repo instanceof OwnedConsentRepository ? resolveEntityClass() : null;
+        this.ownedConsentRepo = entityClass != null ? (OwnedConsentRepository<T>) repo : null;
+        this.idGenerator = new AtomicReference<>(requireNonNull(idGenerator, "idGenerator must be provided"));
 
         requireNonNull(consentStateModel, "consentStateModel must be provided");
         this.validStateTransitions = consentStateModel.getValidStateTransitions();
@@ -87,25 +142,113 @@ public abstract class BaseConsentService<T extends BaseConsentEntity<?>, A exten
         this.revokedConsentStatus = consentStateModel.getRevokedConsentStatus();
     }
 
+    @SuppressWarnings("unchecked")
+    private Class<T> resolveEntityClass() {
+        final Class<?>[] typeArguments = GenericTypeResolver.resolveTypeArguments(getClass(), BaseConsentService.class);
+        return typeArguments == null ? null : (Class<T>) typeArguments[0];
+    }
+
     void setApiVersionValidationStrategy(Consumer<T> apiVersionValidationStrategy) {
         requireNonNull(apiVersionValidationStrategy, "apiVersionValidationStrategy must be provided");
         this.apiVersionValidationStrategy.set(apiVersionValidationStrategy);
     }
 
+    void setAccessibleRequestVersions(Collection<OBVersion> accessibleRequestVersions) {
+        requireNonNull(accessibleRequestVersions, "accessibleRequestVersions must be provided");
+        this.accessibleRequestVersions.set(List.copyOf(accessibleRequestVersions));
+    }
+
+    void setIdGenerator(Supplier<String> idGenerator) {
+        requireNonNull(idGenerator, "idGenerator must be provided");
+        this.idGenerator.set(idGenerator);
+    }
+
+    void setArchivedConsentStore(ArchivedConsentStore<T> archivedConsentStore) {
+        requireNonNull(archivedConsentStore, "archivedConsentStore must be provided");
+        this.archivedConsentStore.set(archivedConsentStore);
+    }
+
+    void setConsentStatusListener(ConsentStatusListener consentStatusListener) {
+        requireNonNull(consentStatusListener, "consentStatusListener must be provided");
+        this.consentStatusListener.set(consentStatusListener);
+    }
+
+    void setConsentIdPartitioner(ConsentIdPartitioner consentIdPartitioner) {
+        requireNonNull(consentIdPartitioner, "consentIdPartitioner must be provided");
+        this.consentIdPartitioner.set(consentIdPartitioner);
+    }
+
+    /**
+     * Notifies the ConsentStatusListener of a change to a consent which has been written to the repo.
+     *
+     * @param fromStatus the status before the change, or null if the consent has been created
+     * @param toStatus   the status after the change, or null if the consent has been deleted
+     */
+    protected void statusChanged(String apiClientId, String fromStatus, String toStatus) {
+        if (!Objects.equals(fromStatus, toStatus)) {
+            consentStatusListener.get().statusChanged(apiClientId, fromStatus, toStatus);
+        }
+    }
+
+    /**
+     * @return the requestVersions of consents that can be accessed by this service, or null if any version can be accessed
+     */
+    protected Collection<OBVersion> getAccessibleRequestVersions() {
+        return accessibleRequestVersions.get();
+    }
+
     @Override
     public T createConsent(T consent) {
         if (consent.getId() != null) {
             throw new IllegalStateException("Cannot create consent, object already has an id: " + consent.getId());
         }
-        consent.setId(idGenerator.get());
+        consent.setId(consentIdPartitioner.get().partitionConsentId(idGenerator.get().get(), consent.getApiClientId()));
         consent.setStatus(initialConsentStatus);
 
-        return repo.insert(consent);
+        final T createdConsent = repo.insert(consent);
+        statusChanged(createdConsent.getApiClientId(), null, initialConsentStatus);
+        return createdConsent;
     }
 
     @Override
     public T getConsent(String consentId, String apiClientId) {
-        final Optional<T> findResult = repo.findById(consentId);
+        final T consent;
+        if (ownedConsentRepo != null) {
+            consent = findOwnedConsent(consentId, apiClientId);
+        } else {
+            Optional<T> findResult = repo.findById(consentId);
+            if (findResult.isEmpty()) {
+                findResult = archivedConsentStore.get().findArchivedConsent(consentId);
+            }
+            consent = checkAccess(findResult, consentId, apiClientId);
+        }
+        apiVersionValidationStrategy.get().accept(consent);
+        return consent;
+    }
+
+    /**
+     * Reads the consent with a query that only matches if it is owned by the apiClientId and has not been deleted. If
+     * nothing matches, the ownership of the consent is probed to report INVALID_PERMISSIONS or NOT_FOUND, without
+     * reading the whole document.
+     */
+    private T findOwnedConsent(String consentId, String apiClientId) {
+        final Optional<T> ownedConsent = ownedConsentRepo.findOwnedConsent(consentId, apiClientId, entityClass);
+        if (ownedConsent.isPresent()) {
+            return ownedConsent.get();
+        }
+        final Optional<ConsentOwnership> ownership = ownedConsentRepo.findConsentOwnership(consentId, entityClass);
+        if (ownership.isEmpty()) {
+            // Archived consents are rarely read, so the checks are applied after reading them
+            return checkAccess(archivedConsentStore.get().findArchivedConsent(consentId), consentId, apiClientId);
+        }
+        if (!Objects.equals(ownership.get().getApiClientId(), apiClientId)) {
+            throw new ConsentStoreException(ErrorType.INVALID_PERMISSIONS, consentId);
+        }
+        // The consent is owned by the apiClientId, therefore it has been deleted
+        throw new ConsentStoreException(ErrorType.NOT_FOUND, consentId);
+    }
+
+    private T checkAccess(Optional<T> findResult, String consentId, String apiClientId) {
         if (findResult.isEmpty()) {
             throw new ConsentStoreException(ErrorType.NOT_FOUND, consentId);
         }
@@ -116,7 +259,6 @@ public abstract class BaseConsentService<T extends BaseConsentEntity<?>, A exten
         if (consent.isDeleted()) {
             throw new ConsentStoreException(ErrorType.NOT_FOUND, consentId);
         }
-        apiVersionValidationStrategy.get().accept(consent);
         return consent;
     }
 
@@ -126,11 +268,14 @@ public abstract class BaseConsentService<T extends BaseConsentEntity<?>, A exten
         final T consent = getConsent(authoriseConsentArgs.getConsentId(), authoriseConsentArgs.getApiClientId());
         validateStateTransition(consent, authorisedConsentStatus);
 
+        final String previousStatus = consent.getStatus();
         consent.setStatus(authorisedConsentStatus);
         consent.setResourceOwnerId(authoriseConsentArgs.getResourceOwnerId());
         addConsentSpecificAuthorisationData(consent, authoriseConsentArgs);
 
-        return repo.save(consent);
+        final T authorisedConsent = repo.save(consent);
+        statusChanged(authorisedConsent.getApiClientId(), previousStatus, authorisedConsentStatus);
+        return authorisedConsent;
     }
 
     protected abstract void addConsentSpecificAuthorisationData(T consent, A authoriseConsentArgs);
@@ -142,6 +287,16 @@ public abstract class BaseConsentService<T extends BaseConsentEntity<?>, A exten
         }
     }
 
+    /**
+     * @return the statuses which are allowed to transition to the targetStatus
+     */
+    protected List<String> getStatusesAllowedToTransitionTo(String targetStatus) {
+        return validStateTransitions.entrySet().stream()
+                                    .filter(entry -> entry.getValue().contains(targetStatus))
+                                    .map(Map.Entry::getKey)
+                                    .toList();
+    }
+
     private boolean isTransitionAllowed(T consent, String targetStatus) {
         final List<String> validTransitions = validStateTransitions.get(consent.getStatus());
         return validTransitions != null && validTransitions.contains(targetStatus);
@@ -151,18 +306,28 @@ public abstract class BaseConsentService<T extends BaseConsentEntity<?>, A exten
     public T rejectConsent(String consentId, String apiClientId, String resourceOwnerId) {
         final T consent = getConsent(consentId, apiClientId);
         validateStateTransition(consent, rejectedConsentStatus);
+        final String previousStatus = consent.getStatus();
         consent.setStatus(rejectedConsentStatus);
         consent.setResourceOwnerId(resourceOwnerId);
 
-        return repo.save(consent);
+        final T rejectedConsent = repo.save(consent);
+        statusChanged(rejectedConsent.getApiClientId(), previousStatus, rejectedConsentStatus);
+        return rejectedConsent;
     }
 
     @Override
     public void deleteConsent(String consentId, String apiClientId) {
         final T consent = getConsent(consentId, apiClientId);
-        consent.setStatus(revokedConsentStatus);
-        consent.setDeleted(true);
-        repo.save(consent);
+        final String previousStatus = consent.getStatus();
+        if (consent.isArchived()) {
+            archivedConsentStore.get().deleteArchivedConsent(consentId, revokedConsentStatus);
+        } else {
+            consent.setStatus(revokedConsentStatus);
+            consent.setDeleted(true);
+            repo.save(consent);
+        }
+        // Deleted consents are not counted
+        statusChanged(apiClientId, previousStatus, null);
     }
 
     @Override
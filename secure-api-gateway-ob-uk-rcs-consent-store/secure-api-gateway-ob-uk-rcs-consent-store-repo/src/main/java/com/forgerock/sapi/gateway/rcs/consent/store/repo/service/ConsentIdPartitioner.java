@@ -0,0 +1,37 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.service;
+
+/**
+ * Embeds the partition that a new consent is stored in into its id, see
+ * {@link com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.partition.ConsentPartitions}
+ */
+public interface ConsentIdPartitioner {
+
+    /**
+     * Partitioner used when the Consent Store is not partitioned.
+     */
+    static ConsentIdPartitioner none() {
+        return (consentId, apiClientId) -> consentId;
+    }
+
+    /**
+     * @param consentId   the id generated for the new consent
+     * @param apiClientId the ApiClient that the consent belongs to
+     * @return the consentId, tagged with the partition that the consent is to be stored in
+     */
+    String partitionConsentId(String consentId, String apiClientId);
+}
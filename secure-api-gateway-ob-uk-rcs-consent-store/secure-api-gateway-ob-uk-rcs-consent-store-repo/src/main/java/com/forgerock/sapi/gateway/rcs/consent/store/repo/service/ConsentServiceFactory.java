@@ -17,13 +17,21 @@ package com.forgerock.sapi.gateway.rcs.consent.store.repo.service;
 
 import static java.util.Objects.requireNonNull;
 
+import java.util.Arrays;
+import java.util.Optional;
 import java.util.function.Consumer;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.GenericTypeResolver;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.BaseConsentEntity;
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.exception.ConsentStoreException;
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.exception.ConsentStoreException.ErrorType;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.ConsentArchiveRepository;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.partition.ConsentPartitions;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.counter.ConsentStatusCounterService;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.id.ConsentIdGenerators;
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.version.ApiVersionValidator;
 import com.forgerock.sapi.gateway.uk.common.shared.api.meta.obie.OBVersion;
 
@@ -31,20 +39,95 @@ public abstract class ConsentServiceFactory<T extends BaseConsentEntity<?>, A ex
 
     protected final MongoRepository<T, String> repo;
     protected final ApiVersionValidator apiVersionValidator;
+    private ConsentArchiveRepository consentArchiveRepository;
+    private ConsentIdGenerators consentIdGenerators;
+    private ConsentStatusCounterService consentStatusCounterService;
+    private ConsentPartitions consentPartitions;
 
     protected ConsentServiceFactory(MongoRepository<T, String> repo, ApiVersionValidator apiVersionValidator) {
         this.repo = requireNonNull(repo, "repo cannot be null");
         this.apiVersionValidator = requireNonNull(apiVersionValidator, "apiVersionValidator cannot be null");
     }
 
+    /**
+     * Optionally configures the archive which services fall back to when a consent is not in the live collection.
+     */
+    @Autowired(required = false)
+    public void setConsentArchiveRepository(ConsentArchiveRepository consentArchiveRepository) {
+        this.consentArchiveRepository = consentArchiveRepository;
+    }
+
+    /**
+     * Optionally configures the id strategy of the created services, by default the IntentType's generator is used.
+     */
+    @Autowired(required = false)
+    public void setConsentIdGenerators(ConsentIdGenerators consentIdGenerators) {
+        this.consentIdGenerators = consentIdGenerators;
+    }
+
+    /**
+     * Optionally configures the counters which the created services keep up to date as consents change status.
+     */
+    @Autowired(required = false)
+    public void setConsentStatusCounterService(ConsentStatusCounterService consentStatusCounterService) {
+        this.consentStatusCounterService = consentStatusCounterService;
+    }
+
+    /**
+     * Optionally configures the partitioning of the consents created by the created services.
+     */
+    @Autowired(required = false)
+    public void setConsentPartitions(ConsentPartitions consentPartitions) {
+        this.consentPartitions = consentPartitions;
+    }
+
     protected abstract S createBaseConsentService();
 
+    private S createConsentService() {
+        final S baseConsentService = createBaseConsentService();
+        if (consentArchiveRepository != null) {
+            baseConsentService.setArchivedConsentStore(createArchivedConsentStore());
+        }
+        if (consentIdGenerators != null) {
+            consentIdGenerators.getIdGenerator(ConsentTypeRegistry.getIntentType(getEntityClass()))
+                               .ifPresent(baseConsentService::setIdGenerator);
+        }
+        if (consentStatusCounterService != null) {
+            baseConsentService.setConsentStatusListener(
+                    consentStatusCounterService.createListener(ConsentTypeRegistry.getIntentType(getEntityClass())));
+        }
+        if (consentPartitions != null && consentPartitions.isPartitioned()) {
+            baseConsentService.setConsentIdPartitioner(consentPartitions);
+        }
+        return baseConsentService;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Class<T> getEntityClass() {
+        return (Class<T>) GenericTypeResolver.resolveTypeArguments(getClass(), ConsentServiceFactory.class)[0];
+    }
+
+    private ArchivedConsentStore<T> createArchivedConsentStore() {
+        final Class<T> entityClass = getEntityClass();
+        return new ArchivedConsentStore<>() {
+            @Override
+            public Optional<T> findArchivedConsent(String consentId) {
+                return consentArchiveRepository.findArchivedConsent(entityClass, consentId);
+            }
+
+            @Override
+            public void deleteArchivedConsent(String consentId, String revokedStatus) {
+                consentArchiveRepository.deleteArchivedConsent(entityClass, consentId, revokedStatus);
+            }
+        };
+    }
+
     /**
      * Creates a ConsentService to be used by the RCS internally, this service applies no API version validation
      * @return the ConsentService
      */
     public S createInternalConsentService() {
-        return createBaseConsentService();
+        return createConsentService();
     }
 
     /**
@@ -56,8 +139,11 @@ public abstract class ConsentServiceFactory<T extends BaseConsentEntity<?>, A ex
      */
     public S createApiConsentService(OBVersion apiVersion) {
         requireNonNull(apiVersion, "apiVersion cannot be null");
-        final S baseConsentService = createBaseConsentService();
+        final S baseConsentService = createConsentService();
         baseConsentService.setApiVersionValidationStrategy(applyApiVersionValidator(apiVersion));
+        baseConsentService.setAccessibleRequestVersions(Arrays.stream(OBVersion.values())
+                .filter(requestVersion -> apiVersionValidator.canAccessResourceUsingApiVersion(requestVersion, apiVersion))
+                .toList());
         return baseConsentService;
     }
 
@@ -0,0 +1,37 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.service;
+
+/**
+ * Notified when consents of a particular type are created, change status or are deleted, see
+ * {@link com.forgerock.sapi.gateway.rcs.consent.store.repo.service.counter.ConsentStatusCounterService}
+ */
+public interface ConsentStatusListener {
+
+    /**
+     * Listener used when status changes are not being tracked.
+     */
+    static ConsentStatusListener none() {
+        return (apiClientId, fromStatus, toStatus) -> {};
+    }
+
+    /**
+     * @param apiClientId the ApiClient that the consent belongs to
+     * @param fromStatus  the status before the change, or null if the consent has been created
+     * @param toStatus    the status after the change, or null if the consent has been deleted
+     */
+    void statusChanged(String apiClientId, String fromStatus, String toStatus);
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.service;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.util.MultiValueMap;
+
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.BaseConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.account.AccountAccessConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.customerinfo.CustomerInfoConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.funds.FundsConfirmationConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.domestic.DomesticPaymentConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.domestic.DomesticScheduledPaymentConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.domestic.DomesticStandingOrderConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.file.FilePaymentConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.international.InternationalPaymentConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.international.InternationalScheduledPaymentConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.international.InternationalStandingOrderConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.vrp.DomesticVRPConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.account.AccountAccessConsentStateModel;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.customerinfo.CustomerInfoConsentStateModel;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.funds.FundsConfirmationConsentStateModel;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.payment.PaymentConsentStateModel;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.payment.file.FilePaymentConsentStateModel;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.payment.vrp.VRPConsentStateModel;
+import com.forgerock.sapi.gateway.uk.common.shared.api.meta.share.IntentType;
+
+/**
+ * Registry of the consent entity types stored in the Consent Store, the {@link ConsentStateModel} and the
+ * {@link IntentType} of each type. Used by background tasks which operate on all consent collections.
+ */
+public final class ConsentTypeRegistry {
+
+    private static final Map<Class<? extends BaseConsentEntity<?>>, ConsentStateModel> CONSENT_STATE_MODELS;
+
+    static {
+        final Map<Class<? extends BaseConsentEntity<?>>, ConsentStateModel> consentStateModels = new LinkedHashMap<>();
+        consentStateModels.put(AccountAccessConsentEntity.class, AccountAccessConsentStateModel.getInstance());
+        consentStateModels.put(FundsConfirmationConsentEntity.class, FundsConfirmationConsentStateModel.getInstance());
+        consentStateModels.put(CustomerInfoConsentEntity.class, CustomerInfoConsentStateModel.getInstance());
+        consentStateModels.put(DomesticPaymentConsentEntity.class, PaymentConsentStateModel.getInstance());
+        consentStateModels.put(DomesticScheduledPaymentConsentEntity.class, PaymentConsentStateModel.getInstance());
+        consentStateModels.put(DomesticStandingOrderConsentEntity.class, PaymentConsentStateModel.getInstance());
+        consentStateModels.put(InternationalPaymentConsentEntity.class, PaymentConsentStateModel.getInstance());
+        consentStateModels.put(InternationalScheduledPaymentConsentEntity.class, PaymentConsentStateModel.getInstance());
+        consentStateModels.put(InternationalStandingOrderConsentEntity.class, PaymentConsentStateModel.getInstance());
+        consentStateModels.put(FilePaymentConsentEntity.class, FilePaymentConsentStateModel.getInstance());
+        consentStateModels.put(DomesticVRPConsentEntity.class, VRPConsentStateModel.getInstance());
+        CONSENT_STATE_MODELS = Collections.unmodifiableMap(consentStateModels);
+    }
+
+    private static final Map<Class<? extends BaseConsentEntity<?>>, IntentType> INTENT_TYPES = Map.ofEntries(
+            Map.entry(AccountAccessConsentEntity.class, IntentType.ACCOUNT_ACCESS_CONSENT),
+            Map.entry(FundsConfirmationConsentEntity.class, IntentType.FUNDS_CONFIRMATION_CONSENT),
+            Map.entry(CustomerInfoConsentEntity.class, IntentType.CUSTOMER_INFO_CONSENT),
+            Map.entry(DomesticPaymentConsentEntity.class, IntentType.PAYMENT_DOMESTIC_CONSENT),
+            Map.entry(DomesticScheduledPaymentConsentEntity.class, IntentType.PAYMENT_DOMESTIC_SCHEDULED_CONSENT),
+            Map.entry(DomesticStandingOrderConsentEntity.class, IntentType.PAYMENT_DOMESTIC_STANDING_ORDERS_CONSENT),
+            Map.entry(InternationalPaymentConsentEntity.class, IntentType.PAYMENT_INTERNATIONAL_CONSENT),
+            Map.entry(InternationalScheduledPaymentConsentEntity.class, IntentType.PAYMENT_INTERNATIONAL_SCHEDULED_CONSENT),
+            Map.entry(InternationalStandingOrderConsentEntity.class, IntentType.PAYMENT_INTERNATIONAL_STANDING_ORDERS_CONSENT),
+            Map.entry(FilePaymentConsentEntity.class, IntentType.PAYMENT_FILE_CONSENT),
+            Map.entry(DomesticVRPConsentEntity.class, IntentType.DOMESTIC_VRP_PAYMENT_CONSENT));
+
+    private ConsentTypeRegistry() {
+    }
+
+    /**
+     * @return map of each consent entity class to its state model, in a stable order
+     */
+    public static Map<Class<? extends BaseConsentEntity<?>>, ConsentStateModel> getConsentStateModels() {
+        return CONSENT_STATE_MODELS;
+    }
+
+    /**
+     * @return the IntentType of consents of the entityClass
+     * @throws IllegalArgumentException if the entityClass is not a registered consent type
+     */
+    public static IntentType getIntentType(Class<?> entityClass) {
+        final IntentType intentType = INTENT_TYPES.get(entityClass);
+        if (intentType == null) {
+            throw new IllegalArgumentException("Unknown consent entity class: " + entityClass);
+        }
+        return intentType;
+    }
+
+    /**
+     * @return the statuses of the state model which a consent can never leave, e.g. Consumed or Rejected
+     */
+    public static Set<String> getTerminalStatuses(ConsentStateModel consentStateModel) {
+        final MultiValueMap<String, String> transitions = consentStateModel.getValidStateTransitions();
+        final Set<String> terminalStatuses = new LinkedHashSet<>();
+        transitions.values().forEach(terminalStatuses::addAll);
+        terminalStatuses.add(consentStateModel.getRejectedConsentStatus());
+        terminalStatuses.add(consentStateModel.getRevokedConsentStatus());
+        terminalStatuses.removeIf(status -> {
+            final var toStatuses = transitions.get(status);
+            return toStatuses != null && !toStatuses.isEmpty();
+        });
+        return Collections.unmodifiableSet(terminalStatuses);
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.service;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.MongoLeaderLease;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Scaffolding shared by the Consent Store background tasks which run on a single elected replica: the scheduling of
+ * the task on daemon threads, the {@link MongoLeaderLease} used to elect the replica that runs it, the throttling of
+ * runs between batches and the run timer.
+ * <p>
+ * A run that throws is logged and the task runs again at its next scheduled time. Runs which process many batches
+ * should call {@link #pauseAndRenewLease()} between batches, so that a replica which has lost its lease (e.g. after a
+ * long GC pause) stops before another replica starts the same work.
+ */
+public class LeasedBackgroundJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(LeasedBackgroundJob.class);
+
+    private final String name;
+
+    private final MongoLeaderLease leaderLease;
+
+    private final String leaseName;
+
+    private final Duration leaseDuration;
+
+    private final long batchPauseMillis;
+
+    private final MeterRegistry meterRegistry;
+
+    private final String runTimerName;
+
+    private volatile ScheduledExecutorService executor;
+
+    /**
+     * @param name             name of the task, used in log messages and as the prefix of its thread names
+     * @param leaderLease      the lease used to elect the replica which runs the task
+     * @param leaseName        name of the task's lease
+     * @param leaseDuration    how long the lease is held for, runs must renew the lease within this duration
+     * @param batchPauseMillis time to pause between batches, 0 to not pause
+     * @param meterRegistry    registry of the run timer
+     * @param runTimerName     name of the timer which records the duration and outcome of each run
+     */
+    public LeasedBackgroundJob(String name, MongoLeaderLease leaderLease, String leaseName, Duration leaseDuration,
+                               long batchPauseMillis, MeterRegistry meterRegistry, String runTimerName) {
+        this.name = requireNonNull(name, "name must be provided");
+        this.leaderLease = requireNonNull(leaderLease, "leaderLease must be provided");
+        this.leaseName = requireNonNull(leaseName, "leaseName must be provided");
+        this.leaseDuration = requireNonNull(leaseDuration, "leaseDuration must be provided");
+        this.batchPauseMillis = batchPauseMillis;
+        this.meterRegistry = requireNonNull(meterRegistry, "meterRegistry must be provided");
+        this.runTimerName = requireNonNull(runTimerName, "runTimerName must be provided");
+    }
+
+    /**
+     * Creates the threads that the task's schedules run on.
+     *
+     * @param threadCount    number of threads, more than one is only needed if schedules must not wait for each other
+     * @param threadPriority priority of the threads
+     */
+    public synchronized void start(int threadCount, int threadPriority) {
+        if (executor != null) {
+            throw new IllegalStateException(name + " is already started");
+        }
+        final CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(name.toLowerCase().replace(' ', '-') + "-");
+        threadFactory.setDaemon(true);
+        threadFactory.setThreadPriority(threadPriority);
+        executor = Executors.newScheduledThreadPool(threadCount, threadFactory);
+    }
+
+    /**
+     * Runs the action repeatedly on the task's threads, with the delay between the end of one run and the start of
+     * the next. Exceptions thrown by the action are logged.
+     */
+    public void scheduleWithFixedDelay(String actionName, Runnable action, long initialDelayMillis, long delayMillis) {
+        if (executor == null) {
+            throw new IllegalStateException(name + " must be started before it is scheduled");
+        }
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                action.run();
+            } catch (RuntimeException ex) {
+                // Must not propagate, as that would cancel subsequent runs
+                logger.error("{} {} failed", name, actionName, ex);
+            }
+        }, initialDelayMillis, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return true if the task has been started, and has not been shut down
+     */
+    public boolean isStarted() {
+        return executor != null;
+    }
+
+    /**
+     * Stops the task's threads, interrupting any run in progress, and releases the lease if this replica holds it.
+     */
+    public synchronized void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+            leaderLease.release(leaseName);
+        }
+    }
+
+    /**
+     * Acquires, or renews, the task's lease.
+     *
+     * @return true if this replica holds the lease and should run the task
+     */
+    public boolean tryAcquireLease() {
+        if (leaderLease.tryAcquire(leaseName, leaseDuration)) {
+            return true;
+        }
+        logger.debug("{} lease held by another replica, skipping run", name);
+        return false;
+    }
+
+    /**
+     * Throttles a run between batches.
+     *
+     * @return false if the thread was interrupted, in which case the run should stop
+     */
+    public boolean pause() {
+        if (batchPauseMillis > 0) {
+            try {
+                Thread.sleep(batchPauseMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Throttles a run between batches, then renews the lease to check that this replica is still the leader.
+     *
+     * @return false if the run should stop, as the thread was interrupted or the lease was lost
+     */
+    public boolean pauseAndRenewLease() {
+        if (!pause()) {
+            return false;
+        }
+        if (!leaderLease.tryAcquire(leaseName, leaseDuration)) {
+            logger.warn("{} lost its lease, stopping run", name);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return a sample to pass to {@link #recordRun(Timer.Sample, String)} when the run ends
+     */
+    public Timer.Sample startRun() {
+        return Timer.start(meterRegistry);
+    }
+
+    /**
+     * Records the duration of a run in the run timer, tagged by its outcome.
+     */
+    public void recordRun(Timer.Sample sample, String outcome) {
+        sample.stop(Timer.builder(runTimerName).tag("outcome", outcome).register(meterRegistry));
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.service.archive;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.stereotype.Component;
+
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.BaseConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.ConsentArchiveRepository;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.ConsentStoreIndexInitialiser;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.MongoLeaderLease;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.partition.ConsentPartitions;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.ConsentTypeRegistry;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.LeasedBackgroundJob;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Background task which moves consents that can no longer change out of the live collections and into the archive
+ * collections managed by {@link ConsentArchiveRepository}.
+ * <p>
+ * A consent is archived once its status has not changed for archiveAfterDays and it is either in a terminal status of
+ * its state model (e.g. Consumed or Rejected) or has been deleted. Archived consents can still be read via
+ * the ConsentService getConsent methods, so that they remain available for audit.
+ * <p>
+ * Archiving is disabled by default. Runs are split into batches of batchSize consents, pause between batches and are
+ * capped at maxBatchesPerRun, remaining consents are picked up by the next run. Only the replica holding the
+ * {@link #LEASE_NAME} lease archives, each partition of the Consent Store is archived in turn.
+ * <p>
+ * Metrics: consent.store.archiver.archived (counter tagged by consentType) and consent.store.archiver.runs (timer
+ * tagged by outcome).
+ */
+@Component
+public class ConsentArchiver {
+
+    public static final String LEASE_NAME = "consentArchiver";
+
+    private static final Logger logger = LoggerFactory.getLogger(ConsentArchiver.class);
+
+    private final ConsentArchiveRepository consentArchiveRepository;
+
+    private final ConsentStoreIndexInitialiser indexInitialiser;
+
+    private final LeasedBackgroundJob job;
+
+    private final boolean enabled;
+
+    private final long intervalMillis;
+
+    private final Duration archiveAfter;
+
+    private final int batchSize;
+
+    private final int maxBatchesPerRun;
+
+    private final Map<Class<? extends BaseConsentEntity<?>>, Set<String>> terminalStatusesByEntity = new LinkedHashMap<>();
+
+    private final Map<Class<? extends BaseConsentEntity<?>>, Counter> archivedCounters = new LinkedHashMap<>();
+
+    private ConsentPartitions consentPartitions = ConsentPartitions.single();
+
+    public ConsentArchiver(ConsentArchiveRepository consentArchiveRepository,
+                           MongoLeaderLease leaderLease,
+                           ConsentStoreIndexInitialiser indexInitialiser,
+                           ObjectProvider<MeterRegistry> meterRegistryProvider,
+                           @Value("${consent.store.archiver.enabled:false}") boolean enabled,
+                           @Value("${consent.store.archiver.intervalMillis:3600000}") long intervalMillis,
+                           @Value("${consent.store.archiver.archiveAfterDays:90}") long archiveAfterDays,
+                           @Value("${consent.store.archiver.batchSize:200}") int batchSize,
+                           @Value("${consent.store.archiver.maxBatchesPerRun:100}") int maxBatchesPerRun,
+                           @Value("${consent.store.archiver.batchPauseMillis:200}") long batchPauseMillis,
+                           @Value("${consent.store.archiver.leaseDurationMillis:600000}") long leaseDurationMillis) {
+        this.consentArchiveRepository = requireNonNull(consentArchiveRepository, "consentArchiveRepository must be provided");
+        this.indexInitialiser = requireNonNull(indexInitialiser, "indexInitialiser must be provided");
+        final MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable(SimpleMeterRegistry::new);
+        if (batchSize < 1 || maxBatchesPerRun < 1) {
+            throw new IllegalArgumentException("batchSize and maxBatchesPerRun must be greater than zero");
+        }
+        this.enabled = enabled;
+        this.intervalMillis = intervalMillis;
+        this.archiveAfter = Duration.ofDays(archiveAfterDays);
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.job = new LeasedBackgroundJob("Consent archiver", leaderLease, LEASE_NAME, Duration.ofMillis(leaseDurationMillis),
+                batchPauseMillis, meterRegistry, "consent.store.archiver.runs");
+
+        ConsentTypeRegistry.getConsentStateModels().forEach((entityClass, stateModel) -> {
+            terminalStatusesByEntity.put(entityClass, ConsentTypeRegistry.getTerminalStatuses(stateModel));
+            archivedCounters.put(entityClass, Counter.builder("consent.store.archiver.archived")
+                                                     .tag("consentType", getConsentType(entityClass))
+                                                     .register(meterRegistry));
+        });
+    }
+
+    @Autowired(required = false)
+    public void setConsentPartitions(ConsentPartitions consentPartitions) {
+        this.consentPartitions = requireNonNull(consentPartitions, "consentPartitions must be provided");
+    }
+
+    static String getConsentType(Class<?> entityClass) {
+        return entityClass.getSimpleName().replace("Entity", "");
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            logger.info("Consent archiver disabled");
+            return;
+        }
+        for (Class<? extends BaseConsentEntity<?>> entityClass : terminalStatusesByEntity.keySet()) {
+            for (Index index : ConsentArchiveRepository.archiveCandidateIndexes()) {
+                indexInitialiser.ensureIndex(entityClass, index);
+            }
+        }
+        logger.info("Starting consent archiver - intervalMillis: {}, archiveAfter: {}, batchSize: {}, maxBatchesPerRun: {}",
+                intervalMillis, archiveAfter, batchSize, maxBatchesPerRun);
+        job.start(1, Thread.NORM_PRIORITY);
+        job.scheduleWithFixedDelay("run", this::runScheduledArchive, intervalMillis, intervalMillis);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        job.shutdown();
+    }
+
+    private void runScheduledArchive() {
+        final ConsentArchiveResult result = archive();
+        if (result.isLeader()) {
+            logger.info("Consent archive run finished - {}", result);
+        }
+    }
+
+    /**
+     * Runs a single archive run, if this replica holds (or acquires) the archiver lease.
+     */
+    public ConsentArchiveResult archive() {
+        final ConsentArchiveResult result = new ConsentArchiveResult();
+        if (!job.tryAcquireLease()) {
+            job.recordRun(job.startRun(), "not_leader");
+            return result;
+        }
+        result.setLeader(true);
+
+        final Timer.Sample sample = job.startRun();
+        String outcome = "failed";
+        try {
+            final Date cutoff = new Date(System.currentTimeMillis() - archiveAfter.toMillis());
+            final boolean completed = archiveConsentTypes(cutoff, result);
+            result.setCompleted(completed);
+            outcome = completed ? "completed" : "incomplete";
+            return result;
+        } finally {
+            job.recordRun(sample, outcome);
+        }
+    }
+
+    private boolean archiveConsentTypes(Date cutoff, ConsentArchiveResult result) {
+        int batchesRemaining = maxBatchesPerRun;
+        for (Map.Entry<Class<? extends BaseConsentEntity<?>>, Set<String>> entry : terminalStatusesByEntity.entrySet()) {
+            final Class<? extends BaseConsentEntity<?>> entityClass = entry.getKey();
+            for (int partition = 0; partition < consentPartitions.getPartitionCount(); partition++) {
+                while (true) {
+                    if (batchesRemaining == 0) {
+                        return false;
+                    }
+                    final long archived = consentPartitions.onPartition(partition,
+                            () -> consentArchiveRepository.archiveBatch(entityClass, entry.getValue(), cutoff, batchSize));
+                    if (archived == 0) {
+                        break;
+                    }
+                    batchesRemaining--;
+                    result.addArchived(getConsentType(entityClass), archived);
+                    archivedCounters.get(entityClass).increment(archived);
+                    logger.debug("Archived {} consents of type: {} in partition: {}", archived, entityClass.getSimpleName(), partition);
+
+                    if (archived < batchSize) {
+                        break;
+                    }
+                    if (!job.pauseAndRenewLease()) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+}
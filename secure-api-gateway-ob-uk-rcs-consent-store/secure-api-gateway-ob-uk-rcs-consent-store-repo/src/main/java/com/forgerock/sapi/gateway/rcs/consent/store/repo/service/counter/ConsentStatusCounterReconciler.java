@@ -0,0 +1,196 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.service.counter;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.stereotype.Component;
+
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.ConsentArchiveRepository;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.MongoLeaderLease;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.counter.ConsentStatusCount;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.counter.ConsentStatusCounterRepository;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.partition.ConsentPartitions;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.routing.ConsentReadOperation;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.routing.ConsentReadRouting;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.routing.ConsentReadScope;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.ConsentTypeRegistry;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.LeasedBackgroundJob;
+import com.forgerock.sapi.gateway.uk.common.shared.api.meta.share.IntentType;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Background task which rebuilds the consent status counters from the consent collections (live and archive), correcting
+ * any drift in the incrementally maintained counts.
+ * <p>
+ * Each consent collection is aggregated by (apiClientId, status) using the search read routing, so that the aggregations
+ * run on secondaries when read routing is enabled, and the counters of the IntentType are then replaced with the result.
+ * Collections are aggregated in every partition of the Consent Store, the counters are held in partition 0.
+ * Counter updates made while a collection is being aggregated may be lost, such drift is small and is corrected by the
+ * next run. Only the replica holding the {@link #LEASE_NAME} lease reconciles, all replicas periodically refresh the
+ * consent.store.consents gauges from the counters collection.
+ * <p>
+ * Metrics: consent.store.counters.reconcile.runs (timer tagged by outcome) and
+ * consent.store.counters.reconcile.corrections (gauge, counters changed by the last run).
+ */
+@Component
+public class ConsentStatusCounterReconciler {
+
+    public static final String LEASE_NAME = "consentStatusCounterReconciler";
+
+    private static final Logger logger = LoggerFactory.getLogger(ConsentStatusCounterReconciler.class);
+
+    private final ConsentStatusCounterService counterService;
+
+    private final ConsentStatusCounterRepository counterRepository;
+
+    private final ConsentArchiveRepository consentArchiveRepository;
+
+    private final MongoOperations mongoOperations;
+
+    private final ConsentReadRouting consentReadRouting;
+
+    private final LeasedBackgroundJob job;
+
+    private final long initialDelayMillis;
+
+    private final long intervalMillis;
+
+    private final long gaugeRefreshMillis;
+
+    private final AtomicLong lastRunCorrections = new AtomicLong();
+
+    private ConsentPartitions consentPartitions = ConsentPartitions.single();
+
+    public ConsentStatusCounterReconciler(ConsentStatusCounterService counterService,
+                                          ConsentStatusCounterRepository counterRepository,
+                                          ConsentArchiveRepository consentArchiveRepository,
+                                          MongoOperations mongoOperations,
+                                          ConsentReadRouting consentReadRouting,
+                                          MongoLeaderLease leaderLease,
+                                          ObjectProvider<MeterRegistry> meterRegistryProvider,
+                                          @Value("${consent.store.counters.reconcile.initialDelayMillis:60000}") long initialDelayMillis,
+                                          @Value("${consent.store.counters.reconcile.intervalMillis:86400000}") long intervalMillis,
+                                          @Value("${consent.store.counters.gaugeRefreshMillis:60000}") long gaugeRefreshMillis,
+                                          @Value("${consent.store.counters.reconcile.leaseDurationMillis:3600000}") long leaseDurationMillis) {
+        this.counterService = requireNonNull(counterService, "counterService must be provided");
+        this.counterRepository = requireNonNull(counterRepository, "counterRepository must be provided");
+        this.consentArchiveRepository = requireNonNull(consentArchiveRepository, "consentArchiveRepository must be provided");
+        this.mongoOperations = requireNonNull(mongoOperations, "mongoOperations must be provided");
+        this.consentReadRouting = requireNonNull(consentReadRouting, "consentReadRouting must be provided");
+        final MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable(SimpleMeterRegistry::new);
+        this.initialDelayMillis = initialDelayMillis;
+        this.intervalMillis = intervalMillis;
+        this.gaugeRefreshMillis = gaugeRefreshMillis;
+        // Reconciles are not batched, so there is no pause between batches
+        this.job = new LeasedBackgroundJob("Consent status counter reconciler", leaderLease, LEASE_NAME,
+                Duration.ofMillis(leaseDurationMillis), 0, meterRegistry, "consent.store.counters.reconcile.runs");
+        meterRegistry.gauge("consent.store.counters.reconcile.corrections", lastRunCorrections);
+    }
+
+    @Autowired(required = false)
+    public void setConsentPartitions(ConsentPartitions consentPartitions) {
+        this.consentPartitions = requireNonNull(consentPartitions, "consentPartitions must be provided");
+    }
+
+    @PostConstruct
+    void start() {
+        if (!counterService.isEnabled()) {
+            logger.info("Consent status counters disabled");
+            return;
+        }
+        logger.info("Starting consent status counter reconciler - initialDelayMillis: {}, intervalMillis: {}, gaugeRefreshMillis: {}",
+                initialDelayMillis, intervalMillis, gaugeRefreshMillis);
+        // Two threads, so that the gauges are refreshed while a reconcile is running
+        job.start(2, Thread.NORM_PRIORITY);
+        job.scheduleWithFixedDelay("reconcile", this::runScheduledReconcile, initialDelayMillis, intervalMillis);
+        job.scheduleWithFixedDelay("gauge refresh", counterService::refreshGauges, 0, gaugeRefreshMillis);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        job.shutdown();
+    }
+
+    private void runScheduledReconcile() {
+        if (job.tryAcquireLease()) {
+            reconcile();
+        }
+    }
+
+    /**
+     * Rebuilds the counters of all consent types from the consent collections.
+     *
+     * @return the number of counters which were corrected
+     */
+    public long reconcile() {
+        final Timer.Sample sample = job.startRun();
+        String outcome = "failed";
+        try {
+            long corrections = 0;
+            for (Class<?> entityClass : ConsentTypeRegistry.getConsentStateModels().keySet()) {
+                corrections += reconcile(ConsentTypeRegistry.getIntentType(entityClass), entityClass);
+            }
+            lastRunCorrections.set(corrections);
+            outcome = "completed";
+            logger.info("Consent status counter reconcile finished - corrections: {}", corrections);
+            counterService.refreshGauges();
+            return corrections;
+        } finally {
+            job.recordRun(sample, outcome);
+        }
+    }
+
+    private long reconcile(IntentType intentType, Class<?> entityClass) {
+        final Map<String, Map<String, Long>> counts = new HashMap<>();
+        try (ConsentReadScope ignored = consentReadRouting.openScope(ConsentReadOperation.SEARCH, null)) {
+            for (String collectionName : List.of(mongoOperations.getCollectionName(entityClass),
+                                                 consentArchiveRepository.getArchiveCollectionName(entityClass))) {
+                for (Map<String, Map<String, Long>> partitionCounts : consentPartitions.onEachPartition(() -> counterRepository.countConsents(collectionName))) {
+                    partitionCounts.forEach((apiClientId, statusCounts) ->
+                            statusCounts.forEach((status, count) -> counts.computeIfAbsent(apiClientId, k -> new HashMap<>())
+                                                                          .merge(status, count, Long::sum)));
+                }
+            }
+        }
+        final List<ConsentStatusCount> consentStatusCounts = new ArrayList<>();
+        counts.forEach((apiClientId, statusCounts) -> statusCounts.forEach((status, count) ->
+                consentStatusCounts.add(new ConsentStatusCount(intentType, apiClientId, status, count))));
+        final long corrections = counterRepository.replaceCounts(intentType, consentStatusCounts);
+        if (corrections > 0) {
+            logger.info("Corrected {} consent status counters for intentType: {}", corrections, intentType);
+        }
+        return corrections;
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.service.counter;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.counter.ConsentStatusCount;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.counter.ConsentStatusCounterRepository;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.ConsentStateModel;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.ConsentStatusListener;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.ConsentTypeRegistry;
+import com.forgerock.sapi.gateway.uk.common.shared.api.meta.share.IntentType;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Maintains the materialised counts of consents per IntentType, ApiClient and status, see
+ * {@link ConsentStatusCounterRepository}.
+ * <p>
+ * The consent services notify this service of each create, status change and delete via a {@link ConsentStatusListener},
+ * and the expiry sweeper reports the transitions that it applies. Counter updates are made after the consent has been
+ * written; a failed counter update is logged and counted rather than failing the request, the
+ * {@link ConsentStatusCounterReconciler} corrects any drift.
+ * <p>
+ * Metrics: consent.store.consents (gauge tagged by intentType and status, summed over all ApiClients, refreshed by the
+ * reconciler) and consent.store.counters.update.failures (counter).
+ */
+@Component
+public class ConsentStatusCounterService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConsentStatusCounterService.class);
+
+    private final ConsentStatusCounterRepository counterRepository;
+
+    private final boolean enabled;
+
+    private final Counter updateFailures;
+
+    private final AtomicReference<Map<IntentType, Map<String, Long>>> totals = new AtomicReference<>(Map.of());
+
+    public ConsentStatusCounterService(ConsentStatusCounterRepository counterRepository,
+                                       ObjectProvider<MeterRegistry> meterRegistryProvider,
+                                       @Value("${consent.store.counters.enabled:false}") boolean enabled) {
+        this.counterRepository = requireNonNull(counterRepository, "counterRepository must be provided");
+        this.enabled = enabled;
+        final MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable(SimpleMeterRegistry::new);
+        this.updateFailures = Counter.builder("consent.store.counters.update.failures").register(meterRegistry);
+        if (enabled) {
+            registerGauges(meterRegistry);
+        }
+    }
+
+    private void registerGauges(MeterRegistry meterRegistry) {
+        ConsentTypeRegistry.getConsentStateModels().forEach((entityClass, stateModel) -> {
+            final IntentType intentType = ConsentTypeRegistry.getIntentType(entityClass);
+            for (String status : getStatuses(stateModel)) {
+                Gauge.builder("consent.store.consents", totals, totalsRef -> totalsRef.get()
+                                                                                   .getOrDefault(intentType, Map.of())
+                                                                                   .getOrDefault(status, 0L))
+                     .tag("intentType", intentType.name())
+                     .tag("status", status)
+                     .register(meterRegistry);
+            }
+        });
+    }
+
+    private static Set<String> getStatuses(ConsentStateModel stateModel) {
+        final Set<String> statuses = new TreeSet<>();
+        stateModel.getValidStateTransitions().forEach((status, toStatuses) -> {
+            statuses.add(status);
+            statuses.addAll(toStatuses);
+        });
+        statuses.add(stateModel.getInitialConsentStatus());
+        statuses.add(stateModel.getRevokedConsentStatus());
+        return statuses;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return the listener which maintains the counts for consents of the intentType, this is a no-op listener if
+     * the counters are disabled
+     */
+    public ConsentStatusListener createListener(IntentType intentType) {
+        requireNonNull(intentType, "intentType must be provided");
+        if (!enabled) {
+            return ConsentStatusListener.none();
+        }
+        return (apiClientId, fromStatus, toStatus) -> recordTransitions(intentType, apiClientId, fromStatus, toStatus, 1);
+    }
+
+    /**
+     * Records that count consents have moved between statuses.
+     *
+     * @param fromStatus the status before the change, or null if the consents have been created
+     * @param toStatus   the status after the change, or null if the consents have been deleted
+     */
+    public void recordTransitions(IntentType intentType, String apiClientId, String fromStatus, String toStatus, long count) {
+        if (!enabled || count == 0) {
+            return;
+        }
+        try {
+            if (fromStatus == null) {
+                counterRepository.increment(intentType, apiClientId, toStatus, count);
+            } else if (toStatus == null) {
+                counterRepository.increment(intentType, apiClientId, fromStatus, -count);
+            } else {
+                counterRepository.transition(intentType, apiClientId, fromStatus, toStatus, count);
+            }
+        } catch (RuntimeException ex) {
+            updateFailures.increment();
+            logger.warn("Failed to update consent counters for intentType: {}, apiClientId: {}, fromStatus: {}, toStatus: {}",
+                    intentType, apiClientId, fromStatus, toStatus, ex);
+        }
+    }
+
+    /**
+     * @param intentType  IntentType to filter by, or null for all IntentTypes
+     * @param apiClientId apiClientId to filter by, or null for all ApiClients
+     * @return the non-zero counts matching the filters
+     */
+    public List<ConsentStatusCount> getCounts(IntentType intentType, String apiClientId) {
+        return counterRepository.findCounts(intentType, apiClientId);
+    }
+
+    /**
+     * Reloads the totals reported by the consent.store.consents gauges.
+     */
+    public void refreshGauges() {
+        if (enabled) {
+            totals.set(counterRepository.sumCountsByIntentTypeAndStatus());
+        }
+    }
+}
@@ -0,0 +1,389 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.service.expiry;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MultiValueMap;
+import org.springframework.util.StringUtils;
+
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.account.AccountAccessConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.funds.FundsConfirmationConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.ConsentStoreIndexInitialiser;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.MongoLeaderLease;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.migration.ConsentSchemaMigrations;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.partition.ConsentPartitions;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.ConsentStateModel;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.ConsentTypeRegistry;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.LeasedBackgroundJob;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.counter.ConsentStatusCounterService;
+import com.forgerock.sapi.gateway.uk.common.shared.api.meta.share.IntentType;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Background task which moves consents that can no longer be used into a terminal state, so that they drop out of
+ * the indexes and working set used by live traffic.
+ * <p>
+ * Two kinds of consent are swept:
+ * <ul>
+ *     <li>Abandoned consents: consents created by a TPP which have stayed in a pre-authorisation state
+ *     (e.g. AwaitingAuthorisation or AwaitingUpload) for longer than the configured abandonAfter period</li>
+ *     <li>Expired consents: Account Access and Funds Confirmation consents whose ExpirationDateTime has passed</li>
+ * </ul>
+ * Only transitions that the consent type's {@link ConsentStateModel} allows are applied: abandoned and expired
+ * consents awaiting authorisation are Rejected, expired Authorised consents move to the revoked status.
+ * <p>
+ * Each run is split into batches: the ids of up to batchSize candidates are found using a partial index on
+ * (status, date field), then updated with a single updateMany which re-checks the status so that concurrent
+ * authorisations win. Runs pause between batches and are capped at maxBatchesPerRun, remaining consents are picked up
+ * by the next run. Only the replica holding the {@link #LEASE_NAME} lease sweeps, each rule is applied to every
+ * partition of the Consent Store in turn.
+ * <p>
+ * The updates bypass the {@link ConsentSchemaMigrations} upcasters, so only consents at the current schemaVersion of
+ * their type are swept and the update stamps that schemaVersion. Older consents are swept once the
+ * ConsentSchemaMigrationWriter has migrated them. The sweeper is disabled by default, its indexes are only created when it is
+ * enabled.
+ * <p>
+ * Metrics: consent.store.sweeper.transitions (counter tagged by consentType, fromStatus, toStatus and reason),
+ * consent.store.sweeper.runs (timer tagged by outcome), consent.store.sweeper.leader and
+ * consent.store.sweeper.last.run.transitions (gauges).
+ */
+@Component
+public class ConsentExpirySweeper {
+
+    public static final String LEASE_NAME = "consentExpirySweeper";
+
+    static final String FIELD_CREATION_DATE_TIME = "creationDateTime";
+
+    static final String FIELD_EXPIRATION_DATE_TIME = "requestObj.data.expirationDateTime";
+
+    private static final Logger logger = LoggerFactory.getLogger(ConsentExpirySweeper.class);
+
+    private final MongoOperations mongoOperations;
+
+    private final ConsentStoreIndexInitialiser indexInitialiser;
+
+    private final LeasedBackgroundJob job;
+
+    private final boolean enabled;
+
+    private final long intervalMillis;
+
+    private final int batchSize;
+
+    private final int maxBatchesPerRun;
+
+    private final List<ConsentSweepRule> rules;
+
+    private final Map<ConsentSweepRule, Counter> transitionCounters = new LinkedHashMap<>();
+
+    private final AtomicInteger leader = new AtomicInteger();
+
+    private final AtomicLong lastRunTransitions = new AtomicLong();
+
+    private ConsentStatusCounterService consentStatusCounterService;
+
+    private ConsentPartitions consentPartitions = ConsentPartitions.single();
+
+    private ConsentSchemaMigrations consentSchemaMigrations;
+
+    public ConsentExpirySweeper(MongoOperations mongoOperations,
+                                MongoLeaderLease leaderLease,
+                                ConsentStoreIndexInitialiser indexInitialiser,
+                                ObjectProvider<MeterRegistry> meterRegistryProvider,
+                                @Value("${consent.store.sweeper.enabled:false}") boolean enabled,
+                                @Value("${consent.store.sweeper.intervalMillis:300000}") long intervalMillis,
+                                @Value("${consent.store.sweeper.abandonAfterMinutes:1440}") long abandonAfterMinutes,
+                                @Value("${consent.store.sweeper.batchSize:500}") int batchSize,
+                                @Value("${consent.store.sweeper.maxBatchesPerRun:100}") int maxBatchesPerRun,
+                                @Value("${consent.store.sweeper.batchPauseMillis:100}") long batchPauseMillis,
+                                @Value("${consent.store.sweeper.leaseDurationMillis:600000}") long leaseDurationMillis) {
+        this.mongoOperations = requireNonNull(mongoOperations, "mongoOperations must be provided");
+        this.indexInitialiser = requireNonNull(indexInitialiser, "indexInitialiser must be provided");
+        final MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable(SimpleMeterRegistry::new);
+        if (batchSize < 1 || maxBatchesPerRun < 1) {
+            throw new IllegalArgumentException("batchSize and maxBatchesPerRun must be greater than zero");
+        }
+        this.enabled = enabled;
+        this.intervalMillis = intervalMillis;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.job = new LeasedBackgroundJob("Consent expiry sweeper", leaderLease, LEASE_NAME, Duration.ofMillis(leaseDurationMillis),
+                batchPauseMillis, meterRegistry, "consent.store.sweeper.runs");
+        this.rules = createRules(Duration.ofMinutes(abandonAfterMinutes));
+
+        for (ConsentSweepRule rule : rules) {
+            transitionCounters.put(rule, Counter.builder("consent.store.sweeper.transitions")
+                                                .tag("consentType", rule.getConsentType())
+                                                .tag("fromStatus", rule.getFromStatus())
+                                                .tag("toStatus", rule.getToStatus())
+                                                .tag("reason", rule.getReason())
+                                                .register(meterRegistry));
+        }
+        meterRegistry.gauge("consent.store.sweeper.leader", leader);
+        meterRegistry.gauge("consent.store.sweeper.last.run.transitions", lastRunTransitions);
+    }
+
+    /**
+     * Optionally configures the consent status counters, which are updated with the transitions applied by the sweeper.
+     */
+    @Autowired(required = false)
+    public void setConsentStatusCounterService(ConsentStatusCounterService consentStatusCounterService) {
+        this.consentStatusCounterService = consentStatusCounterService;
+    }
+
+    @Autowired(required = false)
+    public void setConsentPartitions(ConsentPartitions consentPartitions) {
+        this.consentPartitions = requireNonNull(consentPartitions, "consentPartitions must be provided");
+    }
+
+    @Autowired(required = false)
+    public void setConsentSchemaMigrations(ConsentSchemaMigrations consentSchemaMigrations) {
+        this.consentSchemaMigrations = consentSchemaMigrations;
+    }
+
+    private int getCurrentSchemaVersion(ConsentSweepRule rule) {
+        return consentSchemaMigrations != null ? consentSchemaMigrations.getCurrentSchemaVersion(rule.getEntityClass()) : 0;
+    }
+
+    /**
+     * Creates the rules for all consent types, skipping any transitions which the consent's state model does not allow.
+     */
+    static List<ConsentSweepRule> createRules(Duration abandonAfter) {
+        final Set<Class<?>> expiringConsents = Set.of(AccountAccessConsentEntity.class, FundsConfirmationConsentEntity.class);
+
+        final List<ConsentSweepRule> rules = new ArrayList<>();
+        ConsentTypeRegistry.getConsentStateModels().forEach((entityClass, stateModel) -> {
+            final MultiValueMap<String, String> transitions = stateModel.getValidStateTransitions();
+            final String authorisedStatus = stateModel.getAuthorisedConsentStatus();
+
+            // Pre-authorisation statuses: the initial status and any status that leads to authorisation
+            final Set<String> preAuthorisationStatuses = new LinkedHashSet<>();
+            preAuthorisationStatuses.add(stateModel.getInitialConsentStatus());
+            transitions.forEach((status, toStatuses) -> {
+                if (!status.equals(authorisedStatus) && toStatuses.contains(authorisedStatus)) {
+                    preAuthorisationStatuses.add(status);
+                }
+            });
+            for (String status : preAuthorisationStatuses) {
+                addRuleIfTransitionAllowed(rules, transitions, new ConsentSweepRule(entityClass, status,
+                        stateModel.getRejectedConsentStatus(), FIELD_CREATION_DATE_TIME, abandonAfter, ConsentSweepRule.REASON_ABANDONED));
+            }
+
+            if (expiringConsents.contains(entityClass)) {
+                for (String status : preAuthorisationStatuses) {
+                    addRuleIfTransitionAllowed(rules, transitions, new ConsentSweepRule(entityClass, status,
+                            stateModel.getRejectedConsentStatus(), FIELD_EXPIRATION_DATE_TIME, Duration.ZERO, ConsentSweepRule.REASON_EXPIRED));
+                }
+                addRuleIfTransitionAllowed(rules, transitions, new ConsentSweepRule(entityClass, authorisedStatus,
+                        stateModel.getRevokedConsentStatus(), FIELD_EXPIRATION_DATE_TIME, Duration.ZERO, ConsentSweepRule.REASON_EXPIRED));
+            }
+        });
+        return Collections.unmodifiableList(rules);
+    }
+
+    private static void addRuleIfTransitionAllowed(List<ConsentSweepRule> rules, MultiValueMap<String, String> transitions,
+                                                   ConsentSweepRule rule) {
+        final List<String> allowedStatuses = transitions.get(rule.getFromStatus());
+        if (allowedStatuses != null && allowedStatuses.contains(rule.getToStatus())) {
+            rules.add(rule);
+        } else {
+            logger.warn("State model does not allow transition for sweep rule: {}, rule ignored", rule);
+        }
+    }
+
+    /**
+     * Index supporting the sweep queries for the dateField, the index only contains consents which have not been deleted.
+     */
+    static Index sweepIndex(String dateField) {
+        final String fieldName = dateField.substring(dateField.lastIndexOf('.') + 1);
+        return new Index().on("status", Direction.ASC)
+                          .on(dateField, Direction.ASC)
+                          .named("statusBy" + StringUtils.capitalize(fieldName))
+                          .partial(PartialIndexFilter.of(Criteria.where("deleted").is(false).and(dateField).exists(true)));
+    }
+
+    public List<ConsentSweepRule> getRules() {
+        return rules;
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            logger.info("Consent expiry sweeper disabled");
+            return;
+        }
+        for (ConsentSweepRule rule : rules) {
+            indexInitialiser.ensureIndex(rule.getEntityClass(), sweepIndex(rule.getDateField()));
+        }
+        logger.info("Starting consent expiry sweeper - intervalMillis: {}, batchSize: {}, maxBatchesPerRun: {}, rules: {}",
+                intervalMillis, batchSize, maxBatchesPerRun, rules);
+        job.start(1, Thread.NORM_PRIORITY);
+        job.scheduleWithFixedDelay("sweep", this::runScheduledSweep, intervalMillis, intervalMillis);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        job.shutdown();
+    }
+
+    private void runScheduledSweep() {
+        final ConsentSweepResult result = sweep();
+        if (result.isLeader()) {
+            logger.info("Consent expiry sweep finished - {}", result);
+        }
+    }
+
+    /**
+     * Runs a single sweep, if this replica holds (or acquires) the sweeper lease.
+     */
+    public ConsentSweepResult sweep() {
+        final ConsentSweepResult result = new ConsentSweepResult();
+        if (!job.tryAcquireLease()) {
+            leader.set(0);
+            job.recordRun(job.startRun(), "not_leader");
+            return result;
+        }
+        leader.set(1);
+        result.setLeader(true);
+
+        final Timer.Sample sample = job.startRun();
+        String outcome = "failed";
+        try {
+            final Date now = new Date();
+            final boolean completed = sweepRules(now, result);
+            result.setCompleted(completed);
+            outcome = completed ? "completed" : "incomplete";
+            return result;
+        } finally {
+            lastRunTransitions.set(result.getTotalTransitions());
+            job.recordRun(sample, outcome);
+        }
+    }
+
+    private boolean sweepRules(Date now, ConsentSweepResult result) {
+        int batchesRemaining = maxBatchesPerRun;
+        for (ConsentSweepRule rule : rules) {
+            final Date cutoff = new Date(now.getTime() - rule.getAge().toMillis());
+            final Criteria candidateCriteria = Criteria.where("status").is(rule.getFromStatus())
+                                                       .and("deleted").is(false)
+                                                       .and(rule.getDateField()).lt(cutoff).exists(true);
+            final int schemaVersion = getCurrentSchemaVersion(rule);
+            if (schemaVersion > 0) {
+                candidateCriteria.and(ConsentSchemaMigrations.FIELD_SCHEMA_VERSION).gte(schemaVersion);
+            }
+            for (int partition = 0; partition < consentPartitions.getPartitionCount(); partition++) {
+                while (true) {
+                    final Query candidatesQuery = new Query(candidateCriteria).limit(batchSize);
+                    candidatesQuery.fields().include("_id").include("apiClientId");
+                    final List<Document> candidates = consentPartitions.onPartition(partition, () -> mongoOperations.find(
+                            candidatesQuery, Document.class, mongoOperations.getCollectionName(rule.getEntityClass())));
+                    if (candidates.isEmpty()) {
+                        break;
+                    }
+                    if (batchesRemaining == 0) {
+                        return false;
+                    }
+                    batchesRemaining--;
+
+                    final long transitioned = transitionCandidates(rule, partition, candidates, now);
+                    result.addTransitions(rule, transitioned);
+                    transitionCounters.get(rule).increment(transitioned);
+                    logger.debug("Swept {} consents for rule: {} in partition: {}", transitioned, rule, partition);
+
+                    if (candidates.size() < batchSize) {
+                        break;
+                    }
+                    if (!job.pauseAndRenewLease()) {
+                        leader.set(0);
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Transitions the candidates with a single updateMany. When the consent status counters are enabled, the candidates
+     * are updated per apiClientId instead, so that the counters of each ApiClient can be updated with the number of
+     * consents that were transitioned.
+     */
+    private long transitionCandidates(ConsentSweepRule rule, int partition, List<Document> candidates, Date now) {
+        if (consentStatusCounterService == null || !consentStatusCounterService.isEnabled()) {
+            return transitionConsents(rule, partition, candidates.stream().map(doc -> doc.get("_id")).toList(), now);
+        }
+        final Map<String, List<Object>> consentIdsByApiClientId = new LinkedHashMap<>();
+        for (Document candidate : candidates) {
+            consentIdsByApiClientId.computeIfAbsent(candidate.getString("apiClientId"), ignored -> new ArrayList<>())
+                                   .add(candidate.get("_id"));
+        }
+        final IntentType intentType = ConsentTypeRegistry.getIntentType(rule.getEntityClass());
+        long transitioned = 0;
+        for (Map.Entry<String, List<Object>> apiClientConsentIds : consentIdsByApiClientId.entrySet()) {
+            final long apiClientTransitioned = transitionConsents(rule, partition, apiClientConsentIds.getValue(), now);
+            if (apiClientConsentIds.getKey() != null) {
+                consentStatusCounterService.recordTransitions(intentType, apiClientConsentIds.getKey(),
+                        rule.getFromStatus(), rule.getToStatus(), apiClientTransitioned);
+            }
+            transitioned += apiClientTransitioned;
+        }
+        return transitioned;
+    }
+
+    private long transitionConsents(ConsentSweepRule rule, int partition, List<Object> consentIds, Date now) {
+        // Re-check the status, so that consents which have transitioned since they were read are not modified
+        final Query transitionQuery = new Query(Criteria.where("_id").in(consentIds).and("status").is(rule.getFromStatus()));
+        final Update transition = new Update().set("status", rule.getToStatus())
+                                              .set("statusUpdatedDateTime", now)
+                                              .max(ConsentSchemaMigrations.FIELD_SCHEMA_VERSION, getCurrentSchemaVersion(rule))
+                                              .inc("entityVersion", 1);
+        return consentPartitions.onPartition(partition,
+                () -> mongoOperations.updateMulti(transitionQuery, transition, rule.getEntityClass()).getModifiedCount());
+    }
+}
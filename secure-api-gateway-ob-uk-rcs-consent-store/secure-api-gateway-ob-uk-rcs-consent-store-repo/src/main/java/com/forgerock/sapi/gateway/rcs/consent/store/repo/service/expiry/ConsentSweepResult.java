@@ -0,0 +1,80 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.service.expiry;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Outcome of a single run of the {@link ConsentExpirySweeper}
+ */
+public class ConsentSweepResult {
+
+    private final Map<ConsentSweepRule, Long> transitionsByRule = new LinkedHashMap<>();
+
+    private boolean leader;
+
+    private boolean completed;
+
+    void addTransitions(ConsentSweepRule rule, long transitions) {
+        transitionsByRule.merge(rule, transitions, Long::sum);
+    }
+
+    void setLeader(boolean leader) {
+        this.leader = leader;
+    }
+
+    void setCompleted(boolean completed) {
+        this.completed = completed;
+    }
+
+    /**
+     * @return the number of consents transitioned by each rule
+     */
+    public Map<ConsentSweepRule, Long> getTransitionsByRule() {
+        return Collections.unmodifiableMap(transitionsByRule);
+    }
+
+    public long getTotalTransitions() {
+        return transitionsByRule.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * @return false if another replica holds the sweeper lease, in which case nothing was swept by this replica
+     */
+    public boolean isLeader() {
+        return leader;
+    }
+
+    /**
+     * @return false if the run stopped early, because it reached the batch limit or lost the leader lease, in which
+     * case the remaining consents are transitioned by subsequent runs
+     */
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    @Override
+    public String toString() {
+        return "ConsentSweepResult{" +
+                "leader=" + leader +
+                ", totalTransitions=" + getTotalTransitions() +
+                ", completed=" + completed +
+                ", transitionsByRule=" + transitionsByRule +
+                '}';
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.service.expiry;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+
+/**
+ * Rule describing a status transition applied by the {@link ConsentExpirySweeper}: consents of the entity type in
+ * fromStatus, with a value in dateField before (now - age), are moved to toStatus.
+ */
+public class ConsentSweepRule {
+
+    public static final String REASON_ABANDONED = "abandoned";
+
+    public static final String REASON_EXPIRED = "expired";
+
+    private final Class<?> entityClass;
+
+    private final String fromStatus;
+
+    private final String toStatus;
+
+    private final String dateField;
+
+    private final Duration age;
+
+    private final String reason;
+
+    public ConsentSweepRule(Class<?> entityClass, String fromStatus, String toStatus, String dateField, Duration age, String reason) {
+        this.entityClass = requireNonNull(entityClass, "entityClass must be provided");
+        this.fromStatus = requireNonNull(fromStatus, "fromStatus must be provided");
+        this.toStatus = requireNonNull(toStatus, "toStatus must be provided");
+        this.dateField = requireNonNull(dateField, "dateField must be provided");
+        this.age = requireNonNull(age, "age must be provided");
+        this.reason = requireNonNull(reason, "reason must be provided");
+    }
+
+    public Class<?> getEntityClass() {
+        return entityClass;
+    }
+
+    public String getConsentType() {
+        return entityClass.getSimpleName().replace("Entity", "");
+    }
+
+    public String getFromStatus() {
+        return fromStatus;
+    }
+
+    public String getToStatus() {
+        return toStatus;
+    }
+
+    public String getDateField() {
+        return dateField;
+    }
+
+    public Duration getAge() {
+        return age;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    @Override
+    public String toString() {
+        return "ConsentSweepRule{" +
+                "consentType=" + getConsentType() +
+                ", fromStatus='" + fromStatus + '\'' +
+                ", toStatus='" + toStatus + '\'' +
+                ", dateField='" + dateField + '\'' +
+                ", age=" + age +
+                ", reason='" + reason + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.service.export;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.BaseConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mapping.ConsentDtoMappings;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mapping.ConsentDtoMappings.ConsentDtoMapping;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.export.ConsentExportQuery;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.export.ConsentExportRepository;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.routing.ConsentReadOperation;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.routing.ConsentReadRouting;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.routing.ConsentReadScope;
+import com.forgerock.sapi.gateway.uk.common.shared.api.meta.share.IntentType;
+
+/**
+ * Exports consents as newline delimited JSON (NDJSON), one Consent Store data-model object (DTO) per line, in the same
+ * representation as returned by the REST API. Used for full and incremental extracts for audit and analytics.
+ * <p>
+ * Consents are streamed from a database cursor per consent type and written as they are read, so the memory used is
+ * independent of the number of consents exported. Queries are {@link ConsentReadOperation#SEARCH} operations, so may
+ * be served by a secondary when read routing is enabled.
+ */
+@Service
+public class ConsentExportService {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final ConsentExportRepository consentExportRepository;
+
+    private final ConsentReadRouting consentReadRouting;
+
+    private final ObjectWriter objectWriter;
+
+    /**
+     * @param objectMapperProvider provides the application's ObjectMapper, so that consents are serialised in the same
+     *                             way as by the REST API. A default ObjectMapper is used if the application has none.
+     */
+    public ConsentExportService(ConsentExportRepository consentExportRepository, ConsentReadRouting consentReadRouting,
+                                ObjectProvider<ObjectMapper> objectMapperProvider) {
+        this.consentExportRepository = requireNonNull(consentExportRepository, "consentExportRepository must be provided");
+        this.consentReadRouting = requireNonNull(consentReadRouting, "consentReadRouting must be provided");
+        final ObjectMapper objectMapper = objectMapperProvider.getIfAvailable(() -> JsonMapper.builder().findAndAddModules().build());
+        // Output is flushed once per cursor batch rather than after every consent
+        this.objectWriter = objectMapper.writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .without(SerializationFeature.INDENT_OUTPUT);
+    }
+
+    /**
+     * Writes the consents matching the query to the outputStream as NDJSON. The outputStream is flushed after every
+     * batchSize consents, it is not closed.
+     *
+     * @return the number of consents written
+     */
+    public long exportConsents(ConsentExportQuery exportQuery, OutputStream outputStream) throws IOException {
+        requireNonNull(exportQuery, "exportQuery must be provided");
+        requireNonNull(outputStream, "outputStream must be provided");
+        logger.info("Exporting consents - query: {}", exportQuery);
+        long consentsWritten = 0;
+        try (JsonGenerator jsonGenerator = objectWriter.createGenerator(outputStream)) {
+            jsonGenerator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            for (ConsentDtoMapping<?, ?> mapping : getMappings(exportQuery)) {
+                consentsWritten += writeConsents(jsonGenerator, mapping,
+                        () -> consentExportRepository.streamConsents(mapping.getEntityClass(), exportQuery), exportQuery.getBatchSize());
+                if (exportQuery.isIncludeArchived()) {
+                    consentsWritten += writeConsents(jsonGenerator, mapping,
+                            () -> consentExportRepository.streamArchivedConsents(mapping.getEntityClass(), exportQuery), exportQuery.getBatchSize());
+                }
+            }
+        }
+        logger.info("Exported {} consents", consentsWritten);
+        return consentsWritten;
+    }
+
+    private static Collection<ConsentDtoMapping<?, ?>> getMappings(ConsentExportQuery exportQuery) {
+        if (exportQuery.getIntentTypes().isEmpty()) {
+            return ConsentDtoMappings.getMappings();
+        }
+        final Collection<ConsentDtoMapping<?, ?>> mappings = new ArrayList<>();
+        for (IntentType intentType : exportQuery.getIntentTypes()) {
+            mappings.add(ConsentDtoMappings.forIntentType(intentType).orElseThrow(
+                    () -> new IllegalArgumentException("Consents of intentType: " + intentType + " are not supported by the store")));
+        }
+        return mappings;
+    }
+
+    private long writeConsents(JsonGenerator jsonGenerator, ConsentDtoMapping<?, ?> mapping,
+                               Supplier<? extends Stream<? extends BaseConsentEntity<?>>> consentStreamSupplier,
+                               int batchSize) throws IOException {
+        long consentsWritten = 0;
+        try (Stream<? extends BaseConsentEntity<?>> consents = openStream(consentStreamSupplier)) {
+            final Iterator<? extends BaseConsentEntity<?>> consentIterator = consents.iterator();
+            while (consentIterator.hasNext()) {
+                objectWriter.writeValue(jsonGenerator, mapping.toDto(consentIterator.next()));
+                jsonGenerator.writeRaw('\n');
+                if (++consentsWritten % batchSize == 0) {
+                    jsonGenerator.flush();
+                }
+            }
+        }
+        jsonGenerator.flush();
+        logger.debug("Exported {} consents of type: {}", consentsWritten, mapping.getIntentType());
+        return consentsWritten;
+    }
+
+    private Stream<? extends BaseConsentEntity<?>> openStream(Supplier<? extends Stream<? extends BaseConsentEntity<?>>> consentStreamSupplier) {
+        // The query is executed when the stream is created, so the scope only needs to span this call
+        try (ConsentReadScope ignored = consentReadRouting.openScope(ConsentReadOperation.SEARCH, null)) {
+            return consentStreamSupplier.get();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.service.id;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.forgerock.sapi.gateway.uk.common.shared.api.meta.share.IntentType;
+
+/**
+ * Provides the id generators used when creating consents, allowing time-ordered ids to be enabled per IntentType.
+ * <p>
+ * Time-ordered ids keep the IntentType's prefix, so that {@link IntentType#identify(String)} continues to resolve the
+ * IntentType of a consent from its id. Consents created with different strategies can co-exist in a collection.
+ * <p>
+ * A single generator is shared by all services of an IntentType, ensuring ids created by this replica are ordered.
+ */
+@Component
+public class ConsentIdGenerators {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final EnumSet<IntentType> timeOrderedIntentTypes;
+
+    private final ConsentIdStrategy timeOrderedFormat;
+
+    private final Map<IntentType, Supplier<String>> timeOrderedIdGenerators = new ConcurrentHashMap<>();
+
+    public ConsentIdGenerators(@Value("${consent.store.idStrategy.timeOrdered.intentTypes:}") EnumSet<IntentType> timeOrderedIntentTypes,
+                               @Value("${consent.store.idStrategy.timeOrdered.format:ULID}") ConsentIdStrategy timeOrderedFormat) {
+        this.timeOrderedIntentTypes = requireNonNull(timeOrderedIntentTypes, "timeOrderedIntentTypes must be provided");
+        this.timeOrderedFormat = requireNonNull(timeOrderedFormat, "timeOrderedFormat must be provided");
+        if (timeOrderedFormat == ConsentIdStrategy.RANDOM) {
+            throw new IllegalArgumentException("consent.store.idStrategy.timeOrdered.format must be a time-ordered strategy");
+        }
+        logger.info("IntentTypes configured to use {} consent ids: {}", timeOrderedFormat, timeOrderedIntentTypes);
+    }
+
+    public ConsentIdStrategy getStrategy(IntentType intentType) {
+        return timeOrderedIntentTypes.contains(intentType) ? timeOrderedFormat : ConsentIdStrategy.RANDOM;
+    }
+
+    /**
+     * @return the time-ordered id generator to use for the intentType, or empty if the IntentType's own generator
+     * should be used
+     */
+    public Optional<Supplier<String>> getIdGenerator(IntentType intentType) {
+        requireNonNull(intentType, "intentType must be provided");
+        if (getStrategy(intentType) == ConsentIdStrategy.RANDOM) {
+            return Optional.empty();
+        }
+        return Optional.of(timeOrderedIdGenerators.computeIfAbsent(intentType, this::createTimeOrderedIdGenerator));
+    }
+
+    private Supplier<String> createTimeOrderedIdGenerator(IntentType intentType) {
+        final TimeOrderedIdGenerator idGenerator = new TimeOrderedIdGenerator(getIntentIdPrefix(intentType), timeOrderedFormat);
+        final String sampleId = idGenerator.get();
+        if (IntentType.identify(sampleId) != intentType) {
+            throw new IllegalStateException("Time-ordered id: " + sampleId + " is not identified as IntentType: " + intentType);
+        }
+        if (sampleId.length() > intentType.generateIntentId().length()) {
+            throw new IllegalStateException("Time-ordered id: " + sampleId + " is longer than the ids of IntentType: "
+                    + intentType + ", use the ULID format");
+        }
+        return idGenerator;
+    }
+
+    /**
+     * IntentType ids are of the form: prefix + UUID, where the prefix ends with an underscore e.g. AAC_
+     */
+    static String getIntentIdPrefix(IntentType intentType) {
+        final String intentId = intentType.generateIntentId();
+        final int prefixEnd = intentId.lastIndexOf('_');
+        if (prefixEnd < 0) {
+            throw new IllegalStateException("Unable to determine the id prefix of IntentType: " + intentType + " from id: " + intentId);
+        }
+        return intentId.substring(0, prefixEnd + 1);
+    }
+}
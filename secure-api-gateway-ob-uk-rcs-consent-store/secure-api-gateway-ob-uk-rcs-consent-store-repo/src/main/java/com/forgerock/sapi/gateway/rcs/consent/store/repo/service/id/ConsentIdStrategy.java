@@ -0,0 +1,38 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.service.id;
+
+/**
+ * Strategies for generating the ids of newly created consents.
+ */
+public enum ConsentIdStrategy {
+
+    /**
+     * Id generated by the IntentType i.e. prefix + random UUID. Inserts are spread randomly across the _id index.
+     */
+    RANDOM,
+
+    /**
+     * Prefix + ULID: 26 character Crockford base32 string, 48 bit millisecond timestamp followed by 80 random bits.
+     */
+    ULID,
+
+    /**
+     * Prefix + UUID version 7 (RFC 9562): 48 bit millisecond timestamp followed by random bits, in the canonical UUID
+     * string format.
+     */
+    UUID_V7
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.service.id;
+
+import static java.util.Objects.requireNonNull;
+
+import java.security.SecureRandom;
+import java.util.Random;
+import java.util.UUID;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Generates ids consisting of a fixed prefix followed by a time-ordered ULID or UUIDv7.
+ * <p>
+ * Ids generated by an instance sort (as strings) in the order they were generated: ids created in the same millisecond,
+ * or while the clock has moved backwards, increment the random part of the previous id rather than drawing a new one.
+ * Consecutive inserts therefore append to the right-hand side of the _id index, keeping the recently created consents,
+ * which are the ones that are read and updated, in a small number of index pages.
+ */
+public class TimeOrderedIdGenerator implements Supplier<String> {
+
+    private static final char[] CROCKFORD_BASE32 = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    private static final long TIMESTAMP_MASK = (1L << 48) - 1;
+
+    private final String prefix;
+    private final ConsentIdStrategy format;
+    private final LongSupplier clock;
+    private final Random random;
+
+    private long lastTimestamp = -1;
+
+    /**
+     * ULID: the high 16 bits of the 80 bit random component. UUIDv7: the 12 bit rand_a field, used as a counter.
+     */
+    private long randomHigh;
+
+    /**
+     * ULID: the low 64 bits of the 80 bit random component. UUIDv7: the 62 bit rand_b field.
+     */
+    private long randomLow;
+
+    public TimeOrderedIdGenerator(String prefix, ConsentIdStrategy format) {
+        this(prefix, format, System::currentTimeMillis, new SecureRandom());
+    }
+
+    TimeOrderedIdGenerator(String prefix, ConsentIdStrategy format, LongSupplier clock, Random random) {
+        this.prefix = requireNonNull(prefix, "prefix must be provided");
+        this.format = requireNonNull(format, "format must be provided");
+        if (format == ConsentIdStrategy.RANDOM) {
+            throw new IllegalArgumentException("format must be a time-ordered strategy");
+        }
+        this.clock = requireNonNull(clock, "clock must be provided");
+        this.random = requireNonNull(random, "random must be provided");
+    }
+
+    @Override
+    public synchronized String get() {
+        final long now = clock.getAsLong() & TIMESTAMP_MASK;
+        if (now > lastTimestamp) {
+            lastTimestamp = now;
+            reseed();
+        } else if (!increment()) {
+            // Random component exhausted for this millisecond, borrow from the next one
+            lastTimestamp = (lastTimestamp + 1) & TIMESTAMP_MASK;
+            reseed();
+        }
+        return prefix + (format == ConsentIdStrategy.ULID ? encodeUlid() : encodeUuidV7());
+    }
+
+    private void reseed() {
+        if (format == ConsentIdStrategy.ULID) {
+            randomHigh = random.nextInt(1 << 16);
+            randomLow = random.nextLong();
+        } else {
+            // Start the counter in the lower half of its range, leaving room to increment within the millisecond
+            randomHigh = random.nextInt(1 << 11);
+            randomLow = random.nextLong() & ((1L << 62) - 1);
+        }
+    }
+
+    /**
+     * @return false if the random component overflowed
+     */
+    private boolean increment() {
+        if (format == ConsentIdStrategy.ULID) {
+            randomLow++;
+            if (randomLow == 0) {
+                randomHigh++;
+            }
+            return randomHigh < (1 << 16);
+        }
+        randomHigh++;
+        randomLow = random.nextLong() & ((1L << 62) - 1);
+        return randomHigh < (1 << 12);
+    }
+
+    private String encodeUlid() {
+        final char[] chars = new char[26];
+        for (int i = 0; i < 10; i++) {
+            chars[i] = CROCKFORD_BASE32[(int) (lastTimestamp >>> (5 * (9 - i))) & 31];
+        }
+        for (int i = 0; i < 16; i++) {
+            final int shift = 5 * (15 - i);
+            final long bits;
+            if (shift >= 64) {
+                bits = randomHigh >>> (shift - 64);
+            } else if (shift + 5 <= 64) {
+                bits = randomLow >>> shift;
+            } else {
+                bits = (randomLow >>> shift) | (randomHigh << (64 - shift));
+            }
+            chars[10 + i] = CROCKFORD_BASE32[(int) bits & 31];
+        }
+        return new String(chars);
+    }
+
+    private String encodeUuidV7() {
+        final long mostSigBits = (lastTimestamp << 16) | 0x7000L | randomHigh;
+        final long leastSigBits = 0x8000000000000000L | randomLow;
+        return new UUID(mostSigBits, leastSigBits).toString();
+    }
+}
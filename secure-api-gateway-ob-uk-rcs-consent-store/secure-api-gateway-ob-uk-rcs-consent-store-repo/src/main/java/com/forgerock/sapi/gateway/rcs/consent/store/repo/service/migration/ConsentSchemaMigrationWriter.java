@@ -0,0 +1,304 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.service.migration;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.MongoLeaderLease;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.migration.ConsentSchemaMigrationListener.MigratedConsentSink;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.migration.ConsentSchemaMigrations;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.partition.ConsentPartitions;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.LeasedBackgroundJob;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.ReplaceOneModel;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Background task which writes consent documents migrated by the {@link ConsentSchemaMigrations} back to their live
+ * collection, so that reads stop paying for the upcast.
+ * <p>
+ * Consents upcast on read are queued (the queue is bounded, consents which do not fit are upcast again on their next
+ * read) and written back in batches on a single low priority thread, away from the request path. Optionally, consents
+ * which are never read can be migrated by a scan of the collections of the migrated types, run by the replica holding
+ * the {@link #LEASE_NAME} lease. Both paths re-read the documents, upcast them and replace them only if their
+ * entityVersion is unchanged, so a concurrent modification of a consent is never overwritten (the write back is then
+ * skipped, the modification having already written the consent with the current schemaVersion). Archived consents are
+ * immutable and are only upcast on read. Consents are written back to the partition they were read from, the scan
+ * covers every partition.
+ * <p>
+ * Nothing is started unless upcasters are registered.
+ * <p>
+ * Metrics: consent.store.migration.written (counter tagged by consentType and source: read or scan),
+ * consent.store.migration.writeBack.dropped (counter) and consent.store.migration.scan.runs (timer tagged by outcome).
+ */
+@Component
+public class ConsentSchemaMigrationWriter implements MigratedConsentSink {
+
+    public static final String LEASE_NAME = "consentSchemaMigration";
+
+    private static final Logger logger = LoggerFactory.getLogger(ConsentSchemaMigrationWriter.class);
+
+    private final MongoOperations mongoOperations;
+
+    private final ConsentSchemaMigrations consentSchemaMigrations;
+
+    private final MeterRegistry meterRegistry;
+
+    private final LeasedBackgroundJob job;
+
+    private final boolean writeBackEnabled;
+
+    private final BlockingQueue<MigratedConsent> writeBackQueue;
+
+    private final long writeBackIntervalMillis;
+
+    private final boolean scanEnabled;
+
+    private final long scanIntervalMillis;
+
+    private final int batchSize;
+
+    private final int maxBatchesPerScan;
+
+    private final Counter droppedCounter;
+
+    private ConsentPartitions consentPartitions = ConsentPartitions.single();
+
+    public ConsentSchemaMigrationWriter(MongoOperations mongoOperations,
+                                        ConsentSchemaMigrations consentSchemaMigrations,
+                                        MongoLeaderLease leaderLease,
+                                        ObjectProvider<MeterRegistry> meterRegistryProvider,
+                                        @Value("${consent.store.migration.writeBack.enabled:true}") boolean writeBackEnabled,
+                                        @Value("${consent.store.migration.writeBack.queueCapacity:10000}") int writeBackQueueCapacity,
+                                        @Value("${consent.store.migration.writeBack.intervalMillis:5000}") long writeBackIntervalMillis,
+                                        @Value("${consent.store.migration.scan.enabled:false}") boolean scanEnabled,
+                                        @Value("${consent.store.migration.scan.intervalMillis:3600000}") long scanIntervalMillis,
+                                        @Value("${consent.store.migration.scan.maxBatchesPerRun:100}") int maxBatchesPerScan,
+                                        @Value("${consent.store.migration.scan.leaseDurationMillis:600000}") long leaseDurationMillis,
+                                        @Value("${consent.store.migration.batchSize:100}") int batchSize,
+                                        @Value("${consent.store.migration.batchPauseMillis:100}") long batchPauseMillis) {
+        this.mongoOperations = requireNonNull(mongoOperations, "mongoOperations must be provided");
+        this.consentSchemaMigrations = requireNonNull(consentSchemaMigrations, "consentSchemaMigrations must be provided");
+        this.meterRegistry = meterRegistryProvider.getIfAvailable(SimpleMeterRegistry::new);
+        if (batchSize < 1 || maxBatchesPerScan < 1 || writeBackQueueCapacity < 1) {
+            throw new IllegalArgumentException("batchSize, maxBatchesPerRun and queueCapacity must be greater than zero");
+        }
+        this.writeBackEnabled = writeBackEnabled;
+        this.writeBackQueue = new LinkedBlockingQueue<>(writeBackQueueCapacity);
+        this.writeBackIntervalMillis = writeBackIntervalMillis;
+        this.scanEnabled = scanEnabled;
+        this.scanIntervalMillis = scanIntervalMillis;
+        this.maxBatchesPerScan = maxBatchesPerScan;
+        this.batchSize = batchSize;
+        this.job = new LeasedBackgroundJob("Consent schema migration", leaderLease, LEASE_NAME, Duration.ofMillis(leaseDurationMillis),
+                batchPauseMillis, meterRegistry, "consent.store.migration.scan.runs");
+        this.droppedCounter = Counter.builder("consent.store.migration.writeBack.dropped").register(meterRegistry);
+    }
+
+    @Autowired(required = false)
+    public void setConsentPartitions(ConsentPartitions consentPartitions) {
+        this.consentPartitions = requireNonNull(consentPartitions, "consentPartitions must be provided");
+    }
+
+    @PostConstruct
+    void start() {
+        if (consentSchemaMigrations.getMigratedEntityClasses().isEmpty() || (!writeBackEnabled && !scanEnabled)) {
+            logger.info("Consent schema migration writer not started - migrated types: {}, writeBack enabled: {}, scan enabled: {}",
+                    consentSchemaMigrations.getMigratedEntityClasses().size(), writeBackEnabled, scanEnabled);
+            return;
+        }
+        logger.info("Starting consent schema migration writer - writeBack enabled: {}, scan enabled: {}, batchSize: {}",
+                writeBackEnabled, scanEnabled, batchSize);
+        job.start(1, Thread.MIN_PRIORITY);
+        if (writeBackEnabled) {
+            job.scheduleWithFixedDelay("write back", this::runScheduledWriteBack, writeBackIntervalMillis, writeBackIntervalMillis);
+        }
+        if (scanEnabled) {
+            job.scheduleWithFixedDelay("scan", this::runScheduledScan, scanIntervalMillis, scanIntervalMillis);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        job.shutdown();
+    }
+
+    @Override
+    public void migratedOnRead(Class<?> entityClass, String collectionName, Object consentId) {
+        if (!job.isStarted() || !writeBackEnabled) {
+            return;
+        }
+        // Reads outside a partition scope are served by partition 0
+        final Integer partition = ConsentPartitions.currentPartition();
+        final MigrationTarget target = new MigrationTarget(entityClass, collectionName, partition != null ? partition : 0);
+        if (!writeBackQueue.offer(new MigratedConsent(target, consentId))) {
+            droppedCounter.increment();
+        }
+    }
+
+    private void runScheduledWriteBack() {
+        final long written = writeBackMigratedOnRead();
+        if (written > 0) {
+            logger.debug("Wrote back {} consents migrated on read", written);
+        }
+    }
+
+    private void runScheduledScan() {
+        logger.info("Consent schema migration scan finished - migrated: {}", scan());
+    }
+
+    /**
+     * Writes back the consents queued since the last run, a batch at a time.
+     *
+     * @return the number of consents written back
+     */
+    public long writeBackMigratedOnRead() {
+        long written = 0;
+        while (true) {
+            final List<MigratedConsent> batch = new ArrayList<>(batchSize);
+            writeBackQueue.drainTo(batch, batchSize);
+            if (batch.isEmpty()) {
+                return written;
+            }
+            final Map<MigrationTarget, Set<Object>> consentIdsByTarget = new LinkedHashMap<>();
+            for (MigratedConsent migratedConsent : batch) {
+                consentIdsByTarget.computeIfAbsent(migratedConsent.target(), target -> new LinkedHashSet<>())
+                                  .add(migratedConsent.consentId());
+            }
+            for (Map.Entry<MigrationTarget, Set<Object>> entry : consentIdsByTarget.entrySet()) {
+                final MigrationTarget target = entry.getKey();
+                final List<Document> documents = consentPartitions.onPartition(target.partition(), () -> mongoOperations.find(
+                        new Query(Criteria.where("_id").in(entry.getValue())), Document.class, target.collectionName()));
+                written += writeBack(target, documents, "read");
+            }
+            if (batch.size() < batchSize || !job.pause()) {
+                return written;
+            }
+        }
+    }
+
+    /**
+     * Migrates the consents of the migrated types which are below the current schemaVersion, in _id order, if this
+     * replica holds (or acquires) the migration lease. Runs are capped at maxBatchesPerRun batches.
+     *
+     * @return the number of consents migrated
+     */
+    public long scan() {
+        if (!job.tryAcquireLease()) {
+            job.recordRun(job.startRun(), "not_leader");
+            return 0;
+        }
+        final Timer.Sample sample = job.startRun();
+        String outcome = "failed";
+        long migrated = 0;
+        int batchesRemaining = maxBatchesPerScan;
+        try {
+            for (Class<?> entityClass : consentSchemaMigrations.getMigratedEntityClasses()) {
+                final Criteria outdatedCriteria = new Criteria().orOperator(
+                        Criteria.where(ConsentSchemaMigrations.FIELD_SCHEMA_VERSION).lt(consentSchemaMigrations.getCurrentSchemaVersion(entityClass)),
+                        Criteria.where(ConsentSchemaMigrations.FIELD_SCHEMA_VERSION).exists(false));
+                for (int partition = 0; partition < consentPartitions.getPartitionCount(); partition++) {
+                    final MigrationTarget target = new MigrationTarget(entityClass, mongoOperations.getCollectionName(entityClass), partition);
+                    Object lastConsentId = null;
+                    while (true) {
+                        if (batchesRemaining-- == 0) {
+                            outcome = "incomplete";
+                            return migrated;
+                        }
+                        final Criteria criteria = lastConsentId == null ? outdatedCriteria
+                                : new Criteria().andOperator(Criteria.where("_id").gt(lastConsentId), outdatedCriteria);
+                        final List<Document> documents = consentPartitions.onPartition(partition, () -> mongoOperations.find(
+                                new Query(criteria).with(Sort.by("_id")).limit(batchSize), Document.class, target.collectionName()));
+                        if (documents.isEmpty()) {
+                            break;
+                        }
+                        lastConsentId = documents.get(documents.size() - 1).get("_id");
+                        migrated += writeBack(target, documents, "scan");
+                        if (documents.size() < batchSize) {
+                            break;
+                        }
+                        if (!job.pauseAndRenewLease()) {
+                            outcome = "incomplete";
+                            return migrated;
+                        }
+                    }
+                }
+            }
+            outcome = "completed";
+            return migrated;
+        } finally {
+            job.recordRun(sample, outcome);
+        }
+    }
+
+    private long writeBack(MigrationTarget target, List<Document> documents, String source) {
+        final List<ReplaceOneModel<Document>> writes = new ArrayList<>(documents.size());
+        for (Document document : documents) {
+            final Object entityVersion = document.get("entityVersion");
+            if (consentSchemaMigrations.upcast(target.entityClass(), document)) {
+                writes.add(new ReplaceOneModel<>(new Document("_id", document.get("_id")).append("entityVersion", entityVersion),
+                        document));
+            }
+        }
+        if (writes.isEmpty()) {
+            return 0;
+        }
+        final long written = consentPartitions.onPartition(target.partition(),
+                () -> mongoOperations.getCollection(target.collectionName())
+                                     .bulkWrite(writes, new BulkWriteOptions().ordered(false))
+                                     .getModifiedCount());
+        Counter.builder("consent.store.migration.written")
+               .tag("consentType", target.entityClass().getSimpleName().replace("Entity", ""))
+               .tag("source", source)
+               .register(meterRegistry)
+               .increment(written);
+        return written;
+    }
+
+    private record MigrationTarget(Class<?> entityClass, String collectionName, int partition) {
+    }
+
+    private record MigratedConsent(MigrationTarget target, Object consentId) {
+    }
+}
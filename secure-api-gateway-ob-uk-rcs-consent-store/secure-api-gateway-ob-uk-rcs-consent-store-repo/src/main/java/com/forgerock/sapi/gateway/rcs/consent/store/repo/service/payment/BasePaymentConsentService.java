@@ -15,14 +15,18 @@
  */
 package com.forgerock.sapi.gateway.rcs.consent.store.repo.service.payment;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.function.Supplier;
 
 import org.joda.time.DateTime;
+import org.springframework.core.GenericTypeResolver;
 
+import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.PaymentInitiationFingerprint;
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.BasePaymentConsentEntity;
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.exception.ConsentStoreException;
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.exception.ConsentStoreException.ErrorType;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.payment.PaymentConsentConsumeConditions;
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.payment.PaymentConsentRepository;
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.BaseConsentService;
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.ConsentStateModel;
@@ -31,6 +35,18 @@ import uk.org.openbanking.datamodel.v3.payment.OBPaymentConsentStatus;
 
 public class BasePaymentConsentService<T extends BasePaymentConsentEntity<?>, A extends PaymentAuthoriseConsentArgs> extends BaseConsentService<T, A> implements PaymentConsentService<T, A> {
 
+    private static final String CONSUMED_STATUS = OBPaymentConsentStatus.CONSUMED.toString();
+
+    /**
+     * Entity class of the consents managed by this service, required in order to map the results of findAndModify
+     */
+    private final Class<T> entityClass;
+
+    /**
+     * Statuses which are allowed to transition to the Consumed status
+     */
+    private final List<String> consumableStatuses;
+
     protected BasePaymentConsentService(PaymentConsentRepository<T> repo, Supplier<String> idGenerator) {
         this(repo, idGenerator, PaymentConsentStateModel.getInstance());
     }
@@ -39,6 +55,17 @@ public class BasePaymentConsentService<T extends BasePaymentConsentEntity<?>, A
                                         ConsentStateModel consentStateModel) {
 
         super(repo, idGenerator, consentStateModel);
+        this.entityClass = resolveEntityClass();
+        this.consumableStatuses = getStatusesAllowedToTransitionTo(CONSUMED_STATUS);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Class<T> resolveEntityClass() {
+        final Class<?>[] typeArguments = GenericTypeResolver.resolveTypeArguments(getClass(), BasePaymentConsentService.class);
+        if (typeArguments == null || typeArguments[0] == null) {
+            throw new IllegalStateException("Unable to resolve entity class for service: " + getClass().getName());
+        }
+        return (Class<T>) typeArguments[0];
     }
 
     private PaymentConsentRepository<T> getRepo() {
@@ -55,15 +82,64 @@ public class BasePaymentConsentService<T extends BasePaymentConsentEntity<?>, A
                         "The provided Idempotency Key: '" + consent.getIdempotencyKey() + "' header matched a previous request but the request body has been changed.");
             }
         }
-        return consentMatchingIdempotencyData.orElseGet(() -> super.createConsent(consent));
+        return consentMatchingIdempotencyData.orElseGet(() -> {
+            consent.setInitiationFingerprint(PaymentInitiationFingerprint.ofConsentRequest(consent.getRequestObj()));
+            addConsentSpecificCreationData(consent);
+            return super.createConsent(consent);
+        });
+    }
+
+    /**
+     * Hook allowing subclasses to set additional fields, derived from the requestObj, on a consent that is about to be
+     * created. The default implementation does nothing.
+     */
+    protected void addConsentSpecificCreationData(T consent) {
     }
 
+    @Override
     public T consumeConsent(String consentId, String apiClientId) {
+        return consumeConsent(consentId, apiClientId, null, null);
+    }
+
+    /**
+     * Validates and consumes the consent in a single atomic update.
+     * <p>
+     * In the happy path this makes one round trip to the database. If the update does not match the consent, then the
+     * consent is read in order to report the reason for the failure.
+     */
+    @Override
+    public T consumeConsent(String consentId, String apiClientId, String expectedInitiationFingerprint, String expectedDebtorAccountId) {
+        final PaymentConsentConsumeConditions conditions = new PaymentConsentConsumeConditions(consentId, apiClientId,
+                consumableStatuses, getAccessibleRequestVersions(), expectedInitiationFingerprint, expectedDebtorAccountId);
+        final Optional<T> consumedConsent = getRepo().findAndConsume(conditions, CONSUMED_STATUS, entityClass);
+        if (consumedConsent.isPresent()) {
+            // The consume update only matches the consumable statuses, which is a single status for all payment types
+            if (consumableStatuses.size() == 1) {
+                statusChanged(apiClientId, consumableStatuses.get(0), CONSUMED_STATUS);
+            }
+            return consumedConsent.get();
+        }
+
+        // Raises NOT_FOUND, INVALID_PERMISSIONS or INVALID_API_VERSION errors
         final T consent = getConsent(consentId, apiClientId);
-        final String consumedStatus = OBPaymentConsentStatus.CONSUMED.toString();
-        validateStateTransition(consent, consumedStatus);
-        consent.setStatus(consumedStatus);
-        return repo.save(consent);
+        validateStateTransition(consent, CONSUMED_STATUS);
+        if (expectedDebtorAccountId != null && !expectedDebtorAccountId.equals(consent.getAuthorisedDebtorAccountId())) {
+            throw new ConsentStoreException(ErrorType.INVALID_DEBTOR_ACCOUNT, consentId,
+                    "expectedDebtorAccountId does not match the authorisedDebtorAccountId");
+        }
+        if (expectedInitiationFingerprint != null && !expectedInitiationFingerprint.equals(consent.getInitiationFingerprint())) {
+            if (consent.getInitiationFingerprint() == null
+                    && expectedInitiationFingerprint.equals(PaymentInitiationFingerprint.ofConsentRequest(consent.getRequestObj()))) {
+                // Consent was created before initiation fingerprints were recorded, store it and retry the consume
+                getRepo().setInitiationFingerprintIfAbsent(consentId, expectedInitiationFingerprint, entityClass);
+                return consumeConsent(consentId, apiClientId, expectedInitiationFingerprint, expectedDebtorAccountId);
+            }
+            throw new ConsentStoreException(ErrorType.INVALID_PAYMENT_INITIATION, consentId,
+                    "expectedInitiationFingerprint does not match the consent initiation");
+        }
+        // All conditions are now met, therefore the consent must have been concurrently modified between the two calls
+        throw new ConsentStoreException(ErrorType.INVALID_STATE_TRANSITION, consentId,
+                "consent was modified concurrently, status is now: " + consent.getStatus());
     }
 
     @Override
@@ -0,0 +1,88 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.service.payment;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.BasePaymentConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.ScheduledPaymentConsent;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.domestic.DomesticScheduledPaymentConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.international.InternationalScheduledPaymentConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.payment.DueScheduledPaymentConsentRepository;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.payment.DueScheduledPaymentConsentsQuery;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.routing.ConsentReadOperation;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.routing.ConsentReadRouting;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.routing.ConsentReadScope;
+
+/**
+ * Service which finds the Authorised Scheduled Payment Consents that are due to be executed, intended to be polled
+ * by payment schedulers.
+ * <p>
+ * The consents returned only contain the fields required to schedule the payment, the full consent can be fetched
+ * via the relevant consent service when the payment is made.
+ * <p>
+ * Queries are {@link ConsentReadOperation#SEARCH} operations, so may be served by a secondary when read routing is
+ * enabled.
+ */
+@Service
+public class DueScheduledPaymentConsentService {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final String authorisedConsentStatus = PaymentConsentStateModel.getInstance().getAuthorisedConsentStatus();
+
+    private final DueScheduledPaymentConsentRepository dueScheduledPaymentConsentRepository;
+
+    private final ConsentReadRouting consentReadRouting;
+
+    public DueScheduledPaymentConsentService(DueScheduledPaymentConsentRepository dueScheduledPaymentConsentRepository,
+                                             ConsentReadRouting consentReadRouting) {
+        this.dueScheduledPaymentConsentRepository = requireNonNull(dueScheduledPaymentConsentRepository,
+                "dueScheduledPaymentConsentRepository must be provided");
+        this.consentReadRouting = requireNonNull(consentReadRouting, "consentReadRouting must be provided");
+    }
+
+    /**
+     * @return Stream of the Domestic Scheduled Payment Consents matching the query, which must be closed by the caller
+     */
+    public Stream<ScheduledPaymentConsent> streamDueDomesticScheduledPaymentConsents(DueScheduledPaymentConsentsQuery query) {
+        logger.debug("Streaming due DomesticScheduledPaymentConsents - query: {}", query);
+        return streamDueConsents(DomesticScheduledPaymentConsentEntity.class, query);
+    }
+
+    /**
+     * @return Stream of the International Scheduled Payment Consents matching the query, which must be closed by the caller
+     */
+    public Stream<ScheduledPaymentConsent> streamDueInternationalScheduledPaymentConsents(DueScheduledPaymentConsentsQuery query) {
+        logger.debug("Streaming due InternationalScheduledPaymentConsents - query: {}", query);
+        return streamDueConsents(InternationalScheduledPaymentConsentEntity.class, query);
+    }
+
+    private <T extends BasePaymentConsentEntity<?> & ScheduledPaymentConsent> Stream<ScheduledPaymentConsent> streamDueConsents(
+            Class<T> entityClass, DueScheduledPaymentConsentsQuery query) {
+        // The query is executed when the stream is created, so the scope only needs to span this call
+        try (ConsentReadScope ignored = consentReadRouting.openScope(ConsentReadOperation.SEARCH, null)) {
+            return dueScheduledPaymentConsentRepository.streamDueConsents(entityClass, authorisedConsentStatus, query)
+                                                       .map(ScheduledPaymentConsent.class::cast);
+        }
+    }
+}
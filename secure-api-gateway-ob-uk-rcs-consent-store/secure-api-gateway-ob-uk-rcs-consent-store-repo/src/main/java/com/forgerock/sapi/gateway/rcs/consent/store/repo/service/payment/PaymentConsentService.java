@@ -22,4 +22,15 @@ import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.ConsentService;
 public interface PaymentConsentService<T extends BasePaymentConsentEntity, A extends AuthoriseConsentArgs> extends ConsentService<T, A> {
 
     T consumeConsent(String consentId, String apiClientId);
+
+    /**
+     * Consumes the consent, providing that it matches the payment being made.
+     *
+     * @param consentId                     id of the consent to consume
+     * @param apiClientId                   id of the ApiClient making the payment
+     * @param expectedInitiationFingerprint optional, fingerprint of the payment initiation which must match the consent
+     * @param expectedDebtorAccountId       optional, id of the debtor account which must match the authorisedDebtorAccountId
+     * @return the consumed consent
+     */
+    T consumeConsent(String consentId, String apiClientId, String expectedInitiationFingerprint, String expectedDebtorAccountId);
 }
@@ -26,6 +26,9 @@ public class DefaultDomesticScheduledPaymentConsentService extends BasePaymentCo
     public DefaultDomesticScheduledPaymentConsentService(PaymentConsentRepository<DomesticScheduledPaymentConsentEntity> repo) {
         super(repo, IntentType.PAYMENT_DOMESTIC_SCHEDULED_CONSENT::generateIntentId);
     }
-}
-
 
+    @Override
+    protected void addConsentSpecificCreationData(DomesticScheduledPaymentConsentEntity consent) {
+        consent.setRequestedExecutionDateTime(consent.getRequestObj().getData().getInitiation().getRequestedExecutionDateTime());
+    }
+}
@@ -44,10 +44,13 @@ public class DefaultFilePaymentConsentService extends BasePaymentConsentService<
            }
         } else {
             validateStateTransition(consent, FilePaymentConsentStateModel.AWAITING_AUTHORISATION);
+            final String previousStatus = consent.getStatus();
             consent.setStatus(FilePaymentConsentStateModel.AWAITING_AUTHORISATION);
             consent.setFileContent(fileUploadArgs.getFileContents());
             consent.setFileUploadIdempotencyKey(fileUploadArgs.getFileUploadIdempotencyKey());
-            return repo.save(consent);
+            final FilePaymentConsentEntity uploadedConsent = repo.save(consent);
+            statusChanged(uploadedConsent.getApiClientId(), previousStatus, FilePaymentConsentStateModel.AWAITING_AUTHORISATION);
+            return uploadedConsent;
         }
     }
 }
@@ -45,7 +45,7 @@ public class FilePaymentConsentStateModel implements ConsentStateModel {
 
     private FilePaymentConsentStateModel() {
         stateTransitions = new LinkedMultiValueMap<>();
-        stateTransitions.addAll(AWAITING_UPLOAD, List.of(AWAITING_AUTHORISATION));
+        stateTransitions.addAll(AWAITING_UPLOAD, List.of(AWAITING_AUTHORISATION, REJECTED)); // Rejected when the file is never uploaded
         stateTransitions.addAll(AWAITING_AUTHORISATION, List.of(AUTHORISED, REJECTED));
         stateTransitions.addAll(AUTHORISED, List.of(CONSUMED));
     }
@@ -26,4 +26,9 @@ public class DefaultInternationalScheduledPaymentConsentService extends BasePaym
     public DefaultInternationalScheduledPaymentConsentService(PaymentConsentRepository<InternationalScheduledPaymentConsentEntity> repo) {
         super(repo, IntentType.PAYMENT_INTERNATIONAL_SCHEDULED_CONSENT::generateIntentId);
     }
+
+    @Override
+    protected void addConsentSpecificCreationData(InternationalScheduledPaymentConsentEntity consent) {
+        consent.setRequestedExecutionDateTime(consent.getRequestObj().getData().getInitiation().getRequestedExecutionDateTime());
+    }
 }
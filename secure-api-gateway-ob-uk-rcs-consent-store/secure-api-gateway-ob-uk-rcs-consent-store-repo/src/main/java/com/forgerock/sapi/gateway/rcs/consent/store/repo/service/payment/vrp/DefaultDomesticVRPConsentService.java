@@ -15,26 +15,59 @@
  */
 package com.forgerock.sapi.gateway.rcs.consent.store.repo.service.payment.vrp;
 
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 import org.joda.time.DateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import com.forgerock.sapi.gateway.ob.uk.common.datamodel.common.FRAmount;
+import com.forgerock.sapi.gateway.ob.uk.common.datamodel.vrp.FRDomesticVRPControlParameters;
+import com.forgerock.sapi.gateway.ob.uk.common.datamodel.vrp.FRPeriodicLimits;
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.vrp.DomesticVRPConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.vrp.LimitReservation;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.vrp.PeriodicLimitUsage;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.vrp.VRPPeriodAlignment;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.vrp.VRPPeriodType;
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.exception.ConsentStoreException;
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.exception.ConsentStoreException.ErrorType;
-import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.payment.PaymentConsentRepository;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.payment.vrp.DomesticVRPConsentRepository;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.payment.vrp.VRPLimitPeriod;
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.BaseConsentService;
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.payment.PaymentAuthoriseConsentArgs;
 import com.forgerock.sapi.gateway.uk.common.shared.api.meta.share.IntentType;
 
 public class DefaultDomesticVRPConsentService extends BaseConsentService<DomesticVRPConsentEntity, PaymentAuthoriseConsentArgs> implements DomesticVRPConsentService {
 
-    public DefaultDomesticVRPConsentService(PaymentConsentRepository<DomesticVRPConsentEntity> repo) {
+    /**
+     * Calendar aligned PeriodicLimits periods start at midnight UK time
+     */
+    private static final VRPLimitPeriodCalculator LIMIT_PERIOD_CALCULATOR = new VRPLimitPeriodCalculator(ZoneId.of("Europe/London"));
+
+    /**
+     * Number of times a reservation is attempted, a reservation which is the first in a period needs to start the
+     * period's usage counters and then retry.
+     */
+    private static final int MAX_RESERVATION_ATTEMPTS = 3;
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final String authorisedConsentStatus = VRPConsentStateModel.getInstance().getAuthorisedConsentStatus();
+
+    public DefaultDomesticVRPConsentService(DomesticVRPConsentRepository repo) {
         super(repo, IntentType.DOMESTIC_VRP_PAYMENT_CONSENT::generateIntentId, VRPConsentStateModel.getInstance());
     }
 
-    private PaymentConsentRepository<DomesticVRPConsentEntity> getRepo() {
-        return (PaymentConsentRepository<DomesticVRPConsentEntity>) repo;
+    private DomesticVRPConsentRepository getRepo() {
+        return (DomesticVRPConsentRepository) repo;
     }
 
     public DomesticVRPConsentEntity createConsent(DomesticVRPConsentEntity consent) {
@@ -53,4 +86,189 @@ public class DefaultDomesticVRPConsentService extends BaseConsentService<Domesti
     protected void addConsentSpecificAuthorisationData(DomesticVRPConsentEntity consent, PaymentAuthoriseConsentArgs authoriseConsentArgs) {
         consent.setAuthorisedDebtorAccountId(authoriseConsentArgs.getAuthorisedDebtorAccountId());
     }
+
+    @Override
+    public DomesticVRPConsentEntity reserveLimit(VRPLimitReservationArgs reservationArgs) {
+        final String consentId = reservationArgs.getConsentId();
+        final DomesticVRPConsentEntity consent = getConsent(consentId, reservationArgs.getApiClientId());
+        validateConsentIsAuthorised(consent);
+        validateAmount(reservationArgs);
+
+        final FRDomesticVRPControlParameters controlParameters = getControlParameters(consent);
+        validateReservationDateTime(consentId, controlParameters, reservationArgs.getReservationDateTime());
+        final FRAmount maximumIndividualAmount = controlParameters.getMaximumIndividualAmount();
+        if (maximumIndividualAmount != null) {
+            validateCurrency(consentId, reservationArgs, maximumIndividualAmount.getCurrency());
+            if (reservationArgs.getAmount().compareTo(new BigDecimal(maximumIndividualAmount.getAmount())) > 0) {
+                throw new ConsentStoreException(ErrorType.VRP_LIMIT_EXCEEDED, consentId,
+                        "Amount: " + reservationArgs.getAmount() + " exceeds the MaximumIndividualAmount: " + maximumIndividualAmount.getAmount());
+            }
+        }
+        final List<VRPLimitPeriod> limitPeriods = getLimitPeriods(consent, controlParameters, reservationArgs.getReservationDateTime());
+        for (VRPLimitPeriod limitPeriod : limitPeriods) {
+            validateCurrency(consentId, reservationArgs, limitPeriod.getCurrency());
+            if (reservationArgs.getAmount().compareTo(limitPeriod.getLimitAmount()) > 0) {
+                throw limitExceeded(consentId, reservationArgs, limitPeriod);
+            }
+        }
+
+        final LimitReservation reservation = new LimitReservation();
+        reservation.setReservationId(reservationArgs.getReservationId());
+        reservation.setAmount(reservationArgs.getAmount());
+        reservation.setCurrency(reservationArgs.getCurrency());
+        reservation.setReservationDateTime(reservationArgs.getReservationDateTime().toDate());
+        for (int attempt = 1; ; attempt++) {
+            final Optional<DomesticVRPConsentEntity> reservedConsent = getRepo().reserveLimit(consentId,
+                    reservationArgs.getApiClientId(), authorisedConsentStatus, reservation, limitPeriods);
+            if (reservedConsent.isPresent()) {
+                return reservedConsent.get();
+            }
+
+            // Slow path: determine why the reservation failed, starting the periods' usage counters if required
+            final DomesticVRPConsentEntity currentConsent = getConsent(consentId, reservationArgs.getApiClientId());
+            validateConsentIsAuthorised(currentConsent);
+            if (limitPeriods.isEmpty()) {
+                throw new ConsentStoreException(ErrorType.INVALID_STATE_TRANSITION, consentId, "Consent was modified concurrently");
+            }
+            final Optional<VRPLimitPeriod> limitPeriodNotStarted = findLimitPeriodNotStarted(currentConsent, limitPeriods);
+            if (limitPeriodNotStarted.isEmpty() || attempt == MAX_RESERVATION_ATTEMPTS) {
+                throw limitExceeded(consentId, reservationArgs, findExceededLimitPeriod(currentConsent, reservationArgs, limitPeriods));
+            }
+            logger.debug("Starting limit periods for consentId: {}, periods: {}", consentId, limitPeriods);
+            getRepo().startLimitPeriods(consentId, limitPeriods);
+        }
+    }
+
+    @Override
+    public DomesticVRPConsentEntity releaseLimit(String consentId, String apiClientId, String reservationId) {
+        final DomesticVRPConsentEntity consent = getConsent(consentId, apiClientId);
+        final LimitReservation reservation = getReservation(consent, reservationId);
+        if (reservation.isReleased()) {
+            logger.debug("Reservation: {} for consentId: {} has already been released", reservationId, consentId);
+            return consent;
+        }
+        final List<VRPLimitPeriod> limitPeriods = getLimitPeriods(consent, getControlParameters(consent),
+                new DateTime(reservation.getReservationDateTime()));
+        return getRepo().releaseLimit(consentId, apiClientId, reservation, limitPeriods).orElseGet(() -> {
+            // Released concurrently, the reservation is only ever released once
+            final DomesticVRPConsentEntity currentConsent = getConsent(consentId, apiClientId);
+            if (!getReservation(currentConsent, reservationId).isReleased()) {
+                throw new ConsentStoreException(ErrorType.INVALID_STATE_TRANSITION, consentId, "Consent was modified concurrently");
+            }
+            return currentConsent;
+        });
+    }
+
+    private static LimitReservation getReservation(DomesticVRPConsentEntity consent, String reservationId) {
+        final List<LimitReservation> reservations = consent.getLimitReservations() != null ? consent.getLimitReservations() : List.of();
+        return reservations.stream()
+                           .filter(reservation -> reservation.getReservationId().equals(reservationId))
+                           .findFirst()
+                           .orElseThrow(() -> new ConsentStoreException(ErrorType.NOT_FOUND, consent.getId(),
+                                   "Limit reservation: " + reservationId + " not found"));
+    }
+
+    private void validateConsentIsAuthorised(DomesticVRPConsentEntity consent) {
+        if (!authorisedConsentStatus.equals(consent.getStatus())) {
+            throw new ConsentStoreException(ErrorType.INVALID_STATE_TRANSITION, consent.getId(),
+                    "Limits can only be reserved for consents with status: " + authorisedConsentStatus + ", consent status: " + consent.getStatus());
+        }
+    }
+
+    private static void validateAmount(VRPLimitReservationArgs reservationArgs) {
+        if (reservationArgs.getAmount().signum() <= 0) {
+            throw new ConsentStoreException(ErrorType.BAD_REQUEST, reservationArgs.getConsentId(), "Amount must be greater than zero");
+        }
+    }
+
+    private static void validateCurrency(String consentId, VRPLimitReservationArgs reservationArgs, String limitCurrency) {
+        if (limitCurrency != null && !limitCurrency.equals(reservationArgs.getCurrency())) {
+            throw new ConsentStoreException(ErrorType.BAD_REQUEST, consentId,
+                    "Currency: " + reservationArgs.getCurrency() + " does not match the consent limit currency: " + limitCurrency);
+        }
+    }
+
+    private static void validateReservationDateTime(String consentId, FRDomesticVRPControlParameters controlParameters, DateTime reservationDateTime) {
+        final DateTime validFrom = controlParameters.getValidFromDateTime();
+        final DateTime validTo = controlParameters.getValidToDateTime();
+        if ((validFrom != null && reservationDateTime.isBefore(validFrom)) || (validTo != null && reservationDateTime.isAfter(validTo))) {
+            throw new ConsentStoreException(ErrorType.BAD_REQUEST, consentId,
+                    "reservationDateTime: " + reservationDateTime + " is outside of the consent's validity period");
+        }
+    }
+
+    private static FRDomesticVRPControlParameters getControlParameters(DomesticVRPConsentEntity consent) {
+        return consent.getRequestObj().getData().getControlParameters();
+    }
+
+    private static List<VRPLimitPeriod> getLimitPeriods(DomesticVRPConsentEntity consent, FRDomesticVRPControlParameters controlParameters,
+                                                        DateTime reservationDateTime) {
+        final List<FRPeriodicLimits> periodicLimits = controlParameters.getPeriodicLimits();
+        if (periodicLimits == null || periodicLimits.isEmpty()) {
+            return Collections.emptyList();
+        }
+        final Instant consentStart = controlParameters.getValidFromDateTime() != null
+                ? controlParameters.getValidFromDateTime().toDate().toInstant()
+                : consent.getCreationDateTime().toInstant();
+        final Instant reservationTime = reservationDateTime.toDate().toInstant();
+        if (reservationTime.isBefore(consentStart)) {
+            throw new ConsentStoreException(ErrorType.BAD_REQUEST, consent.getId(),
+                    "reservationDateTime: " + reservationDateTime + " is before the consent start: " + consentStart);
+        }
+
+        final List<VRPLimitPeriod> limitPeriods = new ArrayList<>(periodicLimits.size());
+        for (FRPeriodicLimits periodicLimit : periodicLimits) {
+            final VRPPeriodType periodType = VRPPeriodType.fromValue(String.valueOf(periodicLimit.getPeriodType()));
+            final VRPPeriodAlignment periodAlignment = VRPPeriodAlignment.fromValue(String.valueOf(periodicLimit.getPeriodAlignment()));
+            final Instant periodStart = LIMIT_PERIOD_CALCULATOR.getPeriodStart(periodType, periodAlignment, consentStart, reservationTime);
+            limitPeriods.add(new VRPLimitPeriod(periodType, periodAlignment, Date.from(periodStart),
+                    new BigDecimal(periodicLimit.getAmount()), periodicLimit.getCurrency()));
+        }
+        return limitPeriods;
+    }
+
+    private static Optional<PeriodicLimitUsage> findUsage(DomesticVRPConsentEntity consent, VRPLimitPeriod limitPeriod) {
+        if (consent.getPeriodicLimitUsage() == null) {
+            return Optional.empty();
+        }
+        return consent.getPeriodicLimitUsage().stream()
+                      .filter(usage -> usage.getPeriodType() == limitPeriod.getPeriodType()
+                              && usage.getPeriodAlignment() == limitPeriod.getPeriodAlignment()
+                              && Objects.equals(usage.getCurrency(), limitPeriod.getCurrency()))
+                      .findFirst();
+    }
+
+    /**
+     * @return a limit period which has no usage counter, or whose usage counter belongs to an earlier period
+     */
+    private static Optional<VRPLimitPeriod> findLimitPeriodNotStarted(DomesticVRPConsentEntity consent, List<VRPLimitPeriod> limitPeriods) {
+        return limitPeriods.stream()
+                           .filter(limitPeriod -> findUsage(consent, limitPeriod)
+                                   .map(usage -> usage.getPeriodStart().before(limitPeriod.getPeriodStart()))
+                                   .orElse(Boolean.TRUE))
+                           .findFirst();
+    }
+
+    private static VRPLimitPeriod findExceededLimitPeriod(DomesticVRPConsentEntity consent, VRPLimitReservationArgs reservationArgs,
+                                                          List<VRPLimitPeriod> limitPeriods) {
+        for (VRPLimitPeriod limitPeriod : limitPeriods) {
+            final Optional<PeriodicLimitUsage> usage = findUsage(consent, limitPeriod);
+            if (usage.isPresent() && usage.get().getPeriodStart().after(limitPeriod.getPeriodStart())) {
+                throw new ConsentStoreException(ErrorType.BAD_REQUEST, consent.getId(),
+                        "reservationDateTime: " + reservationArgs.getReservationDateTime() + " is in a " + limitPeriod.getPeriodType().getValue()
+                                + " period which has ended");
+            }
+            if (usage.isPresent() && usage.get().getReservedAmount().add(reservationArgs.getAmount()).compareTo(limitPeriod.getLimitAmount()) > 0) {
+                return limitPeriod;
+            }
+        }
+        // Counters changed concurrently, report against the first limit
+        return limitPeriods.get(0);
+    }
+
+    private static ConsentStoreException limitExceeded(String consentId, VRPLimitReservationArgs reservationArgs, VRPLimitPeriod limitPeriod) {
+        return new ConsentStoreException(ErrorType.VRP_LIMIT_EXCEEDED, consentId,
+                "Amount: " + reservationArgs.getAmount() + " exceeds the remaining " + limitPeriod.getPeriodType().getValue()
+                        + " PeriodicLimit of: " + limitPeriod.getLimitAmount());
+    }
 }
@@ -20,4 +20,28 @@ import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.ConsentService;
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.payment.PaymentAuthoriseConsentArgs;
 
 public interface DomesticVRPConsentService extends ConsentService<DomesticVRPConsentEntity, PaymentAuthoriseConsentArgs> {
+
+    /**
+     * Atomically checks that a payment amount is within the MaximumIndividualAmount and PeriodicLimits of an
+     * Authorised consent, and reserves the amount against the PeriodicLimits.
+     *
+     * @param reservationArgs the amount to reserve and the time of the payment
+     * @return the consent including the updated periodicLimitUsage and a limitReservations entry with the
+     * reservationArgs reservationId
+     * @throws com.forgerock.sapi.gateway.rcs.consent.store.repo.exception.ConsentStoreException with ErrorType
+     * VRP_LIMIT_EXCEEDED if the amount would exceed a limit
+     */
+    DomesticVRPConsentEntity reserveLimit(VRPLimitReservationArgs reservationArgs);
+
+    /**
+     * Releases a reservation previously made via {@link #reserveLimit(VRPLimitReservationArgs)}, to be used when the
+     * payment fails. Releasing is idempotent, releasing a reservation which has already been released returns the
+     * consent unchanged.
+     *
+     * @param reservationId the reservationId of the {@link VRPLimitReservationArgs} used to make the reservation
+     * @return the consent including the updated periodicLimitUsage
+     * @throws com.forgerock.sapi.gateway.rcs.consent.store.repo.exception.ConsentStoreException with ErrorType
+     * NOT_FOUND if the consent has no reservation with the reservationId
+     */
+    DomesticVRPConsentEntity releaseLimit(String consentId, String apiClientId, String reservationId);
 }
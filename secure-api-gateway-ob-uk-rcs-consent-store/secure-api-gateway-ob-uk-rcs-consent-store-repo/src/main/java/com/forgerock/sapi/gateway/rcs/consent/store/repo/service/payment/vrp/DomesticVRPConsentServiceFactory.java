@@ -19,7 +19,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.vrp.DomesticVRPConsentEntity;
-import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.payment.PaymentConsentRepository;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.payment.vrp.DomesticVRPConsentRepository;
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.ConsentServiceFactory;
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.payment.PaymentAuthoriseConsentArgs;
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.version.ApiVersionValidator;
@@ -28,12 +28,12 @@ import com.forgerock.sapi.gateway.rcs.consent.store.repo.version.ApiVersionValid
 public class DomesticVRPConsentServiceFactory extends ConsentServiceFactory<DomesticVRPConsentEntity, PaymentAuthoriseConsentArgs, DefaultDomesticVRPConsentService> {
 
     @Autowired
-    public DomesticVRPConsentServiceFactory(PaymentConsentRepository<DomesticVRPConsentEntity> repo, ApiVersionValidator apiVersionValidator) {
+    public DomesticVRPConsentServiceFactory(DomesticVRPConsentRepository repo, ApiVersionValidator apiVersionValidator) {
         super(repo, apiVersionValidator);
     }
 
     @Override
     protected DefaultDomesticVRPConsentService createBaseConsentService() {
-        return new DefaultDomesticVRPConsentService((PaymentConsentRepository)repo);
+        return new DefaultDomesticVRPConsentService((DomesticVRPConsentRepository) repo);
     }
 }
@@ -0,0 +1,83 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.service.payment.vrp;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.Month;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.vrp.VRPPeriodAlignment;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.vrp.VRPPeriodType;
+
+/**
+ * Calculates the start of the VRP PeriodicLimits period that a point in time falls into.
+ * <p>
+ * Consent aligned periods repeat from the consent start date. Calendar aligned periods start at midnight on: each day,
+ * Monday for a Week, the 1st and 15th of the month for a Fortnight, the 1st of the month for a Month, 1st January and
+ * 1st July for a Half-year and 1st January for a Year.
+ */
+public class VRPLimitPeriodCalculator {
+
+    private final ZoneId zoneId;
+
+    public VRPLimitPeriodCalculator(ZoneId zoneId) {
+        this.zoneId = requireNonNull(zoneId, "zoneId must be provided");
+    }
+
+    public Instant getPeriodStart(VRPPeriodType periodType, VRPPeriodAlignment periodAlignment, Instant consentStart, Instant time) {
+        requireNonNull(periodType, "periodType must be provided");
+        requireNonNull(periodAlignment, "periodAlignment must be provided");
+        requireNonNull(time, "time must be provided");
+        final ZonedDateTime zonedTime = time.atZone(zoneId);
+        if (periodAlignment == VRPPeriodAlignment.CALENDAR) {
+            return getCalendarPeriodStart(periodType, zonedTime).toInstant();
+        }
+        requireNonNull(consentStart, "consentStart must be provided for Consent aligned periods");
+        if (time.isBefore(consentStart)) {
+            throw new IllegalArgumentException("time: " + time + " is before the consentStart: " + consentStart);
+        }
+        return getConsentPeriodStart(periodType, consentStart.atZone(zoneId), zonedTime).toInstant();
+    }
+
+    private static ZonedDateTime getCalendarPeriodStart(VRPPeriodType periodType, ZonedDateTime time) {
+        final ZonedDateTime startOfDay = time.truncatedTo(ChronoUnit.DAYS);
+        return switch (periodType) {
+            case DAY -> startOfDay;
+            case WEEK -> startOfDay.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case FORTNIGHT -> startOfDay.withDayOfMonth(startOfDay.getDayOfMonth() < 15 ? 1 : 15);
+            case MONTH -> startOfDay.withDayOfMonth(1);
+            case HALF_YEAR -> startOfDay.withDayOfYear(1).withMonth(time.getMonthValue() < Month.JULY.getValue() ? 1 : 7);
+            case YEAR -> startOfDay.withDayOfYear(1);
+        };
+    }
+
+    private static ZonedDateTime getConsentPeriodStart(VRPPeriodType periodType, ZonedDateTime consentStart, ZonedDateTime time) {
+        return switch (periodType) {
+            case DAY -> consentStart.plusDays(ChronoUnit.DAYS.between(consentStart, time));
+            case WEEK -> consentStart.plusWeeks(ChronoUnit.WEEKS.between(consentStart, time));
+            case FORTNIGHT -> consentStart.plusWeeks(ChronoUnit.WEEKS.between(consentStart, time) / 2 * 2);
+            case MONTH -> consentStart.plusMonths(ChronoUnit.MONTHS.between(consentStart, time));
+            case HALF_YEAR -> consentStart.plusMonths(ChronoUnit.MONTHS.between(consentStart, time) / 6 * 6);
+            case YEAR -> consentStart.plusYears(ChronoUnit.YEARS.between(consentStart, time));
+        };
+    }
+}
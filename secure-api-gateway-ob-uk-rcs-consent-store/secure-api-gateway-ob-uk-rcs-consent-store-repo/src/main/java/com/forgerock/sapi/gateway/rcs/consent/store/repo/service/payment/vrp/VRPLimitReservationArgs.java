@@ -0,0 +1,91 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.service.payment.vrp;
+
+import static java.util.Objects.requireNonNull;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import org.joda.time.DateTime;
+
+/**
+ * Arguments for reserving an amount against the limits of a Domestic VRP Consent.
+ */
+public class VRPLimitReservationArgs {
+
+    /**
+     * Unique id of the reservation, this is required to release the reservation.
+     */
+    private final String reservationId = UUID.randomUUID().toString();
+
+    private final String consentId;
+
+    private final String apiClientId;
+
+    private final BigDecimal amount;
+
+    private final String currency;
+
+    /**
+     * The time of the payment, this determines which PeriodicLimits periods the amount is reserved in.
+     */
+    private final DateTime reservationDateTime;
+
+    public VRPLimitReservationArgs(String consentId, String apiClientId, BigDecimal amount, String currency, DateTime reservationDateTime) {
+        this.consentId = requireNonNull(consentId, "consentId must be provided");
+        this.apiClientId = requireNonNull(apiClientId, "apiClientId must be provided");
+        this.amount = requireNonNull(amount, "amount must be provided");
+        this.currency = requireNonNull(currency, "currency must be provided");
+        this.reservationDateTime = requireNonNull(reservationDateTime, "reservationDateTime must be provided");
+    }
+
+    public String getReservationId() {
+        return reservationId;
+    }
+
+    public String getConsentId() {
+        return consentId;
+    }
+
+    public String getApiClientId() {
+        return apiClientId;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public DateTime getReservationDateTime() {
+        return reservationDateTime;
+    }
+
+    @Override
+    public String toString() {
+        return "VRPLimitReservationArgs{" +
+                "reservationId='" + reservationId + '\'' +
+                ", consentId='" + consentId + '\'' +
+                ", apiClientId='" + apiClientId + '\'' +
+                ", amount=" + amount +
+                ", currency='" + currency + '\'' +
+                ", reservationDateTime=" + reservationDateTime +
+                '}';
+    }
+}
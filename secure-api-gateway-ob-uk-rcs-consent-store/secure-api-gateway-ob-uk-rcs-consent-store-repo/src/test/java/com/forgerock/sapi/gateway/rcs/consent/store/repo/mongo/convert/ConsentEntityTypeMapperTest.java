@@ -0,0 +1,71 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.convert;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.vrp.DomesticVRPConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.payment.vrp.DomesticVRPConsentRepository;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.payment.vrp.DefaultDomesticVRPConsentServiceTest;
+import com.forgerock.sapi.gateway.uk.common.shared.api.meta.share.IntentType;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+class ConsentEntityTypeMapperTest {
+
+    @Autowired
+    private MongoOperations mongoOperations;
+
+    @Autowired
+    private DomesticVRPConsentRepository repo;
+
+    @Test
+    void consentDocumentsAreWrittenWithoutTypeHint() {
+        final DomesticVRPConsentEntity savedConsent = repo.save(createConsent());
+
+        final Document document = mongoOperations.findById(savedConsent.getId(), Document.class,
+                mongoOperations.getCollectionName(DomesticVRPConsentEntity.class));
+        assertThat(document).isNotNull().doesNotContainKey("_class");
+
+        assertThat(repo.findById(savedConsent.getId())).get().usingRecursiveComparison().isEqualTo(savedConsent);
+    }
+
+    @Test
+    void documentsWrittenWithTypeHintAreStillRead() {
+        final DomesticVRPConsentEntity savedConsent = repo.save(createConsent());
+        mongoOperations.updateFirst(query(where("_id").is(savedConsent.getId())),
+                Update.update("_class", DomesticVRPConsentEntity.class.getName()), DomesticVRPConsentEntity.class);
+
+        assertThat(repo.findById(savedConsent.getId())).get().usingRecursiveComparison().isEqualTo(savedConsent);
+    }
+
+    private static DomesticVRPConsentEntity createConsent() {
+        final DomesticVRPConsentEntity consent = DefaultDomesticVRPConsentServiceTest.createValidConsentEntity("test-client-123");
+        consent.setId(IntentType.DOMESTIC_VRP_PAYMENT_CONSENT.generateIntentId());
+        return consent;
+    }
+}
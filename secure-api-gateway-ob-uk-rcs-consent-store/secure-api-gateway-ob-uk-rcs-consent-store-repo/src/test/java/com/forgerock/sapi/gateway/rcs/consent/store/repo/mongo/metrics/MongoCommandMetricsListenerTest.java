@@ -0,0 +1,131 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.stream.Stream;
+
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.domestic.DomesticPaymentConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.payment.domestic.DomesticPaymentConsentRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+class MongoCommandMetricsListenerTest {
+
+    @TestConfiguration
+    static class MeterRegistryConfiguration {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private DomesticPaymentConsentRepository domesticPaymentConsentRepository;
+
+    @Autowired
+    private MongoOperations mongoOperations;
+
+    @Test
+    void recordsCommandsIssuedByRepositoryMethods() {
+        domesticPaymentConsentRepository.findById("PDC_does-not-exist");
+
+        assertThat(meterRegistry.get(MongoCommandMetricsListener.COMMAND_TIMER)
+                                .tags("collection", "DomesticPaymentConsent",
+                                      "command", "find",
+                                      "repositoryMethod", "DomesticPaymentConsentRepository.findById",
+                                      "outcome", "success")
+                                .timer().count()).isPositive();
+        assertThat(meterRegistry.get(MongoConnectionPoolMetricsListener.CHECKOUT_TIMER)
+                                .tag("outcome", "success")
+                                .timer().count()).isPositive();
+    }
+
+    @Test
+    void commandsNotIssuedByRepositoriesAreTaggedWithNone() {
+        mongoOperations.count(new Query(Criteria.where("status").is("Authorised")), DomesticPaymentConsentEntity.class);
+
+        assertThat(meterRegistry.get(MongoCommandMetricsListener.COMMAND_TIMER)
+                                .tags("collection", "DomesticPaymentConsent", "repositoryMethod", RepositoryMethodContext.NONE)
+                                .timers()).isNotEmpty();
+    }
+
+    @Test
+    void cursorCommandsAreTaggedWithTheirCollection() {
+        final String collectionName = "metricsGetMoreTest";
+        for (int i = 0; i < 3; i++) {
+            mongoOperations.insert(new Document("index", i), collectionName);
+        }
+
+        try (Stream<Document> documents = mongoOperations.stream(new Query().cursorBatchSize(1), Document.class, collectionName)) {
+            assertThat(documents.count()).isEqualTo(3);
+        }
+
+        // Closing the stream before it is exhausted kills the cursor
+        try (Stream<Document> documents = mongoOperations.stream(new Query().cursorBatchSize(1), Document.class, collectionName)) {
+            assertThat(documents.findFirst()).isPresent();
+        }
+
+        assertThat(meterRegistry.get(MongoCommandMetricsListener.COMMAND_TIMER)
+                                .tags("collection", collectionName, "command", "getMore")
+                                .timer().count()).isPositive();
+        assertThat(meterRegistry.get(MongoCommandMetricsListener.COMMAND_TIMER)
+                                .tags("collection", collectionName, "command", "killCursors")
+                                .timer().count()).isPositive();
+        assertThat(MongoCommandMetricsListener.collectionName("getMore",
+                BsonDocument.parse("{\"getMore\": {\"$numberLong\": \"123\"}, \"collection\": \"DomesticPaymentConsent\"}")))
+                .isEqualTo("DomesticPaymentConsent");
+        assertThat(MongoCommandMetricsListener.collectionName("killCursors",
+                BsonDocument.parse("{\"killCursors\": \"DomesticPaymentConsent\", \"cursors\": [{\"$numberLong\": \"123\"}]}")))
+                .isEqualTo("DomesticPaymentConsent");
+        assertThat(MongoCommandMetricsListener.collectionName("getMore", BsonDocument.parse("{\"getMore\": {\"$numberLong\": \"123\"}}")))
+                .isEqualTo(MongoCommandMetricsListener.UNKNOWN);
+    }
+
+    @Test
+    void redactedFilterShapeDoesNotContainValues() {
+        final BsonDocument findCommand = BsonDocument.parse("{\"find\": \"DomesticPaymentConsent\", \"filter\": {\"_id\": \"PDC_123\", "
+                + "\"apiClientId\": \"secret-client\", \"status\": {\"$in\": [\"Authorised\", \"Consumed\"]}, "
+                + "\"$or\": [{\"deleted\": false}, {\"deleted\": {\"$exists\": false}}]}}");
+
+        assertThat(MongoCommandMetricsListener.redactedFilterShape(findCommand))
+                .isEqualTo("{\"_id\": ?, \"apiClientId\": ?, \"status\": {\"$in\": [?]}, \"$or\": [{\"deleted\": ?}, {\"deleted\": {\"$exists\": ?}}]}");
+
+        final BsonDocument updateCommand = BsonDocument.parse("{\"update\": \"FilePaymentConsent\", \"updates\": "
+                + "[{\"q\": {\"_id\": \"PFC_1\", \"entityVersion\": 3}, \"u\": {\"$set\": {\"status\": \"Consumed\"}}}]}");
+        assertThat(MongoCommandMetricsListener.redactedFilterShape(updateCommand)).isEqualTo("{\"_id\": ?, \"entityVersion\": ?}");
+    }
+}
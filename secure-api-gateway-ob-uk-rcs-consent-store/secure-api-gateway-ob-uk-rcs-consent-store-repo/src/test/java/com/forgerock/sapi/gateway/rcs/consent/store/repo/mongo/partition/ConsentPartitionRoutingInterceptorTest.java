@@ -0,0 +1,75 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.partition;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.domestic.DomesticPaymentConsentEntity;
+
+class ConsentPartitionRoutingInterceptorTest {
+
+    interface TestConsentRepository {
+
+        Optional<DomesticPaymentConsentEntity> findByIdempotencyKey(String idempotencyKey);
+
+        List<DomesticPaymentConsentEntity> findByApiClientId(String apiClientId);
+
+        DomesticPaymentConsentEntity findFirstByResourceOwnerId(String resourceOwnerId);
+
+        long countByStatus(String status);
+
+        String findStatusById(String consentId);
+
+        Page<DomesticPaymentConsentEntity> findByStatus(String status, Pageable pageable);
+
+        String touch(DomesticPaymentConsentEntity consent);
+    }
+
+    @Test
+    void mergeableMethodsAreValid() throws Exception {
+        for (String methodName : List.of("findByIdempotencyKey", "findByApiClientId", "findFirstByResourceOwnerId", "countByStatus")) {
+            final Method method = TestConsentRepository.class.getMethod(methodName, String.class);
+            assertDoesNotThrow(() -> ConsentPartitionRoutingInterceptor.validateMergeable(method));
+        }
+    }
+
+    @Test
+    void methodsRoutedByConsentEntityNeedNotBeMergeable() throws Exception {
+        final Method method = TestConsentRepository.class.getMethod("touch", DomesticPaymentConsentEntity.class);
+        assertDoesNotThrow(() -> ConsentPartitionRoutingInterceptor.validateMergeable(method));
+    }
+
+    @Test
+    void failsToValidateMethodsWhichCannotBeMerged() throws Exception {
+        final IllegalStateException pageException = assertThrows(IllegalStateException.class,
+                () -> ConsentPartitionRoutingInterceptor.validateMergeable(
+                        TestConsentRepository.class.getMethod("findByStatus", String.class, Pageable.class)));
+        assertThat(pageException.getMessage()).contains("TestConsentRepository.findByStatus returning: Page");
+
+        assertThrows(IllegalStateException.class, () -> ConsentPartitionRoutingInterceptor.validateMergeable(
+                TestConsentRepository.class.getMethod("findStatusById", String.class)));
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.partition;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.bson.Document;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.domestic.DomesticPaymentConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.exception.ConsentStoreException;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.exception.ConsentStoreException.ErrorType;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.payment.domestic.DomesticPaymentConsentRepository;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.payment.domestic.DefaultDomesticPaymentConsentService;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.payment.domestic.v4_0_0.DefaultDomesticPaymentConsentServiceTest;
+import com.forgerock.sapi.gateway.uk.common.shared.api.meta.share.IntentType;
+
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.mongo.transitions.Mongod;
+import de.flapdoodle.embed.mongo.transitions.RunningMongodProcess;
+import de.flapdoodle.reverse.TransitionWalker;
+
+/**
+ * Runs the Consent Store with 3 partitions: the embedded mongod started by Spring Boot and 2 additional mongods.
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+@DirtiesContext
+class ConsentPartitionsTest {
+
+    private static final List<TransitionWalker.ReachedState<RunningMongodProcess>> ADDITIONAL_PARTITIONS = new ArrayList<>();
+
+    @DynamicPropertySource
+    static void partitionProperties(DynamicPropertyRegistry registry) {
+        final List<String> partitionUris = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            final TransitionWalker.ReachedState<RunningMongodProcess> mongod = Mongod.instance().start(Version.Main.V4_4);
+            ADDITIONAL_PARTITIONS.add(mongod);
+            partitionUris.add("mongodb://" + mongod.current().getServerAddress() + "/consent");
+        }
+        registry.add("consent.store.partitioning.uris", () -> String.join(",", partitionUris));
+    }
+
+    @AfterAll
+    static void stopAdditionalPartitions() {
+        ADDITIONAL_PARTITIONS.forEach(TransitionWalker.ReachedState::close);
+    }
+
+    @Autowired
+    private ConsentPartitions consentPartitions;
+
+    @Autowired
+    private DefaultDomesticPaymentConsentService consentService;
+
+    @Autowired
+    private DomesticPaymentConsentRepository repo;
+
+    @Autowired
+    private MongoOperations mongoOperations;
+
+    /**
+     * @return an apiClientId whose consents are created in the partition
+     */
+    private String apiClientIdInPartition(int partition) {
+        while (true) {
+            final String apiClientId = "partition-test-" + UUID.randomUUID();
+            if (consentPartitions.getApiClientPartition(apiClientId) == partition) {
+                return apiClientId;
+            }
+        }
+    }
+
+    private boolean existsInPartition(String consentId, int partition) {
+        final Document idFilter = new Document("_id", consentId);
+        final String collectionName = mongoOperations.getCollectionName(DomesticPaymentConsentEntity.class);
+        if (partition == 0) {
+            return mongoOperations.getCollection(collectionName).countDocuments(idFilter) == 1;
+        }
+        return consentPartitions.getPartitionDatabaseFactory(partition).getMongoDatabase()
+                                .getCollection(collectionName).countDocuments(idFilter) == 1;
+    }
+
+    @Test
+    void partitionIsEmbeddedInConsentIds() {
+        assertThat(consentPartitions.getPartitionCount()).isEqualTo(3);
+        final String partitionedId = consentPartitions.partitionConsentId(IntentType.PAYMENT_DOMESTIC_CONSENT.generateIntentId(),
+                apiClientIdInPartition(2));
+
+        assertThat(partitionedId).startsWith("PDC_p2-");
+        assertThat(IntentType.identify(partitionedId)).isEqualTo(IntentType.PAYMENT_DOMESTIC_CONSENT);
+        assertThat(consentPartitions.getPartition(partitionedId)).isEqualTo(2);
+        assertThat(consentPartitions.getPartition(IntentType.PAYMENT_DOMESTIC_CONSENT.generateIntentId())).isZero();
+    }
+
+    @Test
+    void failsToRouteConsentIdTaggedWithPartitionWhichIsNotConfigured() {
+        final String consentId = "PDC_p7-" + UUID.randomUUID();
+        final ConsentStoreException notFound = assertThrows(ConsentStoreException.class, () -> consentPartitions.getPartition(consentId));
+        assertThat(notFound.getErrorType()).isEqualTo(ErrorType.NOT_FOUND);
+        assertThat(notFound.getConsentId()).isEqualTo(consentId);
+    }
+
+    @Test
+    void consentsAreStoredInThePartitionOfTheirApiClient() {
+        for (int partition = 0; partition < consentPartitions.getPartitionCount(); partition++) {
+            final String apiClientId = apiClientIdInPartition(partition);
+            final DomesticPaymentConsentEntity consent = consentService.createConsent(
+                    DefaultDomesticPaymentConsentServiceTest.createValidConsentEntity(apiClientId));
+
+            assertThat(consentPartitions.getPartition(consent.getId())).isEqualTo(partition);
+            for (int otherPartition = 0; otherPartition < consentPartitions.getPartitionCount(); otherPartition++) {
+                assertThat(existsInPartition(consent.getId(), otherPartition)).isEqualTo(otherPartition == partition);
+            }
+
+            final DomesticPaymentConsentEntity readConsent = consentService.getConsent(consent.getId(), apiClientId);
+            assertThat(readConsent.getId()).isEqualTo(consent.getId());
+            consentService.deleteConsent(consent.getId(), apiClientId);
+            assertThat(repo.findById(consent.getId()).orElseThrow().isDeleted()).isTrue();
+        }
+    }
+
+    @Test
+    void idempotentCreateFindsConsentInItsPartition() {
+        final String apiClientId = apiClientIdInPartition(1);
+        final DomesticPaymentConsentEntity consentRequest = DefaultDomesticPaymentConsentServiceTest.createValidConsentEntity(apiClientId);
+        final DomesticPaymentConsentEntity consent = consentService.createConsent(consentRequest);
+
+        consentRequest.setId(null);
+        final DomesticPaymentConsentEntity replayedConsent = consentService.createConsent(consentRequest);
+
+        assertThat(replayedConsent.getId()).isEqualTo(consent.getId());
+    }
+
+    @Test
+    void unpartitionedConsentsAreReadFromPartitionZero() {
+        final String apiClientId = apiClientIdInPartition(2);
+        final DomesticPaymentConsentEntity legacyConsent = DefaultDomesticPaymentConsentServiceTest.createValidConsentEntity(apiClientId);
+        legacyConsent.setId(IntentType.PAYMENT_DOMESTIC_CONSENT.generateIntentId());
+        mongoOperations.insert(legacyConsent);
+
+        assertThat(existsInPartition(legacyConsent.getId(), 0)).isTrue();
+        assertThat(consentService.getConsent(legacyConsent.getId(), apiClientId).getId()).isEqualTo(legacyConsent.getId());
+    }
+
+    @Test
+    void queriesAreGatheredFromEveryPartition() {
+        final List<String> consentIds = new ArrayList<>();
+        for (int partition = 0; partition < consentPartitions.getPartitionCount(); partition++) {
+            consentIds.add(consentService.createConsent(DefaultDomesticPaymentConsentServiceTest.createValidConsentEntity(
+                    apiClientIdInPartition(partition))).getId());
+        }
+
+        assertThat(repo.findAll()).extracting(DomesticPaymentConsentEntity::getId).containsAll(consentIds);
+        assertThat(repo.findAllById(consentIds)).hasSize(consentIds.size());
+        assertThat(repo.count()).isGreaterThanOrEqualTo(consentIds.size());
+    }
+}
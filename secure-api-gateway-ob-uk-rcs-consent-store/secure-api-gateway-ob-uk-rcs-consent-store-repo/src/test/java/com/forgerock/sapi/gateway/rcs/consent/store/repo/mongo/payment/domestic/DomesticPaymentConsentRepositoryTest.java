@@ -27,6 +27,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
 
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.domestic.DomesticPaymentConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.ConsentOwnership;
 
 @DataMongoTest
 class DomesticPaymentConsentRepositoryTest {
@@ -88,4 +89,44 @@ class DomesticPaymentConsentRepositoryTest {
         }
     }
 
+    @Test
+    public void doesNotFindDeletedConsentUsingIdempotencyData() {
+        final String key = UUID.randomUUID().toString();
+        final String apiClientId = "client-id-987";
+        final DomesticPaymentConsentEntity entity = new DomesticPaymentConsentEntity();
+        entity.setIdempotencyKey(key);
+        entity.setIdempotencyKeyExpiration(DateTime.now().plusDays(1));
+        entity.setApiClientId(apiClientId);
+        entity.setDeleted(true);
+        repo.save(entity);
+
+        assertFalse(repo.findByIdempotencyData(apiClientId, key, DateTime.now()).isPresent());
+    }
+
+    @Test
+    public void findOwnedConsent() {
+        final String apiClientId = "client-id-987";
+        final DomesticPaymentConsentEntity entity = new DomesticPaymentConsentEntity();
+        entity.setId(UUID.randomUUID().toString());
+        entity.setApiClientId(apiClientId);
+        final DomesticPaymentConsentEntity savedEntity = repo.save(entity);
+
+        final Optional<DomesticPaymentConsentEntity> ownedConsent = repo.findOwnedConsent(savedEntity.getId(), apiClientId, DomesticPaymentConsentEntity.class);
+        assertTrue(ownedConsent.isPresent());
+        Assertions.assertThat(ownedConsent.get()).usingRecursiveComparison().isEqualTo(savedEntity);
+
+        assertFalse(repo.findOwnedConsent(savedEntity.getId(), "client-2", DomesticPaymentConsentEntity.class).isPresent());
+        final Optional<ConsentOwnership> ownership = repo.findConsentOwnership(savedEntity.getId(), DomesticPaymentConsentEntity.class);
+        assertTrue(ownership.isPresent());
+        assertEquals(apiClientId, ownership.get().getApiClientId());
+        assertFalse(ownership.get().isDeleted());
+
+        savedEntity.setDeleted(true);
+        repo.save(savedEntity);
+        assertFalse(repo.findOwnedConsent(savedEntity.getId(), apiClientId, DomesticPaymentConsentEntity.class).isPresent());
+        assertTrue(repo.findConsentOwnership(savedEntity.getId(), DomesticPaymentConsentEntity.class).get().isDeleted());
+
+        assertFalse(repo.findConsentOwnership("does-not-exist", DomesticPaymentConsentEntity.class).isPresent());
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,260 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.routing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.Document;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.SimpleMongoClientDatabaseFactory;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Update;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.ServerAddress;
+import com.mongodb.WriteConcern;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+
+/**
+ * Tests {@link ConsentReadRouting} against a two member replica set (a primary and a secondary which cannot become
+ * primary), checking which member serves the reads of each class of operation.
+ * <p>
+ * The members run on the host network so that the addresses in the replica set config are reachable from both the
+ * members and the test, so the test only runs on Linux with Docker available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@EnabledOnOs(OS.LINUX)
+class ConsentReadRoutingReplicaSetTest {
+
+    private static final DockerImageName MONGO_IMAGE = DockerImageName.parse("mongo:4.4");
+
+    private static final String REPLICA_SET = "rs0";
+
+    private static final String COLLECTION = "readRoutingReplicaSet";
+
+    private static final long MAX_STALENESS_SECONDS = 90;
+
+    private static int primaryPort;
+
+    private static int secondaryPort;
+
+    private static GenericContainer<?> primary;
+
+    private static GenericContainer<?> secondary;
+
+    private static MongoClient mongoClient;
+
+    /**
+     * Servers which were sent each find command
+     */
+    private static final List<ServerAddress> findServerAddresses = new CopyOnWriteArrayList<>();
+
+    private ConsentReadRouting consentReadRouting;
+
+    private MongoTemplate mongoTemplate;
+
+    @BeforeAll
+    static void startReplicaSet() throws Exception {
+        primaryPort = findFreePort();
+        secondaryPort = findFreePort();
+        primary = startMember(primaryPort);
+        secondary = startMember(secondaryPort);
+
+        final String config = String.format("{_id: '%s', members: [{_id: 0, host: '127.0.0.1:%d', priority: 2}, "
+                + "{_id: 1, host: '127.0.0.1:%d', priority: 0}]}", REPLICA_SET, primaryPort, secondaryPort);
+        primary.execInContainer("mongo", "--port", String.valueOf(primaryPort), "--quiet", "--eval", "rs.initiate(" + config + ")");
+
+        final CommandListener findListener = new CommandListener() {
+            @Override
+            public void commandStarted(CommandStartedEvent event) {
+                if (event.getCommandName().equals("find")) {
+                    findServerAddresses.add(event.getConnectionDescription().getServerAddress());
+                }
+            }
+        };
+        mongoClient = MongoClients.create(MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(String.format("mongodb://127.0.0.1:%d,127.0.0.1:%d/?replicaSet=%s",
+                                                                          primaryPort, secondaryPort, REPLICA_SET)))
+                .addCommandListener(findListener)
+                .build());
+        awaitReplicaSet();
+    }
+
+    private static int findFreePort() throws IOException {
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            return serverSocket.getLocalPort();
+        }
+    }
+
+    private static GenericContainer<?> startMember(int port) {
+        final GenericContainer<?> member = new GenericContainer<>(MONGO_IMAGE)
+                .withNetworkMode("host")
+                .withCommand("--replSet", REPLICA_SET, "--port", String.valueOf(port), "--bind_ip", "127.0.0.1")
+                .waitingFor(Wait.forLogMessage(".*Waiting for connections.*", 1));
+        member.start();
+        return member;
+    }
+
+    /**
+     * Waits until the primary has been elected and the secondary has completed its initial sync
+     */
+    private static void awaitReplicaSet() throws InterruptedException {
+        for (int i = 0; i < 120; i++) {
+            try {
+                final Document status = mongoClient.getDatabase("admin").runCommand(new Document("replSetGetStatus", 1));
+                final List<Integer> memberStates = status.getList("members", Document.class).stream()
+                                                         .map(member -> member.getInteger("state")).toList();
+                if (memberStates.equals(List.of(1, 2))) {
+                    return;
+                }
+            } catch (RuntimeException e) {
+                // replica set not yet initiated
+            }
+            TimeUnit.MILLISECONDS.sleep(500);
+        }
+        throw new IllegalStateException("Replica set did not become ready");
+    }
+
+    @AfterAll
+    static void stopReplicaSet() {
+        if (mongoClient != null) {
+            mongoClient.close();
+        }
+        if (secondary != null) {
+            secondary.stop();
+        }
+        if (primary != null) {
+            primary.stop();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        final SimpleMongoClientDatabaseFactory mongoDatabaseFactory = new SimpleMongoClientDatabaseFactory(mongoClient, "consent");
+        final MappingMongoConverter mappingMongoConverter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext());
+        mappingMongoConverter.afterPropertiesSet();
+        consentReadRouting = new ConsentReadRouting(mongoDatabaseFactory, true, "secondaryPreferred", "secondaryPreferred",
+                                                    MAX_STALENESS_SECONDS, Set.of(), 100);
+        mongoTemplate = new ConsentReadRoutingMongoTemplate(mongoDatabaseFactory, mappingMongoConverter, consentReadRouting);
+        findServerAddresses.clear();
+    }
+
+    /**
+     * Inserts a consent, waiting for it to be replicated to the secondary
+     */
+    private String insertReplicatedConsent() {
+        final String consentId = "PDC_" + UUID.randomUUID();
+        mongoTemplate.getCollection(COLLECTION).withWriteConcern(WriteConcern.MAJORITY)
+                     .insertOne(new Document("_id", consentId).append("status", "AwaitingAuthorisation"));
+        return consentId;
+    }
+
+    private Document findConsent(String consentId) {
+        return mongoTemplate.findOne(query(where("_id").is(consentId)), Document.class, COLLECTION);
+    }
+
+    private ServerAddress lastFindServerAddress() {
+        return findServerAddresses.get(findServerAddresses.size() - 1);
+    }
+
+    @Test
+    void detailsReadsAreServedBySecondary() {
+        final String consentId = insertReplicatedConsent();
+
+        final Document consent;
+        try (ConsentReadScope scope = consentReadRouting.openScope(ConsentReadOperation.DETAILS, consentId)) {
+            assertThat(scope.getReadPreference().getMaxStaleness(TimeUnit.SECONDS)).isEqualTo(MAX_STALENESS_SECONDS);
+            consent = findConsent(consentId);
+        }
+
+        assertThat(consent).containsEntry("_id", consentId);
+        assertThat(lastFindServerAddress()).isEqualTo(new ServerAddress("127.0.0.1", secondaryPort));
+    }
+
+    @Test
+    void searchReadsAreServedBySecondary() {
+        final String consentId = insertReplicatedConsent();
+
+        try (ConsentReadScope ignored = consentReadRouting.openScope(ConsentReadOperation.SEARCH, null)) {
+            assertThat(findConsent(consentId)).isNotNull();
+        }
+
+        assertThat(lastFindServerAddress()).isEqualTo(new ServerAddress("127.0.0.1", secondaryPort));
+    }
+
+    @Test
+    void transitionReadsAreServedByPrimary() {
+        final String consentId = insertReplicatedConsent();
+
+        try (ConsentReadScope ignored = consentReadRouting.openScope(ConsentReadOperation.TRANSITION, consentId)) {
+            assertThat(findConsent(consentId)).isNotNull();
+        }
+
+        assertThat(lastFindServerAddress()).isEqualTo(new ServerAddress("127.0.0.1", primaryPort));
+    }
+
+    @Test
+    void readsOutsideOfAScopeAreServedByPrimary() {
+        final String consentId = insertReplicatedConsent();
+
+        assertThat(findConsent(consentId)).isNotNull();
+
+        assertThat(lastFindServerAddress()).isEqualTo(new ServerAddress("127.0.0.1", primaryPort));
+    }
+
+    @Test
+    void detailsReadAfterDecisionSeesTheDecision() {
+        final String consentId = insertReplicatedConsent();
+
+        // The decision is only acknowledged by the primary, the details read must wait for the secondary to replicate it
+        try (ConsentReadScope ignored = consentReadRouting.openScope(ConsentReadOperation.TRANSITION, consentId)) {
+            mongoTemplate.updateFirst(query(where("_id").is(consentId)), new Update().set("status", "Authorised"), COLLECTION);
+        }
+        final Document consent;
+        try (ConsentReadScope ignored = consentReadRouting.openScope(ConsentReadOperation.DETAILS, consentId)) {
+            consent = findConsent(consentId);
+        }
+
+        assertThat(consent).containsEntry("status", "Authorised");
+        assertThat(lastFindServerAddress()).isEqualTo(new ServerAddress("127.0.0.1", secondaryPort));
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.routing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.domestic.DomesticPaymentConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.payment.PaymentConsentStateModel;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.payment.domestic.DefaultDomesticPaymentConsentService;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.payment.domestic.v3_1_10.DefaultDomesticPaymentConsentServiceTest;
+import com.mongodb.ReadPreference;
+import com.mongodb.client.MongoCollection;
+
+/**
+ * Tests the routing decisions made by {@link ConsentReadRouting} and that operations in routed scopes work, the
+ * embedded Mongo used by the tests is a single standalone node, so reads are served by that node whatever the
+ * ReadPreference.
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(properties = {"consent.store.mongo.readRouting.enabled=true",
+                              "consent.store.mongo.readRouting.maxStalenessSeconds=120",
+                              "consent.store.mongo.readRouting.primaryRepositoryMethods=DomesticPaymentConsentRepository.findOwnedConsent"})
+class ConsentReadRoutingTest {
+
+    private static final String API_CLIENT_ID = "test-read-routing-client";
+
+    @Autowired
+    private ConsentReadRouting consentReadRouting;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private DefaultDomesticPaymentConsentService domesticPaymentConsentService;
+
+    @Test
+    void readPreferencePerOperation() {
+        final ReadPreference detailsReadPreference = consentReadRouting.getReadPreference(ConsentReadOperation.DETAILS);
+        assertThat(detailsReadPreference.getName()).isEqualTo("secondaryPreferred");
+        assertThat(detailsReadPreference).isEqualTo(ReadPreference.secondaryPreferred(120, TimeUnit.SECONDS));
+        assertThat(consentReadRouting.getReadPreference(ConsentReadOperation.SEARCH).getName()).isEqualTo("secondaryPreferred");
+        assertThat(consentReadRouting.getReadPreference(ConsentReadOperation.TRANSITION)).isEqualTo(ReadPreference.primary());
+        assertThat(ConsentReadRouting.createReadPreference("primary", 90)).isEqualTo(ReadPreference.primary());
+    }
+
+    @Test
+    void templateAppliesReadPreferenceOfCurrentScope() {
+        assertThat(mongoTemplate).isInstanceOf(ConsentReadRoutingMongoTemplate.class);
+        final ConsentReadRoutingMongoTemplate routingTemplate = (ConsentReadRoutingMongoTemplate) mongoTemplate;
+        final MongoCollection<Document> collection = mongoTemplate.getCollection(mongoTemplate.getCollectionName(DomesticPaymentConsentEntity.class));
+
+        assertThat(routingTemplate.prepareCollection(collection).getReadPreference()).isEqualTo(ReadPreference.primary());
+        try (ConsentReadScope scope = consentReadRouting.openScope(ConsentReadOperation.DETAILS, "PDC_123")) {
+            assertThat(scope.getSession()).isNotNull();
+            assertThat(scope.getSession().isCausallyConsistent()).isTrue();
+            assertThat(routingTemplate.prepareCollection(collection).getReadPreference())
+                    .isEqualTo(ReadPreference.secondaryPreferred(120, TimeUnit.SECONDS));
+
+            try (ConsentReadScope nestedScope = consentReadRouting.openScope(ConsentReadOperation.TRANSITION, "PDC_123")) {
+                assertThat(routingTemplate.prepareCollection(collection).getReadPreference()).isEqualTo(ReadPreference.primary());
+            }
+            assertThat(ConsentReadScope.current()).isSameAs(scope);
+        }
+        assertThat(ConsentReadScope.current()).isNull();
+    }
+
+    @Test
+    void searchScopeHasNoSession() {
+        try (ConsentReadScope scope = consentReadRouting.openScope(ConsentReadOperation.SEARCH, null)) {
+            assertThat(scope.getSession()).isNull();
+            assertThat(scope.getReadPreference().getName()).isEqualTo("secondaryPreferred");
+        }
+    }
+
+    @Test
+    void primaryRepositoryMethodsAlwaysUsePrimary() {
+        try (ConsentReadScope scope = consentReadRouting.openScope(ConsentReadOperation.DETAILS, null)) {
+            assertThat(consentReadRouting.resolveReadPreference(scope, "DomesticPaymentConsentRepository.findOwnedConsent")).isNull();
+            assertThat(consentReadRouting.resolveReadPreference(scope, "FilePaymentConsentRepository.findOwnedConsent"))
+                    .isEqualTo(scope.getReadPreference());
+        }
+    }
+
+    @Test
+    void detailsReadSeesTransitionMadeInScope() {
+        final String consentId = domesticPaymentConsentService.createConsent(
+                DefaultDomesticPaymentConsentServiceTest.createValidConsentEntity(API_CLIENT_ID)).getId();
+
+        try (ConsentReadScope ignored = consentReadRouting.openScope(ConsentReadOperation.TRANSITION, consentId)) {
+            domesticPaymentConsentService.rejectConsent(consentId, API_CLIENT_ID, "psu4test");
+        }
+        try (ConsentReadScope ignored = consentReadRouting.openScope(ConsentReadOperation.DETAILS, consentId)) {
+            assertThat(domesticPaymentConsentService.getConsent(consentId, API_CLIENT_ID).getStatus())
+                    .isEqualTo(PaymentConsentStateModel.REJECTED);
+        }
+    }
+}
@@ -112,6 +112,20 @@ public abstract class BaseConsentServiceTest<T extends BaseConsentEntity<?>, A e
         assertThat(consentStoreException.getErrorType()).isEqualTo(ErrorType.INVALID_PERMISSIONS);
     }
 
+    @Test
+    void failToGetDeletedConsent() {
+        final T persistedConsent = consentService.createConsent(getValidConsentEntity());
+        consentService.deleteConsent(persistedConsent.getId(), persistedConsent.getApiClientId());
+
+        final ConsentStoreException consentStoreException = assertThrows(ConsentStoreException.class,
+                () -> consentService.getConsent(persistedConsent.getId(), persistedConsent.getApiClientId()));
+        assertThat(consentStoreException.getErrorType()).isEqualTo(ErrorType.NOT_FOUND);
+
+        final ConsentStoreException invalidPermissionsException = assertThrows(ConsentStoreException.class,
+                () -> consentService.getConsent(persistedConsent.getId(), "different-api-client-id"));
+        assertThat(invalidPermissionsException.getErrorType()).isEqualTo(ErrorType.INVALID_PERMISSIONS);
+    }
+
     @Test
     void failToGetIdThatDoesNotExist() {
         final ConsentStoreException consentStoreException = assertThrows(ConsentStoreException.class,
@@ -0,0 +1,93 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.MongoLeaderLease;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class LeasedBackgroundJobTest {
+
+    private static final String LEASE_NAME = "testJob";
+
+    private final MongoLeaderLease leaderLease = mock(MongoLeaderLease.class);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final LeasedBackgroundJob job = new LeasedBackgroundJob("Test job", leaderLease, LEASE_NAME, Duration.ofMinutes(1),
+            0, meterRegistry, "test.job.runs");
+
+    @AfterEach
+    void shutdown() {
+        job.shutdown();
+    }
+
+    @Test
+    void failedRunDoesNotCancelSubsequentRuns() throws InterruptedException {
+        final AtomicInteger runs = new AtomicInteger();
+        final CountDownLatch secondRun = new CountDownLatch(2);
+        job.start(1, Thread.NORM_PRIORITY);
+        job.scheduleWithFixedDelay("run", () -> {
+            runs.incrementAndGet();
+            secondRun.countDown();
+            throw new IllegalStateException("run failed");
+        }, 0, 10);
+
+        assertThat(secondRun.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(runs.get()).isGreaterThanOrEqualTo(2);
+    }
+
+    @Test
+    void stopsRunWhenLeaseIsLost() {
+        when(leaderLease.tryAcquire(eq(LEASE_NAME), any())).thenReturn(true, false);
+
+        assertThat(job.tryAcquireLease()).isTrue();
+        assertThat(job.pauseAndRenewLease()).isFalse();
+    }
+
+    @Test
+    void releasesLeaseOnShutdown() {
+        job.start(1, Thread.NORM_PRIORITY);
+        assertThat(job.isStarted()).isTrue();
+
+        job.shutdown();
+
+        assertThat(job.isStarted()).isFalse();
+        verify(leaderLease).release(LEASE_NAME);
+    }
+
+    @Test
+    void recordsRunOutcome() {
+        job.recordRun(job.startRun(), "completed");
+
+        assertThat(meterRegistry.get("test.job.runs").tag("outcome", "completed").timer().count()).isEqualTo(1);
+    }
+}
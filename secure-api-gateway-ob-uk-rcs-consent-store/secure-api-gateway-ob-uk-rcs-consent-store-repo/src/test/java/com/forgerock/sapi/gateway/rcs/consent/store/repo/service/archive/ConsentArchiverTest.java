@@ -0,0 +1,241 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.service.archive;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.domestic.DomesticPaymentConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.exception.ConsentStoreException;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.exception.ConsentStoreException.ErrorType;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.ConsentArchiveRepository;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.MongoLeaderLease;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.payment.PaymentConsentStateModel;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.payment.domestic.DefaultDomesticPaymentConsentService;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.payment.domestic.v3_1_10.DefaultDomesticPaymentConsentServiceTest;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+class ConsentArchiverTest {
+
+    private static final String API_CLIENT_ID = "test-archiver-client";
+
+    private static final Date ONE_YEAR_AGO = new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(365));
+
+    @Autowired
+    private ConsentArchiver consentArchiver;
+
+    @Autowired
+    private ConsentArchiveRepository consentArchiveRepository;
+
+    @Autowired
+    private MongoLeaderLease mongoLeaderLease;
+
+    @Autowired
+    private MongoOperations mongoOperations;
+
+    @Autowired
+    private DefaultDomesticPaymentConsentService domesticPaymentConsentService;
+
+    @AfterEach
+    void releaseLease() {
+        mongoLeaderLease.release(ConsentArchiver.LEASE_NAME);
+    }
+
+    private String createConsent() {
+        return domesticPaymentConsentService.createConsent(
+                DefaultDomesticPaymentConsentServiceTest.createValidConsentEntity(API_CLIENT_ID)).getId();
+    }
+
+    private void setStatusUpdatedDateTime(String consentId, Date statusUpdatedDateTime) {
+        mongoOperations.updateFirst(query(where("_id").is(consentId)),
+                new Update().set("statusUpdatedDateTime", statusUpdatedDateTime), DomesticPaymentConsentEntity.class);
+    }
+
+    private String createOldRejectedConsent() {
+        final String consentId = createConsent();
+        domesticPaymentConsentService.rejectConsent(consentId, API_CLIENT_ID, "psu4test");
+        setStatusUpdatedDateTime(consentId, ONE_YEAR_AGO);
+        return consentId;
+    }
+
+    private boolean isInLiveCollection(String consentId) {
+        return mongoOperations.exists(query(where("_id").is(consentId)), DomesticPaymentConsentEntity.class);
+    }
+
+    @Test
+    void archivesOldTerminalConsents() {
+        final DomesticPaymentConsentEntity consentBeforeArchive = domesticPaymentConsentService.getConsent(createOldRejectedConsent(), API_CLIENT_ID);
+        final String consentId = consentBeforeArchive.getId();
+
+        final ConsentArchiveResult result = consentArchiver.archive();
+
+        assertThat(result.isLeader()).isTrue();
+        assertThat(result.isCompleted()).isTrue();
+        assertThat(result.getArchivedByConsentType()).containsKey("DomesticPaymentConsent");
+        assertThat(isInLiveCollection(consentId)).isFalse();
+
+        final Document archivedDocument = mongoOperations.findById(consentId, Document.class,
+                consentArchiveRepository.getArchiveCollectionName(DomesticPaymentConsentEntity.class));
+        assertThat(archivedDocument).isNotNull().doesNotContainKey("requestObj").containsKeys("requestObjGzip", "archivedDateTime");
+
+        // Archived consents are served transparently by the service
+        final DomesticPaymentConsentEntity archivedConsent = domesticPaymentConsentService.getConsent(consentId, API_CLIENT_ID);
+        assertThat(archivedConsent.isArchived()).isTrue();
+        assertThat(archivedConsent.getStatus()).isEqualTo(PaymentConsentStateModel.REJECTED);
+        assertThat(archivedConsent.getRequestObj()).isEqualTo(consentBeforeArchive.getRequestObj());
+        assertThat(archivedConsent.getEntityVersion()).isEqualTo(consentBeforeArchive.getEntityVersion());
+        assertThat(archivedConsent.getRequestVersion()).isEqualTo(consentBeforeArchive.getRequestVersion());
+
+        final ConsentStoreException invalidPermissions = assertThrows(ConsentStoreException.class,
+                () -> domesticPaymentConsentService.getConsent(consentId, "another-client"));
+        assertThat(invalidPermissions.getErrorType()).isEqualTo(ErrorType.INVALID_PERMISSIONS);
+    }
+
+    @Test
+    void doesNotArchiveRecentOrLiveConsents() {
+        final String recentRejectedConsentId = createConsent();
+        domesticPaymentConsentService.rejectConsent(recentRejectedConsentId, API_CLIENT_ID, "psu4test");
+        final String oldAwaitingAuthorisationConsentId = createConsent();
+        setStatusUpdatedDateTime(oldAwaitingAuthorisationConsentId, ONE_YEAR_AGO);
+
+        consentArchiver.archive();
+
+        assertThat(isInLiveCollection(recentRejectedConsentId)).isTrue();
+        assertThat(isInLiveCollection(oldAwaitingAuthorisationConsentId)).isTrue();
+    }
+
+    @Test
+    void archivesOldDeletedConsents() {
+        final String consentId = createConsent();
+        domesticPaymentConsentService.deleteConsent(consentId, API_CLIENT_ID);
+        setStatusUpdatedDateTime(consentId, ONE_YEAR_AGO);
+
+        consentArchiver.archive();
+
+        assertThat(isInLiveCollection(consentId)).isFalse();
+        final ConsentStoreException notFound = assertThrows(ConsentStoreException.class,
+                () -> domesticPaymentConsentService.getConsent(consentId, API_CLIENT_ID));
+        assertThat(notFound.getErrorType()).isEqualTo(ErrorType.NOT_FOUND);
+    }
+
+    @Test
+    void deleteArchivedConsent() {
+        final String consentId = createOldRejectedConsent();
+        consentArchiver.archive();
+
+        domesticPaymentConsentService.deleteConsent(consentId, API_CLIENT_ID);
+
+        assertThat(isInLiveCollection(consentId)).isFalse();
+        final ConsentStoreException notFound = assertThrows(ConsentStoreException.class,
+                () -> domesticPaymentConsentService.getConsent(consentId, API_CLIENT_ID));
+        assertThat(notFound.getErrorType()).isEqualTo(ErrorType.NOT_FOUND);
+    }
+
+    @Test
+    void rearchivesConsentModifiedWhilstBeingArchived() {
+        final String consentId = createOldRejectedConsent();
+        final ConsentArchiveRepository repository = repositoryModifyingConsentOnFirstArchiveWrite(consentId,
+                new Update().inc("entityVersion", 1).set("resourceOwnerId", "modified-psu"));
+
+        assertThat(repository.archiveBatch(DomesticPaymentConsentEntity.class, List.of(PaymentConsentStateModel.REJECTED),
+                new Date(), 100)).isPositive();
+
+        assertThat(isInLiveCollection(consentId)).isFalse();
+        final Document archivedDocument = mongoOperations.findById(consentId, Document.class,
+                consentArchiveRepository.getArchiveCollectionName(DomesticPaymentConsentEntity.class));
+        assertThat(archivedDocument).containsEntry("resourceOwnerId", "modified-psu");
+    }
+
+    @Test
+    void doesNotRemoveConsentWhichIsNoLongerArchivable() {
+        final String consentId = createOldRejectedConsent();
+        final ConsentArchiveRepository repository = repositoryModifyingConsentOnFirstArchiveWrite(consentId,
+                new Update().inc("entityVersion", 1).set("status", PaymentConsentStateModel.AWAITING_AUTHORISATION));
+
+        repository.archiveBatch(DomesticPaymentConsentEntity.class, List.of(PaymentConsentStateModel.REJECTED), new Date(), 100);
+
+        assertThat(isInLiveCollection(consentId)).isTrue();
+        assertThat(mongoOperations.findById(consentId, Document.class,
+                consentArchiveRepository.getArchiveCollectionName(DomesticPaymentConsentEntity.class))).isNull();
+    }
+
+    /**
+     * Simulates a concurrent modification of the consent, between it being read and removed from the live collection
+     */
+    private ConsentArchiveRepository repositoryModifyingConsentOnFirstArchiveWrite(String consentId, Update modification) {
+        final MongoTemplate mongoTemplate = spy((MongoTemplate) mongoOperations);
+        final String archiveCollectionName = consentArchiveRepository.getArchiveCollectionName(DomesticPaymentConsentEntity.class);
+        final AtomicBoolean modified = new AtomicBoolean();
+        doAnswer(invocation -> {
+            if (modified.compareAndSet(false, true)) {
+                mongoOperations.updateFirst(query(where("_id").is(consentId)), modification, DomesticPaymentConsentEntity.class);
+            }
+            return invocation.callRealMethod();
+        }).when(mongoTemplate).getCollection(archiveCollectionName);
+        return new ConsentArchiveRepository(mongoTemplate);
+    }
+
+    @Test
+    void onlyOneReplicaArchives() {
+        final MongoLeaderLease otherReplicaLease = new MongoLeaderLease(mongoOperations);
+        assertThat(otherReplicaLease.tryAcquire(ConsentArchiver.LEASE_NAME, Duration.ofMinutes(1))).isTrue();
+        try {
+            final ConsentArchiveResult result = consentArchiver.archive();
+            assertThat(result.isLeader()).isFalse();
+            assertThat(result.getTotalArchived()).isZero();
+        } finally {
+            otherReplicaLease.release(ConsentArchiver.LEASE_NAME);
+        }
+    }
+
+    @Test
+    void archivedDocumentDropsFileContentAndCompressesRequestObj() {
+        final Document requestObj = new Document("data", new Document("initiation", new Document("fileHash", "abc123")
+                .append("numberOfTransactions", "2")));
+        final Document consent = new Document("_id", "PFC_1").append("status", "Consumed")
+                                                             .append("requestObj", requestObj)
+                                                             .append("fileContent", "<xml>large file</xml>");
+
+        final Document archived = ConsentArchiveRepository.toArchivedDocument(consent, new Date());
+        assertThat(archived).doesNotContainKeys("fileContent", "requestObj").containsKey("requestObjGzip");
+
+        final Document restored = ConsentArchiveRepository.fromArchivedDocument(archived);
+        assertThat(restored.get("requestObj")).isEqualTo(requestObj);
+        assertThat(restored).containsEntry("status", "Consumed").doesNotContainKeys("fileContent", "archivedDateTime");
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.service.counter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.counter.ConsentStatusCount;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.counter.ConsentStatusCounterRepository;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.payment.PaymentAuthoriseConsentArgs;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.payment.PaymentConsentStateModel;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.payment.domestic.DefaultDomesticPaymentConsentService;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.payment.domestic.v4_0_0.DefaultDomesticPaymentConsentServiceTest;
+import com.forgerock.sapi.gateway.uk.common.shared.api.meta.share.IntentType;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(properties = "consent.store.counters.enabled=true")
+class ConsentStatusCounterServiceTest {
+
+    @Autowired
+    private ConsentStatusCounterService counterService;
+
+    @Autowired
+    private ConsentStatusCounterReconciler counterReconciler;
+
+    @Autowired
+    private MongoOperations mongoOperations;
+
+    @Autowired
+    private DefaultDomesticPaymentConsentService domesticPaymentConsentService;
+
+    /**
+     * Each test uses its own ApiClient so that the counts of consents created by other tests can be ignored
+     */
+    private String apiClientId;
+
+    @BeforeEach
+    void createApiClientId() {
+        apiClientId = "counter-client-" + UUID.randomUUID();
+    }
+
+    private String createConsent() {
+        return domesticPaymentConsentService.createConsent(
+                DefaultDomesticPaymentConsentServiceTest.createValidConsentEntity(apiClientId)).getId();
+    }
+
+    private Map<String, Long> getCountsByStatus() {
+        return counterService.getCounts(IntentType.PAYMENT_DOMESTIC_CONSENT, apiClientId).stream()
+                             .collect(Collectors.toMap(ConsentStatusCount::getStatus, ConsentStatusCount::getCount));
+    }
+
+    private void createConsentsInEachStatus() {
+        createConsent();
+        createConsent();
+
+        final String authorisedConsentId = createConsent();
+        domesticPaymentConsentService.authoriseConsent(new PaymentAuthoriseConsentArgs(authorisedConsentId, apiClientId, "psu4test", "acc-1"));
+
+        final String consumedConsentId = createConsent();
+        domesticPaymentConsentService.authoriseConsent(new PaymentAuthoriseConsentArgs(consumedConsentId, apiClientId, "psu4test", "acc-1"));
+        domesticPaymentConsentService.consumeConsent(consumedConsentId, apiClientId);
+
+        domesticPaymentConsentService.rejectConsent(createConsent(), apiClientId, "psu4test");
+
+        domesticPaymentConsentService.deleteConsent(createConsent(), apiClientId);
+    }
+
+    @Test
+    void countsAreMaintainedAsConsentsChangeStatus() {
+        createConsentsInEachStatus();
+
+        // Deleted consents are not counted
+        assertThat(getCountsByStatus()).isEqualTo(Map.of(PaymentConsentStateModel.AWAITING_AUTHORISATION, 2L,
+                                                         PaymentConsentStateModel.AUTHORISED, 1L,
+                                                         PaymentConsentStateModel.CONSUMED, 1L,
+                                                         PaymentConsentStateModel.REJECTED, 1L));
+
+        assertThat(counterService.getCounts(IntentType.ACCOUNT_ACCESS_CONSENT, apiClientId)).isEmpty();
+        assertThat(counterService.getCounts(null, apiClientId)).hasSize(4);
+    }
+
+    @Test
+    void reconcileCorrectsDrift() {
+        createConsentsInEachStatus();
+        final Map<String, Long> expectedCounts = getCountsByStatus();
+
+        // Simulate lost and spurious counter updates
+        mongoOperations.updateFirst(query(where("apiClientId").is(apiClientId).and("status").is(PaymentConsentStateModel.AUTHORISED)),
+                new Update().set("count", 42L), ConsentStatusCounterRepository.COUNTERS_COLLECTION);
+        mongoOperations.insert(new Document("_id", IntentType.PAYMENT_DOMESTIC_CONSENT.name() + '|' + apiClientId + "|Unknown")
+                        .append("intentType", IntentType.PAYMENT_DOMESTIC_CONSENT.name())
+                        .append("apiClientId", apiClientId)
+                        .append("status", "Unknown")
+                        .append("count", 3L),
+                ConsentStatusCounterRepository.COUNTERS_COLLECTION);
+        assertThat(getCountsByStatus()).isNotEqualTo(expectedCounts);
+
+        assertThat(counterReconciler.reconcile()).isGreaterThanOrEqualTo(2);
+
+        assertThat(getCountsByStatus()).isEqualTo(expectedCounts);
+    }
+}
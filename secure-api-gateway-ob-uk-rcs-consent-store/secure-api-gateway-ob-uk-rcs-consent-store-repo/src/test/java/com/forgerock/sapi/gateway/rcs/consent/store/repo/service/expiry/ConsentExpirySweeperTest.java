@@ -0,0 +1,226 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.service.expiry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.account.AccountAccessConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.domestic.DomesticPaymentConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.file.FilePaymentConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.ConsentStoreIndexInitialiser;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.MongoLeaderLease;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.account.AccountAccessAuthoriseConsentArgs;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.account.AccountAccessConsentService;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.account.AccountAccessConsentStateModel;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.account.DefaultAccountAccessConsentServiceTest;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.payment.PaymentAuthoriseConsentArgs;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.payment.PaymentConsentStateModel;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.payment.domestic.DefaultDomesticPaymentConsentService;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.payment.domestic.v3_1_10.DefaultDomesticPaymentConsentServiceTest;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.payment.file.DefaultFilePaymentConsentService;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.payment.file.DefaultFilePaymentConsentServiceTest;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.payment.file.FilePaymentConsentStateModel;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+class ConsentExpirySweeperTest {
+
+    private static final String API_CLIENT_ID = "test-sweeper-client";
+
+    private static final long TWO_DAYS_MILLIS = TimeUnit.DAYS.toMillis(2);
+
+    @Autowired
+    private ConsentExpirySweeper consentExpirySweeper;
+
+    @Autowired
+    private MongoLeaderLease mongoLeaderLease;
+
+    @Autowired
+    private ConsentStoreIndexInitialiser consentStoreIndexInitialiser;
+
+    @Autowired
+    private MongoOperations mongoOperations;
+
+    @Autowired
+    private DefaultDomesticPaymentConsentService domesticPaymentConsentService;
+
+    @Autowired
+    private DefaultFilePaymentConsentService filePaymentConsentService;
+
+    @Autowired
+    private AccountAccessConsentService accountAccessConsentService;
+
+    @AfterEach
+    void releaseLease() {
+        mongoLeaderLease.release(ConsentExpirySweeper.LEASE_NAME);
+    }
+
+    private void setDateField(String consentId, String field, Date value, Class<?> entityClass) {
+        mongoOperations.updateFirst(query(where("_id").is(consentId)), new Update().set(field, value), entityClass);
+    }
+
+    private String createAbandonedDomesticPaymentConsent() {
+        final String consentId = domesticPaymentConsentService.createConsent(
+                DefaultDomesticPaymentConsentServiceTest.createValidConsentEntity(API_CLIENT_ID)).getId();
+        setDateField(consentId, ConsentExpirySweeper.FIELD_CREATION_DATE_TIME, new Date(System.currentTimeMillis() - TWO_DAYS_MILLIS),
+                DomesticPaymentConsentEntity.class);
+        return consentId;
+    }
+
+    @Test
+    void rulesOnlyContainTransitionsAllowedByStateModels() {
+        assertThat(consentExpirySweeper.getRules()).isNotEmpty().allSatisfy(rule -> {
+            assertThat(rule.getReason()).isIn(ConsentSweepRule.REASON_ABANDONED, ConsentSweepRule.REASON_EXPIRED);
+            assertThat(rule.getToStatus()).isNotEqualTo(rule.getFromStatus());
+        });
+        assertThat(consentExpirySweeper.getRules()).anySatisfy(rule -> {
+            assertThat(rule.getEntityClass()).isEqualTo(FilePaymentConsentEntity.class);
+            assertThat(rule.getFromStatus()).isEqualTo(FilePaymentConsentStateModel.AWAITING_UPLOAD);
+        });
+        // Authorised payment consents are only ever Consumed, so are never swept
+        assertThat(consentExpirySweeper.getRules()).noneSatisfy(rule -> {
+            assertThat(rule.getEntityClass()).isEqualTo(DomesticPaymentConsentEntity.class);
+            assertThat(rule.getFromStatus()).isEqualTo(PaymentConsentStateModel.AUTHORISED);
+        });
+    }
+
+    @Test
+    void abandonedConsentsAreRejected() {
+        final String abandonedConsentId = createAbandonedDomesticPaymentConsent();
+        final int entityVersionBeforeSweep = domesticPaymentConsentService.getConsent(abandonedConsentId, API_CLIENT_ID).getEntityVersion();
+        final String recentConsentId = domesticPaymentConsentService.createConsent(
+                DefaultDomesticPaymentConsentServiceTest.createValidConsentEntity(API_CLIENT_ID)).getId();
+
+        final ConsentSweepResult result = consentExpirySweeper.sweep();
+
+        assertThat(result.isLeader()).isTrue();
+        assertThat(result.isCompleted()).isTrue();
+        assertThat(result.getTotalTransitions()).isPositive();
+        final DomesticPaymentConsentEntity abandonedConsent = domesticPaymentConsentService.getConsent(abandonedConsentId, API_CLIENT_ID);
+        assertThat(abandonedConsent.getStatus()).isEqualTo(PaymentConsentStateModel.REJECTED);
+        assertThat(abandonedConsent.getEntityVersion()).isEqualTo(entityVersionBeforeSweep + 1);
+        assertThat(domesticPaymentConsentService.getConsent(recentConsentId, API_CLIENT_ID).getStatus())
+                .isEqualTo(PaymentConsentStateModel.AWAITING_AUTHORISATION);
+    }
+
+    @Test
+    void authorisedPaymentConsentsAreNotSwept() {
+        final String consentId = createAbandonedDomesticPaymentConsent();
+        domesticPaymentConsentService.authoriseConsent(new PaymentAuthoriseConsentArgs(consentId, API_CLIENT_ID, "psu4test", "acc-1"));
+
+        consentExpirySweeper.sweep();
+
+        assertThat(domesticPaymentConsentService.getConsent(consentId, API_CLIENT_ID).getStatus()).isEqualTo(PaymentConsentStateModel.AUTHORISED);
+    }
+
+    @Test
+    void fileConsentsAwaitingUploadAreRejected() {
+        final String consentId = filePaymentConsentService.createConsent(DefaultFilePaymentConsentServiceTest.createValidConsentEntity(API_CLIENT_ID)).getId();
+        setDateField(consentId, ConsentExpirySweeper.FIELD_CREATION_DATE_TIME, new Date(System.currentTimeMillis() - TWO_DAYS_MILLIS),
+                FilePaymentConsentEntity.class);
+
+        consentExpirySweeper.sweep();
+
+        assertThat(filePaymentConsentService.getConsent(consentId, API_CLIENT_ID).getStatus()).isEqualTo(FilePaymentConsentStateModel.REJECTED);
+    }
+
+    @Test
+    void expiredAccountAccessConsentsAreRevoked() {
+        final List<String> consentIds = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            final String consentId = accountAccessConsentService.createConsent(DefaultAccountAccessConsentServiceTest.createValidConsentEntity(API_CLIENT_ID)).getId();
+            accountAccessConsentService.authoriseConsent(new AccountAccessAuthoriseConsentArgs(consentId, API_CLIENT_ID, "psu4test", List.of("acc-1")));
+            consentIds.add(consentId);
+        }
+        final String expiredConsentId = consentIds.get(0);
+        final String validConsentId = consentIds.get(1);
+        setDateField(expiredConsentId, ConsentExpirySweeper.FIELD_EXPIRATION_DATE_TIME, new Date(System.currentTimeMillis() - 1000),
+                AccountAccessConsentEntity.class);
+        setDateField(validConsentId, ConsentExpirySweeper.FIELD_EXPIRATION_DATE_TIME, new Date(System.currentTimeMillis() + TWO_DAYS_MILLIS),
+                AccountAccessConsentEntity.class);
+
+        consentExpirySweeper.sweep();
+
+        assertThat(accountAccessConsentService.getConsent(expiredConsentId, API_CLIENT_ID).getStatus())
+                .isEqualTo(AccountAccessConsentStateModel.getInstance().getRevokedConsentStatus());
+        assertThat(accountAccessConsentService.getConsent(validConsentId, API_CLIENT_ID).getStatus())
+                .isEqualTo(AccountAccessConsentStateModel.AUTHORISED);
+    }
+
+    @Test
+    void sweepIsSkippedWhenAnotherReplicaHoldsTheLease() {
+        final String consentId = createAbandonedDomesticPaymentConsent();
+        mongoOperations.upsert(query(where("_id").is(ConsentExpirySweeper.LEASE_NAME)),
+                new Update().set("owner", "another-replica").set("expiresAt", new Date(System.currentTimeMillis() + 60_000)),
+                MongoLeaderLease.LEASE_COLLECTION);
+        try {
+            final ConsentSweepResult result = consentExpirySweeper.sweep();
+
+            assertThat(result.isLeader()).isFalse();
+            assertThat(result.getTotalTransitions()).isZero();
+            assertThat(domesticPaymentConsentService.getConsent(consentId, API_CLIENT_ID).getStatus())
+                    .isEqualTo(PaymentConsentStateModel.AWAITING_AUTHORISATION);
+        } finally {
+            mongoOperations.remove(query(where("_id").is(ConsentExpirySweeper.LEASE_NAME)), MongoLeaderLease.LEASE_COLLECTION);
+        }
+    }
+
+    @Test
+    void runStopsAtBatchLimitAndRecordsMetrics() {
+        // Sweep anything left by other tests, so that the limited run only sees the consents created by this test
+        consentExpirySweeper.sweep();
+        for (int i = 0; i < 3; i++) {
+            createAbandonedDomesticPaymentConsent();
+        }
+        final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        final ConsentExpirySweeper limitedSweeper = new ConsentExpirySweeper(mongoOperations, mongoLeaderLease,
+                consentStoreIndexInitialiser, new StaticListableBeanFactory(Map.of("meterRegistry", meterRegistry)).getBeanProvider(MeterRegistry.class),
+                false, 60_000, 1440, 2, 1, 0, 60_000);
+
+        final ConsentSweepResult limitedResult = limitedSweeper.sweep();
+        assertThat(limitedResult.isCompleted()).isFalse();
+        assertThat(limitedResult.getTotalTransitions()).isEqualTo(2);
+        assertThat(meterRegistry.get("consent.store.sweeper.transitions").counters().stream().mapToDouble(Counter::count).sum()).isEqualTo(2.0);
+        assertThat(meterRegistry.get("consent.store.sweeper.runs").tag("outcome", "incomplete").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("consent.store.sweeper.last.run.transitions").gauge().value()).isEqualTo(2.0);
+
+        assertThat(consentExpirySweeper.sweep().isCompleted()).isTrue();
+        assertThat(mongoOperations.count(query(where("apiClientId").is(API_CLIENT_ID).and("status").is(PaymentConsentStateModel.AWAITING_AUTHORISATION)
+                .and("creationDateTime").lt(new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(1)))), DomesticPaymentConsentEntity.class)).isZero();
+    }
+}
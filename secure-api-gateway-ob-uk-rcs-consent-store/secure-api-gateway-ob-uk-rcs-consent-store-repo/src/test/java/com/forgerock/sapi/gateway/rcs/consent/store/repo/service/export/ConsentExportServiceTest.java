@@ -0,0 +1,174 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.service.export;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.joda.time.DateTime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.domestic.v3_1_10.DomesticPaymentConsent;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.account.AccountAccessConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.domestic.DomesticPaymentConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.export.ConsentExportQuery;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.account.DefaultAccountAccessConsentService;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.account.DefaultAccountAccessConsentServiceTest;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.payment.domestic.DefaultDomesticPaymentConsentService;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.payment.domestic.v4_0_0.DefaultDomesticPaymentConsentServiceTest;
+import com.forgerock.sapi.gateway.uk.common.shared.api.meta.share.IntentType;
+
+import uk.org.openbanking.datamodel.v3.payment.OBPaymentConsentStatus;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+class ConsentExportServiceTest {
+
+    @Autowired
+    private ConsentExportService consentExportService;
+
+    @Autowired
+    private DefaultDomesticPaymentConsentService domesticPaymentConsentService;
+
+    @Autowired
+    private DefaultAccountAccessConsentService accountAccessConsentService;
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+
+    /**
+     * Each test uses its own ApiClient so that consents created by other tests can be ignored
+     */
+    private String apiClientId;
+
+    private DateTime testStart;
+
+    @BeforeEach
+    void setUp() {
+        apiClientId = "export-test-" + UUID.randomUUID();
+        testStart = DateTime.now().minusSeconds(1);
+    }
+
+    private List<JsonNode> export(ConsentExportQuery query) throws IOException {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        final long consentsWritten = consentExportService.exportConsents(query, outputStream);
+        final String ndjson = outputStream.toString(StandardCharsets.UTF_8);
+        assertThat(ndjson.lines().count()).isEqualTo(consentsWritten);
+
+        final List<JsonNode> testConsents = new ArrayList<>();
+        for (String line : ndjson.lines().toList()) {
+            final JsonNode consent = objectMapper.readTree(line);
+            if (apiClientId.equals(consent.path("apiClientId").textValue())) {
+                testConsents.add(consent);
+            }
+        }
+        return testConsents;
+    }
+
+    private ConsentExportQuery query(Set<IntentType> intentTypes, Set<String> statuses) {
+        return new ConsentExportQuery(null, intentTypes, statuses, testStart, DateTime.now().plusMinutes(1), false, 2);
+    }
+
+    @Test
+    void exportConsentsOfAllTypes() throws IOException {
+        final DomesticPaymentConsentEntity paymentConsent = domesticPaymentConsentService.createConsent(
+                DefaultDomesticPaymentConsentServiceTest.createValidConsentEntity(apiClientId));
+        final AccountAccessConsentEntity accountAccessConsent = accountAccessConsentService.createConsent(
+                DefaultAccountAccessConsentServiceTest.createValidConsentEntity(apiClientId));
+        final DomesticPaymentConsentEntity deletedConsent = domesticPaymentConsentService.createConsent(
+                DefaultDomesticPaymentConsentServiceTest.createValidConsentEntity(apiClientId));
+        domesticPaymentConsentService.deleteConsent(deletedConsent.getId(), apiClientId);
+
+        final List<JsonNode> exportedConsents = export(query(Set.of(), Set.of()));
+
+        assertThat(exportedConsents).extracting(consent -> consent.path("id").textValue())
+                                    .containsExactlyInAnyOrder(paymentConsent.getId(), accountAccessConsent.getId());
+
+        final JsonNode exportedPaymentConsent = exportedConsents.stream()
+                .filter(consent -> consent.path("id").textValue().equals(paymentConsent.getId())).findFirst().orElseThrow();
+        final DomesticPaymentConsent paymentConsentDto = objectMapper.treeToValue(exportedPaymentConsent, DomesticPaymentConsent.class);
+        assertThat(paymentConsentDto.getStatus()).isEqualTo(paymentConsent.getStatus());
+        assertThat(paymentConsentDto.getIdempotencyKey()).isEqualTo(paymentConsent.getIdempotencyKey());
+        assertThat(paymentConsentDto.getRequestVersion()).isEqualTo(paymentConsent.getRequestVersion());
+        assertThat(paymentConsentDto.getCreationDateTime()).isEqualTo(paymentConsent.getCreationDateTime());
+        assertThat(paymentConsentDto.getStatusUpdateDateTime()).isEqualTo(paymentConsent.getStatusUpdatedDateTime());
+        assertThat(paymentConsentDto.getRequestObj()).isNotNull();
+    }
+
+    @Test
+    void exportConsentsFilteredByIntentTypeAndStatus() throws IOException {
+        final DomesticPaymentConsentEntity rejectedConsent = domesticPaymentConsentService.createConsent(
+                DefaultDomesticPaymentConsentServiceTest.createValidConsentEntity(apiClientId));
+        domesticPaymentConsentService.rejectConsent(rejectedConsent.getId(), apiClientId, "psu4test");
+        domesticPaymentConsentService.createConsent(DefaultDomesticPaymentConsentServiceTest.createValidConsentEntity(apiClientId));
+        accountAccessConsentService.createConsent(DefaultAccountAccessConsentServiceTest.createValidConsentEntity(apiClientId));
+
+        final List<JsonNode> exportedConsents = export(query(Set.of(IntentType.PAYMENT_DOMESTIC_CONSENT),
+                Set.of(OBPaymentConsentStatus.REJECTED.toString())));
+
+        assertThat(exportedConsents).extracting(consent -> consent.path("id").textValue()).containsExactly(rejectedConsent.getId());
+        assertThat(exportedConsents.get(0).path("status").textValue()).isEqualTo(OBPaymentConsentStatus.REJECTED.toString());
+    }
+
+    @Test
+    void exportConsentsFilteredByStatusUpdatedDateTime() throws IOException {
+        domesticPaymentConsentService.createConsent(DefaultDomesticPaymentConsentServiceTest.createValidConsentEntity(apiClientId));
+
+        final ConsentExportQuery beforeConsentsCreated = new ConsentExportQuery(null, Set.of(), Set.of(),
+                testStart.minusHours(1), testStart, false, 100);
+        assertThat(export(beforeConsentsCreated)).isEmpty();
+
+        final ConsentExportQuery openEndedRange = new ConsentExportQuery(null, Set.of(), Set.of(), testStart, null, false, 100);
+        assertThat(export(openEndedRange)).hasSize(1);
+    }
+
+    @Test
+    void failToCreateQueryWithInvalidRange() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new ConsentExportQuery(null, Set.of(), Set.of(), testStart, testStart, false, 100));
+    }
+
+    @Test
+    void exportConsentsOfApiClient() throws IOException {
+        final DomesticPaymentConsentEntity consent = domesticPaymentConsentService.createConsent(
+                DefaultDomesticPaymentConsentServiceTest.createValidConsentEntity(apiClientId));
+        domesticPaymentConsentService.createConsent(DefaultDomesticPaymentConsentServiceTest.createValidConsentEntity("another-client"));
+
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        final long consentsWritten = consentExportService.exportConsents(
+                new ConsentExportQuery(apiClientId, Set.of(), Set.of(), testStart, null, false, 100), outputStream);
+
+        assertThat(consentsWritten).isEqualTo(1);
+        final JsonNode exportedConsent = objectMapper.readTree(outputStream.toString(StandardCharsets.UTF_8));
+        assertThat(exportedConsent.path("id").textValue()).isEqualTo(consent.getId());
+        assertThat(exportedConsent.path("apiClientId").textValue()).isEqualTo(apiClientId);
+    }
+}
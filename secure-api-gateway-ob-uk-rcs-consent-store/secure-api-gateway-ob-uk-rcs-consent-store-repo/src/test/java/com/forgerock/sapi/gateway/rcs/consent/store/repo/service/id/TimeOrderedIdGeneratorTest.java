@@ -0,0 +1,107 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.service.id;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.ConsentTypeRegistry;
+import com.forgerock.sapi.gateway.uk.common.shared.api.meta.share.IntentType;
+
+class TimeOrderedIdGeneratorTest {
+
+    @ParameterizedTest
+    @EnumSource(value = ConsentIdStrategy.class, names = {"ULID", "UUID_V7"})
+    void idsAreOrderedWhenClockIsStalledOrMovesBackwards(ConsentIdStrategy format) {
+        final AtomicLong clock = new AtomicLong(1_700_000_000_000L);
+        final TimeOrderedIdGenerator idGenerator = new TimeOrderedIdGenerator("PDC_", format, clock::get, new Random(42));
+
+        final List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            if (i % 5_000 == 0) {
+                clock.addAndGet(-10);
+            } else if (i % 100 == 0) {
+                clock.incrementAndGet();
+            }
+            ids.add(idGenerator.get());
+        }
+
+        assertThat(ids).isSorted().doesNotHaveDuplicates();
+        assertThat(ids).allMatch(id -> id.startsWith("PDC_"));
+    }
+
+    @Test
+    void ulidFormat() {
+        final TimeOrderedIdGenerator idGenerator = new TimeOrderedIdGenerator("AAC_", ConsentIdStrategy.ULID, () -> 1_700_000_000_000L, new Random(1));
+        final String id = idGenerator.get();
+        assertThat(id).hasSize(4 + 26).matches("AAC_[0-9A-HJKMNP-TV-Z]{26}");
+        // 48 bit timestamp is the first 10 characters
+        assertThat(id.substring(4, 14)).isEqualTo("01HF7YAT00");
+    }
+
+    @Test
+    void uuidV7Format() {
+        final TimeOrderedIdGenerator idGenerator = new TimeOrderedIdGenerator("AAC_", ConsentIdStrategy.UUID_V7, () -> 1_700_000_000_000L, new Random(1));
+        final UUID uuid = UUID.fromString(idGenerator.get().substring(4));
+        assertThat(uuid.version()).isEqualTo(7);
+        assertThat(uuid.variant()).isEqualTo(2);
+        assertThat(uuid.getMostSignificantBits() >>> 16).isEqualTo(1_700_000_000_000L);
+    }
+
+    @Test
+    void idsAreOrderedAcrossMilliseconds() {
+        final TimeOrderedIdGenerator idGenerator = new TimeOrderedIdGenerator("AAC_", ConsentIdStrategy.ULID);
+        final String first = idGenerator.get();
+        final String second = idGenerator.get();
+        assertThat(second).isGreaterThan(first);
+    }
+
+    @Test
+    void failToCreateGeneratorForRandomStrategy() {
+        assertThrows(IllegalArgumentException.class, () -> new TimeOrderedIdGenerator("AAC_", ConsentIdStrategy.RANDOM));
+    }
+
+    @Test
+    void ulidsAreIdentifiedAsTheirIntentType() {
+        final ConsentIdGenerators consentIdGenerators = new ConsentIdGenerators(EnumSet.allOf(IntentType.class), ConsentIdStrategy.ULID);
+        for (Class<?> entityClass : ConsentTypeRegistry.getConsentStateModels().keySet()) {
+            final IntentType intentType = ConsentTypeRegistry.getIntentType(entityClass);
+            final String id = consentIdGenerators.getIdGenerator(intentType).orElseThrow().get();
+            assertThat(IntentType.identify(id)).isEqualTo(intentType);
+            assertThat(id.length()).isLessThanOrEqualTo(intentType.generateIntentId().length());
+        }
+    }
+
+    @Test
+    void randomIdsUsedForIntentTypesNotConfiguredAsTimeOrdered() {
+        final ConsentIdGenerators consentIdGenerators = new ConsentIdGenerators(EnumSet.of(IntentType.PAYMENT_DOMESTIC_CONSENT), ConsentIdStrategy.ULID);
+        assertThat(consentIdGenerators.getStrategy(IntentType.PAYMENT_DOMESTIC_CONSENT)).isEqualTo(ConsentIdStrategy.ULID);
+        assertThat(consentIdGenerators.getIdGenerator(IntentType.PAYMENT_DOMESTIC_CONSENT)).isPresent();
+        assertThat(consentIdGenerators.getStrategy(IntentType.ACCOUNT_ACCESS_CONSENT)).isEqualTo(ConsentIdStrategy.RANDOM);
+        assertThat(consentIdGenerators.getIdGenerator(IntentType.ACCOUNT_ACCESS_CONSENT)).isEmpty();
+    }
+}
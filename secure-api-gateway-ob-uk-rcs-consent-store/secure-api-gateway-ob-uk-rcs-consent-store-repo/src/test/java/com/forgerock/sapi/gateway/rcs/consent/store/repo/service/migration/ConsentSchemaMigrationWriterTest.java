@@ -0,0 +1,195 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.service.migration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.BaseConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.account.AccountAccessConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.MongoLeaderLease;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.account.AccountAccessConsentRepository;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.migration.ConsentDocumentUpcaster;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.migration.ConsentSchemaMigrations;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.account.AccountAccessConsentStateModel;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.account.DefaultAccountAccessConsentServiceTest;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.expiry.ConsentExpirySweeper;
+import com.forgerock.sapi.gateway.uk.common.shared.api.meta.share.IntentType;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(properties = "consent.store.migration.writeBack.intervalMillis=3600000")
+class ConsentSchemaMigrationWriterTest {
+
+    private static final String LEGACY_FIELD = "legacyApiClientId";
+
+    /**
+     * Upcaster from a hypothetical schemaVersion 0 which stored the apiClientId in the legacyApiClientId field
+     */
+    @TestConfiguration
+    static class UpcasterConfiguration {
+        @Bean
+        ConsentDocumentUpcaster legacyApiClientIdUpcaster() {
+            return new ConsentDocumentUpcaster() {
+                @Override
+                public Class<? extends BaseConsentEntity<?>> getEntityClass() {
+                    return AccountAccessConsentEntity.class;
+                }
+
+                @Override
+                public int getFromVersion() {
+                    return 0;
+                }
+
+                @Override
+                public void upcast(Document document) {
+                    if (document.containsKey(LEGACY_FIELD)) {
+                        document.put("apiClientId", document.remove(LEGACY_FIELD));
+                    }
+                }
+            };
+        }
+    }
+
+    @Autowired
+    private ConsentSchemaMigrationWriter migrationWriter;
+
+    @Autowired
+    private AccountAccessConsentRepository repo;
+
+    @Autowired
+    private MongoOperations mongoOperations;
+
+    @Autowired
+    private ConsentExpirySweeper consentExpirySweeper;
+
+    @Autowired
+    private MongoLeaderLease mongoLeaderLease;
+
+    @AfterEach
+    void releaseLease() {
+        mongoLeaderLease.release(ConsentExpirySweeper.LEASE_NAME);
+    }
+
+    @Test
+    void consentsAreWrittenWithCurrentSchemaVersion() {
+        final AccountAccessConsentEntity consent = repo.save(createConsent());
+
+        assertThat(consent.getSchemaVersion()).isEqualTo(1);
+        assertThat(ConsentSchemaMigrations.getSchemaVersion(findDocument(consent.getId()))).isEqualTo(1);
+    }
+
+    @Test
+    void legacyConsentIsUpcastOnReadAndWrittenBack() {
+        final String consentId = createLegacyConsent("legacy-client-1");
+
+        final AccountAccessConsentEntity consent = repo.findById(consentId).orElseThrow();
+        assertThat(consent.getApiClientId()).isEqualTo("legacy-client-1");
+        assertThat(consent.getSchemaVersion()).isEqualTo(1);
+
+        assertThat(migrationWriter.writeBackMigratedOnRead()).isEqualTo(1);
+        final Document migratedDocument = findDocument(consentId);
+        assertThat(migratedDocument).doesNotContainKey(LEGACY_FIELD).containsEntry("apiClientId", "legacy-client-1");
+        assertThat(ConsentSchemaMigrations.getSchemaVersion(migratedDocument)).isEqualTo(1);
+        assertThat(migratedDocument.getInteger("entityVersion")).isEqualTo(consent.getEntityVersion());
+    }
+
+    @Test
+    void writeBackKeepsModificationsMadeAfterTheRead() {
+        final String consentId = createLegacyConsent("legacy-client-2");
+        repo.findById(consentId).orElseThrow();
+        // Modification of the legacy document before the write back runs
+        mongoOperations.updateFirst(query(where("_id").is(consentId)), new Update().set("status", "Authorised").inc("entityVersion", 1),
+                AccountAccessConsentEntity.class);
+
+        assertThat(migrationWriter.writeBackMigratedOnRead()).isEqualTo(1);
+
+        final Document migratedDocument = findDocument(consentId);
+        assertThat(migratedDocument).containsEntry("status", "Authorised").containsEntry("apiClientId", "legacy-client-2")
+                                    .doesNotContainKey(LEGACY_FIELD);
+    }
+
+    @Test
+    void scanMigratesConsentsWhichAreNotRead() {
+        final String consentId = createLegacyConsent("legacy-client-3");
+
+        assertThat(migrationWriter.scan()).isPositive();
+
+        final Document migratedDocument = findDocument(consentId);
+        assertThat(migratedDocument).doesNotContainKey(LEGACY_FIELD).containsEntry("apiClientId", "legacy-client-3");
+        assertThat(ConsentSchemaMigrations.getSchemaVersion(migratedDocument)).isEqualTo(1);
+    }
+
+    @Test
+    void sweeperOnlyTransitionsMigratedConsents() {
+        final String consentId = createLegacyConsent("legacy-client-4");
+        mongoOperations.updateFirst(query(where("_id").is(consentId)),
+                new Update().set("creationDateTime", new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(2))),
+                AccountAccessConsentEntity.class);
+
+        // The sweeper's raw update must not mark a schemaVersion 0 document as current
+        consentExpirySweeper.sweep();
+        final Document legacyDocument = findDocument(consentId);
+        assertThat(legacyDocument).containsEntry("status", AccountAccessConsentStateModel.AWAITING_AUTHORISATION)
+                                  .containsEntry(LEGACY_FIELD, "legacy-client-4");
+        assertThat(ConsentSchemaMigrations.getSchemaVersion(legacyDocument)).isZero();
+
+        migrationWriter.scan();
+        consentExpirySweeper.sweep();
+
+        final Document sweptDocument = findDocument(consentId);
+        assertThat(sweptDocument).containsEntry("status", AccountAccessConsentStateModel.REJECTED)
+                                 .containsEntry("apiClientId", "legacy-client-4");
+        assertThat(ConsentSchemaMigrations.getSchemaVersion(sweptDocument)).isEqualTo(1);
+    }
+
+    /**
+     * Creates a consent, then rewrites its document in the schemaVersion 0 shape
+     */
+    private String createLegacyConsent(String apiClientId) {
+        final AccountAccessConsentEntity consent = repo.save(createConsent());
+        mongoOperations.updateFirst(query(where("_id").is(consent.getId())),
+                new Update().unset("apiClientId").set(LEGACY_FIELD, apiClientId)
+                            .unset(ConsentSchemaMigrations.FIELD_SCHEMA_VERSION),
+                AccountAccessConsentEntity.class);
+        return consent.getId();
+    }
+
+    private static AccountAccessConsentEntity createConsent() {
+        final AccountAccessConsentEntity consent = DefaultAccountAccessConsentServiceTest.createValidConsentEntity("test-client");
+        consent.setId(IntentType.ACCOUNT_ACCESS_CONSENT.generateIntentId());
+        return consent;
+    }
+
+    private Document findDocument(String consentId) {
+        return mongoOperations.findById(consentId, Document.class, mongoOperations.getCollectionName(AccountAccessConsentEntity.class));
+    }
+}
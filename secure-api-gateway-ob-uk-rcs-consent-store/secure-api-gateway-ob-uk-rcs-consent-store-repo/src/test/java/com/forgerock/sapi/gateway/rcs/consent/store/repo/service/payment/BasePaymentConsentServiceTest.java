@@ -17,12 +17,24 @@ package com.forgerock.sapi.gateway.rcs.consent.store.repo.service.payment;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.joda.time.DateTime;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Update;
 
+import com.forgerock.sapi.gateway.rcs.consent.store.datamodel.payment.PaymentInitiationFingerprint;
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.BasePaymentConsentEntity;
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.exception.ConsentStoreException;
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.exception.ConsentStoreException.ErrorType;
@@ -34,6 +46,9 @@ import uk.org.openbanking.datamodel.v3.payment.OBPaymentConsentStatus;
 
 public abstract class BasePaymentConsentServiceTest<T extends BasePaymentConsentEntity<?>> extends BaseConsentServiceTest<T, PaymentAuthoriseConsentArgs> {
 
+    @Autowired
+    private MongoOperations mongoOperations;
+
     @Override
     protected ConsentStateModel getConsentStateModel() {
         return PaymentConsentStateModel.getInstance();
@@ -104,6 +119,116 @@ public abstract class BasePaymentConsentServiceTest<T extends BasePaymentConsent
         assertThat(consumedConsent.getStatus()).isEqualTo(OBPaymentConsentStatus.CONSUMED.toString());
     }
 
+    @Test
+    void createConsentRecordsInitiationFingerprint() {
+        final T persistedConsent = getPaymentConsentService().createConsent(getValidConsentEntity());
+        assertThat(persistedConsent.getInitiationFingerprint())
+                .isEqualTo(PaymentInitiationFingerprint.ofConsentRequest(persistedConsent.getRequestObj()));
+    }
+
+    @Test
+    void consumeConsentWithExpectedInitiationAndDebtorAccount() {
+        final T consentInStateToConsume = getConsentInStateToConsume();
+        final T consumedConsent = getPaymentConsentService().consumeConsent(consentInStateToConsume.getId(), consentInStateToConsume.getApiClientId(),
+                PaymentInitiationFingerprint.ofConsentRequest(consentInStateToConsume.getRequestObj()), consentInStateToConsume.getAuthorisedDebtorAccountId());
+
+        assertThat(consumedConsent.getStatus()).isEqualTo(OBPaymentConsentStatus.CONSUMED.toString());
+        assertThat(consumedConsent.getEntityVersion()).isEqualTo(consentInStateToConsume.getEntityVersion() + 1);
+        assertThat(consumedConsent.getStatusUpdatedDateTime()).isAfterOrEqualTo(consentInStateToConsume.getStatusUpdatedDateTime());
+        assertThat(consumedConsent.getAuthorisedDebtorAccountId()).isEqualTo(consentInStateToConsume.getAuthorisedDebtorAccountId());
+        assertThat(consumedConsent.getResourceOwnerId()).isEqualTo(consentInStateToConsume.getResourceOwnerId());
+    }
+
+    @Test
+    void consumeConsentCreatedWithoutInitiationFingerprint() {
+        final T consentInStateToConsume = getConsentInStateToConsume();
+        mongoOperations.updateFirst(query(where("_id").is(consentInStateToConsume.getId())),
+                new Update().unset("initiationFingerprint"), consentInStateToConsume.getClass());
+
+        final String expectedFingerprint = PaymentInitiationFingerprint.ofConsentRequest(consentInStateToConsume.getRequestObj());
+        final T consumedConsent = getPaymentConsentService().consumeConsent(consentInStateToConsume.getId(),
+                consentInStateToConsume.getApiClientId(), expectedFingerprint, null);
+
+        assertThat(consumedConsent.getStatus()).isEqualTo(OBPaymentConsentStatus.CONSUMED.toString());
+        assertThat(consumedConsent.getInitiationFingerprint()).isEqualTo(expectedFingerprint);
+    }
+
+    @Test
+    void failToConsumeConsentWithDifferentInitiation() {
+        final T consentInStateToConsume = getConsentInStateToConsume();
+        final ConsentStoreException consentStoreException = assertThrows(ConsentStoreException.class,
+                () -> getPaymentConsentService().consumeConsent(consentInStateToConsume.getId(), consentInStateToConsume.getApiClientId(),
+                        "different-fingerprint", consentInStateToConsume.getAuthorisedDebtorAccountId()));
+        assertThat(consentStoreException.getErrorType()).isEqualTo(ErrorType.INVALID_PAYMENT_INITIATION);
+        assertThat(consentStoreException.getConsentId()).isEqualTo(consentInStateToConsume.getId());
+
+        assertThat(getPaymentConsentService().getConsent(consentInStateToConsume.getId(), consentInStateToConsume.getApiClientId()).getStatus())
+                .isEqualTo(OBPaymentConsentStatus.AUTHORISED.toString());
+    }
+
+    @Test
+    void failToConsumeConsentWithDifferentDebtorAccount() {
+        final T consentInStateToConsume = getConsentInStateToConsume();
+        final ConsentStoreException consentStoreException = assertThrows(ConsentStoreException.class,
+                () -> getPaymentConsentService().consumeConsent(consentInStateToConsume.getId(), consentInStateToConsume.getApiClientId(),
+                        PaymentInitiationFingerprint.ofConsentRequest(consentInStateToConsume.getRequestObj()), "another-debtor-acc"));
+        assertThat(consentStoreException.getErrorType()).isEqualTo(ErrorType.INVALID_DEBTOR_ACCOUNT);
+
+        assertThat(getPaymentConsentService().getConsent(consentInStateToConsume.getId(), consentInStateToConsume.getApiClientId()).getStatus())
+                .isEqualTo(OBPaymentConsentStatus.AUTHORISED.toString());
+    }
+
+    @Test
+    void failToConsumeConsentForDifferentApiClient() {
+        final T consentInStateToConsume = getConsentInStateToConsume();
+        final ConsentStoreException consentStoreException = assertThrows(ConsentStoreException.class,
+                () -> getPaymentConsentService().consumeConsent(consentInStateToConsume.getId(), "another-api-client"));
+        assertThat(consentStoreException.getErrorType()).isEqualTo(ErrorType.INVALID_PERMISSIONS);
+    }
+
+    @Test
+    void failToConsumeConsentTwice() {
+        final T consentInStateToConsume = getConsentInStateToConsume();
+        getPaymentConsentService().consumeConsent(consentInStateToConsume.getId(), consentInStateToConsume.getApiClientId());
+
+        final ConsentStoreException consentStoreException = assertThrows(ConsentStoreException.class,
+                () -> getPaymentConsentService().consumeConsent(consentInStateToConsume.getId(), consentInStateToConsume.getApiClientId()));
+        assertThat(consentStoreException.getErrorType()).isEqualTo(ErrorType.INVALID_STATE_TRANSITION);
+        assertThat(consentStoreException.getMessage()).contains("cannot transition from consentStatus: Consumed to status: Consumed");
+    }
+
+    @Test
+    void concurrentConsumeOnlySucceedsOnce() throws Exception {
+        final T consentInStateToConsume = getConsentInStateToConsume();
+        final int numThreads = 8;
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final ExecutorService executorService = Executors.newFixedThreadPool(numThreads);
+        try {
+            final List<Future<T>> results = new ArrayList<>();
+            for (int i = 0; i < numThreads; i++) {
+                results.add(executorService.submit(() -> {
+                    startLatch.await();
+                    return getPaymentConsentService().consumeConsent(consentInStateToConsume.getId(), consentInStateToConsume.getApiClientId());
+                }));
+            }
+            startLatch.countDown();
+
+            int successCount = 0;
+            for (Future<T> result : results) {
+                try {
+                    result.get();
+                    successCount++;
+                } catch (Exception ex) {
+                    assertThat(ex.getCause()).isInstanceOf(ConsentStoreException.class);
+                    assertThat(((ConsentStoreException) ex.getCause()).getErrorType()).isEqualTo(ErrorType.INVALID_STATE_TRANSITION);
+                }
+            }
+            assertThat(successCount).isEqualTo(1);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
     @Test
     void failToConsumeConsentAwaitingAuthorisation() {
         final T persistedConsent = getConsentInStateToAuthoriseOrReject();
@@ -0,0 +1,181 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.service.payment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.ScheduledPaymentConsent;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.domestic.DomesticScheduledPaymentConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.international.InternationalScheduledPaymentConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.ConsentStoreIndexInitialiser;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.payment.DueScheduledPaymentConsentRepository;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.payment.DueScheduledPaymentConsentsQuery;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.payment.domestic.DefaultDomesticScheduledPaymentConsentService;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.payment.domestic.v3_1_10.DefaultDomesticScheduledPaymentConsentServiceTest;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.payment.international.DefaultInternationalScheduledPaymentConsentService;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.payment.international.v3_1_10.DefaultInternationalScheduledPaymentConsentServiceTest;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+class DueScheduledPaymentConsentServiceTest {
+
+    private static final String API_CLIENT_ID = "test-scheduler-client";
+
+    @Autowired
+    private DueScheduledPaymentConsentService dueScheduledPaymentConsentService;
+
+    @Autowired
+    private DefaultDomesticScheduledPaymentConsentService domesticScheduledPaymentConsentService;
+
+    @Autowired
+    private DefaultInternationalScheduledPaymentConsentService internationalScheduledPaymentConsentService;
+
+    @Autowired
+    private ConsentStoreIndexInitialiser consentStoreIndexInitialiser;
+
+    @Autowired
+    private MongoOperations mongoOperations;
+
+    /**
+     * Each test uses its own time window so that consents created by other tests do not affect the results
+     */
+    private DateTime windowStart;
+
+    @BeforeEach
+    void createTimeWindow() {
+        windowStart = new DateTime(2090, 1, 1, 0, 0, DateTimeZone.UTC).plusHours(new Random().nextInt(24 * 365 * 5));
+    }
+
+    private DomesticScheduledPaymentConsentEntity createDomesticConsent(DateTime requestedExecutionDateTime, boolean authorise) {
+        final DomesticScheduledPaymentConsentEntity consent = DefaultDomesticScheduledPaymentConsentServiceTest.createValidConsentEntity(API_CLIENT_ID);
+        consent.getRequestObj().getData().getInitiation().setRequestedExecutionDateTime(requestedExecutionDateTime);
+        final DomesticScheduledPaymentConsentEntity persistedConsent = domesticScheduledPaymentConsentService.createConsent(consent);
+        if (!authorise) {
+            return persistedConsent;
+        }
+        return domesticScheduledPaymentConsentService.authoriseConsent(new PaymentAuthoriseConsentArgs(persistedConsent.getId(),
+                API_CLIENT_ID, "psu4test", "acc-1234"));
+    }
+
+    private List<String> streamDomesticConsentIds(DueScheduledPaymentConsentsQuery query) {
+        try (Stream<ScheduledPaymentConsent> consents = dueScheduledPaymentConsentService.streamDueDomesticScheduledPaymentConsents(query)) {
+            return consents.map(ScheduledPaymentConsent::getId).toList();
+        }
+    }
+
+    @Test
+    void requestedExecutionDateTimeIsPromotedOnCreation() {
+        final DomesticScheduledPaymentConsentEntity consent = createDomesticConsent(windowStart, false);
+        assertThat(consent.getRequestedExecutionDateTime().getMillis()).isEqualTo(windowStart.getMillis());
+    }
+
+    @Test
+    void streamsOnlyAuthorisedConsentsInRange() {
+        final DomesticScheduledPaymentConsentEntity first = createDomesticConsent(windowStart, true);
+        final DomesticScheduledPaymentConsentEntity second = createDomesticConsent(windowStart.plusMinutes(59), true);
+        createDomesticConsent(windowStart.plusMinutes(30), false);
+        createDomesticConsent(windowStart.plusHours(1), true);
+        createDomesticConsent(windowStart.minusMillis(1), true);
+
+        final List<ScheduledPaymentConsent> dueConsents;
+        try (Stream<ScheduledPaymentConsent> consents = dueScheduledPaymentConsentService.streamDueDomesticScheduledPaymentConsents(
+                new DueScheduledPaymentConsentsQuery(windowStart, windowStart.plusHours(1), null, null, 100))) {
+            dueConsents = consents.toList();
+        }
+
+        assertThat(dueConsents).extracting(ScheduledPaymentConsent::getId).containsExactly(first.getId(), second.getId());
+        final ScheduledPaymentConsent dueConsent = dueConsents.get(0);
+        assertThat(dueConsent.getApiClientId()).isEqualTo(API_CLIENT_ID);
+        assertThat(dueConsent.getResourceOwnerId()).isEqualTo("psu4test");
+        assertThat(dueConsent.getAuthorisedDebtorAccountId()).isEqualTo("acc-1234");
+        assertThat(dueConsent.getRequestVersion()).isEqualTo(first.getRequestVersion());
+        assertThat(dueConsent.getRequestedExecutionDateTime().getMillis()).isEqualTo(windowStart.getMillis());
+    }
+
+    @Test
+    void keysetPaginationReturnsEachConsentOnce() {
+        final List<String> expectedConsentIds = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            // Several consents share an execution time, so that pagination must use the consentId to break ties
+            expectedConsentIds.add(createDomesticConsent(windowStart.plusMinutes(i / 3), true).getId());
+        }
+
+        final List<String> pagedConsentIds = new ArrayList<>();
+        DateTime afterRequestedExecutionDateTime = null;
+        String afterConsentId = null;
+        List<String> page;
+        do {
+            page = streamDomesticConsentIds(new DueScheduledPaymentConsentsQuery(windowStart, windowStart.plusHours(1),
+                    afterRequestedExecutionDateTime, afterConsentId, 2));
+            if (!page.isEmpty()) {
+                afterConsentId = page.get(page.size() - 1);
+                afterRequestedExecutionDateTime = domesticScheduledPaymentConsentService.getConsent(afterConsentId, API_CLIENT_ID)
+                                                                                        .getRequestedExecutionDateTime();
+                pagedConsentIds.addAll(page);
+            }
+        } while (page.size() == 2);
+
+        assertThat(pagedConsentIds).containsExactlyInAnyOrderElementsOf(expectedConsentIds).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void streamsInternationalScheduledConsents() {
+        final InternationalScheduledPaymentConsentEntity consent = DefaultInternationalScheduledPaymentConsentServiceTest.createValidConsentEntity(API_CLIENT_ID);
+        consent.getRequestObj().getData().getInitiation().setRequestedExecutionDateTime(windowStart.plusMinutes(5));
+        final String consentId = internationalScheduledPaymentConsentService.createConsent(consent).getId();
+        internationalScheduledPaymentConsentService.authoriseConsent(new PaymentAuthoriseConsentArgs(consentId, API_CLIENT_ID, "psu4test", "acc-1234"));
+
+        try (Stream<ScheduledPaymentConsent> consents = dueScheduledPaymentConsentService.streamDueInternationalScheduledPaymentConsents(
+                new DueScheduledPaymentConsentsQuery(windowStart, windowStart.plusHours(1), null, null, 10))) {
+            assertThat(consents.map(ScheduledPaymentConsent::getId).toList()).containsExactly(consentId);
+        }
+    }
+
+    @Test
+    void legacyConsentsAreBackfilledWhenIndexIsCreated() {
+        final String consentId = createDomesticConsent(windowStart, true).getId();
+        // Simulate a consent created before requestedExecutionDateTime was promoted to a top-level field
+        mongoOperations.updateFirst(query(where("_id").is(consentId)),
+                new Update().unset(ScheduledPaymentConsent.FIELD_REQUESTED_EXECUTION_DATE_TIME), DomesticScheduledPaymentConsentEntity.class);
+        mongoOperations.indexOps(DomesticScheduledPaymentConsentEntity.class).dropIndex(DueScheduledPaymentConsentRepository.DUE_INDEX_NAME);
+        final DueScheduledPaymentConsentsQuery query = new DueScheduledPaymentConsentsQuery(windowStart, windowStart.plusHours(1), null, null, 10);
+        assertThat(streamDomesticConsentIds(query)).isEmpty();
+
+        consentStoreIndexInitialiser.initialiseIndexes();
+
+        assertThat(streamDomesticConsentIds(query)).containsExactly(consentId);
+        assertThat(mongoOperations.indexOps(DomesticScheduledPaymentConsentEntity.class).getIndexInfo())
+                .anyMatch(indexInfo -> DueScheduledPaymentConsentRepository.DUE_INDEX_NAME.equals(indexInfo.getName()));
+    }
+}
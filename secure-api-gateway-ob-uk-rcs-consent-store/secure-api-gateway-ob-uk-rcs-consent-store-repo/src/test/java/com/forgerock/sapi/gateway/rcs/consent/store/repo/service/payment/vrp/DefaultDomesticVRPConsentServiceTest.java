@@ -18,8 +18,14 @@ package com.forgerock.sapi.gateway.rcs.consent.store.repo.service.payment.vrp;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.assertj.core.api.Assertions;
 import org.joda.time.DateTime;
@@ -33,9 +39,14 @@ import com.forgerock.sapi.gateway.ob.uk.common.datamodel.common.FRAmount;
 import com.forgerock.sapi.gateway.ob.uk.common.datamodel.common.FRCharge;
 import com.forgerock.sapi.gateway.ob.uk.common.datamodel.common.FRChargeBearerType;
 import com.forgerock.sapi.gateway.ob.uk.common.datamodel.converter.v3.vrp.FRDomesticVRPConsentConverters;
+import com.forgerock.sapi.gateway.ob.uk.common.datamodel.vrp.FRDomesticVRPControlParameters;
+import com.forgerock.sapi.gateway.ob.uk.common.datamodel.vrp.FRPeriodicLimits;
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.vrp.DomesticVRPConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.vrp.LimitReservation;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.vrp.PeriodicLimitUsage;
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.exception.ConsentStoreException;
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.exception.ConsentStoreException.ErrorType;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.payment.vrp.VRPLimitReservationRepositoryImpl;
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.BaseConsentService;
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.BaseConsentServiceTest;
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.ConsentStateModel;
@@ -172,4 +183,254 @@ public class DefaultDomesticVRPConsentServiceTest extends BaseConsentServiceTest
         assertThat(consentStoreException.getMessage()).contains("The provided Idempotency Key: '" + idempotencyKey + "' header matched a previous request but the request body has been changed");
     }
 
-}
\ No newline at end of file
+    /**
+     * Creates an Authorised consent with a MaximumIndividualAmount of 60.00 GBP and a single PeriodicLimit of 100.00 GBP
+     */
+    private DomesticVRPConsentEntity createAuthorisedConsentWithLimits() {
+        final DomesticVRPConsentEntity consentObj = getValidConsentEntity();
+        final FRDomesticVRPControlParameters controlParameters = consentObj.getRequestObj().getData().getControlParameters();
+        controlParameters.setValidFromDateTime(null);
+        controlParameters.setValidToDateTime(null);
+        controlParameters.setMaximumIndividualAmount(new FRAmount("60.00", "GBP"));
+        final FRPeriodicLimits periodicLimit = controlParameters.getPeriodicLimits().get(0);
+        periodicLimit.setAmount("100.00");
+        periodicLimit.setCurrency("GBP");
+        controlParameters.setPeriodicLimits(List.of(periodicLimit));
+
+        final DomesticVRPConsentEntity persistedConsent = service.createConsent(consentObj);
+        return service.authoriseConsent(getAuthoriseConsentArgs(persistedConsent.getId(), TEST_RESOURCE_OWNER, persistedConsent.getApiClientId()));
+    }
+
+    private static VRPLimitReservationArgs reservationArgs(DomesticVRPConsentEntity consent, String amount, DateTime reservationDateTime) {
+        return new VRPLimitReservationArgs(consent.getId(), consent.getApiClientId(), new BigDecimal(amount), "GBP", reservationDateTime);
+    }
+
+    private static BigDecimal getReservedAmount(DomesticVRPConsentEntity consent) {
+        final List<PeriodicLimitUsage> periodicLimitUsage = consent.getPeriodicLimitUsage();
+        Assertions.assertThat(periodicLimitUsage).hasSize(1);
+        return periodicLimitUsage.get(0).getReservedAmount();
+    }
+
+    @Test
+    void reserveLimit() {
+        final DomesticVRPConsentEntity consent = createAuthorisedConsentWithLimits();
+        final DateTime now = DateTime.now();
+
+        service.reserveLimit(reservationArgs(consent, "40.00", now));
+        final DomesticVRPConsentEntity reservedConsent = service.reserveLimit(reservationArgs(consent, "59.99", now));
+
+        Assertions.assertThat(getReservedAmount(reservedConsent)).isEqualByComparingTo("99.99");
+        Assertions.assertThat(reservedConsent.getPeriodicLimitUsage().get(0).getCurrency()).isEqualTo("GBP");
+        Assertions.assertThat(reservedConsent.getEntityVersion()).isGreaterThan(consent.getEntityVersion());
+        Assertions.assertThat(getReservedAmount(service.getConsent(consent.getId(), consent.getApiClientId()))).isEqualByComparingTo("99.99");
+    }
+
+    @Test
+    void failToReserveLimitWhenPeriodicLimitExceeded() {
+        final DomesticVRPConsentEntity consent = createAuthorisedConsentWithLimits();
+        final DateTime now = DateTime.now();
+        service.reserveLimit(reservationArgs(consent, "60.00", now));
+
+        final ConsentStoreException consentStoreException = assertThrows(ConsentStoreException.class,
+                () -> service.reserveLimit(reservationArgs(consent, "40.01", now)));
+        assertThat(consentStoreException.getErrorType()).isEqualTo(ErrorType.VRP_LIMIT_EXCEEDED);
+        assertThat(consentStoreException.getConsentId()).isEqualTo(consent.getId());
+        Assertions.assertThat(getReservedAmount(service.getConsent(consent.getId(), consent.getApiClientId()))).isEqualByComparingTo("60.00");
+    }
+
+    @Test
+    void failToReserveLimitWhenMaximumIndividualAmountExceeded() {
+        final DomesticVRPConsentEntity consent = createAuthorisedConsentWithLimits();
+
+        final ConsentStoreException consentStoreException = assertThrows(ConsentStoreException.class,
+                () -> service.reserveLimit(reservationArgs(consent, "60.01", DateTime.now())));
+        assertThat(consentStoreException.getErrorType()).isEqualTo(ErrorType.VRP_LIMIT_EXCEEDED);
+        assertThat(consentStoreException.getMessage()).contains("exceeds the MaximumIndividualAmount");
+    }
+
+    @Test
+    void failToReserveLimitWithDifferentCurrency() {
+        final DomesticVRPConsentEntity consent = createAuthorisedConsentWithLimits();
+
+        final ConsentStoreException consentStoreException = assertThrows(ConsentStoreException.class,
+                () -> service.reserveLimit(new VRPLimitReservationArgs(consent.getId(), consent.getApiClientId(),
+                        BigDecimal.TEN, "EUR", DateTime.now())));
+        assertThat(consentStoreException.getErrorType()).isEqualTo(ErrorType.BAD_REQUEST);
+    }
+
+    @Test
+    void failToReserveLimitForConsentAwaitingAuthorisation() {
+        final DomesticVRPConsentEntity consent = service.createConsent(getValidConsentEntity());
+
+        final ConsentStoreException consentStoreException = assertThrows(ConsentStoreException.class,
+                () -> service.reserveLimit(reservationArgs(consent, "1.00", DateTime.now())));
+        assertThat(consentStoreException.getErrorType()).isEqualTo(ErrorType.INVALID_STATE_TRANSITION);
+    }
+
+    @Test
+    void failToReserveLimitForDifferentApiClient() {
+        final DomesticVRPConsentEntity consent = createAuthorisedConsentWithLimits();
+
+        final ConsentStoreException consentStoreException = assertThrows(ConsentStoreException.class,
+                () -> service.reserveLimit(new VRPLimitReservationArgs(consent.getId(), "another-client",
+                        BigDecimal.ONE, "GBP", DateTime.now())));
+        assertThat(consentStoreException.getErrorType()).isEqualTo(ErrorType.INVALID_PERMISSIONS);
+    }
+
+    private DomesticVRPConsentEntity releaseLimit(VRPLimitReservationArgs reservationArgs) {
+        return service.releaseLimit(reservationArgs.getConsentId(), reservationArgs.getApiClientId(), reservationArgs.getReservationId());
+    }
+
+    @Test
+    void releaseLimit() {
+        final DomesticVRPConsentEntity consent = createAuthorisedConsentWithLimits();
+        final DateTime now = DateTime.now();
+        final VRPLimitReservationArgs reservation = reservationArgs(consent, "60.00", now);
+        final DomesticVRPConsentEntity reservedConsent = service.reserveLimit(reservation);
+        Assertions.assertThat(reservedConsent.getLimitReservations()).hasSize(1);
+        assertThat(reservedConsent.getLimitReservations().get(0).getReservationId()).isEqualTo(reservation.getReservationId());
+        assertThat(reservedConsent.getLimitReservations().get(0).isReleased()).isFalse();
+
+        final DomesticVRPConsentEntity releasedConsent = releaseLimit(reservation);
+        Assertions.assertThat(getReservedAmount(releasedConsent)).isEqualByComparingTo("0");
+        assertThat(releasedConsent.getLimitReservations().get(0).isReleased()).isTrue();
+
+        // Released amount is available to reserve again, only the released reservation's amount is freed
+        service.reserveLimit(reservationArgs(consent, "60.00", now));
+        final VRPLimitReservationArgs secondReservation = reservationArgs(consent, "40.00", now);
+        service.reserveLimit(secondReservation);
+        Assertions.assertThat(getReservedAmount(releaseLimit(secondReservation))).isEqualByComparingTo("60.00");
+    }
+
+    @Test
+    void retriedReleaseLimitDoesNotReleaseAmountTwice() {
+        final DomesticVRPConsentEntity consent = createAuthorisedConsentWithLimits();
+        final DateTime now = DateTime.now();
+        final VRPLimitReservationArgs reservation = reservationArgs(consent, "40.00", now);
+        service.reserveLimit(reservation);
+        service.reserveLimit(reservationArgs(consent, "50.00", now));
+
+        final DomesticVRPConsentEntity releasedConsent = releaseLimit(reservation);
+        Assertions.assertThat(getReservedAmount(releasedConsent)).isEqualByComparingTo("50.00");
+
+        final DomesticVRPConsentEntity retriedReleaseConsent = releaseLimit(reservation);
+        Assertions.assertThat(getReservedAmount(retriedReleaseConsent)).isEqualByComparingTo("50.00");
+        assertThat(retriedReleaseConsent.getEntityVersion()).isEqualTo(releasedConsent.getEntityVersion());
+        Assertions.assertThat(getReservedAmount(service.getConsent(consent.getId(), consent.getApiClientId()))).isEqualByComparingTo("50.00");
+    }
+
+    @Test
+    void retainsOnlyTheMostRecentUnreleasedReservations() {
+        final DomesticVRPConsentEntity consent = createAuthorisedConsentWithLimits();
+        final DateTime now = DateTime.now();
+        final VRPLimitReservationArgs releasedReservation = reservationArgs(consent, "1.00", now);
+        service.reserveLimit(releasedReservation);
+        releaseLimit(releasedReservation);
+        final VRPLimitReservationArgs oldestReservation = reservationArgs(consent, "1.00", now);
+        service.reserveLimit(oldestReservation);
+
+        final DateTime later = now.plusMillis(1);
+        DomesticVRPConsentEntity reservedConsent = null;
+        final List<String> recentReservationIds = new ArrayList<>();
+        for (int i = 0; i < VRPLimitReservationRepositoryImpl.MAX_RETAINED_RESERVATIONS - 1; i++) {
+            final VRPLimitReservationArgs reservation = reservationArgs(consent, "1.00", later);
+            reservedConsent = service.reserveLimit(reservation);
+            recentReservationIds.add(reservation.getReservationId());
+        }
+        // The released reservation is dropped first, and remains released
+        Assertions.assertThat(reservedConsent.getLimitReservations()).hasSize(VRPLimitReservationRepositoryImpl.MAX_RETAINED_RESERVATIONS)
+                  .extracting(LimitReservation::getReservationId)
+                  .doesNotContain(releasedReservation.getReservationId())
+                  .contains(oldestReservation.getReservationId());
+
+        final VRPLimitReservationArgs latestReservation = reservationArgs(consent, "1.00", later);
+        reservedConsent = service.reserveLimit(latestReservation);
+        recentReservationIds.add(latestReservation.getReservationId());
+        Assertions.assertThat(reservedConsent.getLimitReservations()).extracting(LimitReservation::getReservationId)
+                  .containsExactlyInAnyOrderElementsOf(recentReservationIds);
+        final ConsentStoreException consentStoreException = assertThrows(ConsentStoreException.class,
+                () -> releaseLimit(oldestReservation));
+        assertThat(consentStoreException.getErrorType()).isEqualTo(ErrorType.NOT_FOUND);
+    }
+
+    @Test
+    void failToReleaseUnknownReservation() {
+        final DomesticVRPConsentEntity consent = createAuthorisedConsentWithLimits();
+        final DomesticVRPConsentEntity reservedConsent = service.reserveLimit(reservationArgs(consent, "60.00", DateTime.now()));
+
+        final ConsentStoreException consentStoreException = assertThrows(ConsentStoreException.class,
+                () -> service.releaseLimit(consent.getId(), consent.getApiClientId(), UUID.randomUUID().toString()));
+        assertThat(consentStoreException.getErrorType()).isEqualTo(ErrorType.NOT_FOUND);
+        assertThat(consentStoreException.getConsentId()).isEqualTo(consent.getId());
+
+        final DomesticVRPConsentEntity currentConsent = service.getConsent(consent.getId(), consent.getApiClientId());
+        Assertions.assertThat(getReservedAmount(currentConsent)).isEqualByComparingTo("60.00");
+        assertThat(currentConsent.getEntityVersion()).isEqualTo(reservedConsent.getEntityVersion());
+    }
+
+    @Test
+    void failToReleaseReservationForDifferentApiClient() {
+        final DomesticVRPConsentEntity consent = createAuthorisedConsentWithLimits();
+        final VRPLimitReservationArgs reservation = reservationArgs(consent, "60.00", DateTime.now());
+        service.reserveLimit(reservation);
+
+        final ConsentStoreException consentStoreException = assertThrows(ConsentStoreException.class,
+                () -> service.releaseLimit(consent.getId(), "another-client", reservation.getReservationId()));
+        assertThat(consentStoreException.getErrorType()).isEqualTo(ErrorType.INVALID_PERMISSIONS);
+        Assertions.assertThat(getReservedAmount(service.getConsent(consent.getId(), consent.getApiClientId()))).isEqualByComparingTo("60.00");
+    }
+
+    @Test
+    void reserveLimitInNewPeriodStartsUsageFromZero() {
+        final DomesticVRPConsentEntity consent = createAuthorisedConsentWithLimits();
+        final DateTime firstPeriod = DateTime.now();
+        final VRPLimitReservationArgs firstPeriodReservation = reservationArgs(consent, "60.00", firstPeriod);
+        service.reserveLimit(firstPeriodReservation);
+        service.reserveLimit(reservationArgs(consent, "40.00", firstPeriod));
+
+        // Any PeriodType will have rolled over after a year and a day
+        final DateTime laterPeriod = firstPeriod.plusYears(1).plusDays(1);
+        Assertions.assertThat(getReservedAmount(service.reserveLimit(reservationArgs(consent, "25.00", laterPeriod)))).isEqualByComparingTo("25.00");
+
+        // The earlier period has ended, so can no longer be reserved against or released
+        final ConsentStoreException consentStoreException = assertThrows(ConsentStoreException.class,
+                () -> service.reserveLimit(reservationArgs(consent, "1.00", firstPeriod)));
+        assertThat(consentStoreException.getErrorType()).isEqualTo(ErrorType.BAD_REQUEST);
+        Assertions.assertThat(getReservedAmount(releaseLimit(firstPeriodReservation))).isEqualByComparingTo("25.00");
+    }
+
+    @Test
+    void concurrentReservationsDoNotExceedLimit() throws Exception {
+        final DomesticVRPConsentEntity consent = createAuthorisedConsentWithLimits();
+        final DateTime now = DateTime.now();
+        final int numThreads = 16;
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final ExecutorService executorService = Executors.newFixedThreadPool(numThreads);
+        try {
+            final List<Future<DomesticVRPConsentEntity>> results = new ArrayList<>();
+            for (int i = 0; i < numThreads; i++) {
+                results.add(executorService.submit(() -> {
+                    startLatch.await();
+                    return service.reserveLimit(reservationArgs(consent, "10.00", now));
+                }));
+            }
+            startLatch.countDown();
+
+            int successCount = 0;
+            for (Future<DomesticVRPConsentEntity> result : results) {
+                try {
+                    result.get();
+                    successCount++;
+                } catch (Exception ex) {
+                    assertThat(ex.getCause()).isInstanceOf(ConsentStoreException.class);
+                    assertThat(((ConsentStoreException) ex.getCause()).getErrorType()).isEqualTo(ErrorType.VRP_LIMIT_EXCEEDED);
+                }
+            }
+            assertThat(successCount).isEqualTo(10);
+            Assertions.assertThat(getReservedAmount(service.getConsent(consent.getId(), consent.getApiClientId()))).isEqualByComparingTo("100.00");
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+}
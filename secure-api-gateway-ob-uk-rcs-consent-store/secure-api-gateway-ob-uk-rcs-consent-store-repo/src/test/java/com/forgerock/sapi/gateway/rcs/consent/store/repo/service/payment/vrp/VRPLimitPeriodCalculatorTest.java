@@ -0,0 +1,80 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.repo.service.payment.vrp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.api.Test;
+
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.vrp.VRPPeriodAlignment;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.vrp.VRPPeriodType;
+
+class VRPLimitPeriodCalculatorTest {
+
+    private static final Instant CONSENT_START = Instant.parse("2024-01-31T10:15:00Z");
+
+    private final VRPLimitPeriodCalculator calculator = new VRPLimitPeriodCalculator(ZoneOffset.UTC);
+
+    @ParameterizedTest
+    @CsvSource({
+            "DAY,       2024-05-16T09:00:00Z, 2024-05-16T00:00:00Z",
+            "WEEK,      2024-05-16T09:00:00Z, 2024-05-13T00:00:00Z",
+            "FORTNIGHT, 2024-05-14T09:00:00Z, 2024-05-01T00:00:00Z",
+            "FORTNIGHT, 2024-05-16T09:00:00Z, 2024-05-15T00:00:00Z",
+            "MONTH,     2024-05-16T09:00:00Z, 2024-05-01T00:00:00Z",
+            "HALF_YEAR, 2024-05-16T09:00:00Z, 2024-01-01T00:00:00Z",
+            "HALF_YEAR, 2024-07-01T00:00:00Z, 2024-07-01T00:00:00Z",
+            "YEAR,      2024-05-16T09:00:00Z, 2024-01-01T00:00:00Z"
+    })
+    void calendarAlignedPeriodStart(VRPPeriodType periodType, Instant time, Instant expectedPeriodStart) {
+        assertThat(calculator.getPeriodStart(periodType, VRPPeriodAlignment.CALENDAR, CONSENT_START, time)).isEqualTo(expectedPeriodStart);
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "DAY,       2024-05-16T09:00:00Z, 2024-05-15T10:15:00Z",
+            "WEEK,      2024-05-16T09:00:00Z, 2024-05-15T10:15:00Z",
+            "FORTNIGHT, 2024-05-16T09:00:00Z, 2024-05-08T10:15:00Z",
+            "MONTH,     2024-03-01T09:00:00Z, 2024-02-29T10:15:00Z",
+            "MONTH,     2024-05-16T09:00:00Z, 2024-04-30T10:15:00Z",
+            "HALF_YEAR, 2024-08-01T09:00:00Z, 2024-07-31T10:15:00Z",
+            "YEAR,      2025-01-31T10:15:00Z, 2025-01-31T10:15:00Z",
+            "YEAR,      2024-01-31T10:15:00Z, 2024-01-31T10:15:00Z"
+    })
+    void consentAlignedPeriodStart(VRPPeriodType periodType, Instant time, Instant expectedPeriodStart) {
+        assertThat(calculator.getPeriodStart(periodType, VRPPeriodAlignment.CONSENT, CONSENT_START, time)).isEqualTo(expectedPeriodStart);
+    }
+
+    @Test
+    void failsIfTimeIsBeforeConsentStart() {
+        assertThrows(IllegalArgumentException.class, () -> calculator.getPeriodStart(VRPPeriodType.DAY,
+                VRPPeriodAlignment.CONSENT, CONSENT_START, CONSENT_START.minusMillis(1)));
+    }
+
+    @Test
+    void periodTypesAreResolvedFromObieValuesAndEnumNames() {
+        assertThat(VRPPeriodType.fromValue("Half-year")).isEqualTo(VRPPeriodType.HALF_YEAR);
+        assertThat(VRPPeriodType.fromValue("HALF_YEAR")).isEqualTo(VRPPeriodType.HALF_YEAR);
+        assertThat(VRPPeriodAlignment.fromValue("Calendar")).isEqualTo(VRPPeriodAlignment.CALENDAR);
+        assertThrows(IllegalArgumentException.class, () -> VRPPeriodType.fromValue("Quarter"));
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.server;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Import;
+
+import com.forgerock.sapi.gateway.rcs.consent.store.api.ConsentStoreApiConfiguration;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.ConsentStoreConfiguration;
+
+/**
+ * Standalone deployment of the Consent Store API, used by the RS to create and manage consents.
+ * <p>
+ * The Consent Store API is on the hot path of every RS request which involves a consent, whereas the RCS backend only
+ * serves the consent UI. Deploying the API separately allows it to be scaled independently of the RCS, the RCS can then
+ * be deployed with rcs.consentStoreApi.enabled=false.
+ */
+@SpringBootApplication
+@Import({ConsentStoreConfiguration.class, ConsentStoreApiConfiguration.class})
+public class ConsentStoreServerApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(ConsentStoreServerApplication.class, args);
+    }
+}
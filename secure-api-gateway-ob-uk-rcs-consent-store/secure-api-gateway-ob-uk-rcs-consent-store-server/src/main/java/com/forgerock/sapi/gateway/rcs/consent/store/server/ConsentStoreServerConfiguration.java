@@ -0,0 +1,45 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.rcs.consent.store.server;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration specific to the standalone Consent Store server.
+ */
+@Configuration
+public class ConsentStoreServerConfiguration {
+
+    /**
+     * Sizes the Mongo connection pool for the request concurrency of the Consent Store server, the driver default
+     * (100 connections, unbounded wait) is sized for a shared application.
+     */
+    @Bean
+    public MongoClientSettingsBuilderCustomizer consentStoreServerConnectionPoolCustomizer(
+            @Value("${consent.store.server.mongo.pool.maxSize:200}") int maxSize,
+            @Value("${consent.store.server.mongo.pool.minSize:20}") int minSize,
+            @Value("${consent.store.server.mongo.pool.maxWaitMillis:2000}") long maxWaitMillis) {
+        return settingsBuilder -> settingsBuilder.applyToConnectionPoolSettings(
+                poolSettings -> poolSettings.maxSize(maxSize)
+                                            .minSize(minSize)
+                                            .maxWaitTime(maxWaitMillis, TimeUnit.MILLISECONDS));
+    }
+}
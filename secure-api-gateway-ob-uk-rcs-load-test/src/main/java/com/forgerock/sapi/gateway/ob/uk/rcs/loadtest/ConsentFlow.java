@@ -0,0 +1,164 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.ob.uk.rcs.loadtest;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.UUID;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.forgerock.sapi.gateway.ob.uk.rcs.benchmarks.ConsentEntityFixtures;
+import com.forgerock.sapi.gateway.ob.uk.rcs.benchmarks.JwtFixtures;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.BaseConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.BasePaymentConsentEntity;
+import com.forgerock.sapi.gateway.uk.common.shared.api.meta.share.IntentType;
+import com.nimbusds.jose.JOSEException;
+
+/**
+ * The lifecycle of a consent of a particular IntentType, as driven by the RS and the Consent UI:
+ * <ol>
+ *     <li>the RS creates the consent in the Consent Store</li>
+ *     <li>file payment consents have their file uploaded</li>
+ *     <li>the Consent UI requests the consent details</li>
+ *     <li>the PSU authorises the consent, submitting the decision</li>
+ *     <li>the RS consumes the payment consent, consents which are not consumed (including VRP consents) are read instead</li>
+ * </ol>
+ */
+public class ConsentFlow {
+
+    static final String DETAILS_ENDPOINT = "/rcs/api/consent/details";
+    static final String DECISION_ENDPOINT = "/rcs/api/consent/decision";
+    static final String PSU_USERNAME = "load-test-psu";
+
+    private static final String JSON = "application/json; charset=utf-8";
+    private static final String JWT = "application/jwt; charset=utf-8";
+    private static final String FILE_CONTENTS = "<Document><CstmrCdtTrfInitn><GrpHdr><NbOfTxs>3</NbOfTxs></GrpHdr></CstmrCdtTrfInitn></Document>";
+
+    private final IntentType intentType;
+    private final ObjectMapper objectMapper;
+    private final String collectionPath;
+    private final String apiClientId;
+    private final ObjectNode createRequestTemplate;
+    private final String authorisedAccountId;
+
+    public ConsentFlow(IntentType intentType, ObjectMapper objectMapper, String authorisedAccountId) {
+        this.intentType = requireNonNull(intentType, "intentType must be provided");
+        this.objectMapper = requireNonNull(objectMapper, "objectMapper must be provided");
+        this.authorisedAccountId = requireNonNull(authorisedAccountId, "authorisedAccountId must be provided");
+        this.collectionPath = collectionPath(intentType);
+
+        final BaseConsentEntity<?> consent = ConsentEntityFixtures.consentEntity(intentType);
+        this.apiClientId = consent.getApiClientId();
+        this.createRequestTemplate = objectMapper.createObjectNode();
+        createRequestTemplate.put("apiClientId", apiClientId);
+        createRequestTemplate.set("consentRequest", objectMapper.valueToTree(consent.getRequestObj()));
+        if (consent instanceof BasePaymentConsentEntity<?> paymentConsent) {
+            createRequestTemplate.set("charges", objectMapper.valueToTree(paymentConsent.getCharges()));
+        }
+    }
+
+    public IntentType getIntentType() {
+        return intentType;
+    }
+
+    /**
+     * Executes the flow, recording the latency of each request made.
+     *
+     * @throws IllegalStateException if any step of the flow fails
+     */
+    public void execute(RcsClient rcsClient, LatencyRecorder recorder) throws JsonProcessingException, JOSEException {
+        final String consentId = create(rcsClient, recorder);
+        if (intentType == IntentType.PAYMENT_FILE_CONSENT) {
+            uploadFile(rcsClient, recorder, consentId);
+        }
+        final String consentJwt = JwtFixtures.consentRequestJwt(consentId, apiClientId, PSU_USERNAME);
+        rcsClient.post(DETAILS_ENDPOINT, DETAILS_ENDPOINT, JWT, consentJwt, recorder);
+        rcsClient.post(DECISION_ENDPOINT, DECISION_ENDPOINT, JSON, objectMapper.writeValueAsString(decision(consentJwt)), recorder);
+        if (isConsumable()) {
+            consume(rcsClient, recorder, consentId);
+        } else {
+            rcsClient.get("GET " + collectionPath + "/{consentId}", collectionPath + "/" + consentId, apiClientId, recorder);
+        }
+    }
+
+    private String create(RcsClient rcsClient, LatencyRecorder recorder) throws JsonProcessingException {
+        final ObjectNode createRequest = createRequestTemplate.deepCopy();
+        if (isPayment()) {
+            createRequest.put("idempotencyKey", UUID.randomUUID().toString());
+        }
+        final String response = rcsClient.post("POST " + collectionPath, collectionPath, JSON,
+                                               objectMapper.writeValueAsString(createRequest), recorder);
+        return objectMapper.readTree(response).path("id").asText();
+    }
+
+    private void uploadFile(RcsClient rcsClient, LatencyRecorder recorder, String consentId) throws JsonProcessingException {
+        final ObjectNode fileUploadRequest = objectMapper.createObjectNode()
+                                                         .put("consentId", consentId)
+                                                         .put("apiClientId", apiClientId)
+                                                         .put("fileContents", FILE_CONTENTS)
+                                                         .put("fileUploadIdempotencyKey", UUID.randomUUID().toString());
+        rcsClient.post("POST " + collectionPath + "/{consentId}/file", collectionPath + "/" + consentId + "/file", JSON,
+                       objectMapper.writeValueAsString(fileUploadRequest), recorder);
+    }
+
+    private ObjectNode decision(String consentJwt) {
+        final ObjectNode decision = objectMapper.createObjectNode()
+                                                .put("consentJwt", consentJwt)
+                                                .put("decision", "Authorised");
+        switch (intentType) {
+            case ACCOUNT_ACCESS_CONSENT -> decision.putArray("accountIds").add(authorisedAccountId);
+            case CUSTOMER_INFO_CONSENT -> {
+            }
+            default -> decision.putObject("debtorAccount").put("accountId", authorisedAccountId);
+        }
+        return decision;
+    }
+
+    private void consume(RcsClient rcsClient, LatencyRecorder recorder, String consentId) throws JsonProcessingException {
+        final ObjectNode consumeRequest = objectMapper.createObjectNode()
+                                                      .put("apiClientId", apiClientId)
+                                                      .put("consentId", consentId);
+        rcsClient.post("POST " + collectionPath + "/{consentId}/consume", collectionPath + "/" + consentId + "/consume", JSON,
+                       objectMapper.writeValueAsString(consumeRequest), recorder);
+    }
+
+    private boolean isPayment() {
+        return createRequestTemplate.has("charges");
+    }
+
+    private boolean isConsumable() {
+        return isPayment() && intentType != IntentType.DOMESTIC_VRP_PAYMENT_CONSENT;
+    }
+
+    private static String collectionPath(IntentType intentType) {
+        return switch (intentType) {
+            case ACCOUNT_ACCESS_CONSENT -> "/consent/store/v3.1.10/account-access-consents";
+            case CUSTOMER_INFO_CONSENT -> "/consent/store/v1.0/customer-info-consents";
+            case FUNDS_CONFIRMATION_CONSENT -> "/consent/store/v3.1.10/funds-confirmation-consents";
+            case PAYMENT_DOMESTIC_CONSENT -> "/consent/store/v3.1.10/domestic-payment-consents";
+            case PAYMENT_DOMESTIC_SCHEDULED_CONSENT -> "/consent/store/v3.1.10/domestic-scheduled-payment-consents";
+            case PAYMENT_DOMESTIC_STANDING_ORDERS_CONSENT -> "/consent/store/v3.1.10/domestic-standing-order-consents";
+            case PAYMENT_INTERNATIONAL_CONSENT -> "/consent/store/v3.1.10/international-payment-consents";
+            case PAYMENT_INTERNATIONAL_SCHEDULED_CONSENT -> "/consent/store/v3.1.10/international-scheduled-payment-consents";
+            case PAYMENT_INTERNATIONAL_STANDING_ORDERS_CONSENT -> "/consent/store/v3.1.10/international-standing-order-consents";
+            case PAYMENT_FILE_CONSENT -> "/consent/store/v3.1.10/file-payment-consents";
+            case DOMESTIC_VRP_PAYMENT_CONSENT -> "/consent/store/v3.1.10/domestic-vrp-consents";
+            default -> throw new IllegalArgumentException("Unsupported intentType: " + intentType);
+        };
+    }
+}
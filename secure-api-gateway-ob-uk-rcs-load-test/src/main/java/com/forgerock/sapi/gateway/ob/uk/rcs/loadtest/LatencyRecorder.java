@@ -0,0 +1,96 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.ob.uk.rcs.loadtest;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the latency of every request made against each endpoint, along with the number of failed requests.
+ * <p>
+ * All samples are kept so that percentiles are exact, a load test run produces at most a few million samples.
+ */
+public class LatencyRecorder {
+
+    private final Map<String, Samples> samplesByEndpoint = new ConcurrentHashMap<>();
+
+    public void record(String endpoint, long latencyNanos) {
+        samplesByEndpoint.computeIfAbsent(endpoint, e -> new Samples()).add(latencyNanos);
+    }
+
+    public void recordError(String endpoint) {
+        samplesByEndpoint.computeIfAbsent(endpoint, e -> new Samples()).addError();
+    }
+
+    /**
+     * @param elapsedSeconds the length of the period that the samples were recorded over, used to compute throughput
+     * @return summary of each endpoint, ordered by endpoint
+     */
+    public List<EndpointSummary> summarise(double elapsedSeconds) {
+        return samplesByEndpoint.entrySet().stream()
+                                .sorted(Map.Entry.comparingByKey())
+                                .map(entry -> entry.getValue().summarise(entry.getKey(), elapsedSeconds))
+                                .toList();
+    }
+
+    /**
+     * @return the value at the percentile (0 < percentile <= 1) of the sorted values, using the nearest-rank method
+     */
+    static long percentile(long[] sortedValues, double percentile) {
+        if (sortedValues.length == 0) {
+            return 0;
+        }
+        final int rank = (int) Math.ceil(percentile * sortedValues.length);
+        return sortedValues[Math.max(rank, 1) - 1];
+    }
+
+    public record EndpointSummary(String endpoint, long count, long errors, double throughputPerSecond,
+                                  double p50Millis, double p99Millis, double p999Millis, double maxMillis) {
+    }
+
+    private static class Samples {
+
+        private long[] latencies = new long[1024];
+        private int count;
+        private long errors;
+
+        synchronized void add(long latencyNanos) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, latencies.length * 2);
+            }
+            latencies[count++] = latencyNanos;
+        }
+
+        synchronized void addError() {
+            errors++;
+        }
+
+        synchronized EndpointSummary summarise(String endpoint, double elapsedSeconds) {
+            final long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            return new EndpointSummary(endpoint, count, errors, count / elapsedSeconds,
+                                       toMillis(percentile(sorted, 0.5)), toMillis(percentile(sorted, 0.99)),
+                                       toMillis(percentile(sorted, 0.999)), toMillis(count == 0 ? 0 : sorted[count - 1]));
+        }
+
+        private static double toMillis(long nanos) {
+            return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        }
+    }
+}
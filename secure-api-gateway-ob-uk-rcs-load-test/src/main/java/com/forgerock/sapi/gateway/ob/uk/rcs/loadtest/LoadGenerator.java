@@ -0,0 +1,109 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.ob.uk.rcs.loadtest;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Starts consent flows at a fixed rate, cycling through the configured IntentTypes.
+ * <p>
+ * Flows are started on schedule regardless of how long previous flows take to complete (an open workload model). When
+ * all workers are busy, flows queue and the time spent queuing is included in the flow latency, which is measured from
+ * when the flow was scheduled to start. This prevents a slow RCS from hiding its own latency by reducing the load.
+ */
+public class LoadGenerator {
+
+    private static final int MAX_LOGGED_FAILURES = 10;
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final List<ConsentFlow> flows;
+    private final RcsClient rcsClient;
+    private final LoadTestOptions options;
+    private final AtomicLong failures = new AtomicLong();
+
+    public LoadGenerator(List<ConsentFlow> flows, RcsClient rcsClient, LoadTestOptions options) {
+        this.flows = requireNonNull(flows, "flows must be provided");
+        this.rcsClient = requireNonNull(rcsClient, "rcsClient must be provided");
+        this.options = requireNonNull(options, "options must be provided");
+    }
+
+    /**
+     * Runs the warmup followed by the measured period, waiting for all started flows to complete.
+     *
+     * @return the latencies of the flows started during the measured period
+     */
+    public LatencyRecorder run() throws InterruptedException {
+        final LatencyRecorder warmupRecorder = new LatencyRecorder();
+        final LatencyRecorder recorder = new LatencyRecorder();
+        final ExecutorService workers = Executors.newFixedThreadPool(options.getConcurrency());
+
+        final long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / options.getRate());
+        final long startNanos = System.nanoTime();
+        final long measureFromNanos = startNanos + TimeUnit.SECONDS.toNanos(options.getWarmupSeconds());
+        final long endNanos = measureFromNanos + TimeUnit.SECONDS.toNanos(options.getDurationSeconds());
+        logger.info("Starting {} flows/s for {}s warmup and {}s measurement", options.getRate(),
+                    options.getWarmupSeconds(), options.getDurationSeconds());
+
+        for (long flowNumber = 0; ; flowNumber++) {
+            final long scheduledStartNanos = startNanos + flowNumber * intervalNanos;
+            if (scheduledStartNanos >= endNanos) {
+                break;
+            }
+            waitUntil(scheduledStartNanos);
+            final ConsentFlow flow = flows.get((int) (flowNumber % flows.size()));
+            final LatencyRecorder flowRecorder = scheduledStartNanos >= measureFromNanos ? recorder : warmupRecorder;
+            workers.execute(() -> execute(flow, flowRecorder, scheduledStartNanos));
+        }
+
+        workers.shutdown();
+        if (!workers.awaitTermination(5, TimeUnit.MINUTES)) {
+            logger.warn("Flows still in progress after 5 minutes, abandoning them");
+            workers.shutdownNow();
+        }
+        return recorder;
+    }
+
+    private void execute(ConsentFlow flow, LatencyRecorder recorder, long scheduledStartNanos) {
+        final String endpoint = "flow " + flow.getIntentType();
+        try {
+            flow.execute(rcsClient, recorder);
+            recorder.record(endpoint, System.nanoTime() - scheduledStartNanos);
+        } catch (Exception e) {
+            recorder.recordError(endpoint);
+            if (failures.incrementAndGet() <= MAX_LOGGED_FAILURES) {
+                logger.warn("{} failed", endpoint, e);
+            }
+        }
+    }
+
+    private static void waitUntil(long deadlineNanos) {
+        long remainingNanos;
+        while ((remainingNanos = deadlineNanos - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remainingNanos);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.ob.uk.rcs.loadtest;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.forgerock.sapi.gateway.uk.common.shared.api.meta.share.IntentType;
+
+/**
+ * Options controlling a load test run, supplied as --name=value command line arguments.
+ */
+public final class LoadTestOptions {
+
+    static final List<IntentType> ALL_INTENT_TYPES = List.of(IntentType.ACCOUNT_ACCESS_CONSENT,
+                                                            IntentType.CUSTOMER_INFO_CONSENT,
+                                                            IntentType.FUNDS_CONFIRMATION_CONSENT,
+                                                            IntentType.PAYMENT_DOMESTIC_CONSENT,
+                                                            IntentType.PAYMENT_DOMESTIC_SCHEDULED_CONSENT,
+                                                            IntentType.PAYMENT_DOMESTIC_STANDING_ORDERS_CONSENT,
+                                                            IntentType.PAYMENT_INTERNATIONAL_CONSENT,
+                                                            IntentType.PAYMENT_INTERNATIONAL_SCHEDULED_CONSENT,
+                                                            IntentType.PAYMENT_INTERNATIONAL_STANDING_ORDERS_CONSENT,
+                                                            IntentType.PAYMENT_FILE_CONSENT,
+                                                            IntentType.DOMESTIC_VRP_PAYMENT_CONSENT);
+
+    /**
+     * Target number of consent flows started per second, flows are started at this rate regardless of how quickly
+     * previous flows complete.
+     */
+    private final double rate;
+    private final int durationSeconds;
+    /**
+     * Flows started during the warmup are executed but not recorded
+     */
+    private final int warmupSeconds;
+    /**
+     * Maximum number of flows in progress at once
+     */
+    private final int concurrency;
+    private final List<IntentType> intentTypes;
+    private final long cloudLatencyMillis;
+    private final long rsLatencyMillis;
+    private final long latencyJitterMillis;
+    /**
+     * Optional connection string of an existing Mongo deployment, embedded Mongo is used when not supplied
+     */
+    private final String mongoUri;
+    private final Path reportPath;
+    private final String logLevel;
+
+    private LoadTestOptions(Map<String, String> options) {
+        this.rate = Double.parseDouble(options.getOrDefault("rate", "20"));
+        this.durationSeconds = Integer.parseInt(options.getOrDefault("durationSeconds", "60"));
+        this.warmupSeconds = Integer.parseInt(options.getOrDefault("warmupSeconds", "10"));
+        this.concurrency = Integer.parseInt(options.getOrDefault("concurrency", "64"));
+        this.intentTypes = options.containsKey("intentTypes") ?
+                Arrays.stream(options.get("intentTypes").split(",")).map(String::trim).map(IntentType::valueOf).toList() :
+                ALL_INTENT_TYPES;
+        this.cloudLatencyMillis = Long.parseLong(options.getOrDefault("cloudLatencyMillis", "20"));
+        this.rsLatencyMillis = Long.parseLong(options.getOrDefault("rsLatencyMillis", "30"));
+        this.latencyJitterMillis = Long.parseLong(options.getOrDefault("latencyJitterMillis", "10"));
+        this.mongoUri = options.get("mongoUri");
+        this.reportPath = Path.of(options.getOrDefault("report", "target/load-test-report.json"));
+        this.logLevel = options.getOrDefault("logLevel", "WARN");
+
+        if (rate <= 0) {
+            throw new IllegalArgumentException("rate must be greater than 0");
+        }
+        if (durationSeconds <= 0 || warmupSeconds < 0 || concurrency <= 0) {
+            throw new IllegalArgumentException("durationSeconds and concurrency must be greater than 0, warmupSeconds must not be negative");
+        }
+        if (intentTypes.isEmpty()) {
+            throw new IllegalArgumentException("intentTypes must not be empty");
+        }
+    }
+
+    public static LoadTestOptions parse(String... args) {
+        final Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Invalid argument: " + arg + ", expected --name=value");
+            }
+            final int separatorIndex = arg.indexOf('=');
+            options.put(arg.substring(2, separatorIndex), arg.substring(separatorIndex + 1));
+        }
+        return new LoadTestOptions(options);
+    }
+
+    public static String usage() {
+        return """
+                Options:
+                  --rate=20                   consent flows started per second
+                  --durationSeconds=60        length of the measured part of the run
+                  --warmupSeconds=10          flows started before measurement begins
+                  --concurrency=64            maximum flows in progress at once
+                  --intentTypes=...           comma separated IntentTypes, defaults to all
+                  --cloudLatencyMillis=20     latency added to Cloud Client stub responses
+                  --rsLatencyMillis=30        latency added to RS stub responses
+                  --latencyJitterMillis=10    random latency added on top of the stub latencies
+                  --mongoUri=...              existing Mongo deployment, embedded Mongo is used by default
+                  --report=target/load-test-report.json
+                  --logLevel=WARN             level of the com.forgerock loggers in the RCS
+                """;
+    }
+
+    public double getRate() {
+        return rate;
+    }
+
+    public int getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public int getWarmupSeconds() {
+        return warmupSeconds;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public List<IntentType> getIntentTypes() {
+        return intentTypes;
+    }
+
+    public long getCloudLatencyMillis() {
+        return cloudLatencyMillis;
+    }
+
+    public long getRsLatencyMillis() {
+        return rsLatencyMillis;
+    }
+
+    public long getLatencyJitterMillis() {
+        return latencyJitterMillis;
+    }
+
+    public String getMongoUri() {
+        return mongoUri;
+    }
+
+    public Path getReportPath() {
+        return reportPath;
+    }
+
+    public String getLogLevel() {
+        return logLevel;
+    }
+}
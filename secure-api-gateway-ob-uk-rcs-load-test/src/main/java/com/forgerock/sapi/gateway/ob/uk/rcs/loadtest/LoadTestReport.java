@@ -0,0 +1,58 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.ob.uk.rcs.loadtest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.forgerock.sapi.gateway.ob.uk.rcs.loadtest.LatencyRecorder.EndpointSummary;
+
+/**
+ * Results of a load test run, written as a table to stdout and as JSON so that runs can be compared.
+ */
+public record LoadTestReport(double targetRate, int durationSeconds, int concurrency, long cloudLatencyMillis,
+                             long rsLatencyMillis, List<EndpointSummary> endpoints) {
+
+    public static LoadTestReport of(LoadTestOptions options, LatencyRecorder recorder) {
+        return new LoadTestReport(options.getRate(), options.getDurationSeconds(), options.getConcurrency(),
+                                  options.getCloudLatencyMillis(), options.getRsLatencyMillis(),
+                                  recorder.summarise(options.getDurationSeconds()));
+    }
+
+    public String toTable() {
+        final StringBuilder table = new StringBuilder();
+        table.append(String.format("%-90s %8s %7s %9s %10s %10s %10s %10s%n", "endpoint", "count", "errors", "req/s",
+                                   "p50 ms", "p99 ms", "p999 ms", "max ms"));
+        for (EndpointSummary endpoint : endpoints) {
+            table.append(String.format("%-90s %8d %7d %9.1f %10.2f %10.2f %10.2f %10.2f%n", endpoint.endpoint(),
+                                       endpoint.count(), endpoint.errors(), endpoint.throughputPerSecond(),
+                                       endpoint.p50Millis(), endpoint.p99Millis(), endpoint.p999Millis(),
+                                       endpoint.maxMillis()));
+        }
+        return table.toString();
+    }
+
+    public void writeJson(ObjectMapper objectMapper, Path path) throws IOException {
+        if (path.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(path.toAbsolutePath().getParent());
+        }
+        objectMapper.copy().enable(SerializationFeature.INDENT_OUTPUT).writeValue(path.toFile(), this);
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.ob.uk.rcs.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+/**
+ * Makes requests to the RCS, recording the latency of each request against the endpoint it was made to.
+ */
+public class RcsClient {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient httpClient;
+    private final String baseUri;
+
+    public RcsClient(HttpClient httpClient, String baseUri) {
+        this.httpClient = httpClient;
+        this.baseUri = baseUri;
+    }
+
+    public String post(String endpoint, String path, String contentType, String body, LatencyRecorder recorder) {
+        return send(endpoint, HttpRequest.newBuilder(URI.create(baseUri + path))
+                                         .header("Content-Type", contentType)
+                                         .POST(HttpRequest.BodyPublishers.ofString(body)), recorder);
+    }
+
+    public String get(String endpoint, String path, String apiClientId, LatencyRecorder recorder) {
+        return send(endpoint, HttpRequest.newBuilder(URI.create(baseUri + path))
+                                         .header("x-api-client-id", apiClientId)
+                                         .GET(), recorder);
+    }
+
+    /**
+     * @param endpoint the name to record the request against, this is the path template rather than the actual path
+     * @return the response body
+     * @throws IllegalStateException if the request fails or the RCS responds with an error
+     */
+    private String send(String endpoint, HttpRequest.Builder request, LatencyRecorder recorder) {
+        final long startNanos = System.nanoTime();
+        final HttpResponse<String> response;
+        try {
+            response = httpClient.send(request.timeout(REQUEST_TIMEOUT).build(), HttpResponse.BodyHandlers.ofString());
+        } catch (IOException e) {
+            recorder.recordError(endpoint);
+            throw new IllegalStateException("Request to: " + endpoint + " failed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted during request to: " + endpoint, e);
+        }
+        if (response.statusCode() / 100 != 2) {
+            recorder.recordError(endpoint);
+            throw new IllegalStateException("Request to: " + endpoint + " failed with status: " + response.statusCode()
+                    + ", body: " + response.body());
+        }
+        recorder.record(endpoint, System.nanoTime() - startNanos);
+        return response.body();
+    }
+}
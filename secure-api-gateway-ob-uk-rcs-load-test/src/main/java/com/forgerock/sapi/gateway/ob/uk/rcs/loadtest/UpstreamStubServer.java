@@ -0,0 +1,178 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.ob.uk.rcs.loadtest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.joda.time.LocalDate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.forgerock.sapi.gateway.ob.uk.common.datamodel.account.FRAccountWithBalance;
+import com.forgerock.sapi.gateway.ob.uk.common.datamodel.customerinfo.FRAddressTypeCode;
+import com.forgerock.sapi.gateway.ob.uk.common.datamodel.customerinfo.FRCustomerInfo;
+import com.forgerock.sapi.gateway.ob.uk.common.datamodel.customerinfo.FRCustomerInfoAddress;
+import com.forgerock.sapi.gateway.ob.uk.common.datamodel.testsupport.account.FRAccountWithBalanceTestDataFactory;
+import com.forgerock.sapi.gateway.ob.uk.rcs.cloud.client.models.ApiClient;
+import com.forgerock.sapi.gateway.ob.uk.rcs.cloud.client.models.User;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Stands in for the upstream services that the RCS calls while building consent details: the Cloud Client API
+ * (/repo/users and /repo/apiclients) and the RS (/backoffice/accounts and /resources/customerinfo).
+ * <p>
+ * Responses are fixed, serialized once on startup, and are returned after the configured latency of the upstream
+ * service plus a random jitter, so that the RCS sees realistic upstream response times without needing a deployment.
+ */
+public class UpstreamStubServer implements AutoCloseable {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final ObjectMapper objectMapper;
+    private final long cloudLatencyMillis;
+    private final long rsLatencyMillis;
+    private final long latencyJitterMillis;
+
+    private final List<FRAccountWithBalance> accounts;
+    private final byte[] accountsResponse;
+    private final byte[] accountResponse;
+    private final byte[] customerInfoResponse;
+
+    private final HttpServer httpServer;
+    private final ExecutorService executorService;
+
+    public UpstreamStubServer(ObjectMapper objectMapper, long cloudLatencyMillis, long rsLatencyMillis,
+                              long latencyJitterMillis) throws IOException {
+        this.objectMapper = objectMapper;
+        this.cloudLatencyMillis = cloudLatencyMillis;
+        this.rsLatencyMillis = rsLatencyMillis;
+        this.latencyJitterMillis = latencyJitterMillis;
+
+        this.accounts = List.of(FRAccountWithBalanceTestDataFactory.aValidFRAccountWithBalance(),
+                                FRAccountWithBalanceTestDataFactory.aValidFRAccountWithBalance(),
+                                FRAccountWithBalanceTestDataFactory.aValidFRAccountWithBalance());
+        this.accountsResponse = objectMapper.writeValueAsBytes(accounts);
+        this.accountResponse = objectMapper.writeValueAsBytes(accounts.get(0));
+        this.customerInfoResponse = objectMapper.writeValueAsBytes(customerInfo());
+
+        this.executorService = Executors.newCachedThreadPool();
+        this.httpServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        httpServer.setExecutor(executorService);
+        httpServer.createContext("/repo/users/", exchange -> respond(exchange, cloudLatencyMillis, user(lastPathSegment(exchange))));
+        httpServer.createContext("/repo/apiclients/", exchange -> respond(exchange, cloudLatencyMillis, apiClient(lastPathSegment(exchange))));
+        httpServer.createContext("/backoffice/accounts/search/findByUserId", exchange -> respond(exchange, rsLatencyMillis, accountsResponse));
+        httpServer.createContext("/backoffice/accounts/search/findByAccountIdentifiers", exchange -> respond(exchange, rsLatencyMillis, accountResponse));
+        httpServer.createContext("/resources/customerinfo/findByUserId", exchange -> respond(exchange, rsLatencyMillis, customerInfoResponse));
+    }
+
+    public void start() {
+        httpServer.start();
+        logger.info("Upstream stubs listening on: {}", getBaseUri());
+    }
+
+    public String getBaseUri() {
+        return "http://localhost:" + httpServer.getAddress().getPort();
+    }
+
+    /**
+     * @return the accountId of an account returned for every user, used when authorising consents
+     */
+    public String getAuthorisedAccountId() {
+        return accounts.get(0).getAccount().getAccountId();
+    }
+
+    @Override
+    public void close() {
+        httpServer.stop(0);
+        executorService.shutdownNow();
+    }
+
+    private void respond(HttpExchange exchange, long latencyMillis, byte[] body) throws IOException {
+        try (exchange) {
+            simulateLatency(latencyMillis);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream responseBody = exchange.getResponseBody()) {
+                responseBody.write(body);
+            }
+        }
+    }
+
+    private void simulateLatency(long latencyMillis) {
+        final long jitterMillis = latencyJitterMillis > 0 ? ThreadLocalRandom.current().nextLong(latencyJitterMillis + 1) : 0;
+        try {
+            Thread.sleep(latencyMillis + jitterMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String lastPathSegment(HttpExchange exchange) {
+        final String path = exchange.getRequestURI().getPath();
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    private byte[] user(String userId) throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(User.builder()
+                                                  .id(userId)
+                                                  .userName(userId)
+                                                  .givenName("Load")
+                                                  .surname("Test")
+                                                  .mail(userId + "@example.com")
+                                                  .accountStatus("active")
+                                                  .build());
+    }
+
+    private byte[] apiClient(String apiClientId) throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(ApiClient.builder()
+                                                       .id(apiClientId)
+                                                       .name("Load Test TPP")
+                                                       .officialName("Load Test TPP Ltd")
+                                                       .oauth2ClientId(apiClientId)
+                                                       .logoUri("https://tpp.example.com/logo.png")
+                                                       .build());
+    }
+
+    private static FRCustomerInfo customerInfo() {
+        return FRCustomerInfo.builder()
+                             .userID("load-test-psu")
+                             .userName("load-test-psu")
+                             .address(FRCustomerInfoAddress.builder()
+                                                           .streetAddress(List.of("999", "Letsbe Avenue", "Chelmsford", "Essex"))
+                                                           .addressType(FRAddressTypeCode.RESIDENTIAL)
+                                                           .country("UK")
+                                                           .postalCode("ES12 3RR")
+                                                           .build())
+                             .birthdate(LocalDate.now().minusYears(30))
+                             .email("load-test-psu@example.com")
+                             .familyName("Test")
+                             .givenName("Load")
+                             .initials("LT")
+                             .title("Mx")
+                             .partyId("load-test-party")
+                             .phoneNumber("+44 7777 777777")
+                             .build();
+    }
+}
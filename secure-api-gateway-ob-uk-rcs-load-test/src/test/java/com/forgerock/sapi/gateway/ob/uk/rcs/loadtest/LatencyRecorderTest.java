@@ -0,0 +1,69 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.ob.uk.rcs.loadtest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.forgerock.sapi.gateway.ob.uk.rcs.loadtest.LatencyRecorder.EndpointSummary;
+
+class LatencyRecorderTest {
+
+    @Test
+    void testPercentileUsesNearestRank() {
+        final long[] values = LongStream.rangeClosed(1, 1000).toArray();
+        assertThat(LatencyRecorder.percentile(values, 0.5)).isEqualTo(500);
+        assertThat(LatencyRecorder.percentile(values, 0.99)).isEqualTo(990);
+        assertThat(LatencyRecorder.percentile(values, 0.999)).isEqualTo(999);
+        assertThat(LatencyRecorder.percentile(values, 1)).isEqualTo(1000);
+        assertThat(LatencyRecorder.percentile(new long[] {7}, 0.999)).isEqualTo(7);
+        assertThat(LatencyRecorder.percentile(new long[0], 0.5)).isZero();
+    }
+
+    @Test
+    void testSummariseEndpoints() {
+        final LatencyRecorder recorder = new LatencyRecorder();
+        for (long millis = 100; millis >= 1; millis--) {
+            recorder.record("POST /rcs/api/consent/details", TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+        recorder.recordError("POST /rcs/api/consent/details");
+        recorder.recordError("POST /rcs/api/consent/decision");
+
+        final List<EndpointSummary> summaries = recorder.summarise(10);
+
+        assertThat(summaries).hasSize(2);
+        final EndpointSummary decision = summaries.get(0);
+        assertThat(decision.endpoint()).isEqualTo("POST /rcs/api/consent/decision");
+        assertThat(decision.count()).isZero();
+        assertThat(decision.errors()).isEqualTo(1);
+        assertThat(decision.maxMillis()).isZero();
+
+        final EndpointSummary details = summaries.get(1);
+        assertThat(details.endpoint()).isEqualTo("POST /rcs/api/consent/details");
+        assertThat(details.count()).isEqualTo(100);
+        assertThat(details.errors()).isEqualTo(1);
+        assertThat(details.throughputPerSecond()).isEqualTo(10.0);
+        assertThat(details.p50Millis()).isEqualTo(50.0);
+        assertThat(details.p99Millis()).isEqualTo(99.0);
+        assertThat(details.p999Millis()).isEqualTo(100.0);
+        assertThat(details.maxMillis()).isEqualTo(100.0);
+    }
+}
@@ -20,7 +20,6 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Import;
 
-import com.forgerock.sapi.gateway.rcs.consent.store.api.ConsentStoreApiConfiguration;
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.ConsentStoreConfiguration;
 
 @ComponentScan(basePackages =
@@ -29,7 +28,7 @@ import com.forgerock.sapi.gateway.rcs.consent.store.repo.ConsentStoreConfigurati
         }
 )
 @SpringBootApplication
-@Import({ConsentStoreConfiguration.class, ConsentStoreApiConfiguration.class})
+@Import(ConsentStoreConfiguration.class)
 public class RCSServerApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,68 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.ob.uk.rcs.server.actuator;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.counter.ConsentStatusCount;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.counter.ConsentStatusCounterReconciler;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.counter.ConsentStatusCounterService;
+import com.forgerock.sapi.gateway.uk.common.shared.api.meta.share.IntentType;
+
+/**
+ * Actuator endpoint exposing the consent status counts, e.g. /actuator/consentcounts?intentType=DOMESTIC_VRP_PAYMENT_CONSENT&apiClientId=123
+ * <p>
+ * A POST to the endpoint rebuilds the counts from the consent collections.
+ */
+@Component
+@Endpoint(id = "consentcounts")
+public class ConsentStatusCountsEndpoint {
+
+    private final ConsentStatusCounterService counterService;
+
+    private final ConsentStatusCounterReconciler counterReconciler;
+
+    public ConsentStatusCountsEndpoint(ConsentStatusCounterService counterService, ConsentStatusCounterReconciler counterReconciler) {
+        this.counterService = requireNonNull(counterService, "counterService must be provided");
+        this.counterReconciler = requireNonNull(counterReconciler, "counterReconciler must be provided");
+    }
+
+    @ReadOperation
+    public Map<String, Object> counts(@Nullable IntentType intentType, @Nullable String apiClientId) {
+        if (!counterService.isEnabled()) {
+            return Map.of("enabled", false);
+        }
+        final List<ConsentStatusCount> counts = counterService.getCounts(intentType, apiClientId);
+        return Map.of("enabled", true, "counts", counts);
+    }
+
+    @WriteOperation
+    public Map<String, Object> reconcile() {
+        if (!counterService.isEnabled()) {
+            return Map.of("enabled", false);
+        }
+        return Map.of("enabled", true, "corrections", counterReconciler.reconcile());
+    }
+}
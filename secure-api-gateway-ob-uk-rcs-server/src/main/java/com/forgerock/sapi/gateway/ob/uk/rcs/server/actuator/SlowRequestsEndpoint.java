@@ -0,0 +1,65 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.ob.uk.rcs.server.actuator;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import com.forgerock.sapi.gateway.ob.uk.rcs.server.metrics.SlowRequestRecorder;
+
+/**
+ * Actuator endpoint exposing the requests recorded by the {@link SlowRequestRecorder}, the slowest first.
+ * <p>
+ * A DELETE to the endpoint clears the recorded requests.
+ * <p>
+ * The recorded requests contain interaction ids and the hosts of the upstream calls (upstream paths are recorded as
+ * URI templates, without ids or query strings), so this endpoint is not exposed by default. It must only be exposed on
+ * a management.server.port which is not reachable from outside the cluster, and access to that port must be restricted
+ * to operators, e.g. by a network policy or by requiring authentication at the ingress. It must never be added to the
+ * management.endpoints.web.exposure.include of the port serving the Consent UI.
+ */
+@Component
+@Endpoint(id = "slowrequests")
+public class SlowRequestsEndpoint {
+
+    private final SlowRequestRecorder slowRequestRecorder;
+
+    public SlowRequestsEndpoint(SlowRequestRecorder slowRequestRecorder) {
+        this.slowRequestRecorder = requireNonNull(slowRequestRecorder, "slowRequestRecorder must be provided");
+    }
+
+    @ReadOperation
+    public Map<String, Object> slowRequests() {
+        if (!slowRequestRecorder.isEnabled()) {
+            return Map.of("enabled", false);
+        }
+        return Map.of("enabled", true,
+                      "thresholdMillis", slowRequestRecorder.getThresholdMillis(),
+                      "requests", slowRequestRecorder.getSlowRequests());
+    }
+
+    @DeleteOperation
+    public Map<String, Object> clear() {
+        slowRequestRecorder.clear();
+        return Map.of("enabled", slowRequestRecorder.isEnabled());
+    }
+}
@@ -17,8 +17,13 @@ package com.forgerock.sapi.gateway.ob.uk.rcs.server.api.decision;
 
 import java.util.Objects;
 
+import org.springframework.beans.factory.annotation.Autowired;
+
 import com.forgerock.sapi.gateway.ob.uk.rcs.api.dto.consent.decision.ConsentDecisionDeserialized;
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.BaseConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.routing.ConsentReadOperation;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.routing.ConsentReadRouting;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.routing.ConsentReadScope;
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.AuthoriseConsentArgs;
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.ConsentService;
 import com.forgerock.sapi.gateway.uk.common.shared.api.meta.share.IntentType;
@@ -28,22 +33,42 @@ public abstract class BaseConsentDecisionService<T extends BaseConsentEntity, A
 
     protected final ConsentService<T, A> consentService;
 
+    private ConsentReadRouting consentReadRouting;
+
     public BaseConsentDecisionService(IntentType supportedIntentType, ConsentService<T, A> consentService) {
         this.supportedIntentType = Objects.requireNonNull(supportedIntentType, "supportedIntentType must be provided");
         this.consentService = Objects.requireNonNull(consentService, "consentService must be provided");
     }
 
+    /**
+     * Configures the routing of consent operations, decisions are {@link ConsentReadOperation#TRANSITION} operations
+     * which are made against the primary in a causally consistent session, so that subsequent reads of the consent
+     * see the decision.
+     */
+    @Autowired(required = false)
+    public void setConsentReadRouting(ConsentReadRouting consentReadRouting) {
+        this.consentReadRouting = consentReadRouting;
+    }
+
+    private ConsentReadScope openTransitionScope(String intentId) {
+        return consentReadRouting == null ? null : consentReadRouting.openScope(ConsentReadOperation.TRANSITION, intentId);
+    }
+
     protected abstract A buildAuthoriseConsentArgs(String intentId, String apiClientId, String resourceOwnerId,
                                                    ConsentDecisionDeserialized consentDecision);
 
     @Override
     public void authoriseConsent(String intentId, String apiClientId, String resourceOwnerId, ConsentDecisionDeserialized consentDecision) {
-        consentService.authoriseConsent(buildAuthoriseConsentArgs(intentId, apiClientId, resourceOwnerId, consentDecision));
+        try (ConsentReadScope ignored = openTransitionScope(intentId)) {
+            consentService.authoriseConsent(buildAuthoriseConsentArgs(intentId, apiClientId, resourceOwnerId, consentDecision));
+        }
     }
 
     @Override
     public void rejectConsent(String intentId, String apiClientId, String resourceOwnerId) {
-        consentService.rejectConsent(intentId, apiClientId, resourceOwnerId);
+        try (ConsentReadScope ignored = openTransitionScope(intentId)) {
+            consentService.rejectConsent(intentId, apiClientId, resourceOwnerId);
+        }
     }
 
     @Override
@@ -30,6 +30,10 @@ import com.forgerock.sapi.gateway.ob.uk.rcs.cloud.client.models.ConsentClientDec
 import com.forgerock.sapi.gateway.ob.uk.rcs.cloud.client.utils.jwt.JwtUtil;
 import com.forgerock.sapi.gateway.ob.uk.rcs.server.exception.InvalidConsentException;
 import com.forgerock.sapi.gateway.ob.uk.rcs.server.jwt.RcsJwtSigner;
+import com.forgerock.sapi.gateway.ob.uk.rcs.server.metrics.ConsentFlow;
+import com.forgerock.sapi.gateway.ob.uk.rcs.server.metrics.ConsentFlowMetrics;
+import com.forgerock.sapi.gateway.ob.uk.rcs.server.metrics.ConsentFlowStage;
+import com.forgerock.sapi.gateway.ob.uk.rcs.server.metrics.ConsentFlowTimings;
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.exception.ConsentStoreException;
 import com.forgerock.sapi.gateway.uk.common.shared.api.meta.share.IntentType;
 import com.nimbusds.jose.JOSEException;
@@ -62,35 +66,53 @@ public class ConsentDecisionApiController implements ConsentDecisionApi {
 
     private final ConsentStoreDecisionServiceRegistry consentStoreDecisionServiceRegistry;
 
+    private final ConsentFlowMetrics consentFlowMetrics;
+
     public ConsentDecisionApiController(ObjectMapper objectMapper,
                                         RcsJwtSigner jwtSigner,
                                         @Value("${rcs.consent.response.jwt.issuer}") String rcsJwtIssuer,
-                                        ConsentStoreDecisionServiceRegistry consentStoreDecisionServiceRegistry) {
+                                        ConsentStoreDecisionServiceRegistry consentStoreDecisionServiceRegistry,
+                                        ConsentFlowMetrics consentFlowMetrics) {
         this.objectMapper = objectMapper;
         this.jwtSigner = jwtSigner;
         this.rcsJwtIssuer = rcsJwtIssuer;
         this.consentStoreDecisionServiceRegistry = consentStoreDecisionServiceRegistry;
+        this.consentFlowMetrics = consentFlowMetrics;
     }
 
     @Override
     public ResponseEntity<RedirectionAction> submitConsentDecision(String consentDecisionSerialised) throws OBErrorException {
+        final ConsentFlowTimings timings = consentFlowMetrics.begin(ConsentFlow.DECISION);
+        boolean success = false;
+        try {
+            final ResponseEntity<RedirectionAction> response = doSubmitConsentDecision(consentDecisionSerialised);
+            success = true;
+            return response;
+        } finally {
+            consentFlowMetrics.end(timings, success);
+        }
+    }
+
+    private ResponseEntity<RedirectionAction> doSubmitConsentDecision(String consentDecisionSerialised) throws OBErrorException {
         log.debug("submitConsentDecision(consentDecisionSerialised) '{}'", consentDecisionSerialised);
         if (consentDecisionSerialised == null) {
             log.debug("Consent decision is empty");
             throw new OBErrorException(RCS_CONSENT_DECISION_EMPTY);
         }
 
-        ConsentDecisionDeserialized consentDecisionDeserialized = deserializeConsentDecision(
-                consentDecisionSerialised,
-                objectMapper,
-                ConsentDecisionDeserialized.class
-        );
+        ConsentDecisionDeserialized consentDecisionDeserialized = ConsentFlowTimings.timeStage(ConsentFlowStage.DESERIALISE,
+                () -> deserializeConsentDecision(
+                        consentDecisionSerialised,
+                        objectMapper,
+                        ConsentDecisionDeserialized.class
+                ));
 
         log.debug("decision deserialised \n {}", consentDecisionDeserialized);
         try {
             boolean authorised = Constants.ConsentDecisionStatus.AUTHORISED.equals(consentDecisionDeserialized.getDecision());
             log.debug("The resource owner has authorised the consent: '{}'", authorised);
-            SignedJWT signedJWT = JwtUtil.getSignedJWT(consentDecisionDeserialized.getConsentJwt());
+            SignedJWT signedJWT = ConsentFlowTimings.timeStage(ConsentFlowStage.DESERIALISE,
+                    () -> JwtUtil.getSignedJWT(consentDecisionDeserialized.getConsentJwt()));
             String intentId = JwtUtil.getIdTokenClaim(signedJWT, Constants.Claims.INTENT_ID);
             log.debug("Intent Id from the requested claims '{}'", intentId);
             String clientId = JwtUtil.getClaimValue(signedJWT, Constants.Claims.CLIENT_ID);
@@ -99,6 +121,7 @@ public class ConsentDecisionApiController implements ConsentDecisionApi {
             log.debug("Resource owner from the JWT claims '{}'", resourceOwner);
 
             IntentType intentType = IntentType.identify(intentId);
+            consentFlowMetrics.setIntentType(intentType);
             if (intentType != null) {
                 ConsentClientDecisionRequest consentClientDecisionRequest = ConsentClientDecisionRequest.builder()
                         .accountIds(consentDecisionDeserialized.getAccountIds())
@@ -123,19 +146,24 @@ public class ConsentDecisionApiController implements ConsentDecisionApi {
 
                 if (consentStoreDecisionServiceRegistry.isIntentTypeSupported(intentType)) {
                     log.debug("Updating consent: {} in RCS Consent Store", intentId);
-                    if (authorised) {
-                        consentStoreDecisionServiceRegistry.authoriseConsent(intentType, intentId, clientId, resourceOwner,
-                                                                     consentDecisionDeserialized);
-                    } else {
-                        consentStoreDecisionServiceRegistry.rejectConsent(intentType, intentId, clientId, resourceOwner);
-                    }
+                    ConsentFlowTimings.runStage(ConsentFlowStage.STATE_TRANSITION, () -> {
+                        if (authorised) {
+                            consentStoreDecisionServiceRegistry.authoriseConsent(intentType, intentId, clientId, resourceOwner,
+                                                                         consentDecisionDeserialized);
+                        } else {
+                            consentStoreDecisionServiceRegistry.rejectConsent(intentType, intentId, clientId, resourceOwner);
+                        }
+                    });
+                    consentFlowMetrics.recordDecision(intentType, authorised);
                 } else {
                     throw new IllegalStateException(intentType + " not supported");
                 }
 
-                JWTClaimsSet jwtClaimsSetGenerated = generateJWTResponse(authorised, consentClientDecisionRequest);
+                JWTClaimsSet jwtClaimsSetGenerated = ConsentFlowTimings.timeStage(ConsentFlowStage.CLAIMS_BUILD,
+                        () -> generateJWTResponse(authorised, consentClientDecisionRequest));
                 log.debug("JWT claims generated '{}'", jwtClaimsSetGenerated.toJSONObject());
-                String consentSignedJwt = jwtSigner.createSignedJwt(jwtClaimsSetGenerated);
+                String consentSignedJwt = ConsentFlowTimings.timeStage(ConsentFlowStage.SIGN,
+                        () -> jwtSigner.createSignedJwt(jwtClaimsSetGenerated));
                 log.debug("consentSignedJwt '{}'", consentSignedJwt);
 
                 String consentApprovalRedirectUri = JwtUtil.getClaimValue(consentSignedJwt, "consentApprovalRedirectUri");
@@ -20,6 +20,7 @@ import java.util.function.Supplier;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 
 import com.forgerock.sapi.gateway.ob.uk.rcs.api.dto.consent.details.ConsentDetails;
 import com.forgerock.sapi.gateway.ob.uk.rcs.cloud.client.exceptions.ExceptionClient;
@@ -27,9 +28,14 @@ import com.forgerock.sapi.gateway.ob.uk.rcs.cloud.client.models.ApiClient;
 import com.forgerock.sapi.gateway.ob.uk.rcs.cloud.client.models.ConsentClientDetailsRequest;
 import com.forgerock.sapi.gateway.ob.uk.rcs.cloud.client.services.ApiClientServiceClient;
 import com.forgerock.sapi.gateway.ob.uk.rcs.server.configuration.ApiProviderConfiguration;
+import com.forgerock.sapi.gateway.ob.uk.rcs.server.metrics.ConsentFlowStage;
+import com.forgerock.sapi.gateway.ob.uk.rcs.server.metrics.ConsentFlowTimings;
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.BaseConsentEntity;
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.exception.ConsentStoreException;
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.exception.ConsentStoreException.ErrorType;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.routing.ConsentReadOperation;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.routing.ConsentReadRouting;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.routing.ConsentReadScope;
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.ConsentService;
 import com.forgerock.sapi.gateway.uk.common.shared.api.meta.share.IntentType;
 
@@ -44,6 +50,7 @@ public abstract class BaseConsentDetailsService<T extends BaseConsentEntity, D e
     private final Supplier<D> consentDetailsObjSupplier;
     private final ApiProviderConfiguration apiProviderConfiguration;
     private final ApiClientServiceClient apiClientService;
+    private ConsentReadRouting consentReadRouting;
 
     public BaseConsentDetailsService(IntentType supportedIntentType, Supplier<D> consentDetailsObjSupplier, ConsentService<T, ?> consentService,
                                      ApiProviderConfiguration apiProviderConfiguration, ApiClientServiceClient apiClientService) {
@@ -54,19 +61,28 @@ public abstract class BaseConsentDetailsService<T extends BaseConsentEntity, D e
         this.apiClientService = Objects.requireNonNull(apiClientService, "apiClientService must be provided");
     }
 
+    /**
+     * Configures the routing of the consent reads, when not configured consents are read from the primary.
+     */
+    @Autowired(required = false)
+    public void setConsentReadRouting(ConsentReadRouting consentReadRouting) {
+        this.consentReadRouting = consentReadRouting;
+    }
+
     @Override
     public ConsentDetails getDetailsFromConsentStore(ConsentClientDetailsRequest consentClientRequest) throws ExceptionClient {
-        final T consent = getConsent(consentClientRequest);
+        final T consent = ConsentFlowTimings.timeStage(ConsentFlowStage.CONSENT_READ, () -> getConsent(consentClientRequest));
 
         if (!consentService.canTransitionToAuthorisedState(consent)) {
             throw new ConsentStoreException(ErrorType.CONSENT_REAUTHENTICATION_NOT_SUPPORTED, consent.getId());
         }
 
-        final D consentDetails = consentDetailsObjSupplier.get();
-        populateCommonConsentDetailsFields(consentDetails, consentClientRequest);
-        addIntentTypeSpecificData(consentDetails, consent, consentClientRequest);
-
-        return consentDetails;
+        return ConsentFlowTimings.timeStage(ConsentFlowStage.ASSEMBLY, () -> {
+            final D consentDetails = consentDetailsObjSupplier.get();
+            populateCommonConsentDetailsFields(consentDetails, consentClientRequest);
+            addIntentTypeSpecificData(consentDetails, consent, consentClientRequest);
+            return consentDetails;
+        });
     }
 
 
@@ -76,11 +92,47 @@ public abstract class BaseConsentDetailsService<T extends BaseConsentEntity, D e
         final String clientId = consentClientRequest.getClientId();
         final String intentId = consentClientRequest.getIntentId();
         logger.info("Fetching Data from RCS Consent Service - consentId: {}, clientId: {}", intentId, clientId);
-        final T consent = consentService.getConsent(intentId, clientId);
+        final T consent = readConsent(intentId, clientId);
         logger.info("Got consent: {}", consent);
         return consent;
     }
 
+    /**
+     * Reads the consent as a {@link ConsentReadOperation#DETAILS} operation, which may be served by a secondary.
+     * <p>
+     * A secondary may not have replicated the latest writes to the consent, and the causal consistency of the read
+     * only covers writes made by this replica, not those made by the TPP via the RS or the consent store server. A
+     * consent which has just been created may therefore not be found, and a consent which has just been updated (e.g. a
+     * file payment consent whose file has just been uploaded) may not yet be in a state which can be authorised, so in
+     * both cases the consent is read again from the primary.
+     */
+    private T readConsent(String intentId, String clientId) {
+        if (consentReadRouting == null || !consentReadRouting.isEnabled()) {
+            return consentService.getConsent(intentId, clientId);
+        }
+        final T consent;
+        try (ConsentReadScope ignored = consentReadRouting.openScope(ConsentReadOperation.DETAILS, intentId)) {
+            consent = consentService.getConsent(intentId, clientId);
+        } catch (ConsentStoreException ex) {
+            if (ex.getErrorType() != ErrorType.NOT_FOUND) {
+                throw ex;
+            }
+            logger.info("Consent: {} not found using read routing, retrying on the primary", intentId);
+            return readConsentFromPrimary(intentId, clientId);
+        }
+        if (!consentService.canTransitionToAuthorisedState(consent)) {
+            logger.info("Consent: {} has status: {} using read routing, retrying on the primary", intentId, consent.getStatus());
+            return readConsentFromPrimary(intentId, clientId);
+        }
+        return consent;
+    }
+
+    private T readConsentFromPrimary(String intentId, String clientId) {
+        try (ConsentReadScope ignored = consentReadRouting.openScope(ConsentReadOperation.TRANSITION, intentId)) {
+            return consentService.getConsent(intentId, clientId);
+        }
+    }
+
     private void populateCommonConsentDetailsFields(ConsentDetails details, ConsentClientDetailsRequest consentClientRequest) throws ExceptionClient {
         details.setConsentId(consentClientRequest.getIntentId());
         details.setUsername(consentClientRequest.getUser().getUserName());
@@ -88,7 +140,8 @@ public abstract class BaseConsentDetailsService<T extends BaseConsentEntity, D e
         details.setClientId(consentClientRequest.getClientId());
         details.setServiceProviderName(apiProviderConfiguration.getName());
 
-        final ApiClient apiClient = apiClientService.getApiClient(consentClientRequest.getClientId());
+        final ApiClient apiClient = ConsentFlowTimings.timeStage(ConsentFlowStage.API_CLIENT_LOOKUP,
+                () -> apiClientService.getApiClient(consentClientRequest.getClientId()));
         details.setLogo(apiClient.getLogoUri());
         details.setClientName(apiClient.getName());
     }
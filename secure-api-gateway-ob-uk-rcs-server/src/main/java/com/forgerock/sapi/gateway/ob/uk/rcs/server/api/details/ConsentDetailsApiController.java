@@ -34,6 +34,10 @@ import com.forgerock.sapi.gateway.ob.uk.rcs.cloud.client.models.User;
 import com.forgerock.sapi.gateway.ob.uk.rcs.cloud.client.services.UserServiceClient;
 import com.forgerock.sapi.gateway.ob.uk.rcs.cloud.client.utils.jwt.JwtUtil;
 import com.forgerock.sapi.gateway.ob.uk.rcs.server.exception.InvalidConsentException;
+import com.forgerock.sapi.gateway.ob.uk.rcs.server.metrics.ConsentFlow;
+import com.forgerock.sapi.gateway.ob.uk.rcs.server.metrics.ConsentFlowMetrics;
+import com.forgerock.sapi.gateway.ob.uk.rcs.server.metrics.ConsentFlowStage;
+import com.forgerock.sapi.gateway.ob.uk.rcs.server.metrics.ConsentFlowTimings;
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.exception.ConsentStoreException;
 import com.forgerock.sapi.gateway.uk.common.shared.api.meta.share.IntentType;
 import com.forgerock.sapi.gateway.uk.common.shared.claim.Claims;
@@ -48,27 +52,34 @@ public class ConsentDetailsApiController implements ConsentDetailsApi {
 
     private final UserServiceClient userServiceClient;
     private final ConsentStoreDetailsServiceRegistry consentStoreDetailsServiceRegistry;
+    private final ConsentFlowMetrics consentFlowMetrics;
 
     public ConsentDetailsApiController(UserServiceClient userServiceClient,
-                                       ConsentStoreDetailsServiceRegistry consentStoreDetailsServiceRegistry) {
+                                       ConsentStoreDetailsServiceRegistry consentStoreDetailsServiceRegistry,
+                                       ConsentFlowMetrics consentFlowMetrics) {
         this.userServiceClient = userServiceClient;
         this.consentStoreDetailsServiceRegistry = consentStoreDetailsServiceRegistry;
+        this.consentFlowMetrics = consentFlowMetrics;
     }
 
     @Override
     public ResponseEntity<ConsentDetails> getConsentDetails(String consentRequestJws) throws InvalidConsentException {
+        final ConsentFlowTimings timings = consentFlowMetrics.begin(ConsentFlow.DETAILS);
+        boolean success = false;
+        try {
+            final ResponseEntity<ConsentDetails> response = doGetConsentDetails(consentRequestJws);
+            success = true;
+            return response;
+        } finally {
+            consentFlowMetrics.end(timings, success);
+        }
+    }
+
+    private ResponseEntity<ConsentDetails> doGetConsentDetails(String consentRequestJws) throws InvalidConsentException {
         String intentId = null;
         String apiClientId = null;
         try {
-            SignedJWT signedJWT = JwtUtil.getSignedJWT(consentRequestJws);
-            Claims claims = JwtUtil.getClaims(signedJWT);
-
-            if (!claims.getIdTokenClaims().containsKey(Constants.Claims.INTENT_ID)) {
-                log.error("(ConsentDetailsApiController#getConsentDetails) Missing Intent ID");
-                throw new InvalidConsentException(consentRequestJws, INVALID_REQUEST,
-                        OBRIErrorType.RCS_CONSENT_REQUEST_INVALID_CONSENT,
-                        "Missing intent Id", null, null);
-            }
+            SignedJWT signedJWT = ConsentFlowTimings.timeStage(ConsentFlowStage.JWT_PARSE, () -> parseConsentRequestJwt(consentRequestJws));
 
             intentId = JwtUtil.getIdTokenClaim(signedJWT, Constants.Claims.INTENT_ID);
             log.debug("Intent Id from the requested claims '{}'", intentId);
@@ -79,6 +90,7 @@ public class ConsentDetailsApiController implements ConsentDetailsApi {
             apiClientId = consentClientRequest.getClientId();
 
             IntentType intentType = IntentType.identify(intentId);
+            consentFlowMetrics.setIntentType(intentType);
             if (Objects.nonNull(intentType)) {
                 final ConsentDetails details;
                 if (consentStoreDetailsServiceRegistry.isIntentTypeSupported(intentType)) {
@@ -104,6 +116,19 @@ public class ConsentDetailsApiController implements ConsentDetailsApi {
         }
     }
 
+    private static SignedJWT parseConsentRequestJwt(String consentRequestJws) throws ExceptionClient {
+        SignedJWT signedJWT = JwtUtil.getSignedJWT(consentRequestJws);
+        Claims claims = JwtUtil.getClaims(signedJWT);
+
+        if (!claims.getIdTokenClaims().containsKey(Constants.Claims.INTENT_ID)) {
+            log.error("(ConsentDetailsApiController#getConsentDetails) Missing Intent ID");
+            throw new InvalidConsentException(consentRequestJws, INVALID_REQUEST,
+                    OBRIErrorType.RCS_CONSENT_REQUEST_INVALID_CONSENT,
+                    "Missing intent Id", null, null);
+        }
+        return signedJWT;
+    }
+
     private static InvalidConsentException buildInvalidConsentException(String consentRequestJws, String intentId, String apiClientId, ConsentStoreException cse) {
         log.error("Failed to get Consent Details due to ConsentStoreException", cse);
         final ErrorType errorType;
@@ -142,7 +167,7 @@ public class ConsentDetailsApiController implements ConsentDetailsApi {
         String userId = JwtUtil.getClaimValue(signedJWT, Constants.Claims.USER_NAME);
         log.debug("User Id from the JWT claims '{}'", userId);
         log.debug("Retrieve the user details for user Id '{}'", userId);
-        User user = userServiceClient.getUser(userId);
+        User user = ConsentFlowTimings.timeStage(ConsentFlowStage.USER_LOOKUP, () -> userServiceClient.getUser(userId));
 
         return ConsentClientDetailsRequest.builder()
                 .intentId(intentId)
@@ -31,6 +31,8 @@ import com.forgerock.sapi.gateway.ob.uk.common.datamodel.account.FRAccount;
 import com.forgerock.sapi.gateway.ob.uk.common.datamodel.account.FRAccountWithBalance;
 import com.forgerock.sapi.gateway.ob.uk.rcs.server.configuration.RsBackofficeConfiguration;
 import com.forgerock.sapi.gateway.ob.uk.rcs.server.configuration.RsConfiguration;
+import com.forgerock.sapi.gateway.ob.uk.rcs.server.metrics.ConsentFlowStage;
+import com.forgerock.sapi.gateway.ob.uk.rcs.server.metrics.ConsentFlowTimings;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -66,7 +68,8 @@ public class AccountService extends BaseRsClient {
         builder.queryParam("userId", lowercaseUserId);
 
         URI uri = builder.build().encode().toUri();
-        ResponseEntity<List<FRAccount>> entity = restTemplate.exchange(uri, GET, createRequestEntity(), ACCOUNT_LIST_TYPE);
+        ResponseEntity<List<FRAccount>> entity = ConsentFlowTimings.timeStage(ConsentFlowStage.ACCOUNT_FETCH,
+                () -> restTemplate.exchange(uri, GET, createRequestEntity(), ACCOUNT_LIST_TYPE));
         return entity.getBody();
     }
 
@@ -85,7 +88,8 @@ public class AccountService extends BaseRsClient {
         builder.queryParam("withBalance", true);
 
         URI uri = builder.build().encode().toUri();
-        ResponseEntity<List<FRAccountWithBalance>> entity = restTemplate.exchange(uri, GET, createRequestEntity(), ACCOUNT_WITH_BALANCE_LIST_TYPE);
+        ResponseEntity<List<FRAccountWithBalance>> entity = ConsentFlowTimings.timeStage(ConsentFlowStage.ACCOUNT_FETCH,
+                () -> restTemplate.exchange(uri, GET, createRequestEntity(), ACCOUNT_WITH_BALANCE_LIST_TYPE));
         return entity.getBody();
     }
 
@@ -106,7 +110,8 @@ public class AccountService extends BaseRsClient {
         builder.queryParam("schemeName", schemeName);
 
         URI uri = builder.build().encode().toUri();
-        ResponseEntity<FRAccountWithBalance> entity = restTemplate.exchange(uri, GET, createRequestEntity(), FRAccountWithBalance.class);
+        ResponseEntity<FRAccountWithBalance> entity = ConsentFlowTimings.timeStage(ConsentFlowStage.ACCOUNT_FETCH,
+                () -> restTemplate.exchange(uri, GET, createRequestEntity(), FRAccountWithBalance.class));
         return entity.getBody();
     }
 
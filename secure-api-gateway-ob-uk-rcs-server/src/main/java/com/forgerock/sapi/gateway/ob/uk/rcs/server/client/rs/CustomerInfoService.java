@@ -18,6 +18,8 @@ package com.forgerock.sapi.gateway.ob.uk.rcs.server.client.rs;
 import com.forgerock.sapi.gateway.ob.uk.common.datamodel.customerinfo.FRCustomerInfo;
 import com.forgerock.sapi.gateway.ob.uk.rcs.server.configuration.RsConfiguration;
 import com.forgerock.sapi.gateway.ob.uk.rcs.server.configuration.RsResourceApiConfiguration;
+import com.forgerock.sapi.gateway.ob.uk.rcs.server.metrics.ConsentFlowStage;
+import com.forgerock.sapi.gateway.ob.uk.rcs.server.metrics.ConsentFlowTimings;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
@@ -50,12 +52,13 @@ public class CustomerInfoService extends BaseRsClient {
     public Optional<FRCustomerInfo> getCustomerInformation(String userId) {
         log.debug("Making a request to RS to retrieve customer information details with user Id: {}", userId);
 
-        ResponseEntity<FRCustomerInfo> entity = restTemplate.exchange(
-                getFindByUserIdOperationUri(userId),
-                GET,
-                createRequestEntity(),
-                FRCustomerInfo.class
-        );
+        ResponseEntity<FRCustomerInfo> entity = ConsentFlowTimings.timeStage(ConsentFlowStage.CUSTOMER_INFO_FETCH,
+                () -> restTemplate.exchange(
+                        getFindByUserIdOperationUri(userId),
+                        GET,
+                        createRequestEntity(),
+                        FRCustomerInfo.class
+                ));
         return Optional.ofNullable(entity.getBody());
     }
 
@@ -0,0 +1,35 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.ob.uk.rcs.server.configuration;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+import com.forgerock.sapi.gateway.rcs.consent.store.api.ConsentStoreApiConfiguration;
+
+/**
+ * Serves the RS facing Consent Store API from the RCS.
+ * <p>
+ * This is the default (combined) deployment mode. Where the Consent Store API is deployed separately, using the
+ * secure-api-gateway-ob-uk-rcs-consent-store-server, set rcs.consentStoreApi.enabled=false so that the RCS only serves
+ * the consent UI backend.
+ */
+@Configuration
+@ConditionalOnProperty(name = "rcs.consentStoreApi.enabled", havingValue = "true", matchIfMissing = true)
+@Import(ConsentStoreApiConfiguration.class)
+public class ConsentStoreApiModeConfiguration {
+}
@@ -19,7 +19,9 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.hc.client5.http.classic.HttpClient;
 import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
@@ -27,9 +29,11 @@ import org.joda.time.DateTime;
 import org.joda.time.LocalDate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
@@ -42,7 +46,11 @@ import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.MapperFeature;
 import com.fasterxml.jackson.datatype.joda.JodaModule;
+import com.forgerock.sapi.gateway.ob.uk.rcs.cloud.client.configuration.CloudClientConfiguration;
 import com.forgerock.sapi.gateway.ob.uk.rcs.server.jwt.RcsJwtSigner;
+import com.forgerock.sapi.gateway.ob.uk.rcs.server.metrics.SlowRequestMongoCommandListener;
+import com.forgerock.sapi.gateway.ob.uk.rcs.server.metrics.SlowRequestRecorder;
+import com.forgerock.sapi.gateway.ob.uk.rcs.server.metrics.SlowRequestUpstreamCallInterceptor;
 import com.forgerock.sapi.gateway.uk.common.shared.spring.web.filter.FapiInteractionIdFilter;
 import com.nimbusds.jose.JOSEException;
 import com.nimbusds.jose.JWSAlgorithm;
@@ -51,6 +59,7 @@ import com.nimbusds.jose.crypto.RSASSASigner;
 import com.nimbusds.jose.jwk.JWK;
 import com.nimbusds.jose.jwk.RSAKey;
 
+import io.micrometer.observation.ObservationRegistry;
 import uk.org.openbanking.jackson.DateTimeDeserializer;
 import uk.org.openbanking.jackson.DateTimeSerializer;
 import uk.org.openbanking.jackson.LocalDateDeserializer;
@@ -61,13 +70,48 @@ public class RcsApplicationConfiguration {
 
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
+    /**
+     * RestTemplate used to call the Cloud platform and the RS. Requests are observed, producing the
+     * http.client.requests metrics and a client span per request when tracing is enabled. When the slow request
+     * recorder is enabled each call is recorded against the request being handled, using the URI template of the call
+     * rather than the URI so that no ids are recorded.
+     */
     @Bean
-    public RestTemplate restTemplate(@Qualifier("mappingJacksonHttpMessageConverter") MappingJackson2HttpMessageConverter converter) {
+    public RestTemplate restTemplate(@Qualifier("mappingJacksonHttpMessageConverter") MappingJackson2HttpMessageConverter converter,
+                                     ObjectProvider<ObservationRegistry> observationRegistryProvider,
+                                     SlowRequestRecorder slowRequestRecorder,
+                                     CloudClientConfiguration cloudClientConfiguration,
+                                     RsConfiguration rsConfiguration,
+                                     RsBackofficeConfiguration rsBackofficeConfiguration,
+                                     RsResourceApiConfiguration rsResourceApiConfiguration) {
         RestTemplate restTemplate = new RestTemplate();
         customiseRestTemplate(converter, restTemplate);
+        restTemplate.setObservationRegistry(observationRegistryProvider.getIfAvailable(() -> ObservationRegistry.NOOP));
+        if (slowRequestRecorder.isEnabled()) {
+            final List<String> uriTemplates = new ArrayList<>();
+            uriTemplates.add(cloudClientConfiguration.getApiClientUri().toUriString());
+            uriTemplates.add(cloudClientConfiguration.getUsersUri().toUriString());
+            for (final Map<String, String> rsUris : List.of(rsBackofficeConfiguration.getAccounts(),
+                    rsBackofficeConfiguration.getDomesticPayments(), rsResourceApiConfiguration.getCustomerInfo())) {
+                rsUris.values().forEach(rsUri -> uriTemplates.add(rsConfiguration.getBaseUri() + rsUri));
+            }
+            restTemplate.getInterceptors().add(new SlowRequestUpstreamCallInterceptor(uriTemplates));
+        }
         return restTemplate;
     }
 
+    /**
+     * Records the Consent Store Mongo commands against the request being handled, when the slow request recorder is enabled.
+     */
+    @Bean
+    public MongoClientSettingsBuilderCustomizer slowRequestMongoCommandCustomizer(SlowRequestRecorder slowRequestRecorder) {
+        if (!slowRequestRecorder.isEnabled()) {
+            return builder -> {};
+        }
+        final SlowRequestMongoCommandListener commandListener = new SlowRequestMongoCommandListener();
+        return builder -> builder.addCommandListener(commandListener);
+    }
+
     private void customiseRestTemplate(@Qualifier("mappingJacksonHttpMessageConverter") MappingJackson2HttpMessageConverter converter, RestTemplate restTemplate) {
         List<HttpMessageConverter<?>> messageConverters = restTemplate.getMessageConverters();
         messageConverters.removeIf(c -> c instanceof MappingJackson2HttpMessageConverter);
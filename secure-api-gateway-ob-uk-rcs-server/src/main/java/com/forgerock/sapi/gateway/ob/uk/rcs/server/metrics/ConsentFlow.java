@@ -0,0 +1,42 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.ob.uk.rcs.server.metrics;
+
+/**
+ * The consent flows handled by the RCS which are broken down into {@link ConsentFlowStage}s.
+ */
+public enum ConsentFlow {
+
+    /**
+     * Consent details requested by the Consent UI, see ConsentDetailsApiController
+     */
+    DETAILS("details"),
+
+    /**
+     * Consent decision submitted by the Consent UI, see ConsentDecisionApiController
+     */
+    DECISION("decision");
+
+    private final String tagValue;
+
+    ConsentFlow(String tagValue) {
+        this.tagValue = tagValue;
+    }
+
+    public String getTagValue() {
+        return tagValue;
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.ob.uk.rcs.server.metrics;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.forgerock.sapi.gateway.uk.common.shared.api.meta.share.IntentType;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+
+/**
+ * Publishes the latency of the {@link ConsentFlow}s and each of their {@link ConsentFlowStage}s.
+ * <p>
+ * Stage latencies are recorded by the rcs.consent.stage timer, tagged by flow, stage, intentType and outcome (success or
+ * failure). The end to end latency of each request is recorded by the rcs.consent.flow timer, tagged by flow, intentType
+ * and outcome. Both timers publish a percentile histogram and the configured SLO buckets, so that they can be
+ * aggregated across instances via /actuator/prometheus. Consent decisions are counted by the rcs.consent.decisions
+ * counter, tagged by intentType and decision.
+ * <p>
+ * When {@link ConsentFlowServerTiming} is enabled the stage timings are also returned to the caller in the Server-Timing
+ * response header, and when the {@link SlowRequestRecorder} is enabled they are recorded for slow requests. When none
+ * of these are enabled no timings are collected.
+ * <p>
+ * The IntentType of the consent is added to the observation of the request being handled, making it an attribute of
+ * the server span when tracing is enabled.
+ */
+@Component
+public class ConsentFlowMetrics {
+
+    static final String STAGE_TIMER = "rcs.consent.stage";
+
+    static final String FLOW_TIMER = "rcs.consent.flow";
+
+    static final String DECISION_COUNTER = "rcs.consent.decisions";
+
+    static final String UNKNOWN_INTENT_TYPE = "unknown";
+
+    static final String INTENT_TYPE_KEY = "rcs.intent.type";
+
+    private final MeterRegistry meterRegistry;
+
+    private final boolean enabled;
+
+    private final boolean percentileHistogram;
+
+    private final Duration[] serviceLevelObjectives;
+
+    private ConsentFlowServerTiming serverTiming;
+
+    private ObservationRegistry observationRegistry = ObservationRegistry.NOOP;
+
+    private SlowRequestRecorder slowRequestRecorder;
+
+    public ConsentFlowMetrics(ObjectProvider<MeterRegistry> meterRegistryProvider,
+                              @Value("${rcs.metrics.consentFlows.enabled:true}") boolean enabled,
+                              @Value("${rcs.metrics.consentFlows.percentileHistogram:true}") boolean percentileHistogram,
+                              @Value("${rcs.metrics.consentFlows.sloMillis:50,100,250,500,1000,2500}") long[] sloMillis) {
+        this.meterRegistry = meterRegistryProvider.getIfAvailable(SimpleMeterRegistry::new);
+        this.enabled = enabled;
+        this.percentileHistogram = percentileHistogram;
+        requireNonNull(sloMillis, "sloMillis must be provided");
+        this.serviceLevelObjectives = Arrays.stream(sloMillis).sorted().mapToObj(Duration::ofMillis).toArray(Duration[]::new);
+    }
+
+    @Autowired(required = false)
+    public void setServerTiming(ConsentFlowServerTiming serverTiming) {
+        this.serverTiming = serverTiming;
+    }
+
+    @Autowired(required = false)
+    public void setObservationRegistry(ObservationRegistry observationRegistry) {
+        this.observationRegistry = requireNonNull(observationRegistry, "observationRegistry must be provided");
+    }
+
+    @Autowired(required = false)
+    public void setSlowRequestRecorder(SlowRequestRecorder slowRequestRecorder) {
+        this.slowRequestRecorder = slowRequestRecorder;
+    }
+
+    private boolean isServerTimingEnabled() {
+        return serverTiming != null && serverTiming.isEnabled();
+    }
+
+    private boolean isSlowRequestRecorderEnabled() {
+        return slowRequestRecorder != null && slowRequestRecorder.isEnabled();
+    }
+
+    /**
+     * Begins timing a flow on the current thread, the flow must be ended via {@link #end(ConsentFlowTimings, boolean)}
+     *
+     * @return the timings of the flow, or null if none of the metrics, Server-Timing header or slow request recorder are enabled
+     */
+    public ConsentFlowTimings begin(ConsentFlow flow) {
+        if (!enabled && !isServerTimingEnabled() && !isSlowRequestRecorderEnabled()) {
+            return null;
+        }
+        final ConsentFlowTimings timings = new ConsentFlowTimings(flow);
+        timings.bind();
+        return timings;
+    }
+
+    /**
+     * Ends a flow begun on the current thread, records its timings and adds the Server-Timing header.
+     *
+     * @param timings the timings returned by {@link #begin(ConsentFlow)}, may be null
+     * @param success whether the flow completed without raising an exception
+     */
+    public void end(ConsentFlowTimings timings, boolean success) {
+        if (timings == null) {
+            return;
+        }
+        timings.unbind();
+        if (isServerTimingEnabled()) {
+            serverTiming.addHeader(timings);
+        }
+        if (isSlowRequestRecorderEnabled()) {
+            SlowRequestTrace.attachFlowTimings(timings);
+        }
+        if (!enabled) {
+            return;
+        }
+        final long elapsedNanos = timings.getElapsedNanos();
+        final String flow = timings.getFlow().getTagValue();
+        final String intentType = intentTypeTag(timings.getIntentType());
+        for (ConsentFlowStage stage : ConsentFlowStage.values()) {
+            if (timings.isStageExecuted(stage)) {
+                timer(STAGE_TIMER).tag("flow", flow)
+                                  .tag("stage", stage.getTagValue())
+                                  .tag("intentType", intentType)
+                                  .tag("outcome", outcome(!timings.isStageFailed(stage)))
+                                  .register(meterRegistry)
+                                  .record(timings.getStageNanos(stage), TimeUnit.NANOSECONDS);
+            }
+        }
+        timer(FLOW_TIMER).tag("flow", flow)
+                         .tag("intentType", intentType)
+                         .tag("outcome", outcome(success))
+                         .register(meterRegistry)
+                         .record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Sets the IntentType of the flow in progress on the current thread, once it has been identified from the intentId
+     */
+    public void setIntentType(IntentType intentType) {
+        ConsentFlowTimings.setCurrentIntentType(intentType);
+        final Observation observation = observationRegistry.getCurrentObservation();
+        if (observation != null) {
+            observation.highCardinalityKeyValue(INTENT_TYPE_KEY, intentTypeTag(intentType));
+        }
+    }
+
+    /**
+     * Counts a consent decision which has been applied to the Consent Store
+     */
+    public void recordDecision(IntentType intentType, boolean authorised) {
+        if (!enabled) {
+            return;
+        }
+        Counter.builder(DECISION_COUNTER)
+               .tag("intentType", intentTypeTag(intentType))
+               .tag("decision", authorised ? "authorised" : "rejected")
+               .register(meterRegistry)
+               .increment();
+    }
+
+    private Timer.Builder timer(String name) {
+        return Timer.builder(name)
+                    .publishPercentileHistogram(percentileHistogram)
+                    .serviceLevelObjectives(serviceLevelObjectives);
+    }
+
+    private static String intentTypeTag(IntentType intentType) {
+        return intentType != null ? intentType.name() : UNKNOWN_INTENT_TYPE;
+    }
+
+    private static String outcome(boolean success) {
+        return success ? "success" : "failure";
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.ob.uk.rcs.server.metrics;
+
+import java.util.Locale;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Adds a Server-Timing header to the consent details and decision responses, listing the duration of each
+ * {@link ConsentFlowStage} executed, including the calls made to AM, the RS and the Consent Store, followed by the total
+ * duration of the request e.g. jwt_parse;dur=0.8, user_lookup;dur=35.2, consent_read;dur=4.1, total;dur=52.6
+ * <p>
+ * This allows the latency of the consent UI to be attributed using browser devtools or RUM tooling. The header is
+ * opt-in as it reveals the internal structure of the RCS, when the Consent UI is served from a different origin then
+ * Timing-Allow-Origin must also be configured for the browser to expose the timings.
+ * <p>
+ * The header is added to the error responses produced by the exception handlers as well, as it is written before the
+ * response is committed.
+ */
+@Component
+public class ConsentFlowServerTiming {
+
+    static final String SERVER_TIMING_HEADER = "Server-Timing";
+
+    static final String TIMING_ALLOW_ORIGIN_HEADER = "Timing-Allow-Origin";
+
+    private final boolean enabled;
+
+    private final String timingAllowOrigin;
+
+    public ConsentFlowServerTiming(@Value("${rcs.serverTiming.enabled:false}") boolean enabled,
+                                   @Value("${rcs.serverTiming.timingAllowOrigin:}") String timingAllowOrigin) {
+        this.enabled = enabled;
+        this.timingAllowOrigin = timingAllowOrigin;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Adds the Server-Timing header for the flow to the response of the current request, if enabled.
+     */
+    public void addHeader(ConsentFlowTimings timings) {
+        if (!enabled || timings == null) {
+            return;
+        }
+        final RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (requestAttributes instanceof ServletRequestAttributes servletRequestAttributes) {
+            final HttpServletResponse response = servletRequestAttributes.getResponse();
+            if (response != null && !response.isCommitted()) {
+                response.addHeader(SERVER_TIMING_HEADER, headerValue(timings));
+                if (timingAllowOrigin != null && !timingAllowOrigin.isBlank()) {
+                    response.setHeader(TIMING_ALLOW_ORIGIN_HEADER, timingAllowOrigin);
+                }
+            }
+        }
+    }
+
+    static String headerValue(ConsentFlowTimings timings) {
+        final StringBuilder header = new StringBuilder(256);
+        for (ConsentFlowStage stage : ConsentFlowStage.values()) {
+            if (timings.isStageExecuted(stage)) {
+                appendMetric(header, stage.getTagValue(), timings.getStageNanos(stage));
+            }
+        }
+        appendMetric(header, "total", timings.getElapsedNanos());
+        return header.toString();
+    }
+
+    private static void appendMetric(StringBuilder header, String name, long nanos) {
+        if (!header.isEmpty()) {
+            header.append(", ");
+        }
+        header.append(name).append(";dur=").append(String.format(Locale.ROOT, "%.1f", nanos / 1_000_000d));
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.ob.uk.rcs.server.metrics;
+
+/**
+ * The stages of the {@link ConsentFlow}s that are timed.
+ */
+public enum ConsentFlowStage {
+
+    /**
+     * Parsing the consent request JWT and extracting its claims
+     */
+    JWT_PARSE("jwt_parse"),
+    /**
+     * Fetching the PSU's user from the Cloud platform
+     */
+    USER_LOOKUP("user_lookup"),
+    /**
+     * Reading the consent from the Consent Store
+     */
+    CONSENT_READ("consent_read"),
+    /**
+     * Fetching the TPP's ApiClient from the Cloud platform
+     */
+    API_CLIENT_LOOKUP("api_client_lookup"),
+    /**
+     * Fetching the PSU's accounts from the RS
+     */
+    ACCOUNT_FETCH("account_fetch"),
+    /**
+     * Fetching the PSU's customer information from the RS
+     */
+    CUSTOMER_INFO_FETCH("customer_info_fetch"),
+    /**
+     * Building the ConsentDetails, excluding the lookups and fetches it makes
+     */
+    ASSEMBLY("assembly"),
+    /**
+     * Deserialising the consent decision and parsing the consent request JWT it contains
+     */
+    DESERIALISE("deserialise"),
+    /**
+     * Authorising or rejecting the consent in the Consent Store
+     */
+    STATE_TRANSITION("state_transition"),
+    /**
+     * Building the claims of the consent decision response JWT
+     */
+    CLAIMS_BUILD("claims_build"),
+    /**
+     * Signing the consent decision response JWT
+     */
+    SIGN("sign");
+
+    private final String tagValue;
+
+    ConsentFlowStage(String tagValue) {
+        this.tagValue = tagValue;
+    }
+
+    public String getTagValue() {
+        return tagValue;
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.ob.uk.rcs.server.metrics;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.function.LongSupplier;
+
+import com.forgerock.sapi.gateway.uk.common.shared.api.meta.share.IntentType;
+
+/**
+ * Records how long each {@link ConsentFlowStage} of a single {@link ConsentFlow} request took.
+ * <p>
+ * Instances are created by {@link ConsentFlowMetrics#begin(ConsentFlow)} and bound to the thread handling the request,
+ * code called during the request times its stage via {@link #timeStage(ConsentFlowStage, StageCallable)} without
+ * needing a reference to the instance. When no flow is in progress on the current thread the stage is executed untimed.
+ * <p>
+ * Stage durations are exclusive: when a stage is executed within another stage, e.g. an account fetch made while
+ * assembling the consent details, the time spent in the inner stage is not included in the outer stage. A stage which
+ * is executed more than once during a request accumulates its durations.
+ * <p>
+ * Instances are not thread safe, they must only be used by the thread handling the request.
+ */
+public final class ConsentFlowTimings {
+
+    private static final ThreadLocal<ConsentFlowTimings> CURRENT = new ThreadLocal<>();
+
+    private static final ConsentFlowStage[] STAGES = ConsentFlowStage.values();
+
+    private final ConsentFlow flow;
+
+    private final LongSupplier nanoTime;
+
+    private final long startNanos;
+
+    private final long[] stageNanos = new long[STAGES.length];
+
+    private final int[] stageExecutions = new int[STAGES.length];
+
+    private final boolean[] stageFailures = new boolean[STAGES.length];
+
+    private IntentType intentType;
+
+    /**
+     * Total duration of the stages executed within the stage currently executing (or the flow)
+     */
+    private long nestedStageNanos;
+
+    ConsentFlowTimings(ConsentFlow flow) {
+        this(flow, System::nanoTime);
+    }
+
+    /**
+     * @param nanoTime the source of the current time in nanoseconds, allows tests to control the elapsed time
+     */
+    ConsentFlowTimings(ConsentFlow flow, LongSupplier nanoTime) {
+        this.flow = requireNonNull(flow, "flow must be provided");
+        this.nanoTime = requireNonNull(nanoTime, "nanoTime must be provided");
+        this.startNanos = nanoTime.getAsLong();
+    }
+
+    /**
+     * @return the timings of the flow in progress on the current thread, or null if there is none
+     */
+    public static ConsentFlowTimings current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Executes a stage, timing it if a flow is in progress on the current thread.
+     */
+    public static <T, E extends Exception> T timeStage(ConsentFlowStage stage, StageCallable<T, E> callable) throws E {
+        final ConsentFlowTimings timings = CURRENT.get();
+        return timings != null ? timings.time(stage, callable) : callable.call();
+    }
+
+    /**
+     * Executes a stage which returns no value, timing it if a flow is in progress on the current thread.
+     */
+    public static <E extends Exception> void runStage(ConsentFlowStage stage, StageRunnable<E> runnable) throws E {
+        timeStage(stage, () -> {
+            runnable.run();
+            return null;
+        });
+    }
+
+    /**
+     * Sets the IntentType of the flow in progress on the current thread, if there is one.
+     */
+    public static void setCurrentIntentType(IntentType intentType) {
+        final ConsentFlowTimings timings = CURRENT.get();
+        if (timings != null) {
+            timings.intentType = intentType;
+        }
+    }
+
+    void bind() {
+        CURRENT.set(this);
+    }
+
+    void unbind() {
+        CURRENT.remove();
+    }
+
+    public <T, E extends Exception> T time(ConsentFlowStage stage, StageCallable<T, E> callable) throws E {
+        requireNonNull(stage, "stage must be provided");
+        final long outerNestedStageNanos = nestedStageNanos;
+        nestedStageNanos = 0;
+        final long stageStartNanos = nanoTime.getAsLong();
+        boolean success = false;
+        try {
+            final T result = callable.call();
+            success = true;
+            return result;
+        } finally {
+            final long elapsedNanos = nanoTime.getAsLong() - stageStartNanos;
+            final int index = stage.ordinal();
+            stageNanos[index] += Math.max(0, elapsedNanos - nestedStageNanos);
+            stageExecutions[index]++;
+            stageFailures[index] |= !success;
+            nestedStageNanos = outerNestedStageNanos + elapsedNanos;
+        }
+    }
+
+    public ConsentFlow getFlow() {
+        return flow;
+    }
+
+    public IntentType getIntentType() {
+        return intentType;
+    }
+
+    public long getElapsedNanos() {
+        return nanoTime.getAsLong() - startNanos;
+    }
+
+    public boolean isStageExecuted(ConsentFlowStage stage) {
+        return stageExecutions[stage.ordinal()] > 0;
+    }
+
+    /**
+     * @return the exclusive duration of the stage in nanoseconds, 0 if the stage was not executed
+     */
+    public long getStageNanos(ConsentFlowStage stage) {
+        return stageNanos[stage.ordinal()];
+    }
+
+    /**
+     * @return whether an execution of the stage raised an exception
+     */
+    public boolean isStageFailed(ConsentFlowStage stage) {
+        return stageFailures[stage.ordinal()];
+    }
+
+    @FunctionalInterface
+    public interface StageCallable<T, E extends Exception> {
+        T call() throws E;
+    }
+
+    @FunctionalInterface
+    public interface StageRunnable<E extends Exception> {
+        void run() throws E;
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.ob.uk.rcs.server.metrics;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A request recorded by the {@link SlowRequestRecorder} as it took longer than the threshold.
+ *
+ * @param startTime             when the request was received
+ * @param durationMillis        time taken to handle the request
+ * @param method                HTTP method
+ * @param path                  the path pattern of the handler (e.g. /consent/store/v3.1.10/domestic-payment-consents/{consentId}),
+ *                              or the request path if the request was not handled by a controller
+ * @param status                HTTP status of the response
+ * @param interactionId         the x-fapi-interaction-id of the request, may be null
+ * @param requestBytes          size of the request body, -1 if unknown
+ * @param responseBytes         size of the response body
+ * @param flow                  the {@link ConsentFlow} of the request, null if it is not a consent details or decision request
+ * @param intentType            the IntentType of the consent, null if it is not known
+ * @param stageMillis           exclusive duration of each {@link ConsentFlowStage} executed, in execution order
+ * @param upstreamCalls         the calls made to the Cloud platform, the RS and Mongo in the order that they completed
+ * @param droppedUpstreamCalls  number of upstream calls which were not recorded as the per request limit was reached
+ */
+public record SlowRequest(Instant startTime,
+                          double durationMillis,
+                          String method,
+                          String path,
+                          int status,
+                          String interactionId,
+                          long requestBytes,
+                          long responseBytes,
+                          String flow,
+                          String intentType,
+                          Map<String, Double> stageMillis,
+                          List<UpstreamCall> upstreamCalls,
+                          int droppedUpstreamCalls) {
+
+    /**
+     * @param type           http or mongo
+     * @param target         for http: the method and URL (without the query), for mongo: the command and collection
+     * @param durationMillis time taken by the call
+     * @param outcome        for http: the response status or the exception raised, for mongo: success or failure
+     * @param requestBytes   size of the request body, -1 if unknown
+     * @param responseBytes  size of the response body, -1 if unknown
+     */
+    public record UpstreamCall(String type,
+                               String target,
+                               double durationMillis,
+                               String outcome,
+                               long requestBytes,
+                               long responseBytes) {
+    }
+}
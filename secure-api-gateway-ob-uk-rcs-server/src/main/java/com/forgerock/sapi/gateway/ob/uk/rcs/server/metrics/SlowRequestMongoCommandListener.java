@@ -0,0 +1,64 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.ob.uk.rcs.server.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+import org.bson.BsonValue;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+
+/**
+ * Mongo driver {@link CommandListener} which adds each command issued by the Consent Store to the request being traced
+ * by the {@link SlowRequestRecorder}. The sync driver notifies command listeners on the thread which issued the command.
+ */
+public class SlowRequestMongoCommandListener implements CommandListener {
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        final SlowRequestTrace trace = SlowRequestTrace.current();
+        if (trace == null) {
+            return;
+        }
+        // The command document is only valid during this callback
+        final BsonValue collection = event.getCommand().get(event.getCommandName());
+        trace.mongoCommandStarted(event.getRequestId(), collection != null && collection.isString()
+                ? collection.asString().getValue() : null);
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        recordCommand(event.getRequestId(), event.getCommandName(), event.getElapsedTime(TimeUnit.NANOSECONDS), "success");
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        recordCommand(event.getRequestId(), event.getCommandName(), event.getElapsedTime(TimeUnit.NANOSECONDS), "failure");
+    }
+
+    private static void recordCommand(int requestId, String commandName, long elapsedNanos, String outcome) {
+        final SlowRequestTrace trace = SlowRequestTrace.current();
+        if (trace == null) {
+            return;
+        }
+        final String collection = trace.mongoCommandCollection(requestId);
+        SlowRequestRecorder.recordUpstreamCall("mongo", collection != null ? commandName + " " + collection : commandName,
+                elapsedNanos, outcome, -1, -1);
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.ob.uk.rcs.server.metrics;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.forgerock.sapi.gateway.ob.uk.rcs.server.metrics.SlowRequest.UpstreamCall;
+
+/**
+ * Flight recorder for requests which take longer than a configurable threshold, capturing the details needed to
+ * explain an individual slow request which aggregate metrics hide: the stage timings of consent details and decision
+ * requests, the timing of each call made to the Cloud platform, the RS and Mongo, payload sizes and the
+ * x-fapi-interaction-id.
+ * <p>
+ * Requests are traced by {@link SlowRequestRecorderFilter}. The most recent slow requests are kept in a fixed size ring
+ * buffer, the oldest request is overwritten once it is full. Recording a request is lock-free, and the memory used is
+ * bounded by the capacity and the maximum number of upstream calls recorded per request.
+ * <p>
+ * The slow requests are exposed via the slowrequests actuator endpoint.
+ */
+@Component
+public class SlowRequestRecorder {
+
+    static final String FAPI_INTERACTION_ID_HEADER = "x-fapi-interaction-id";
+
+    private final boolean enabled;
+
+    private final long thresholdNanos;
+
+    private final int maxUpstreamCallsPerRequest;
+
+    private final AtomicReferenceArray<SlowRequest> slowRequests;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    public SlowRequestRecorder(@Value("${rcs.slowRequests.enabled:false}") boolean enabled,
+                               @Value("${rcs.slowRequests.thresholdMillis:1000}") long thresholdMillis,
+                               @Value("${rcs.slowRequests.capacity:100}") int capacity,
+                               @Value("${rcs.slowRequests.maxUpstreamCallsPerRequest:50}") int maxUpstreamCallsPerRequest) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be greater than 0");
+        }
+        this.enabled = enabled;
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.maxUpstreamCallsPerRequest = maxUpstreamCallsPerRequest;
+        this.slowRequests = new AtomicReferenceArray<>(capacity);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getThresholdMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(thresholdNanos);
+    }
+
+    /**
+     * Begins tracing a request on the current thread
+     */
+    SlowRequestTrace begin() {
+        final SlowRequestTrace trace = new SlowRequestTrace(maxUpstreamCallsPerRequest);
+        trace.bind();
+        return trace;
+    }
+
+    /**
+     * Ends tracing a request, recording it if it took longer than the threshold
+     */
+    void end(SlowRequestTrace trace, String method, String path, int status, String interactionId,
+             long requestBytes, long responseBytes) {
+        trace.unbind();
+        final long elapsedNanos = trace.getElapsedNanos();
+        if (elapsedNanos < thresholdNanos) {
+            return;
+        }
+        final ConsentFlowTimings flowTimings = trace.getFlowTimings();
+        final Map<String, Double> stageMillis = new LinkedHashMap<>();
+        String flow = null;
+        String intentType = null;
+        if (flowTimings != null) {
+            flow = flowTimings.getFlow().getTagValue();
+            intentType = flowTimings.getIntentType() != null ? flowTimings.getIntentType().name() : null;
+            for (ConsentFlowStage stage : ConsentFlowStage.values()) {
+                if (flowTimings.isStageExecuted(stage)) {
+                    stageMillis.put(stage.getTagValue(), toMillis(flowTimings.getStageNanos(stage)));
+                }
+            }
+        }
+        record(new SlowRequest(Instant.ofEpochMilli(trace.getStartEpochMillis()), toMillis(elapsedNanos), method, path,
+                status, interactionId, requestBytes, responseBytes, flow, intentType, stageMillis,
+                List.copyOf(trace.getUpstreamCalls()), trace.getDroppedUpstreamCalls()));
+    }
+
+    void record(SlowRequest slowRequest) {
+        slowRequests.set((int) (sequence.getAndIncrement() % slowRequests.length()), slowRequest);
+    }
+
+    /**
+     * Adds a call made to an upstream service to the request in progress on the current thread, if it is being traced
+     */
+    static void recordUpstreamCall(String type, String target, long durationNanos, String outcome,
+                                   long requestBytes, long responseBytes) {
+        final SlowRequestTrace trace = SlowRequestTrace.current();
+        if (trace != null) {
+            trace.addUpstreamCall(new UpstreamCall(type, target, toMillis(durationNanos), outcome, requestBytes, responseBytes));
+        }
+    }
+
+    /**
+     * @return the slow requests recorded, the slowest first
+     */
+    public List<SlowRequest> getSlowRequests() {
+        final List<SlowRequest> requests = new ArrayList<>(slowRequests.length());
+        for (int i = 0; i < slowRequests.length(); i++) {
+            final SlowRequest slowRequest = slowRequests.get(i);
+            if (slowRequest != null) {
+                requests.add(slowRequest);
+            }
+        }
+        requests.sort(Comparator.comparingDouble(SlowRequest::durationMillis).reversed());
+        return requests;
+    }
+
+    public void clear() {
+        for (int i = 0; i < slowRequests.length(); i++) {
+            slowRequests.set(i, null);
+        }
+    }
+
+    private static double toMillis(long nanos) {
+        return Math.round(nanos / 100_000d) / 10d;
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.ob.uk.rcs.server.metrics;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * Traces every request handled by the RCS for the {@link SlowRequestRecorder}, including the Consent Store API requests
+ * when the API is served by the RCS. The filter is skipped when the recorder is disabled.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class SlowRequestRecorderFilter extends OncePerRequestFilter {
+
+    private final SlowRequestRecorder slowRequestRecorder;
+
+    public SlowRequestRecorderFilter(SlowRequestRecorder slowRequestRecorder) {
+        this.slowRequestRecorder = requireNonNull(slowRequestRecorder, "slowRequestRecorder must be provided");
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !slowRequestRecorder.isEnabled();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        final SlowRequestTrace trace = slowRequestRecorder.begin();
+        final ByteCountingResponseWrapper countingResponse = new ByteCountingResponseWrapper(response);
+        try {
+            filterChain.doFilter(request, countingResponse);
+        } finally {
+            String interactionId = request.getHeader(SlowRequestRecorder.FAPI_INTERACTION_ID_HEADER);
+            if (interactionId == null) {
+                interactionId = response.getHeader(SlowRequestRecorder.FAPI_INTERACTION_ID_HEADER);
+            }
+            slowRequestRecorder.end(trace, request.getMethod(), getPath(request), countingResponse.getStatus(), interactionId,
+                                    request.getContentLengthLong(), countingResponse.getBytesWritten());
+        }
+    }
+
+    /**
+     * Uses the handler's path pattern where there is one, so that consent ids are not recorded
+     */
+    private static String getPath(HttpServletRequest request) {
+        final Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : request.getRequestURI();
+    }
+
+    /**
+     * Counts the bytes of the response body written via the output stream, which is used by the message converters.
+     * Falls back to the Content-Length header for responses written via the writer.
+     */
+    private static class ByteCountingResponseWrapper extends HttpServletResponseWrapper {
+
+        private ServletOutputStream outputStream;
+
+        private long bytesWritten;
+
+        ByteCountingResponseWrapper(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                final ServletOutputStream delegate = super.getOutputStream();
+                outputStream = new ServletOutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        delegate.write(b);
+                        bytesWritten++;
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        delegate.write(b, off, len);
+                        bytesWritten += len;
+                    }
+
+                    @Override
+                    public void flush() throws IOException {
+                        delegate.flush();
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        delegate.close();
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return delegate.isReady();
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener writeListener) {
+                        delegate.setWriteListener(writeListener);
+                    }
+                };
+            }
+            return outputStream;
+        }
+
+        long getBytesWritten() {
+            if (bytesWritten == 0) {
+                final String contentLength = getHeader("Content-Length");
+                if (contentLength != null) {
+                    try {
+                        return Long.parseLong(contentLength);
+                    } catch (NumberFormatException e) {
+                        return 0;
+                    }
+                }
+            }
+            return bytesWritten;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.ob.uk.rcs.server.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.forgerock.sapi.gateway.ob.uk.rcs.server.metrics.SlowRequest.UpstreamCall;
+
+/**
+ * Collects the details of a single request for the {@link SlowRequestRecorder}, the trace is bound to the thread
+ * handling the request so that the upstream calls it makes can be added to it.
+ * <p>
+ * Instances are not thread safe, they must only be used by the thread handling the request.
+ */
+final class SlowRequestTrace {
+
+    private static final ThreadLocal<SlowRequestTrace> CURRENT = new ThreadLocal<>();
+
+    private final long startEpochMillis = System.currentTimeMillis();
+
+    private final long startNanos = System.nanoTime();
+
+    private final int maxUpstreamCalls;
+
+    private final List<UpstreamCall> upstreamCalls = new ArrayList<>();
+
+    private int droppedUpstreamCalls;
+
+    private ConsentFlowTimings flowTimings;
+
+    /**
+     * The Mongo command in flight, the sync driver issues one command at a time per thread
+     */
+    private int mongoRequestId = -1;
+
+    private String mongoCollection;
+
+    SlowRequestTrace(int maxUpstreamCalls) {
+        this.maxUpstreamCalls = maxUpstreamCalls;
+    }
+
+    static SlowRequestTrace current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Attaches the stage timings of the consent flow handled by the request in progress on the current thread
+     */
+    static void attachFlowTimings(ConsentFlowTimings flowTimings) {
+        final SlowRequestTrace trace = CURRENT.get();
+        if (trace != null) {
+            trace.flowTimings = flowTimings;
+        }
+    }
+
+    void bind() {
+        CURRENT.set(this);
+    }
+
+    void unbind() {
+        CURRENT.remove();
+    }
+
+    void addUpstreamCall(UpstreamCall upstreamCall) {
+        if (upstreamCalls.size() < maxUpstreamCalls) {
+            upstreamCalls.add(upstreamCall);
+        } else {
+            droppedUpstreamCalls++;
+        }
+    }
+
+    void mongoCommandStarted(int requestId, String collection) {
+        this.mongoRequestId = requestId;
+        this.mongoCollection = collection;
+    }
+
+    String mongoCommandCollection(int requestId) {
+        return requestId == mongoRequestId ? mongoCollection : null;
+    }
+
+    long getStartEpochMillis() {
+        return startEpochMillis;
+    }
+
+    long getElapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    List<UpstreamCall> getUpstreamCalls() {
+        return upstreamCalls;
+    }
+
+    int getDroppedUpstreamCalls() {
+        return droppedUpstreamCalls;
+    }
+
+    ConsentFlowTimings getFlowTimings() {
+        return flowTimings;
+    }
+}
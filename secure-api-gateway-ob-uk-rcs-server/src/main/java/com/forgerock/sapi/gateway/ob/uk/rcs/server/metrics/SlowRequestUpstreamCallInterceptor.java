@@ -0,0 +1,108 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.ob.uk.rcs.server.metrics;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.UriTemplate;
+
+/**
+ * RestTemplate interceptor which adds each call made to the Cloud platform and the RS to the request being traced by
+ * the {@link SlowRequestRecorder}.
+ * <p>
+ * The recorded target never contains ids: a call matching one of the configured URI templates is recorded against the
+ * path of that template, e.g. /repo/users/{userId}, and any other call has each path segment which is not a literal
+ * segment of a configured template replaced with {id}. The query string is never recorded.
+ */
+public class SlowRequestUpstreamCallInterceptor implements ClientHttpRequestInterceptor {
+
+    static final String MASKED_SEGMENT = "{id}";
+
+    private final List<UriTemplate> pathTemplates = new ArrayList<>();
+
+    private final Set<String> literalSegments = new HashSet<>();
+
+    /**
+     * @param uriTemplates the URI templates of the upstream calls, e.g. https://ig/repo/users/{userId}
+     */
+    public SlowRequestUpstreamCallInterceptor(Collection<String> uriTemplates) {
+        requireNonNull(uriTemplates, "uriTemplates must be provided");
+        for (final String uriTemplate : uriTemplates) {
+            final String pathTemplate = UriComponentsBuilder.fromUriString(uriTemplate).build().getPath();
+            if (pathTemplate == null) {
+                continue;
+            }
+            pathTemplates.add(new UriTemplate(pathTemplate));
+            for (final String segment : pathTemplate.split("/")) {
+                if (!segment.contains("{")) {
+                    literalSegments.add(segment);
+                }
+            }
+        }
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+        if (SlowRequestTrace.current() == null) {
+            return execution.execute(request, body);
+        }
+        final long startNanos = System.nanoTime();
+        try {
+            final ClientHttpResponse response = execution.execute(request, body);
+            SlowRequestRecorder.recordUpstreamCall("http", target(request), System.nanoTime() - startNanos,
+                    String.valueOf(response.getStatusCode().value()), body.length, response.getHeaders().getContentLength());
+            return response;
+        } catch (IOException | RuntimeException e) {
+            SlowRequestRecorder.recordUpstreamCall("http", target(request), System.nanoTime() - startNanos,
+                    e.getClass().getSimpleName(), body.length, -1);
+            throw e;
+        }
+    }
+
+    private String target(HttpRequest request) {
+        final URI uri = request.getURI();
+        return request.getMethod() + " " + uri.getScheme() + "://" + uri.getAuthority() + pathTemplate(uri.getRawPath());
+    }
+
+    String pathTemplate(String path) {
+        if (path == null || path.isEmpty()) {
+            return "";
+        }
+        for (final UriTemplate pathTemplate : pathTemplates) {
+            if (pathTemplate.matches(path)) {
+                return pathTemplate.toString();
+            }
+        }
+        return Arrays.stream(path.split("/", -1))
+                     .map(segment -> segment.isEmpty() || literalSegments.contains(segment) ? segment : MASKED_SEGMENT)
+                     .collect(Collectors.joining("/"));
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.ob.uk.rcs.server.tracing;
+
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationFilter;
+
+/**
+ * Adds the x-fapi-interaction-id of the request being handled to every observation made while handling it, so that
+ * the server span and the spans of the upstream calls and Mongo commands can be found by the interaction id the TPP
+ * or PSU reports.
+ * <p>
+ * The interaction id is added as a high cardinality key value, meaning that it becomes a span attribute but is never
+ * used as a metric tag.
+ */
+@Component
+public class FapiInteractionIdObservationFilter implements ObservationFilter {
+
+    static final String FAPI_INTERACTION_ID_HEADER = "x-fapi-interaction-id";
+
+    static final String FAPI_INTERACTION_ID_KEY = "fapi.interaction.id";
+
+    @Override
+    public Observation.Context map(Observation.Context context) {
+        final String interactionId = getInteractionId(context);
+        if (interactionId != null && !interactionId.isBlank()) {
+            context.addHighCardinalityKeyValue(KeyValue.of(FAPI_INTERACTION_ID_KEY, interactionId));
+        }
+        return context;
+    }
+
+    private static String getInteractionId(Observation.Context context) {
+        // The server observation is stopped after the request context has been reset, so use the request it observed
+        if (context instanceof ServerRequestObservationContext serverContext) {
+            final String interactionId = serverContext.getCarrier().getHeader(FAPI_INTERACTION_ID_HEADER);
+            if (interactionId == null && serverContext.getResponse() != null) {
+                return serverContext.getResponse().getHeader(FAPI_INTERACTION_ID_HEADER);
+            }
+            return interactionId;
+        }
+        final RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (requestAttributes instanceof ServletRequestAttributes servletRequestAttributes) {
+            return servletRequestAttributes.getRequest().getHeader(FAPI_INTERACTION_ID_HEADER);
+        }
+        return null;
+    }
+}
@@ -17,7 +17,10 @@ package com.forgerock.sapi.gateway.ob.uk.rcs.server.api.details.payment.file;
 
 import static com.forgerock.sapi.gateway.rcs.consent.store.repo.service.payment.file.DefaultFilePaymentConsentServiceTest.createValidConsentEntity;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -40,7 +43,13 @@ import com.forgerock.sapi.gateway.ob.uk.rcs.cloud.client.exceptions.ExceptionCli
 import com.forgerock.sapi.gateway.ob.uk.rcs.cloud.client.models.ConsentClientDetailsRequest;
 import com.forgerock.sapi.gateway.ob.uk.rcs.server.api.details.payment.BasePaymentConsentDetailsServiceTest;
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.entity.payment.file.FilePaymentConsentEntity;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.exception.ConsentStoreException;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.exception.ConsentStoreException.ErrorType;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.routing.ConsentReadOperation;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.routing.ConsentReadRouting;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.mongo.routing.ConsentReadScope;
 import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.payment.file.FilePaymentConsentService;
+import com.forgerock.sapi.gateway.rcs.consent.store.repo.service.payment.file.FilePaymentConsentStateModel;
 import com.forgerock.sapi.gateway.uk.common.shared.api.meta.share.IntentType;
 import com.nimbusds.jwt.SignedJWT;
 
@@ -53,6 +62,12 @@ class FilePaymentConsentDetailsServiceTest extends BasePaymentConsentDetailsServ
     @Mock
     private FilePaymentConsentService filePaymentConsentService;
 
+    @Mock
+    private ConsentReadRouting consentReadRouting;
+
+    @Mock
+    private ConsentReadScope consentReadScope;
+
     @InjectMocks
     private FilePaymentConsentDetailsService consentDetailsService;
 
@@ -134,4 +149,61 @@ class FilePaymentConsentDetailsServiceTest extends BasePaymentConsentDetailsServ
         assertThat(filePaymentConsentDetails.getDebtorAccount()).isNotNull();
     }
 
+    private void enableReadRouting(String intentId) {
+        consentDetailsService.setConsentReadRouting(consentReadRouting);
+        given(consentReadRouting.isEnabled()).willReturn(Boolean.TRUE);
+        given(consentReadRouting.openScope(any(), eq(intentId))).willReturn(consentReadScope);
+    }
+
+    @Test
+    void consentNotFoundOnSecondaryIsReadFromPrimary() throws ExceptionClient {
+        mockApiClientServiceResponse();
+        mockAccountServiceGetAccountsWithBalanceResponse();
+        mockApiProviderConfigurationGetName();
+
+        final String intentId = IntentType.PAYMENT_FILE_CONSENT.generateIntentId();
+        enableReadRouting(intentId);
+        final FilePaymentConsentEntity consentEntity = createValidConsentEntity(testApiClient.getId());
+        consentEntity.setId(intentId);
+        given(filePaymentConsentService.getConsent(intentId, testApiClient.getId()))
+                .willThrow(new ConsentStoreException(ErrorType.NOT_FOUND, intentId))
+                .willReturn(consentEntity);
+        mockConsentServiceCanAuthorise(filePaymentConsentService);
+
+        final ConsentDetails consentDetails = consentDetailsService.getDetailsFromConsentStore(
+                new ConsentClientDetailsRequest(intentId, null, testUser, testApiClient.getId()));
+
+        assertThat(consentDetails.getConsentId()).isEqualTo(intentId);
+        verify(consentReadRouting).openScope(ConsentReadOperation.DETAILS, intentId);
+        verify(consentReadRouting).openScope(ConsentReadOperation.TRANSITION, intentId);
+    }
+
+    @Test
+    void staleConsentStatusOnSecondaryIsReadFromPrimary() throws ExceptionClient {
+        mockApiClientServiceResponse();
+        mockAccountServiceGetAccountsWithBalanceResponse();
+        mockApiProviderConfigurationGetName();
+
+        final String intentId = IntentType.PAYMENT_FILE_CONSENT.generateIntentId();
+        enableReadRouting(intentId);
+        // The secondary has not yet replicated the file upload made via the RS
+        final FilePaymentConsentEntity secondaryConsent = createValidConsentEntity(testApiClient.getId());
+        secondaryConsent.setId(intentId);
+        secondaryConsent.setStatus(FilePaymentConsentStateModel.AWAITING_UPLOAD);
+        final FilePaymentConsentEntity primaryConsent = createValidConsentEntity(testApiClient.getId());
+        primaryConsent.setId(intentId);
+        primaryConsent.setStatus(FilePaymentConsentStateModel.AWAITING_AUTHORISATION);
+        given(filePaymentConsentService.getConsent(intentId, testApiClient.getId())).willReturn(secondaryConsent, primaryConsent);
+        given(filePaymentConsentService.canTransitionToAuthorisedState(any())).willAnswer(
+                invocation -> FilePaymentConsentStateModel.AWAITING_AUTHORISATION.equals(
+                        invocation.<FilePaymentConsentEntity>getArgument(0).getStatus()));
+
+        final ConsentDetails consentDetails = consentDetailsService.getDetailsFromConsentStore(
+                new ConsentClientDetailsRequest(intentId, null, testUser, testApiClient.getId()));
+
+        assertThat(consentDetails.getConsentId()).isEqualTo(intentId);
+        verify(consentReadRouting).openScope(ConsentReadOperation.DETAILS, intentId);
+        verify(consentReadRouting).openScope(ConsentReadOperation.TRANSITION, intentId);
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,128 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.ob.uk.rcs.server.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import com.forgerock.sapi.gateway.uk.common.shared.api.meta.share.IntentType;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit test for {@link ConsentFlowMetrics} and {@link ConsentFlowTimings}
+ */
+class ConsentFlowMetricsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ConsentFlowMetrics createMetrics(boolean enabled) {
+        return new ConsentFlowMetrics(new StaticListableBeanFactory(Map.of("meterRegistry", meterRegistry)).getBeanProvider(MeterRegistry.class),
+                enabled, true, new long[] {100, 50});
+    }
+
+    @Test
+    void recordsStagesTaggedByIntentTypeAndOutcome() {
+        final ConsentFlowMetrics metrics = createMetrics(true);
+
+        final ConsentFlowTimings timings = metrics.begin(ConsentFlow.DETAILS);
+        assertThat(ConsentFlowTimings.current()).isSameAs(timings);
+        ConsentFlowTimings.timeStage(ConsentFlowStage.JWT_PARSE, () -> "jwt");
+        ConsentFlowTimings.setCurrentIntentType(IntentType.ACCOUNT_ACCESS_CONSENT);
+        assertThrows(IllegalStateException.class, () -> ConsentFlowTimings.runStage(ConsentFlowStage.CONSENT_READ, () -> {
+            throw new IllegalStateException("boom");
+        }));
+        metrics.end(timings, false);
+
+        assertThat(ConsentFlowTimings.current()).isNull();
+        assertThat(stageTimer("jwt_parse", "success").count()).isEqualTo(1);
+        assertThat(stageTimer("consent_read", "failure").count()).isEqualTo(1);
+        assertThat(meterRegistry.find(ConsentFlowMetrics.STAGE_TIMER).tag("stage", "assembly").timer()).isNull();
+        final Timer flowTimer = meterRegistry.get(ConsentFlowMetrics.FLOW_TIMER).tag("flow", "details")
+                                             .tag("intentType", "ACCOUNT_ACCESS_CONSENT").tag("outcome", "failure").timer();
+        assertThat(flowTimer.count()).isEqualTo(1);
+        assertThat(flowTimer.takeSnapshot().histogramCounts()).hasSizeGreaterThanOrEqualTo(2);
+    }
+
+    @Test
+    void nestedStageTimeIsExcludedFromOuterStage() {
+        final AtomicLong nanoTime = new AtomicLong();
+        final ConsentFlowTimings timings = new ConsentFlowTimings(ConsentFlow.DETAILS, nanoTime::get);
+
+        timings.time(ConsentFlowStage.ASSEMBLY, () -> {
+            nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(5));
+            timings.time(ConsentFlowStage.ACCOUNT_FETCH, () -> nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(50)));
+            return nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(2));
+        });
+
+        assertThat(timings.getStageNanos(ConsentFlowStage.ACCOUNT_FETCH)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(50));
+        assertThat(timings.getStageNanos(ConsentFlowStage.ASSEMBLY)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(7));
+        assertThat(timings.getElapsedNanos()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(57));
+        assertThat(timings.isStageExecuted(ConsentFlowStage.USER_LOOKUP)).isFalse();
+    }
+
+    @Test
+    void stagesAreExecutedUntimedWhenDisabled() {
+        final ConsentFlowMetrics metrics = createMetrics(false);
+
+        final ConsentFlowTimings timings = metrics.begin(ConsentFlow.DECISION);
+        assertThat(timings).isNull();
+        assertThat(ConsentFlowTimings.timeStage(ConsentFlowStage.SIGN, () -> "signed")).isEqualTo("signed");
+        metrics.recordDecision(IntentType.PAYMENT_DOMESTIC_CONSENT, true);
+        metrics.end(timings, true);
+
+        assertThat(meterRegistry.getMeters()).isEmpty();
+    }
+
+    @Test
+    void collectsTimingsForServerTimingWhenMetricsDisabled() {
+        final ConsentFlowMetrics metrics = createMetrics(false);
+        metrics.setServerTiming(new ConsentFlowServerTiming(true, ""));
+
+        final ConsentFlowTimings timings = metrics.begin(ConsentFlow.DECISION);
+        ConsentFlowTimings.timeStage(ConsentFlowStage.SIGN, () -> "signed");
+        metrics.end(timings, true);
+
+        assertThat(timings.isStageExecuted(ConsentFlowStage.SIGN)).isTrue();
+        assertThat(meterRegistry.getMeters()).isEmpty();
+    }
+
+    @Test
+    void countsDecisions() {
+        final ConsentFlowMetrics metrics = createMetrics(true);
+
+        metrics.recordDecision(IntentType.PAYMENT_DOMESTIC_CONSENT, true);
+        metrics.recordDecision(IntentType.PAYMENT_DOMESTIC_CONSENT, false);
+        metrics.recordDecision(IntentType.PAYMENT_DOMESTIC_CONSENT, true);
+
+        assertThat(meterRegistry.get(ConsentFlowMetrics.DECISION_COUNTER).tag("decision", "authorised").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get(ConsentFlowMetrics.DECISION_COUNTER).tag("decision", "rejected").counter().count()).isEqualTo(1);
+    }
+
+    private Timer stageTimer(String stage, String outcome) {
+        return meterRegistry.get(ConsentFlowMetrics.STAGE_TIMER).tag("flow", "details").tag("stage", stage)
+                            .tag("intentType", "ACCOUNT_ACCESS_CONSENT").tag("outcome", outcome).timer();
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.ob.uk.rcs.server.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Unit test for {@link ConsentFlowServerTiming}
+ */
+class ConsentFlowServerTimingTest {
+
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @BeforeEach
+    void bindRequest() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest(), response));
+    }
+
+    @AfterEach
+    void unbindRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void addsHeaderWithExecutedStagesAndTotal() {
+        final ConsentFlowTimings timings = new ConsentFlowTimings(ConsentFlow.DECISION);
+        timings.time(ConsentFlowStage.DESERIALISE, () -> "decision");
+        timings.time(ConsentFlowStage.SIGN, () -> "jws");
+
+        new ConsentFlowServerTiming(true, "https://consent-ui.example.com").addHeader(timings);
+
+        final String header = response.getHeader(ConsentFlowServerTiming.SERVER_TIMING_HEADER);
+        assertThat(header).matches("deserialise;dur=\\d+\\.\\d, sign;dur=\\d+\\.\\d, total;dur=\\d+\\.\\d");
+        assertThat(response.getHeader(ConsentFlowServerTiming.TIMING_ALLOW_ORIGIN_HEADER)).isEqualTo("https://consent-ui.example.com");
+    }
+
+    @Test
+    void doesNotAddHeaderWhenDisabled() {
+        new ConsentFlowServerTiming(false, "").addHeader(new ConsentFlowTimings(ConsentFlow.DETAILS));
+
+        assertThat(response.getHeaderNames()).isEmpty();
+    }
+
+    @Test
+    void timingAllowOriginIsOptional() {
+        new ConsentFlowServerTiming(true, "").addHeader(new ConsentFlowTimings(ConsentFlow.DETAILS));
+
+        assertThat(response.getHeader(ConsentFlowServerTiming.SERVER_TIMING_HEADER)).startsWith("total;dur=");
+        assertThat(response.containsHeader(ConsentFlowServerTiming.TIMING_ALLOW_ORIGIN_HEADER)).isFalse();
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.ob.uk.rcs.server.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.forgerock.sapi.gateway.uk.common.shared.api.meta.share.IntentType;
+
+/**
+ * Unit test for {@link SlowRequestRecorder}
+ */
+class SlowRequestRecorderTest {
+
+    @Test
+    void recordsRequestWithStageTimingsAndUpstreamCalls() {
+        final SlowRequestRecorder recorder = new SlowRequestRecorder(true, 0, 10, 2);
+
+        final SlowRequestTrace trace = recorder.begin();
+        final ConsentFlowTimings timings = new ConsentFlowTimings(ConsentFlow.DETAILS);
+        timings.bind();
+        ConsentFlowTimings.timeStage(ConsentFlowStage.CONSENT_READ, () -> "consent");
+        ConsentFlowTimings.setCurrentIntentType(IntentType.PAYMENT_DOMESTIC_CONSENT);
+        timings.unbind();
+        SlowRequestTrace.attachFlowTimings(timings);
+        SlowRequestRecorder.recordUpstreamCall("http", "GET http://ig:80/repo/users/psu", 2_000_000, "200", 0, 120);
+        SlowRequestRecorder.recordUpstreamCall("mongo", "find DomesticPaymentConsent", 1_000_000, "success", -1, -1);
+        SlowRequestRecorder.recordUpstreamCall("http", "GET http://ig:80/repo/apiclients/tpp", 1_000_000, "200", 0, 80);
+        recorder.end(trace, "POST", "/rcs/api/consent/details", 200, "interaction-1", 1024, 2048);
+
+        assertThat(SlowRequestTrace.current()).isNull();
+        final List<SlowRequest> slowRequests = recorder.getSlowRequests();
+        assertThat(slowRequests).hasSize(1);
+        final SlowRequest slowRequest = slowRequests.get(0);
+        assertThat(slowRequest.path()).isEqualTo("/rcs/api/consent/details");
+        assertThat(slowRequest.interactionId()).isEqualTo("interaction-1");
+        assertThat(slowRequest.requestBytes()).isEqualTo(1024);
+        assertThat(slowRequest.responseBytes()).isEqualTo(2048);
+        assertThat(slowRequest.flow()).isEqualTo("details");
+        assertThat(slowRequest.intentType()).isEqualTo(IntentType.PAYMENT_DOMESTIC_CONSENT.name());
+        assertThat(slowRequest.stageMillis()).containsOnlyKeys("consent_read");
+        assertThat(slowRequest.upstreamCalls()).extracting(SlowRequest.UpstreamCall::target)
+                                               .containsExactly("GET http://ig:80/repo/users/psu", "find DomesticPaymentConsent");
+        assertThat(slowRequest.upstreamCalls().get(0).durationMillis()).isEqualTo(2.0);
+        assertThat(slowRequest.droppedUpstreamCalls()).isEqualTo(1);
+    }
+
+    @Test
+    void doesNotRecordRequestsFasterThanThreshold() {
+        final SlowRequestRecorder recorder = new SlowRequestRecorder(true, 60_000, 10, 10);
+
+        final SlowRequestTrace trace = recorder.begin();
+        recorder.end(trace, "GET", "/actuator/health", 200, null, -1, 20);
+
+        assertThat(recorder.getSlowRequests()).isEmpty();
+    }
+
+    @Test
+    void overwritesOldestRequestsWhenFull() {
+        final SlowRequestRecorder recorder = new SlowRequestRecorder(true, 0, 3, 10);
+
+        for (int i = 1; i <= 5; i++) {
+            recorder.record(slowRequest(i));
+        }
+
+        assertThat(recorder.getSlowRequests()).extracting(SlowRequest::durationMillis).containsExactly(5.0, 4.0, 3.0);
+
+        recorder.clear();
+        assertThat(recorder.getSlowRequests()).isEmpty();
+    }
+
+    @Test
+    void upstreamCallsAreIgnoredWhenNoRequestIsTraced() {
+        SlowRequestRecorder.recordUpstreamCall("http", "GET http://rs/backoffice/accounts", 1_000_000, "200", 0, 10);
+
+        assertThat(SlowRequestTrace.current()).isNull();
+    }
+
+    private static SlowRequest slowRequest(int durationMillis) {
+        return new SlowRequest(Instant.now(), durationMillis, "GET", "/path", 200, null, -1, 0, null, null, Map.of(), List.of(), 0);
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.ob.uk.rcs.server.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit test for {@link SlowRequestUpstreamCallInterceptor}
+ */
+class SlowRequestUpstreamCallInterceptorTest {
+
+    private final SlowRequestUpstreamCallInterceptor interceptor = new SlowRequestUpstreamCallInterceptor(List.of(
+            "https://ig:443/openidm/repo/apiclients/{apiClientId}",
+            "https://ig:443/openidm/repo/users/{userId}",
+            "http://rs:8080/backoffice/accounts/search/findByUserId"));
+
+    @Test
+    void recordsUriTemplateOfConfiguredCalls() {
+        assertThat(interceptor.pathTemplate("/openidm/repo/users/psu4test")).isEqualTo("/openidm/repo/users/{userId}");
+        assertThat(interceptor.pathTemplate("/openidm/repo/apiclients/9d2c8f4e-e1a4-4a7b-8a6e-2b4b7c5d1e2f"))
+                .isEqualTo("/openidm/repo/apiclients/{apiClientId}");
+        assertThat(interceptor.pathTemplate("/backoffice/accounts/search/findByUserId"))
+                .isEqualTo("/backoffice/accounts/search/findByUserId");
+    }
+
+    @Test
+    void masksSegmentsWhichAreNotLiteralsOfConfiguredTemplates() {
+        assertThat(interceptor.pathTemplate("/openidm/repo/managed/johnsmith"))
+                .isEqualTo("/openidm/repo/{id}/{id}");
+        assertThat(interceptor.pathTemplate("/backoffice/accounts/acc-123/"))
+                .isEqualTo("/backoffice/accounts/{id}/");
+        assertThat(interceptor.pathTemplate("")).isEmpty();
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright © 2020-2024 ForgeRock AS (obst@forgerock.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.forgerock.sapi.gateway.ob.uk.rcs.server.tracing;
+
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import com.forgerock.sapi.gateway.ob.uk.rcs.server.RCSServerApplicationTestSupport;
+import com.forgerock.sapi.gateway.ob.uk.rcs.server.testsupport.JwtTestHelper;
+import com.forgerock.sapi.gateway.uk.common.shared.api.meta.share.IntentType;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+
+/**
+ * Tests that the consent flows are traced across the upstream calls and Mongo commands they make, using an in-memory
+ * span exporter.
+ */
+@ActiveProfiles("test")
+@AutoConfigureObservability(metrics = false)
+@SpringBootTest(classes = RCSServerApplicationTestSupport.class, webEnvironment = RANDOM_PORT,
+        properties = {"management.tracing.enabled=true", "consent.store.mongo.tracing.enabled=true"})
+@Import(ConsentFlowTracingTest.InMemorySpanExporterConfiguration.class)
+@DirtiesContext
+class ConsentFlowTracingTest {
+
+    @TestConfiguration
+    static class InMemorySpanExporterConfiguration {
+        @Bean
+        InMemorySpanExporter inMemorySpanExporter() {
+            return InMemorySpanExporter.create();
+        }
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate testRestTemplate;
+
+    @Autowired
+    private RestTemplate restTemplate;
+
+    @Autowired
+    private InMemorySpanExporter spanExporter;
+
+    @Autowired
+    private SdkTracerProvider sdkTracerProvider;
+
+    @Test
+    void consentDetailsRequestIsTracedAcrossUpstreamCalls() {
+        final MockRestServiceServer cloudPlatform = MockRestServiceServer.bindTo(restTemplate).build();
+        cloudPlatform.expect(requestTo(containsString("/repo/users/psu4test")))
+                     .andRespond(withSuccess("{\"id\":\"psu4test\",\"userName\":\"psu4test\"}", APPLICATION_JSON));
+
+        // The consent does not exist, the request fails after reading from the Consent Store
+        final String intentId = IntentType.ACCOUNT_ACCESS_CONSENT.generateIntentId();
+        final String interactionId = UUID.randomUUID().toString();
+        final HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(singletonList(APPLICATION_JSON));
+        headers.setContentType(APPLICATION_JSON);
+        headers.add(FapiInteractionIdObservationFilter.FAPI_INTERACTION_ID_HEADER, interactionId);
+        testRestTemplate.postForEntity("http://localhost:" + port + "/rcs/api/consent/details",
+                new HttpEntity<>(JwtTestHelper.consentRequestJwt("test-api-client", intentId, "psu4test"), headers), String.class);
+        cloudPlatform.verify();
+
+        sdkTracerProvider.forceFlush().join(10, TimeUnit.SECONDS);
+        final List<SpanData> spans = spanExporter.getFinishedSpanItems();
+
+        final SpanData serverSpan = spans.stream().filter(span -> span.getKind() == SpanKind.SERVER)
+                                         .filter(span -> span.getName().contains("/rcs/api/consent/details"))
+                                         .findFirst().orElseThrow();
+        assertThat(serverSpan.getAttributes().get(AttributeKey.stringKey("rcs.intent.type"))).isEqualTo(IntentType.ACCOUNT_ACCESS_CONSENT.name());
+        assertThat(serverSpan.getAttributes().get(AttributeKey.stringKey(FapiInteractionIdObservationFilter.FAPI_INTERACTION_ID_KEY))).isEqualTo(interactionId);
+
+        final List<SpanData> childSpans = spans.stream().filter(span -> span.getTraceId().equals(serverSpan.getTraceId()))
+                                               .filter(span -> span.getKind() == SpanKind.CLIENT).toList();
+        // RestTemplate call to the Cloud platform user endpoint
+        assertThat(childSpans).anySatisfy(span -> assertThat(span.getAttributes().get(AttributeKey.stringKey("http.url"))).contains("/repo/users/psu4test"));
+        // Consent Store read
+        assertThat(childSpans).anySatisfy(span -> assertThat(span.getAttributes().get(AttributeKey.stringKey("db.system"))).isEqualTo("mongodb"));
+        assertThat(childSpans).allSatisfy(span -> assertThat(span.getAttributes().get(AttributeKey.stringKey(FapiInteractionIdObservationFilter.FAPI_INTERACTION_ID_KEY))).isEqualTo(interactionId));
+    }
+}